@@ -0,0 +1,79 @@
+/**
+ *
+ */
+package com.jug.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jug.util.filteredcomponents.FilteredComponentTree;
+import com.jug.util.filteredcomponents.FilteredComponentTree.MaxGrowthPerStep;
+import com.jug.util.filteredcomponents.IntervalComponentTree;
+
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.numeric.real.FloatType;
+
+/**
+ * Benchmarks <code>IntervalComponentTree.buildComponentTree</code> (used in
+ * <code>GrowthLineFrame.buildIntensityTree</code>) against the pixel list based
+ * <code>FilteredComponentTree.buildComponentTree</code> on the gap separation
+ * function of one growth line frame, with the same parameters.
+ *
+ * @author jug
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 10, time = 1 )
+@Fork( 1 )
+public class ComponentTreeBenchmark {
+
+	@Param( { "450", "900" } )
+	public int height;
+
+	private float[] fkt;
+	private Img< FloatType > gapSepFkt;
+	private int minCellLength;
+
+	@Setup
+	public void setup() {
+		final SyntheticMotherMachine mm = new SyntheticMotherMachine( 1, height, 4 );
+		fkt = mm.createGrowthLineFrame( 0, 2 ).getSimpleGapSeparationValues( mm.createStack() );
+		gapSepFkt = ArrayImgs.floats( fkt, fkt.length );
+		minCellLength = mm.getContext().getConfig().MIN_CELL_LENGTH;
+	}
+
+	@Benchmark
+	public FilteredComponentTree< FloatType > buildComponentTree() {
+		return FilteredComponentTree.buildComponentTree(
+				gapSepFkt,
+				new FloatType(),
+				minCellLength,
+				Long.MAX_VALUE,
+				new MaxGrowthPerStep( 1000 ),
+				true );
+	}
+
+	@Benchmark
+	public IntervalComponentTree buildIntervalComponentTree() {
+		return IntervalComponentTree.buildComponentTree(
+				fkt,
+				minCellLength,
+				Long.MAX_VALUE,
+				new MaxGrowthPerStep( 1000 ),
+				true );
+	}
+}
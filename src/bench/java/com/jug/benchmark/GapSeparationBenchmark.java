@@ -0,0 +1,59 @@
+/**
+ *
+ */
+package com.jug.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jug.GrowthLineFrame;
+
+import net.imglib2.img.Img;
+import net.imglib2.type.numeric.real.FloatType;
+
+/**
+ * Benchmarks <code>AbstractGrowthLineFrame.getSimpleGapSeparationValues</code>
+ * on one growth line frame of a synthetic stack.
+ * The values are cached inside each <code>GrowthLineFrame</code>, so every
+ * invocation works on a freshly created frame (creating it only adds one
+ * center point per pixel row to a list).
+ *
+ * @author jug
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 10, time = 1 )
+@Fork( 1 )
+public class GapSeparationBenchmark {
+
+	@Param( { "450", "900" } )
+	public int height;
+
+	private SyntheticMotherMachine mm;
+	private Img< FloatType > img;
+
+	@Setup
+	public void setup() {
+		mm = new SyntheticMotherMachine( 1, height, 4 );
+		img = mm.createStack();
+	}
+
+	@Benchmark
+	public float[] simpleGapSeparationValues() {
+		final GrowthLineFrame glf = mm.createGrowthLineFrame( 0, 2 );
+		return glf.getSimpleGapSeparationValues( img );
+	}
+}
@@ -0,0 +1,80 @@
+/**
+ *
+ */
+package com.jug.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jug.GrowthLineFrame;
+import com.jug.MoMAConfig;
+import com.jug.lp.costs.CostFactory;
+
+import net.imglib2.algorithm.componenttree.Component;
+import net.imglib2.type.numeric.real.FloatType;
+
+/**
+ * Benchmarks <code>CostFactory.getIntensitySegmentationCost</code> for all
+ * nodes of the component tree of one growth line frame (which is what
+ * creating the segmentation hypotheses of one frame costs).
+ *
+ * @author jug
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 10, time = 1 )
+@Fork( 1 )
+public class SegmentationCostBenchmark {
+
+	@Param( { "450", "900" } )
+	public int height;
+
+	private float[] gapSepFkt;
+	private MoMAConfig config;
+	private final List< Component< FloatType, ? > > nodes = new ArrayList< Component< FloatType, ? > >();
+
+	@Setup
+	public void setup() {
+		final SyntheticMotherMachine mm = new SyntheticMotherMachine( 1, height, 4 );
+		final GrowthLineFrame glf = mm.createGrowthLineFrame( 0, 2 );
+		glf.generateSimpleSegmentationHypotheses( mm.createStack() );
+		gapSepFkt = glf.getSimpleGapSeparationValues( null );
+		config = glf.getConfig();
+
+		nodes.clear();
+		for ( final Component< FloatType, ? > root : glf.getComponentTree().roots() ) {
+			addRecursively( root );
+		}
+	}
+
+	private void addRecursively( final Component< FloatType, ? > node ) {
+		nodes.add( node );
+		for ( final Component< FloatType, ? > child : node.getChildren() ) {
+			addRecursively( child );
+		}
+	}
+
+	@Benchmark
+	public float intensitySegmentationCosts() {
+		float sum = 0f;
+		for ( final Component< FloatType, ? > node : nodes ) {
+			sum += CostFactory.getIntensitySegmentationCost( node, gapSepFkt, config );
+		}
+		return sum;
+	}
+}
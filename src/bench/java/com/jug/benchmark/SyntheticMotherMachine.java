@@ -0,0 +1,333 @@
+/**
+ *
+ */
+package com.jug.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.jug.GrowthLine;
+import com.jug.GrowthLineFrame;
+import com.jug.MoMA;
+import com.jug.MoMAConfig;
+import com.jug.MoMAContext;
+
+import ij.IJ;
+import ij.ImagePlus;
+import ij.ImageStack;
+import ij.process.FloatProcessor;
+import net.imglib2.Point;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.FloatArray;
+import net.imglib2.type.numeric.real.FloatType;
+
+/**
+ * Deterministic generator of synthetic mother machine data (x,y,t), used as
+ * input of the benchmarks.
+ * The stack contains <code>numGrowthLines</code> vertical growth lines
+ * (bright channels on a medium gray background). Each growth line is filled
+ * with dark, rod shaped cells that grow exponentially, divide once they
+ * reach their (randomly drawn) division length and are pushed out at the top
+ * of the channel, just like in a phase contrast mother machine movie.
+ * Gaussian noise is added on top.
+ *
+ * All randomness comes from a <code>Random</code> seeded with the given
+ * seed, hence the same parameters always produce the same pixels (and the
+ * same number of cells), which is what makes benchmark results comparable
+ * between versions.
+ *
+ * @author jug
+ */
+public class SyntheticMotherMachine {
+
+	public static final long DEFAULT_SEED = 4711;
+
+	private static final int GL_SPACING = 48;
+	private static final int CHANNEL_WIDTH = 16;
+	private static final int CELL_WIDTH = 12;
+	private static final int CELL_GAP = 4;
+	private static final int CHANNEL_TOP = 20;
+	private static final int CHANNEL_BOTTOM_MARGIN = 10;
+
+	private static final float BACKGROUND = 0.5f;
+	private static final float CHANNEL = 0.9f;
+	private static final float CELL = 0.2f;
+	private static final float NOISE_SIGMA = 0.02f;
+
+	private final int numGrowthLines;
+	private final int height;
+	private final int numFrames;
+	private final long seed;
+
+	/**
+	 * Per frame and growth line: the cells as (upper, lower) pixel rows.
+	 */
+	private final List< List< int[][] > > cellsPerFrame;
+
+	/**
+	 * The (default) MoMA run the growth lines created here belong to.
+	 */
+	private final MoMAContext context = new MoMAContext( new MoMAConfig() );
+
+	public SyntheticMotherMachine( final int numGrowthLines, final int height, final int numFrames ) {
+		this( numGrowthLines, height, numFrames, DEFAULT_SEED );
+	}
+
+	public SyntheticMotherMachine( final int numGrowthLines, final int height, final int numFrames, final long seed ) {
+		this.numGrowthLines = numGrowthLines;
+		this.height = height;
+		this.numFrames = numFrames;
+		this.seed = seed;
+		this.cellsPerFrame = simulateCells();
+	}
+
+	public MoMAContext getContext() {
+		return context;
+	}
+
+	public int getWidth() {
+		return numGrowthLines * GL_SPACING;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getNumFrames() {
+		return numFrames;
+	}
+
+	public int getNumGrowthLines() {
+		return numGrowthLines;
+	}
+
+	/**
+	 * @return the x-coordinate of the center of growth line <code>gl</code>.
+	 */
+	public int getGrowthLineCenterX( final int gl ) {
+		return GL_SPACING / 2 + gl * GL_SPACING;
+	}
+
+	/**
+	 * @return the first and last pixel row covered by the growth line center
+	 *         points.
+	 */
+	public int getGrowthLineTop() {
+		return CHANNEL_TOP;
+	}
+
+	public int getGrowthLineBottom() {
+		return height - 1 - CHANNEL_BOTTOM_MARGIN;
+	}
+
+	/**
+	 * @return the number of cells visible in growth line <code>gl</code> at
+	 *         frame <code>t</code>.
+	 */
+	public int getNumCells( final int gl, final int t ) {
+		return cellsPerFrame.get( t ).get( gl ).length;
+	}
+
+	/**
+	 * Simulates growth and division of the cells in all growth lines.
+	 * Cells are stacked from the bottom of the channel (mother cell) upwards,
+	 * cells pushed above the channel top are lost.
+	 */
+	private List< List< int[][] > > simulateCells() {
+		final Random random = new Random( seed );
+		final int bottom = getGrowthLineBottom();
+
+		final List< List< int[][] > > ret = new ArrayList< List< int[][] > >();
+		for ( int t = 0; t < numFrames; t++ ) {
+			ret.add( new ArrayList< int[][] >() );
+		}
+
+		for ( int gl = 0; gl < numGrowthLines; gl++ ) {
+			// per cell: { length, division length, growth rate } -- mother first
+			final List< float[] > cells = new ArrayList< float[] >();
+			int y = bottom;
+			while ( y > CHANNEL_TOP ) {
+				final float[] cell = newCell( random );
+				cell[ 0 ] = cell[ 1 ] * ( 0.5f + 0.5f * random.nextFloat() );
+				cells.add( cell );
+				y -= ( int ) cell[ 0 ] + CELL_GAP;
+			}
+
+			for ( int t = 0; t < numFrames; t++ ) {
+				// place cells, drop the ones that left the channel
+				final List< int[] > placed = new ArrayList< int[] >();
+				y = bottom;
+				int i = 0;
+				for ( ; i < cells.size() && y > CHANNEL_TOP; i++ ) {
+					final int upper = y - ( int ) cells.get( i )[ 0 ] + 1;
+					placed.add( new int[] { Math.max( CHANNEL_TOP, upper ), y } );
+					y = upper - 1 - CELL_GAP;
+				}
+				while ( cells.size() > i ) {
+					cells.remove( cells.size() - 1 );
+				}
+				ret.get( t ).add( placed.toArray( new int[ placed.size() ][] ) );
+
+				// grow and divide
+				for ( int c = cells.size() - 1; c >= 0; c-- ) {
+					final float[] cell = cells.get( c );
+					cell[ 0 ] *= 1f + cell[ 2 ];
+					if ( cell[ 0 ] >= cell[ 1 ] ) {
+						final float[] upperDaughter = newCell( random );
+						final float[] lowerDaughter = newCell( random );
+						upperDaughter[ 0 ] = ( cell[ 0 ] - CELL_GAP ) / 2;
+						lowerDaughter[ 0 ] = ( cell[ 0 ] - CELL_GAP ) / 2;
+						cells.set( c, lowerDaughter );
+						cells.add( c + 1, upperDaughter );
+					}
+				}
+			}
+		}
+		return ret;
+	}
+
+	private static float[] newCell( final Random random ) {
+		final float divisionLength = 44f + 12f * random.nextFloat();
+		final float growthRate = 0.03f + 0.02f * random.nextFloat();
+		return new float[] { 0f, divisionLength, growthRate };
+	}
+
+	/**
+	 * Renders the whole stack.
+	 *
+	 * @return a 3d image (x,y,t) with values in [0,1].
+	 */
+	public Img< FloatType > createStack() {
+		final int width = getWidth();
+		final int planeSize = width * height;
+		final ArrayImg< FloatType, FloatArray > img = ArrayImgs.floats( width, height, numFrames );
+		final float[] data = img.update( null ).getCurrentStorageArray();
+		final float[] plane = new float[ planeSize ];
+		for ( int t = 0; t < numFrames; t++ ) {
+			renderFrame( t, plane );
+			System.arraycopy( plane, 0, data, t * planeSize, planeSize );
+		}
+		return img;
+	}
+
+	/**
+	 * Renders frame <code>t</code> into <code>plane</code> (row-major, of
+	 * size <code>getWidth() * getHeight()</code>).
+	 */
+	public void renderFrame( final int t, final float[] plane ) {
+		final int width = getWidth();
+		final float r = CELL_WIDTH / 2f;
+
+		for ( int y = 0; y < height; y++ ) {
+			for ( int x = 0; x < width; x++ ) {
+				plane[ y * width + x ] = BACKGROUND;
+			}
+		}
+
+		for ( int gl = 0; gl < numGrowthLines; gl++ ) {
+			final int cx = getGrowthLineCenterX( gl );
+			for ( int y = CHANNEL_TOP; y <= getGrowthLineBottom(); y++ ) {
+				for ( int x = cx - CHANNEL_WIDTH / 2; x < cx + CHANNEL_WIDTH / 2; x++ ) {
+					plane[ y * width + x ] = CHANNEL;
+				}
+			}
+
+			// rods with rounded caps
+			for ( final int[] cell : cellsPerFrame.get( t ).get( gl ) ) {
+				final float capTop = cell[ 0 ] + r;
+				final float capBottom = cell[ 1 ] - r;
+				for ( int y = cell[ 0 ]; y <= cell[ 1 ]; y++ ) {
+					for ( int x = cx - CELL_WIDTH / 2; x < cx + CELL_WIDTH / 2; x++ ) {
+						final float dx = x + 0.5f - cx;
+						final float dy = ( y < capTop ) ? capTop - y : ( ( y > capBottom ) ? y - capBottom : 0f );
+						if ( dx * dx + dy * dy <= r * r ) {
+							plane[ y * width + x ] = CELL;
+						}
+					}
+				}
+			}
+		}
+
+		// noise (seeded per frame, such that single frames can be re-rendered)
+		final Random random = new Random( seed * 31 + t );
+		for ( int i = 0; i < plane.length; i++ ) {
+			final float v = plane[ i ] + NOISE_SIGMA * ( float ) random.nextGaussian();
+			plane[ i ] = Math.max( 0f, Math.min( 1f, v ) );
+		}
+	}
+
+	/**
+	 * Creates the <code>GrowthLineFrame</code> of growth line <code>gl</code>
+	 * at frame <code>t</code>, with center points as found by
+	 * <code>MoMA.findGrowthLines()</code>.
+	 */
+	public GrowthLineFrame createGrowthLineFrame( final int gl, final int t ) {
+		final GrowthLineFrame glf = new GrowthLineFrame( context );
+		final Point p = new Point( 3 );
+		p.setPosition( getGrowthLineCenterX( gl ), 0 );
+		p.setPosition( t, 2 );
+		for ( int y = getGrowthLineTop(); y <= getGrowthLineBottom(); y++ ) {
+			p.setPosition( y, 1 );
+			glf.addPoint( new Point( p ) );
+		}
+		return glf;
+	}
+
+	/**
+	 * Creates growth line <code>gl</code> over all frames. Segmentation
+	 * hypotheses are not yet generated.
+	 */
+	public GrowthLine createGrowthLine( final int gl ) {
+		final GrowthLine ret = new GrowthLine( context );
+		for ( int t = 0; t < numFrames; t++ ) {
+			ret.add( createGrowthLineFrame( gl, t ) );
+		}
+		return ret;
+	}
+
+	/**
+	 * Creates growth line <code>gl</code> and generates the segmentation
+	 * hypotheses of all its frames on <code>img</code>.
+	 */
+	public GrowthLine createSegmentedGrowthLine( final int gl, final Img< FloatType > img ) {
+		final GrowthLine ret = createGrowthLine( gl );
+		for ( final GrowthLineFrame glf : ret.getFrames() ) {
+			glf.generateSimpleSegmentationHypotheses( img );
+		}
+		return ret;
+	}
+
+	/**
+	 * Writes the stack as 32-bit TIFF (frames as slices).
+	 */
+	public void writeTiff( final File file ) {
+		final ImageStack stack = new ImageStack( getWidth(), height );
+		for ( int t = 0; t < numFrames; t++ ) {
+			final float[] plane = new float[ getWidth() * height ];
+			renderFrame( t, plane );
+			stack.addSlice( "t" + t, new FloatProcessor( getWidth(), height, plane ) );
+		}
+		final ImagePlus imp = new ImagePlus( "synthetic mother machine", stack );
+		imp.setDimensions( 1, 1, numFrames );
+		IJ.saveAsTiff( imp, file.getAbsolutePath() );
+	}
+
+	/**
+	 * Gives the run of this mother machine a MoMA instance holding
+	 * <code>img</code> as <code>imgTemp</code> (which is where the tracking
+	 * ILP looks up the gap separation values), and makes MoMA headless and use
+	 * the Java ILP solver.
+	 */
+	public void installMoMAInstance( final Img< FloatType > img ) {
+		MoMA.HEADLESS = true;
+		context.getConfig().ILP_SOLVER = MoMA.ILP_SOLVER_JAVA;
+		if ( context.getMoMA() == null ) {
+			new MoMA( context );
+		}
+		context.getMoMA().setImgTemp( img );
+	}
+}
@@ -0,0 +1,64 @@
+/**
+ *
+ */
+package com.jug.benchmark;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jug.util.FloatTypeImgLoader;
+
+import net.imglib2.img.Img;
+import net.imglib2.type.numeric.real.FloatType;
+
+/**
+ * Benchmarks <code>FloatTypeImgLoader.loadTiffsFromFileOrFolder</code> on a
+ * synthetic stack written to a temporary TIFF file.
+ *
+ * @author jug
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class TiffLoadingBenchmark {
+
+	@Param( { "50", "200" } )
+	public int numFrames;
+
+	private File file;
+
+	@Setup
+	public void setup() throws IOException {
+		file = File.createTempFile( "moma-benchmark-", ".tif" );
+		new SyntheticMotherMachine( 6, 450, numFrames ).writeTiff( file );
+	}
+
+	@TearDown
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Benchmark
+	public ArrayList< Img< FloatType > > loadTiff() throws FileNotFoundException {
+		return FloatTypeImgLoader.loadTiffsFromFileOrFolder( file.getAbsolutePath(), -1, -1, 1, 1 );
+	}
+}
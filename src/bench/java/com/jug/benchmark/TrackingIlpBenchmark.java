@@ -0,0 +1,63 @@
+/**
+ *
+ */
+package com.jug.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jug.GrowthLine;
+import com.jug.lp.GrowthLineTrackingILP;
+
+import net.imglib2.img.Img;
+import net.imglib2.type.numeric.real.FloatType;
+
+/**
+ * Benchmarks the construction of the tracking ILP of one growth line
+ * (hypotheses, exit/mapping/division assignments and all constraints, see
+ * <code>GrowthLineTrackingILP.buildILP()</code>). The Java solver model is
+ * used, so no Gurobi license is needed; the ILP is not solved.
+ *
+ * @author jug
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class TrackingIlpBenchmark {
+
+	@Param( { "20", "80" } )
+	public int numFrames;
+
+	private GrowthLine gl;
+
+	@Setup
+	public void setup() {
+		final SyntheticMotherMachine mm = new SyntheticMotherMachine( 1, 450, numFrames );
+		final Img< FloatType > img = mm.createStack();
+		mm.installMoMAInstance( img );
+		gl = mm.createSegmentedGrowthLine( 0, img );
+	}
+
+	@Benchmark
+	public GrowthLineTrackingILP buildILP() {
+		// the cost manager is shared by the run and would otherwise grow with every invocation
+		gl.getContext().resetCostManager();
+		final GrowthLineTrackingILP ilp = new GrowthLineTrackingILP( gl );
+		ilp.buildILP();
+		return ilp;
+	}
+}
@@ -0,0 +1,106 @@
+/**
+ *
+ */
+package com.jug.export;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jug.GrowthLine;
+import com.jug.MoMAConfig;
+import com.jug.benchmark.SyntheticMotherMachine;
+import com.jug.export.CellStatsExporter.SegmentRecord;
+import com.jug.lp.GrowthLineTrackingILP;
+import com.jug.lp.Hypothesis;
+import com.jug.util.Util;
+
+import net.imglib2.IterableInterval;
+import net.imglib2.algorithm.componenttree.Component;
+import net.imglib2.img.Img;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.view.IntervalView;
+import net.imglib2.view.Views;
+
+/**
+ * Benchmarks the per-segment data assembly of the
+ * <code>CellStatsExporter</code> (segment boxes, min/max, histograms,
+ * percentiles and column intensities), done for all segmentation hypotheses
+ * of one growth line.
+ * The export itself needs a running GUI (and a solved ILP), which is why
+ * this benchmark lives in the exporter's package and drives the
+ * <code>SegmentRecord</code> methods directly.
+ *
+ * @author jug
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class CellStatsAssemblyBenchmark {
+
+	private Img< FloatType > img;
+	private int glCenterX;
+	private MoMAConfig config;
+	private SegmentRecord record;
+	private final List< Integer > frames = new ArrayList< Integer >();
+	private final List< Hypothesis< Component< FloatType, ? > > > segments = new ArrayList< Hypothesis< Component< FloatType, ? > > >();
+
+	@Setup
+	public void setup() {
+		final SyntheticMotherMachine mm = new SyntheticMotherMachine( 1, 450, 20 );
+		img = mm.createStack();
+		glCenterX = mm.getGrowthLineCenterX( 0 );
+		config = mm.getContext().getConfig();
+		mm.installMoMAInstance( img );
+
+		final GrowthLine gl = mm.createSegmentedGrowthLine( 0, img );
+		final GrowthLineTrackingILP ilp = new GrowthLineTrackingILP( gl );
+		ilp.buildILP();
+
+		frames.clear();
+		segments.clear();
+		for ( int t = 0; t < gl.size(); t++ ) {
+			for ( final Hypothesis< Component< FloatType, ? > > hyp : ilp.nodes.getHypothesesAt( t ) ) {
+				frames.add( t );
+				segments.add( hyp );
+			}
+		}
+		record = new CellStatsExporter( null, mm.getContext().getMoMA() ).new SegmentRecord( segments.get( 0 ), 0, -1, -1, 1 );
+	}
+
+	@Benchmark
+	public float assembleSegmentStats() {
+		float checksum = 0f;
+		for ( int i = 0; i < segments.size(); i++ ) {
+			final Hypothesis< Component< FloatType, ? > > hyp = segments.get( i );
+			final IntervalView< FloatType > channelFrame = Views.hyperSlice( img, 2, frames.get( i ) );
+			final IterableInterval< FloatType > segmentBoxInChannel = Util.getSegmentBoxInImg( channelFrame, hyp, glCenterX, config );
+
+			final FloatType min = new FloatType();
+			final FloatType max = new FloatType();
+			Util.computeMinMax( segmentBoxInChannel, min, max );
+
+			final long[] hist = record.computeChannelHistogram( segmentBoxInChannel, min.get(), max.get() );
+			final float[] percentile = record.computeChannelPercentile( segmentBoxInChannel );
+			final IntervalView< FloatType > columnBoxInChannel = Util.getColumnBoxInImg( channelFrame, hyp, glCenterX, config );
+			final float[] columnIntensities = record.computeChannelColumnIntensities( columnBoxInChannel );
+
+			checksum += hist[ 0 ] + percentile[ 0 ] + columnIntensities[ 0 ];
+		}
+		return checksum;
+	}
+}
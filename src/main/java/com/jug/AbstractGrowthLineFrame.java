@@ -21,20 +21,17 @@ import com.jug.lp.Hypothesis;
 import com.jug.lp.MappingAssignment;
 import com.jug.util.ArgbDrawingUtils;
 import com.jug.util.SimpleFunctionAnalysis;
+import com.jug.util.TiltedLineAverages;
 import com.jug.util.Util;
-import com.jug.util.filteredcomponents.FilteredComponent;
+import com.jug.util.filteredcomponents.ExtendableComponent;
 
 import net.imglib2.Localizable;
 import net.imglib2.Point;
 import net.imglib2.RandomAccess;
 import net.imglib2.RandomAccessibleInterval;
-import net.imglib2.RealRandomAccess;
-import net.imglib2.RealRandomAccessible;
 import net.imglib2.algorithm.componenttree.Component;
 import net.imglib2.algorithm.componenttree.ComponentForest;
 import net.imglib2.img.Img;
-import net.imglib2.img.array.ArrayImgFactory;
-import net.imglib2.interpolation.randomaccess.NLinearInterpolatorFactory;
 import net.imglib2.type.Type;
 import net.imglib2.type.numeric.ARGBType;
 import net.imglib2.type.numeric.integer.LongType;
@@ -63,11 +60,11 @@ public abstract class AbstractGrowthLineFrame< C extends Component< FloatType, C
 		@Override
 		public int compare( final Component< T, ? > o1, final Component< T, ? > o2 ) {
 
-			// FilteredComponent
-			if ( false || o1 instanceof FilteredComponent< ? > && o2 instanceof FilteredComponent< ? > ) { // igitt...
-																											// instanceof!
-				final FilteredComponent< FloatType > fc1 = ( FilteredComponent< FloatType > ) o1;
-				final FilteredComponent< FloatType > fc2 = ( FilteredComponent< FloatType > ) o2;
+			// FilteredComponent, IntervalComponent
+			if ( false || o1 instanceof ExtendableComponent< ? > && o2 instanceof ExtendableComponent< ? > ) { // igitt...
+																												// instanceof!
+				final ExtendableComponent< FloatType > fc1 = ( ExtendableComponent< FloatType > ) o1;
+				final ExtendableComponent< FloatType > fc2 = ( ExtendableComponent< FloatType > ) o2;
 				return ( int ) ( ( fc1.maxValue().get() - fc1.minValue().get() ) - fc2.maxValue().get() - fc2.minValue().get() ) * -1;
 			}
 
@@ -95,10 +92,20 @@ public abstract class AbstractGrowthLineFrame< C extends Component< FloatType, C
 	 * GrowthLine.
 	 */
 	private List< Point > imgLocations;
-	private float[] simpleSepValues; // lazy evaluation -- gets computed when
+	/**
+	 * Sampling pattern of the simple gap separation values (fixed offsets of
+	 * 9 pixels in both directions, shared by all frames).
+	 */
+	private static final TiltedLineAverages SIMPLE_SEP_TILTED_LINE_AVERAGES = new TiltedLineAverages( 9, 9 );
+
+	private float[] tiltedLineMaxima; // lazy evaluation -- gets computed when
 										// getSimpleGapSeparationValues is called...
+	private float[] simpleSepValues; // tiltedLineMaxima after avoidMotherCellSegmentationFlickering
+	private int simpleSepValuesBottomTrickMaxPixels;
 	private float[] awesomeSepValues; // lazy evaluation -- gets computed when
 										// getAwesomeGapSeparationValues is called...
+	private final MoMAContext context;
+	private final MoMAConfig config;
 	private GrowthLine parent;
 	private ComponentForest< C > componentTree;
 	private boolean isParaMaxFlowComponentTree = false;
@@ -108,6 +115,20 @@ public abstract class AbstractGrowthLineFrame< C extends Component< FloatType, C
 	// -------------------------------------------------------------------------------------
 	// setters and getters
 	// -------------------------------------------------------------------------------------
+	/**
+	 * @return the run this growth line frame belongs to
+	 */
+	public MoMAContext getContext() {
+		return context;
+	}
+
+	/**
+	 * @return the parameters of the run this growth line frame belongs to
+	 */
+	public MoMAConfig getConfig() {
+		return config;
+	}
+
 	/**
 	 * @return the location
 	 */
@@ -178,7 +199,9 @@ public abstract class AbstractGrowthLineFrame< C extends Component< FloatType, C
 	// -------------------------------------------------------------------------------------
 	// constructors
 	// -------------------------------------------------------------------------------------
-	public AbstractGrowthLineFrame() {
+	public AbstractGrowthLineFrame( final MoMAContext context ) {
+		this.context = context;
+		this.config = context.getConfig();
 		imgLocations = new ArrayList< Point >();
 	}
 
@@ -216,7 +239,7 @@ public abstract class AbstractGrowthLineFrame< C extends Component< FloatType, C
 			final Point p = new Point( p_orig );
 			if ( imgIsPreCropped ) {
 				p.setPosition( 0, 2 );
-				p.move( MoMA.GL_PIXEL_PADDING_IN_VIEWS + MoMA.GL_WIDTH_IN_PIXELS / 2 - getAvgXpos(), 0 );
+				p.move( config.GL_PIXEL_PADDING_IN_VIEWS + config.GL_WIDTH_IN_PIXELS / 2 - getAvgXpos(), 0 );
 			}
 			raImg3d.setPosition( p );
 			ret[ i++ ] = 1.0f - raImg3d.get().get();
@@ -281,15 +304,8 @@ public abstract class AbstractGrowthLineFrame< C extends Component< FloatType, C
 		final float[] fkt = getSimpleGapSeparationValues( img );
 
 		if ( fkt.length > 0 ) {
-			final RandomAccessibleInterval< FloatType > raiFkt = new ArrayImgFactory< FloatType >().create( new int[] { fkt.length }, new FloatType() );
-			final RandomAccess< FloatType > ra = raiFkt.randomAccess();
-			for ( int i = 0; i < fkt.length; i++ ) {
-				ra.setPosition( i, 0 );
-				ra.get().set( fkt[ i ] );
-			}
-
 			isParaMaxFlowComponentTree = false;
-			componentTree = buildIntensityTree( raiFkt );
+			componentTree = buildIntensityTree( fkt );
 		}
 	}
 
@@ -316,7 +332,7 @@ public abstract class AbstractGrowthLineFrame< C extends Component< FloatType, C
 //		}
 //	}
 
-	protected abstract ComponentForest< C > buildIntensityTree( final RandomAccessibleInterval< FloatType > raiFkt );
+	protected abstract ComponentForest< C > buildIntensityTree( final float[] fkt );
 
 //	protected abstract ComponentForest< C > buildParaMaxFlowSumTree( final RandomAccessibleInterval< FloatType > raiFkt );
 
@@ -397,11 +413,29 @@ public abstract class AbstractGrowthLineFrame< C extends Component< FloatType, C
 		return getSimpleGapSeparationValues( img, false );
 	}
 
-	public float[] getSimpleGapSeparationValues( final Img< FloatType > img, final boolean forceRecomputation ) {
-		if ( simpleSepValues == null ) {
-			if ( img == null ) return null;
-			simpleSepValues = getMaxTiltedLineAveragesInRectangleAlongAvgCenter( img );
-			simpleSepValues = avoidMotherCellSegmentationFlickering( simpleSepValues );
+	/**
+	 * The tilted line maxima only depend on the image and are memoized until
+	 * <code>forceRecomputation</code> is set. The final values are memoized
+	 * together with the mother cell bottom trick they were corrected with;
+	 * changing the latter only redoes the (cheap) correction.
+	 *
+	 * @param img
+	 *            the image to compute the values in (might be
+	 *            <code>null</code> if they were computed before).
+	 * @param forceRecomputation
+	 *            recompute the values even if memoized ones are available.
+	 * @return the gap separation values or <code>null</code> if they could
+	 *         not be computed.
+	 */
+	public synchronized float[] getSimpleGapSeparationValues( final Img< FloatType > img, final boolean forceRecomputation ) {
+		if ( forceRecomputation || tiltedLineMaxima == null ) {
+			if ( img == null ) return simpleSepValues;
+			tiltedLineMaxima = getMaxTiltedLineAveragesInRectangleAlongAvgCenter( img, SIMPLE_SEP_TILTED_LINE_AVERAGES );
+			simpleSepValues = null;
+		}
+		if ( simpleSepValues == null || simpleSepValuesBottomTrickMaxPixels != config.MOTHER_CELL_BOTTOM_TRICK_MAX_PIXELS ) {
+			simpleSepValuesBottomTrickMaxPixels = config.MOTHER_CELL_BOTTOM_TRICK_MAX_PIXELS;
+			simpleSepValues = avoidMotherCellSegmentationFlickering( tiltedLineMaxima.clone() );
 //			sepValues = getInvertedIntensities( img );
 		}
 		return simpleSepValues;
@@ -421,7 +455,7 @@ public abstract class AbstractGrowthLineFrame< C extends Component< FloatType, C
 		if ( maximaLocations.length > 0 ) {
 			final int lastMaximaLoc = maximaLocations[ maximaLocations.length - 1 ];
 
-			if ( fkt.length - lastMaximaLoc < MoMA.MOTHER_CELL_BOTTOM_TRICK_MAX_PIXELS ) {
+			if ( fkt.length - lastMaximaLoc < config.MOTHER_CELL_BOTTOM_TRICK_MAX_PIXELS ) {
 				for ( int i = lastMaximaLoc; i < fkt.length; i++ ) {
 					fkt[ i ] = Math.max( fkt[ i - 1 ] + 0.005f, fkt[ i ] );
 				}
@@ -474,8 +508,8 @@ public abstract class AbstractGrowthLineFrame< C extends Component< FloatType, C
 	 * @param wellPoints
 	 * @return
 	 */
-	private float[] getMaxTiltedLineAveragesInRectangleAlongAvgCenter( final Img< FloatType > img ) {
-		return getMaxTiltedLineAveragesInRectangleAlongAvgCenter( img, false );
+	private float[] getMaxTiltedLineAveragesInRectangleAlongAvgCenter( final Img< FloatType > img, final TiltedLineAverages tiltedLineAverages ) {
+		return getMaxTiltedLineAveragesInRectangleAlongAvgCenter( img, false, tiltedLineAverages );
 	}
 
 	/**
@@ -485,18 +519,15 @@ public abstract class AbstractGrowthLineFrame< C extends Component< FloatType, C
 	 * @param wellPoints
 	 * @return
 	 */
-	private float[] getMaxTiltedLineAveragesInRectangleAlongAvgCenter( final RandomAccessibleInterval< FloatType > img, final boolean imgIsPreCropped ) {
+	private float[] getMaxTiltedLineAveragesInRectangleAlongAvgCenter( final RandomAccessibleInterval< FloatType > img, final boolean imgIsPreCropped, final TiltedLineAverages tiltedLineAverages ) {
 		// special case: growth line does not exist in this frame
 		if ( imgLocations.size() == 0 ) return new float[ 0 ];
 
-		final int maxOffsetX = 9; //TODO
-		final int maxOffsetY = 9; //TODO
-
 		int centerX = getAvgXpos();
 		int centerZ = imgLocations.get( 0 ).getIntPosition( 2 );
 
 		if ( imgIsPreCropped ) {
-			centerX = MoMA.GL_PIXEL_PADDING_IN_VIEWS + MoMA.GL_WIDTH_IN_PIXELS / 2;
+			centerX = config.GL_PIXEL_PADDING_IN_VIEWS + config.GL_WIDTH_IN_PIXELS / 2;
 			centerZ = 0;
 		}
 
@@ -506,39 +537,11 @@ public abstract class AbstractGrowthLineFrame< C extends Component< FloatType, C
 			ivImg = Views.addDimension( ivImg, 0, 0 );
 		}
 
-		final RealRandomAccessible< FloatType > rrImg =
-				Views.interpolate( Views.extendZero( Views.hyperSlice( ivImg, 2, centerZ ) ), new NLinearInterpolatorFactory< FloatType >() );
-		final RealRandomAccess< FloatType > rraImg = rrImg.realRandomAccess();
-
-		final float[] dIntensity = new float[ imgLocations.size() ]; //  + 1
+		final int[] centerYs = new int[ imgLocations.size() ];
 		for ( int i = 0; i < imgLocations.size(); i++ ) {
-			final int centerY = imgLocations.get( i ).getIntPosition( 1 );
-
-			int nextAverageIdx = 0;
-			final float[] diagonalAverages = new float[ maxOffsetY * 2 + 1 ];
-			for ( int currentOffsetY = -maxOffsetY; currentOffsetY <= maxOffsetY; currentOffsetY++ ) {
-				float summedIntensities = 0;
-				int summands = 0;
-				for ( int currentOffsetX = -maxOffsetX; currentOffsetX <= maxOffsetX; currentOffsetX++ ) {
-					final float x = centerX + currentOffsetX;
-					final float y = centerY + ( ( float ) currentOffsetY / maxOffsetX ) * currentOffsetX;
-					rraImg.setPosition( new float[] { x, y } );
-					summedIntensities += rraImg.get().get();
-					summands++;
-				}
-				diagonalAverages[ nextAverageIdx ] = summedIntensities / summands;
-				nextAverageIdx++;
-			}
-			final float maxDiagonalAvg = SimpleFunctionAnalysis.getMax( diagonalAverages ).b.floatValue();
-
-			// dIntensity[i] = maxDiagonalAvg - totalAverageIntensity;
-			// dIntensity[i] = maxDiagonalAvg - minIntensity;
-			dIntensity[ i ] = maxDiagonalAvg;
+			centerYs[ i ] = imgLocations.get( i ).getIntPosition( 1 );
 		}
-
-//		dIntensity = SimpleFunctionAnalysis.normalizeDoubleArray( dIntensity, 0.0, 1.0 );
-
-		return dIntensity;
+		return tiltedLineAverages.compute( Views.hyperSlice( ivImg, 2, centerZ ), centerX, centerYs );
 	}
 
 	/**
@@ -572,7 +575,7 @@ public abstract class AbstractGrowthLineFrame< C extends Component< FloatType, C
 			if ( view.min( 0 ) == 0 ) {
 				// In case I give the cropped paramaxflow-baby I lost the offset and must do ugly shit...
 				// I promise this is only done because I need to finish the f****** paper!
-				offsetX = -( this.getAvgXpos() - MoMA.GL_WIDTH_IN_PIXELS / 2 - MoMA.GL_PIXEL_PADDING_IN_VIEWS );
+				offsetX = -( this.getAvgXpos() - config.GL_WIDTH_IN_PIXELS / 2 - config.GL_PIXEL_PADDING_IN_VIEWS );
 				offsetY = view.min( 1 );
 			} else {
 				offsetX = view.min( 0 );
@@ -614,7 +617,7 @@ public abstract class AbstractGrowthLineFrame< C extends Component< FloatType, C
 			if ( view.min( 0 ) == 0 ) {
 				// In case I give the cropped paramaxflow-baby I lost the offset and must do ugly shit...
 				// I promise this is only done because I need to finish the f****** paper!
-				offsetX = -( this.getAvgXpos() - MoMA.GL_WIDTH_IN_PIXELS / 2 - MoMA.GL_PIXEL_PADDING_IN_VIEWS );
+				offsetX = -( this.getAvgXpos() - config.GL_WIDTH_IN_PIXELS / 2 - config.GL_PIXEL_PADDING_IN_VIEWS );
 				offsetY = view.min( 1 );
 			} else {
 				offsetX = view.min( 0 );
@@ -630,19 +633,22 @@ public abstract class AbstractGrowthLineFrame< C extends Component< FloatType, C
 						ctn,
 						raAnnotationImg,
 						offsetX + getAvgXpos(),
-						offsetY + MoMA.GL_OFFSET_TOP );
+						offsetY + config.GL_OFFSET_TOP,
+						config.GL_WIDTH_IN_PIXELS );
 			} else if ( hyp.getSegmentSpecificConstraint() != null ) {
 				ArgbDrawingUtils.taintForcedComponentTreeNode(
 						ctn,
 						raAnnotationImg,
 						offsetX + getAvgXpos(),
-						offsetY + MoMA.GL_OFFSET_TOP );
+						offsetY + config.GL_OFFSET_TOP,
+						config.GL_WIDTH_IN_PIXELS );
 			} else {
 				ArgbDrawingUtils.taintComponentTreeNode(
 						ctn,
 						raAnnotationImg,
 						offsetX + getAvgXpos(),
-						offsetY + MoMA.GL_OFFSET_TOP );
+						offsetY + config.GL_OFFSET_TOP,
+						config.GL_WIDTH_IN_PIXELS );
 			}
 		}
 	}
@@ -658,7 +664,7 @@ public abstract class AbstractGrowthLineFrame< C extends Component< FloatType, C
 			if ( view.min( 0 ) == 0 ) {
 				// In case I give the cropped paramaxflow-baby I lost the offset and must do ugly shit...
 				// I promise this is only done because I need to finish the f****** paper!
-				offsetX = -( this.getAvgXpos() - MoMA.GL_WIDTH_IN_PIXELS / 2 - MoMA.GL_PIXEL_PADDING_IN_VIEWS );
+				offsetX = -( this.getAvgXpos() - config.GL_WIDTH_IN_PIXELS / 2 - config.GL_PIXEL_PADDING_IN_VIEWS );
 				offsetY = view.min( 1 );
 			} else {
 				offsetX = view.min( 0 );
@@ -666,7 +672,7 @@ public abstract class AbstractGrowthLineFrame< C extends Component< FloatType, C
 			}
 		}
 
-		ArgbDrawingUtils.taintInactiveComponentTreeNode( optionalSegmentation, raAnnotationImg, offsetX + getAvgXpos(), offsetY + MoMA.GL_OFFSET_TOP );
+		ArgbDrawingUtils.taintInactiveComponentTreeNode( optionalSegmentation, raAnnotationImg, offsetX + getAvgXpos(), offsetY + config.GL_OFFSET_TOP );
 	}
 
 	/**
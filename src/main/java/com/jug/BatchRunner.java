@@ -0,0 +1,528 @@
+/**
+ *
+ */
+package com.jug;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+/**
+ * Processes many datasets (growth channel folders) headless in one single
+ * JVM, instead of starting one JVM (and creating new GUROBI environments)
+ * per dataset.
+ *
+ * Datasets can be given as folders, as glob patterns (e.g.
+ * <code>"plate1/Pos*&#47;GL*"</code>) or in a list file (one folder or
+ * pattern per line). They are taken from a queue by a number of workers
+ * (one by default); every dataset starts from the default parameters in its
+ * own <code>MoMAConfig</code> (see <code>MoMA.processHeadless</code>) and
+ * gets a time limit.
+ *
+ * The outcome of every dataset is appended to a manifest file (tab
+ * separated: status, date, seconds, results folder, dataset, message).
+ * Datasets are identified by their results folder, such that a dataset
+ * moved (or split anew into a different temporary folder) is still
+ * recognized. When restarted with the same manifest, all datasets already
+ * <code>COMPLETED</code> are skipped; failed and timed out datasets are
+ * only retried if requested.
+ *
+ * Note: each dataset itself uses <code>PREPROCESSING_THREADS</code> and
+ * <code>ILP_THREAD_BUDGET</code> threads. When several workers are used,
+ * these should be lowered accordingly (in the properties file).
+ *
+ * @author jug
+ */
+public class BatchRunner {
+
+	public static final String STARTED = "STARTED";
+	public static final String COMPLETED = "COMPLETED";
+	public static final String FAILED = "FAILED";
+	public static final String TIMEOUT = "TIMEOUT";
+
+	public static final String DEFAULT_MANIFEST_NAME = "moma_batch_manifest.tsv";
+
+	/**
+	 * Time given to a timed out dataset to react to being interrupted. If it
+	 * is still running afterwards, the batch is aborted, since it would keep
+	 * holding its threads and memory while further datasets are started.
+	 */
+	private static final long TIMEOUT_GRACE_MILLIS = 60 * 1000;
+
+	private final List< File > datasets;
+	private final File outputRoot;
+	private final File userPropsFile;
+	private final String ilpSolver;
+	private final File manifestFile;
+	private final long timeoutMillis;
+	private final boolean retryFailed;
+	private final int numWorkers;
+
+	/**
+	 * Last recorded status per dataset (absolute path of its results folder).
+	 */
+	private final Map< String, String > manifest = new HashMap< String, String >();
+
+	/**
+	 * Set as soon as one worker aborts the batch; the other workers finish
+	 * their current dataset but do not start new ones.
+	 */
+	private final AtomicBoolean aborted = new AtomicBoolean( false );
+
+	/**
+	 * @param datasets
+	 *            the dataset folders (or files) to process.
+	 * @param outputRoot
+	 *            results of dataset <code>d</code> are written to
+	 *            <code>outputRoot/d.getName()</code>. If <code>null</code>,
+	 *            results are written into the dataset folders.
+	 * @param userPropsFile
+	 *            user properties applied to every dataset, or
+	 *            <code>null</code>.
+	 * @param ilpSolver
+	 *            ILP solver to use, or <code>null</code>.
+	 * @param manifestFile
+	 *            the manifest to resume from and append to.
+	 * @param timeoutMillis
+	 *            time limit per dataset, 0 for none.
+	 * @param retryFailed
+	 *            if true, datasets that failed or timed out before are
+	 *            processed again.
+	 * @param numWorkers
+	 *            number of datasets processed concurrently.
+	 */
+	public BatchRunner( final List< File > datasets, final File outputRoot, final File userPropsFile, final String ilpSolver, final File manifestFile, final long timeoutMillis, final boolean retryFailed, final int numWorkers ) {
+		this.datasets = datasets;
+		this.outputRoot = outputRoot;
+		this.userPropsFile = userPropsFile;
+		this.ilpSolver = ilpSolver;
+		this.manifestFile = manifestFile;
+		this.timeoutMillis = timeoutMillis;
+		this.retryFailed = retryFailed;
+		this.numWorkers = Math.max( 1, numWorkers );
+	}
+
+	/**
+	 * Processes all datasets not done yet.
+	 *
+	 * @return 0 if all datasets completed, 1 if some failed or timed out, 4
+	 *         if the batch had to be aborted (restart to resume).
+	 */
+	public int run() throws IOException {
+		readManifest();
+
+		final Map< File, File > todo = new LinkedHashMap< File, File >();
+		final Map< File, File > outputFolders = new HashMap< File, File >();
+		for ( final File dataset : datasets ) {
+			final File outputFolder = ( outputRoot == null ) ? dataset : new File( outputRoot, dataset.getName() );
+			final File other = outputFolders.put( outputFolder.getAbsoluteFile(), dataset );
+			if ( other != null && !other.equals( dataset ) ) {
+				System.out.println( "Error: datasets " + other + " and " + dataset + " would both write to " + outputFolder );
+				return 1;
+			}
+
+			final String status = manifest.get( outputFolder.getAbsolutePath() );
+			if ( COMPLETED.equals( status ) || ( !retryFailed && ( FAILED.equals( status ) || TIMEOUT.equals( status ) ) ) ) {
+				System.out.println( String.format( "Skipping %s (%s)", dataset, status ) );
+			} else {
+				todo.put( dataset, outputFolder );
+			}
+		}
+		System.out.println( String.format( "Batch: %d dataset(s), %d to be processed.", datasets.size(), todo.size() ) );
+
+		final MoMAConfig defaults = new MoMAConfig();
+		final ConcurrentLinkedQueue< Map.Entry< File, File > > queue = new ConcurrentLinkedQueue< Map.Entry< File, File > >( todo.entrySet() );
+		final AtomicInteger numStarted = new AtomicInteger( 0 );
+		final AtomicInteger numProblems = new AtomicInteger( 0 );
+
+		final int workers = Math.min( numWorkers, Math.max( 1, todo.size() ) );
+		final ExecutorService lanes = Executors.newFixedThreadPool( workers );
+		final List< Future< Void > > laneFutures = new ArrayList< Future< Void > >();
+		for ( int w = 0; w < workers; w++ ) {
+			laneFutures.add( lanes.submit( new Callable< Void >() {
+
+				@Override
+				public Void call() throws Exception {
+					Map.Entry< File, File > entry;
+					while ( !aborted.get() && ( entry = queue.poll() ) != null ) {
+						final int numDone = numStarted.incrementAndGet();
+						System.out.println( String.format( "\n>>> Batch dataset %d of %d: %s", numDone, todo.size(), entry.getKey() ) );
+						final int ret = processDataset( entry.getKey(), entry.getValue(), defaults );
+						if ( ret == 4 ) {
+							aborted.set( true );
+						} else if ( ret != 0 ) {
+							numProblems.incrementAndGet();
+						}
+					}
+					return null;
+				}
+			} ) );
+		}
+		lanes.shutdown();
+
+		IOException ioException = null;
+		for ( final Future< Void > laneFuture : laneFutures ) {
+			try {
+				laneFuture.get();
+			} catch ( final ExecutionException e ) {
+				aborted.set( true );
+				if ( e.getCause() instanceof IOException ) {
+					ioException = ( IOException ) e.getCause();
+				} else {
+					e.printStackTrace();
+				}
+			} catch ( final InterruptedException e ) {
+				Thread.currentThread().interrupt();
+				aborted.set( true );
+				lanes.shutdownNow();
+				return 4;
+			}
+		}
+		if ( ioException != null ) { throw ioException; }
+		if ( aborted.get() ) {
+			System.out.println( "Batch aborted -- restart to resume." );
+			return 4;
+		}
+
+		System.out.println( String.format( "\nBatch done: %d dataset(s) processed, %d failed or timed out. See %s", todo.size(), numProblems.get(), manifestFile ) );
+		return ( numProblems.get() > 0 ) ? 1 : 0;
+	}
+
+	/**
+	 * Processes one dataset in a worker thread of its own and waits for it
+	 * (at most <code>timeoutMillis</code>).
+	 *
+	 * @return 0 if the dataset completed, 1 if it failed or timed out, 4 if
+	 *         the batch has to be aborted.
+	 */
+	private int processDataset( final File dataset, final File outputFolder, final MoMAConfig defaults ) throws IOException {
+		if ( !outputFolder.isDirectory() && !outputFolder.mkdirs() ) {
+			appendToManifest( FAILED, dataset, outputFolder, 0, "could not create output folder " + outputFolder );
+			return 1;
+		}
+
+		appendToManifest( STARTED, dataset, outputFolder, 0, "" );
+		final long start = System.currentTimeMillis();
+		final CountDownLatch finished = new CountDownLatch( 1 );
+		final ExecutorService worker = Executors.newSingleThreadExecutor( new ThreadFactory() {
+
+			@Override
+			public Thread newThread( final Runnable r ) {
+				final Thread t = new Thread( r, "moma-batch-" + dataset.getName() );
+				t.setDaemon( true );
+				return t;
+			}
+		} );
+		final Future< Void > future = worker.submit( new Callable< Void >() {
+
+			@Override
+			public Void call() throws Exception {
+				try {
+					MoMA.processHeadless( dataset, outputFolder, userPropsFile, defaults, ilpSolver );
+				} finally {
+					finished.countDown();
+				}
+				return null;
+			}
+		} );
+		worker.shutdown();
+
+		try {
+			if ( timeoutMillis > 0 ) {
+				future.get( timeoutMillis, TimeUnit.MILLISECONDS );
+			} else {
+				future.get();
+			}
+			appendToManifest( COMPLETED, dataset, outputFolder, System.currentTimeMillis() - start, "" );
+			return 0;
+		} catch ( final TimeoutException e ) {
+			future.cancel( true );
+			appendToManifest( TIMEOUT, dataset, outputFolder, System.currentTimeMillis() - start, "time limit of " + ( timeoutMillis / 1000 ) + "s exceeded" );
+			try {
+				if ( !finished.await( TIMEOUT_GRACE_MILLIS, TimeUnit.MILLISECONDS ) ) {
+					System.out.println( "Error: timed out dataset " + dataset + " does not terminate. Aborting batch -- restart to resume." );
+					return 4;
+				}
+			} catch ( final InterruptedException ie ) {
+				Thread.currentThread().interrupt();
+				return 4;
+			}
+			return 1;
+		} catch ( final ExecutionException e ) {
+			final Throwable cause = ( e.getCause() != null ) ? e.getCause() : e;
+			cause.printStackTrace();
+			appendToManifest( FAILED, dataset, outputFolder, System.currentTimeMillis() - start, String.valueOf( cause ) );
+			return 1;
+		} catch ( final InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			future.cancel( true );
+			return 4;
+		}
+	}
+
+	private void readManifest() throws IOException {
+		if ( !manifestFile.exists() ) return;
+
+		final BufferedReader reader = new BufferedReader( new FileReader( manifestFile ) );
+		try {
+			String line;
+			while ( ( line = reader.readLine() ) != null ) {
+				final String[] fields = line.split( "\t" );
+				if ( line.startsWith( "#" ) || fields.length < 4 ) continue;
+				manifest.put( fields[ 3 ], fields[ 0 ] );
+			}
+		} finally {
+			reader.close();
+		}
+		System.out.println( String.format( "Resuming from manifest %s (%d dataset(s) recorded).", manifestFile, manifest.size() ) );
+	}
+
+	/**
+	 * Appends one line to the manifest (and flushes it, such that it survives
+	 * a crash of the JVM). Called by all workers.
+	 */
+	private synchronized void appendToManifest( final String status, final File dataset, final File outputFolder, final long millis, final String message ) throws IOException {
+		final boolean newFile = !manifestFile.exists();
+		final PrintWriter out = new PrintWriter( new FileWriter( manifestFile, true ) );
+		try {
+			if ( newFile ) {
+				out.println( "# status\tdate\tseconds\tresults\tdataset\tmessage" );
+			}
+			out.println( String.format(
+					"%s\t%s\t%.1f\t%s\t%s\t%s",
+					status,
+					new SimpleDateFormat( "yyyy-MM-dd HH:mm:ss" ).format( new Date() ),
+					millis / 1000.0,
+					outputFolder.getAbsolutePath(),
+					dataset.getAbsolutePath(),
+					message.replace( '\t', ' ' ).replace( '\n', ' ' ) ) );
+		} finally {
+			out.close();
+		}
+		manifest.put( outputFolder.getAbsolutePath(), status );
+		if ( !STARTED.equals( status ) ) {
+			System.out.println( String.format( "%s: %s (%.1fs) %s", status, dataset, millis / 1000.0, message ) );
+		}
+	}
+
+	/**
+	 * Expands a folder name or glob pattern (wildcards are allowed in every
+	 * path component) into the matching existing files, sorted by name.
+	 */
+	public static List< File > expand( final String pattern ) throws IOException {
+		final List< File > ret = new ArrayList< File >();
+		final File file = new File( pattern );
+		if ( !hasWildcard( pattern ) ) {
+			if ( file.exists() ) {
+				ret.add( file );
+			} else {
+				System.out.println( "Warning: " + pattern + " does not exist!" );
+			}
+			return ret;
+		}
+
+		final List< File > parents = new ArrayList< File >();
+		if ( file.getParent() == null ) {
+			parents.add( new File( "." ) );
+		} else {
+			parents.addAll( expand( file.getParent() ) );
+		}
+		for ( final File parent : parents ) {
+			if ( !parent.isDirectory() ) continue;
+			final List< File > matches = new ArrayList< File >();
+			final DirectoryStream< Path > stream = Files.newDirectoryStream( parent.toPath(), file.getName() );
+			try {
+				for ( final Path path : stream ) {
+					matches.add( ( file.getParent() == null ) ? path.getFileName().toFile() : path.toFile() );
+				}
+			} finally {
+				stream.close();
+			}
+			Collections.sort( matches );
+			ret.addAll( matches );
+		}
+		return ret;
+	}
+
+	private static boolean hasWildcard( final String pattern ) {
+		return pattern.indexOf( '*' ) >= 0 || pattern.indexOf( '?' ) >= 0 || pattern.indexOf( '[' ) >= 0 || pattern.indexOf( '{' ) >= 0;
+	}
+
+	/**
+	 * @return all folders or patterns listed in the given file (one per line,
+	 *         lines starting with '#' are ignored).
+	 */
+	private static List< String > readListFile( final File listFile ) throws IOException {
+		final List< String > ret = new ArrayList< String >();
+		final BufferedReader reader = new BufferedReader( new FileReader( listFile ) );
+		try {
+			String line;
+			while ( ( line = reader.readLine() ) != null ) {
+				line = line.trim();
+				if ( !line.isEmpty() && !line.startsWith( "#" ) ) {
+					ret.add( line );
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		return ret;
+	}
+
+	/**
+	 * BATCH MAIN
+	 *
+	 * @param args
+	 */
+	public static void main( final String[] args ) {
+		final Options options = new Options();
+		final CommandLineParser parser = new DefaultParser();
+
+		final Option help = new Option( "help", "print this message" );
+
+		final Option infolder = new Option( "i", "infolder", true, "dataset folder or glob pattern (can be given several times; further datasets can be given as plain arguments)" );
+		infolder.setRequired( false );
+
+		final Option listfile = new Option( "l", "list", true, "file listing one dataset folder or glob pattern per line" );
+		listfile.setRequired( false );
+
+		final Option outfolder = new Option( "o", "outfolder", true, "results of each dataset go into a sub-folder named like the dataset (into the dataset folder if not given)" );
+		outfolder.setRequired( false );
+
+		final Option userProps = new Option( "p", "props", true, "properties file to be loaded for every dataset (mm.properties)" );
+		userProps.setRequired( false );
+
+		final Option solver = new Option( "solver", "ilp_solver", true, "solver used for the tracking ILPs ('gurobi' or 'java')" );
+		solver.setRequired( false );
+
+		final Option manifest = new Option( "m", "manifest", true, "manifest to resume from and append to (default: " + DEFAULT_MANIFEST_NAME + " in out-folder or current folder)" );
+		manifest.setRequired( false );
+
+		final Option timeout = new Option( "t", "timeout", true, "time limit per dataset in minutes (default: none)" );
+		timeout.setRequired( false );
+
+		final Option retry = new Option( "retry", "retry_failed", false, "also process datasets that failed or timed out before" );
+		retry.setRequired( false );
+
+		final Option workers = new Option( "w", "workers", true, "number of datasets processed concurrently (default: 1)" );
+		workers.setRequired( false );
+
+		options.addOption( help );
+		options.addOption( infolder );
+		options.addOption( listfile );
+		options.addOption( outfolder );
+		options.addOption( userProps );
+		options.addOption( solver );
+		options.addOption( manifest );
+		options.addOption( timeout );
+		options.addOption( retry );
+		options.addOption( workers );
+
+		CommandLine cmd = null;
+		try {
+			cmd = parser.parse( options, args );
+		} catch ( final ParseException e1 ) {
+			final HelpFormatter formatter = new HelpFormatter();
+			formatter.printHelp( "... [-p props-file] [-o out-folder] [-m manifest] [-t minutes] [-w workers] [-retry] (-i in-folder-or-glob | -l list-file | in-folder ...)", "", options, "Error: " + e1.getMessage() );
+			System.exit( 0 );
+		}
+
+		if ( cmd.hasOption( "help" ) ) {
+			final HelpFormatter formatter = new HelpFormatter();
+			formatter.printHelp( "... [-o out-folder] (-i in-folder-or-glob | -l list-file | in-folder ...)", options );
+			System.exit( 0 );
+		}
+
+		final List< File > datasets = new ArrayList< File >();
+		try {
+			final List< String > patterns = new ArrayList< String >();
+			if ( cmd.hasOption( "i" ) ) {
+				Collections.addAll( patterns, cmd.getOptionValues( "i" ) );
+			}
+			if ( cmd.hasOption( "l" ) ) {
+				patterns.addAll( readListFile( new File( cmd.getOptionValue( "l" ) ) ) );
+			}
+			Collections.addAll( patterns, cmd.getArgs() );
+			for ( final String pattern : patterns ) {
+				for ( final File dataset : expand( pattern ) ) {
+					if ( !datasets.contains( dataset ) ) {
+						datasets.add( dataset );
+					}
+				}
+			}
+		} catch ( final IOException e ) {
+			System.out.println( "Error: could not read the list of datasets!" );
+			e.printStackTrace();
+			System.exit( 2 );
+		}
+		if ( datasets.isEmpty() ) {
+			System.out.println( "Error: no datasets given (or none of them exists)!" );
+			System.exit( 2 );
+		}
+
+		File outputRoot = null;
+		if ( cmd.hasOption( "o" ) ) {
+			outputRoot = new File( cmd.getOptionValue( "o" ) );
+			if ( !outputRoot.isDirectory() && !outputRoot.mkdirs() ) {
+				System.out.println( "Error: Output folder cannot be created!" );
+				System.exit( 3 );
+			}
+		}
+
+		final File manifestFile = cmd.hasOption( "m" ) ? new File( cmd.getOptionValue( "m" ) ) : new File( ( outputRoot != null ) ? outputRoot : new File( "." ), DEFAULT_MANIFEST_NAME );
+		final File userPropsFile = cmd.hasOption( "p" ) ? new File( cmd.getOptionValue( "p" ) ) : null;
+		final String ilpSolver = cmd.hasOption( "solver" ) ? cmd.getOptionValue( "solver" ).toUpperCase() : null;
+		final long timeoutMillis = cmd.hasOption( "t" ) ? ( long ) ( Double.parseDouble( cmd.getOptionValue( "t" ) ) * 60 * 1000 ) : 0;
+		final int numWorkers = cmd.hasOption( "w" ) ? Integer.parseInt( cmd.getOptionValue( "w" ) ) : 1;
+
+		MoMA.HEADLESS = true;
+		final int solverStatus = MoMA.checkIlpSolver( ( ilpSolver != null ) ? ilpSolver : new MoMAConfig().ILP_SOLVER );
+		if ( solverStatus != 0 ) {
+			System.exit( solverStatus );
+		}
+
+		int exitCode;
+		try {
+			exitCode = new BatchRunner( datasets, outputRoot, userPropsFile, ilpSolver, manifestFile, timeoutMillis, cmd.hasOption( "retry" ), numWorkers ).run();
+		} catch ( final IOException e ) {
+			System.out.println( "Error: could not read or write manifest " + manifestFile );
+			e.printStackTrace();
+			exitCode = 5;
+		}
+		System.exit( exitCode );
+	}
+}
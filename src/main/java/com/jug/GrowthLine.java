@@ -16,6 +16,8 @@ import com.jug.lp.AbstractAssignment;
 import com.jug.lp.GrowthLineTrackingILP;
 import com.jug.lp.Hypothesis;
 
+import gurobi.GRBEnv;
+
 /**
  * @author jug
  */
@@ -24,6 +26,7 @@ public class GrowthLine {
 	// -------------------------------------------------------------------------------------
 	// fields
 	// -------------------------------------------------------------------------------------
+	private final MoMAContext context;
 	private final List< GrowthLineFrame > frames;
 	private GrowthLineTrackingILP ilp; //<
 
@@ -33,6 +36,20 @@ public class GrowthLine {
 	// -------------------------------------------------------------------------------------
 	// setters and getters
 	// -------------------------------------------------------------------------------------
+	/**
+	 * @return the run this growth line belongs to
+	 */
+	public MoMAContext getContext() {
+		return context;
+	}
+
+	/**
+	 * @return the parameters of the run this growth line belongs to
+	 */
+	public MoMAConfig getConfig() {
+		return context.getConfig();
+	}
+
 	/**
 	 * @return the frames
 	 */
@@ -50,11 +67,12 @@ public class GrowthLine {
 	// -------------------------------------------------------------------------------------
 	// constructors
 	// -------------------------------------------------------------------------------------
-	public GrowthLine() {
-		this.frames = new ArrayList< GrowthLineFrame >();
+	public GrowthLine( final MoMAContext context ) {
+		this( context, new ArrayList< GrowthLineFrame >() );
 	}
 
-	public GrowthLine( final List< GrowthLineFrame > frames ) {
+	public GrowthLine( final MoMAContext context, final List< GrowthLineFrame > frames ) {
+		this.context = context;
 		this.frames = frames;
 	}
 
@@ -100,11 +118,25 @@ public class GrowthLine {
 	 * Builds up the ILP used to find the MAP-mapping.
 	 */
 	public void generateILP( final DialogProgress guiProgressReceiver ) {
+		generateILP( guiProgressReceiver, null );
+	}
+
+	/**
+	 * Builds up the ILP used to find the MAP-mapping. The Gurobi model will be
+	 * created in the given environment.
+	 *
+	 * @param guiProgressReceiver
+	 *            progress dialog (can be <code>null</code>).
+	 * @param env
+	 *            the Gurobi environment to use, <code>null</code> for the
+	 *            one of the run (see <code>MoMAContext.getGurobiEnv()</code>).
+	 */
+	public void generateILP( final DialogProgress guiProgressReceiver, final GRBEnv env ) {
 		if ( guiProgressReceiver != null ) {
 			guiProgressReceiver.setVisible( true );
 		}
 
-		ilp = new GrowthLineTrackingILP( this );
+		ilp = new GrowthLineTrackingILP( this, env );
 		if ( guiProgressReceiver != null ) {
 			ilp.addProgressListener( guiProgressReceiver );
 		}
@@ -123,6 +155,14 @@ public class GrowthLine {
 		getIlp().run();
 	}
 
+	/**
+	 * Re-optimizes the ILP after a user edit at time-point <code>t</code>,
+	 * see <code>GrowthLineTrackingILP.runIncremental</code>.
+	 */
+	public void runILPIncremental( final int t ) {
+		getIlp().runIncremental( t );
+	}
+
 	/**
 	 * @return a <code>Vector<String></code> object containing the summary of
 	 *         divisions and exits for this GL. This data is eventually exported
@@ -3,15 +3,13 @@
  */
 package com.jug;
 
-import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.algorithm.componenttree.ComponentForest;
-import net.imglib2.type.numeric.real.FloatType;
 
-import com.jug.util.filteredcomponents.FilteredComponent;
-import com.jug.util.filteredcomponents.FilteredComponentTree;
 import com.jug.util.filteredcomponents.FilteredComponentTree.Filter;
 import com.jug.util.filteredcomponents.FilteredComponentTree.MaxGrowthPerStep;
 import com.jug.util.filteredcomponents.FilteredComponentTree.MaxGrowthPerStepRatioWithMinimalAbsoluteIncrease;
+import com.jug.util.filteredcomponents.IntervalComponent;
+import com.jug.util.filteredcomponents.IntervalComponentTree;
 
 /**
  * @author jug
@@ -22,22 +20,25 @@ import com.jug.util.filteredcomponents.FilteredComponentTree.MaxGrowthPerStepRat
  *         series (2d+t) representation of an growth line is
  *         <code>GrowthLine</code>.
  */
-public class GrowthLineFrame extends AbstractGrowthLineFrame< FilteredComponent< FloatType > > {
+public class GrowthLineFrame extends AbstractGrowthLineFrame< IntervalComponent > {
 
 	final Filter noFilterFilter = new MaxGrowthPerStep( 1000 );
 //	final Filter maxGrowthPerStepRatio = new MaxGrowthPerStepRatio( 0.075 );
 	final Filter maxGrowthPerStepRatioWithMinimalAbsoluteIncrease =
 			new MaxGrowthPerStepRatioWithMinimalAbsoluteIncrease( 0.05, 6 );
 
+	public GrowthLineFrame( final MoMAContext context ) {
+		super( context );
+	}
+
 	/**
-	 * @see com.jug.AbstractGrowthLineFrame#buildIntensityTree(net.imglib2.RandomAccessibleInterval)
+	 * @see com.jug.AbstractGrowthLineFrame#buildIntensityTree(float[])
 	 */
 	@Override
-	protected ComponentForest< FilteredComponent< FloatType >> buildIntensityTree( final RandomAccessibleInterval< FloatType > raiFkt ) {
-		return FilteredComponentTree.buildComponentTree(
-				raiFkt,
-				new FloatType(),
-				MoMA.MIN_CELL_LENGTH,
+	protected ComponentForest< IntervalComponent > buildIntensityTree( final float[] fkt ) {
+		return IntervalComponentTree.buildComponentTree(
+				fkt,
+				getConfig().MIN_CELL_LENGTH,
 				Long.MAX_VALUE,
 				noFilterFilter, //maxGrowthPerStepRatioWithMinimalAbsoluteIncrease,
 				true );
@@ -16,8 +16,10 @@ import java.io.OutputStream;
 import java.io.PrintStream;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
 
 import javax.swing.BorderFactory;
 import javax.swing.JFileChooser;
@@ -41,12 +43,16 @@ import com.jug.gui.MoMAGui;
 import com.jug.gui.MoMAModel;
 import com.jug.gui.progress.DialogProgress;
 import com.jug.loops.Loops;
-import com.jug.ops.cursor.FindLocalMaxima;
+import com.jug.lp.GrowthLineIlpScheduler;
+import com.jug.ops.cursor.RowMaxima;
 import com.jug.ops.numerictype.SumOfRai;
-import com.jug.segmentation.GrowthLineSegmentationMagic;
-import com.jug.segmentation.SilentWekaSegmenter;
+import com.jug.segmentation.ClassifierPool;
+import com.jug.segmentation.PixelClassificationService;
+import com.jug.util.ComponentTreeUtils;
 import com.jug.util.DataMover;
 import com.jug.util.FloatTypeImgLoader;
+import com.jug.util.FrameExecutor;
+import com.jug.util.RunReport;
 import com.jug.util.converter.RealFloatProbMapToSegmentation;
 
 /**
@@ -58,9 +64,10 @@ import gurobi.GRBException;
 import ij.IJ;
 import ij.ImageJ;
 import ij.ImagePlus;
-import ij.Prefs;
 import net.imagej.patcher.LegacyInjector;
 import net.imglib2.Cursor;
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
 import net.imglib2.Point;
 import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.algorithm.gauss3.Gauss3;
@@ -93,146 +100,21 @@ public class MoMA {
 	// -------------------------------------------------------------------------------------
 	// statics
 	// -------------------------------------------------------------------------------------
+	// Note: all parameters of a run live in its MoMAConfig (see getConfig()),
+	// only process wide settings and the (single) GUI remain static.
+	/**
+	 * The MoMA instance shown in the GUI (<code>null</code> in headless mode).
+	 */
 	public static MoMA instance;
 	public static boolean HEADLESS = false;
 	public static boolean running_as_Fiji_plugin = false;
 
-	/**
-	 * Parameter: sigma for gaussian blurring in x-direction of the raw image
-	 * data. Used while searching the growth line centers.
-	 */
-	public static float SIGMA_GL_DETECTION_X = 20f;
-	public static float SIGMA_GL_DETECTION_Y = 0f;
-
-	/**
-	 * Parameter: sigma for gaussian blurring in x-direction of the raw image
-	 * data. Used while searching the gaps between bacteria.
-	 */
-	private static float SIGMA_PRE_SEGMENTATION_X = 0f;
-	private static float SIGMA_PRE_SEGMENTATION_Y = 0f;
-
-	/**
-	 * Parameter: how many pixels wide is the image containing the selected
-	 * GrowthLine?
-	 */
-	public static int GL_WIDTH_IN_PIXELS = 20;
-	public static int GL_FLUORESCENCE_COLLECTION_WIDTH_IN_PIXELS = 100;
-	public static int GL_PIXEL_PADDING_IN_VIEWS = 15;
-	public static int MOTHER_CELL_BOTTOM_TRICK_MAX_PIXELS = 10;
-
-	/**
-	 * Parameter: later border in pixels - well centers detected too close to
-	 * the left and right image border will be neglected. Reason: detection not
-	 * reliable if well is truncated.
-	 */
-	public static int GL_OFFSET_LATERAL = 20;
-
-	/**
-	 * Prior knowledge: hard offset in detected well center lines - will be cut
-	 * of from top.
-	 */
-	public static int GL_OFFSET_TOP = 65;
-
-	/**
-	 * Prior knowledge: hard offset in detected well center lines - will be cut
-	 * of from bottom. If set to -1, an automatic bottom offset detection will
-	 * be launched when data is read from disk.
-	 */
-	public static int GL_OFFSET_BOTTOM = -1;
-	public static boolean GL_OFFSET_BOTTOM_AUTODETECT = true;
-
-	/**
-	 * Maximum offset in x direction (with respect to growth line center) to
-	 * take the background intensities from that will be subtracted from the
-	 * growth line.
-	 */
-	private static int BGREM_TEMPLATE_XMAX = 35;
-
-	/**
-	 * Minimum offset in x direction (with respect to growth line center) to
-	 * take the background intensities from that will be subtracted from the
-	 * growth line.
-	 */
-	private static int BGREM_TEMPLATE_XMIN = 20;
-
-	/**
-	 * Offsets in +- x direction (with respect to growth line center) where the
-	 * measured background values will be subtracted from.
-	 */
-	private static int BGREM_X_OFFSET = 35;
-
-	/**
-	 * Prior knowledge: minimal length of detected cells
-	 */
-	public static int MIN_CELL_LENGTH = 18;
-
-	/**
-	 * Prior knowledge: minimal contrast of a gap (also used for MSERs)
-	 */
-	public static float MIN_GAP_CONTRAST = 0.02f; // This is set to a very low
-													// value that will basically
-													// not filter anything...
-	/**
-	 * When using the learned classification boosted paramaxflow segmentation,
-	 * how much of the midline data obtained by the 'simple' linescan +
-	 * component tree segmentation should mix in? Rational: if the
-	 * classification is flat, the original (simple) mehod might still offer
-	 * some modulation!
-	 */
-	public static float SEGMENTATION_MIX_CT_INTO_PMFRF = 0.25f;
-
-	/**
-	 * String pointing at the weka-segmenter model file that should be used for
-	 * classification during segmentation.
-	 */
-	public static String SEGMENTATION_CLASSIFIER_MODEL_FILE = "CellGapClassifier.model";
-
-	/**
-	 * String pointing at the weka-segmenter model file that should be used for
-	 * classification during cell-stats export for cell-size estimation.
-	 */
-	public static String CELLSIZE_CLASSIFIER_MODEL_FILE = "CellSizeClassifier.model";
-
-	/**
-	 * Global switch that turns the use of the weka classifier for paramaxflow
-	 * on or off.
-	 * Default: ON (true)
-	 */
-	public static boolean USE_CLASSIFIER_FOR_PMF = true;
-
-	/**
-	 * Global switches for export options
-	 */
-	public static boolean EXPORT_DO_TRACK_EXPORT = false;
-	public static boolean EXPORT_USER_INPUTS = true;
-	public static boolean EXPORT_INCLUDE_HISTOGRAMS = false;
-	public static boolean EXPORT_INCLUDE_QUANTILES = false;
-	public static boolean EXPORT_INCLUDE_COL_INTENSITY_SUMS = true;
-	public static boolean EXPORT_INCLUDE_PIXEL_INTENSITIES = false;
-
-	/**
-	 *
-	 */
-	public static int OPTIMISATION_INTERVAL_LENGTH = -1;
-
 	/**
 	 * One of the test for paper:
 	 * What happens if exit constraints are NOT part of the model?
 	 */
 	public static final boolean DISABLE_EXIT_CONSTRAINTS = false;
 
-	public static final int MAX_CELL_DROP = 50;
-
-	// - - - - - - - - - - - - - -
-	// Info about loaded data
-	// - - - - - - - - - - - - - -
-	private static int minTime = -1;
-	private static int maxTime = -1;
-	private static int initOptRange = -1;
-	private static int minChannelIdx = 1;
-	private static int numChannels = 1;
-
-
 	// - - - - - - - - - - - - - -
 	// GUI-WINDOW RELATED STATICS
 	// - - - - - - - - - - - - - -
@@ -241,11 +123,6 @@ public class MoMA {
 	 */
 	private static JFrame guiFrame;
 
-	/**
-	 * Properties to configure app (loaded and saved to properties file!).
-	 */
-	public static Properties props;
-
 	/**
 	 * Default x-position of the main GUI-window. This value will be used if the
 	 * values in the properties file are not fitting on any of the currently
@@ -291,24 +168,12 @@ public class MoMA {
 	private static int GUI_CONSOLE_WIDTH = 600;
 
 	/**
-	 * The path to usually open JFileChoosers at (except for initial load
-	 * dialog).
-	 */
-	public static String DEFAULT_PATH = System.getProperty( "user.home" );
-
-	/**
-	 * The path to save ground truth and time statistics to (yes, we write
-	 * papers!).
+	 * The solvers that can be used for the tracking ILPs (see
+	 * <code>MoMAConfig.ILP_SOLVER</code>): Gurobi or pure Java (no license
+	 * needed).
 	 */
-	public static String STATS_OUTPUT_PATH = DEFAULT_PATH;
-
-	/**
-	 * The maximum time in seconds GUROBI is allowed to search for a good
-	 * tracking solution. (After that period of time GUROBI will stop and best
-	 * solution found so far will be used.)
-	 */
-	public static double GUROBI_TIME_LIMIT = 15.0;
-	public static double GUROBI_MAX_OPTIMALITY_GAP = 0.99;
+	public static final String ILP_SOLVER_GUROBI = "GUROBI";
+	public static final String ILP_SOLVER_JAVA = "JAVA";
 
 	/**
 	 * Control if ImageJ and loaded data will be shown...
@@ -316,18 +181,6 @@ public class MoMA {
 	private static boolean showIJ = false;
 	private static MoMAGui gui;
 
-	/**
-	 * A properties file that will be used to 'overwrite' default properties in
-	 * mm.properties.
-	 * This file can be set using the CLI.
-	 */
-	private static File fileUserProps;
-
-	/**
-	 * Stores a string used to decorate filenames e.g. before export.
-	 */
-	private static String defaultFilenameDecoration;
-
 	// ====================================================================================================================
 
 	/**
@@ -383,6 +236,9 @@ public class MoMA {
 		final Option userProps = new Option( "p", "props", true, "properties file to be loaded (mm.properties)" );
 		userProps.setRequired( false );
 
+		final Option solver = new Option( "solver", "ilp_solver", true, "solver used for the tracking ILPs ('gurobi' or 'java')" );
+		solver.setRequired( false );
+
 		options.addOption( help );
 		options.addOption( headless );
 		options.addOption( timeFirst );
@@ -391,6 +247,7 @@ public class MoMA {
 		options.addOption( infolder );
 		options.addOption( outfolder );
 		options.addOption( userProps );
+		options.addOption( solver );
 		// get the commands parsed
 		CommandLine cmd = null;
 		try {
@@ -419,6 +276,9 @@ public class MoMA {
 			}
 		}
 
+		final MoMAContext context = new MoMAContext( new MoMAConfig() );
+		final MoMAConfig config = context.getConfig();
+
 		if ( cmd.hasOption( "h" ) ) {
 			System.out.println( ">>> Starting MM in headless mode." );
 			HEADLESS = true;
@@ -466,7 +326,7 @@ public class MoMA {
 				}
 			}
 			outputFolder = inputFolder;
-			STATS_OUTPUT_PATH = outputFolder.getAbsolutePath();
+			config.STATS_OUTPUT_PATH = outputFolder.getAbsolutePath();
 		} else {
 			outputFolder = new File( cmd.getOptionValue( "o" ) );
 
@@ -487,122 +347,43 @@ public class MoMA {
 				}
 			}
 
-			STATS_OUTPUT_PATH = outputFolder.getAbsolutePath();
+			config.STATS_OUTPUT_PATH = outputFolder.getAbsolutePath();
 		}
 
-		fileUserProps = null;
 		if ( cmd.hasOption( "p" ) ) {
-			fileUserProps = new File( cmd.getOptionValue( "p" ) );
+			context.setFileUserProps( new File( cmd.getOptionValue( "p" ) ) );
 		}
 
 
-		if (inputFolder.isDirectory() && inputFolder.listFiles(FloatTypeImgLoader.tifFilter).length > 1) {
-			System.out.println("reading a folder of images");
-			int min_t = Integer.MAX_VALUE;
-			int max_t = Integer.MIN_VALUE;
-			int min_c = Integer.MAX_VALUE;
-			int max_c = Integer.MIN_VALUE;
-			for (final File image : inputFolder.listFiles(FloatTypeImgLoader.tifFilter)) {
-
-				final int c = FloatTypeImgLoader.getChannelFromFilename(image.getName());
-				final int t = FloatTypeImgLoader.getTimeFromFilename(image.getName());
-
-				if (c < min_c) {
-					min_c = c;
-				}
-				if (c > max_c) {
-					max_c = c;
-				}
-
-				if (t < min_t) {
-					min_t = t;
-				}
-				if (t > max_t) {
-					max_t = t;
-				}
-			}
-			minTime = min_t;
-			maxTime = max_t + 1;
-			minChannelIdx = min_c;
-			numChannels = max_c - min_c + 1;
-		} else {
-
-			ImagePlus imp;
-			if (inputFolder.isDirectory() && inputFolder.listFiles(FloatTypeImgLoader.tifFilter).length == 1) {
-				System.out.println("reading a folder with a single image");
-				imp = IJ.openImage(inputFolder.listFiles(FloatTypeImgLoader.tifFilter)[0].getAbsolutePath());
-			} else {
-				System.out.println("reading a file");
-				imp = IJ.openImage(inputFolder.getAbsolutePath());
-			}
-
-			minTime = 1;
-			maxTime = imp.getNFrames();
-			minChannelIdx = 1;
-			numChannels = imp.getNChannels();
-		}
-		System.out.println("Determined minTime" + minTime);
-		System.out.println("Determined maxTime" + maxTime);
-
-		System.out.println("Determined minChannelIdx" + minChannelIdx);
-		System.out.println("Determined numChannels" + numChannels);
+		context.determineDatasetDimensions( inputFolder );
 
 
 		if ( cmd.hasOption( "tmin" ) ) {
-			minTime = Integer.parseInt( cmd.getOptionValue( "tmin" ) );
+			context.setMinTime( Integer.parseInt( cmd.getOptionValue( "tmin" ) ) );
 		}
 		if ( cmd.hasOption( "tmax" ) ) {
-			maxTime = Integer.parseInt( cmd.getOptionValue( "tmax" ) );
+			context.setMaxTime( Integer.parseInt( cmd.getOptionValue( "tmax" ) ) );
 		}
 
 		if ( cmd.hasOption( "orange" ) ) {
-			initOptRange = Integer.parseInt( cmd.getOptionValue( "orange" ) );
+			context.setInitialOptRange( Integer.parseInt( cmd.getOptionValue( "orange" ) ) );
 		}
 
-		// ******** CHECK GUROBI ********* CHECK GUROBI ********* CHECK GUROBI *********
-		final String jlp = System.getProperty( "java.library.path" );
-//		System.out.println( jlp );
-		try {
-			new GRBEnv( "MoMA_gurobi.log" );
-		} catch ( final GRBException e ) {
-			final String msgs = "Initial Gurobi test threw exception... check your Gruobi setup!\n\nJava library path: " + jlp;
-			if ( HEADLESS ) {
-				System.out.println( msgs );
-			} else {
-				JOptionPane.showMessageDialog(
-						MoMA.guiFrame,
-						msgs,
-						"Gurobi Error?",
-						JOptionPane.ERROR_MESSAGE );
-			}
-			e.printStackTrace();
-			if (!running_as_Fiji_plugin) {
-				System.exit( 98 );
-			} else {
-				return;
-			}
-		} catch ( final UnsatisfiedLinkError ulr ) {
-			final String msgs = "Could not initialize Gurobi.\n" + "You might not have installed Gurobi properly or you miss a valid license.\n" + "Please visit 'www.gurobi.com' for further information.\n\n" + ulr.getMessage() + "\nJava library path: " + jlp;
-			if ( HEADLESS ) {
-				System.out.println( msgs );
-			} else {
-				JOptionPane.showMessageDialog(
-						MoMA.guiFrame,
-						msgs,
-						"Gurobi Error?",
-						JOptionPane.ERROR_MESSAGE );
-				ulr.printStackTrace();
-			}
-			System.out.println( "\n>>>>> Java library path: " + jlp + "\n" );
+		if ( cmd.hasOption( "solver" ) ) {
+			config.ILP_SOLVER = cmd.getOptionValue( "solver" ).toUpperCase();
+		}
+
+		final int solverStatus = checkIlpSolver( config.ILP_SOLVER );
+		if ( solverStatus != 0 ) {
 			if (!running_as_Fiji_plugin) {
-				System.exit( 99 );
+				System.exit( solverStatus );
 			} else {
 				return;
 			}
 		}
-		// ******* END CHECK GUROBI **** END CHECK GUROBI **** END CHECK GUROBI ********
 
-		final MoMA main = new MoMA();
+		final MoMA main = new MoMA( context );
+		instance = main;
 		if ( !HEADLESS ) {
 			guiFrame = new JFrame();
 			main.initMainWindow( guiFrame );
@@ -610,50 +391,10 @@ public class MoMA {
 
 		System.out.println( "VERSION: " + VERSION_STRING );
 
-		props = main.loadParams();
-		BGREM_TEMPLATE_XMIN = Integer.parseInt( props.getProperty( "BGREM_TEMPLATE_XMIN", Integer.toString( BGREM_TEMPLATE_XMIN ) ) );
-		BGREM_TEMPLATE_XMAX = Integer.parseInt( props.getProperty( "BGREM_TEMPLATE_XMAX", Integer.toString( BGREM_TEMPLATE_XMAX ) ) );
-		BGREM_X_OFFSET = Integer.parseInt( props.getProperty( "BGREM_X_OFFSET", Integer.toString( BGREM_X_OFFSET ) ) );
-		GL_WIDTH_IN_PIXELS = Integer.parseInt( props.getProperty( "GL_WIDTH_IN_PIXELS", Integer.toString( GL_WIDTH_IN_PIXELS ) ) );
-		MOTHER_CELL_BOTTOM_TRICK_MAX_PIXELS = Integer.parseInt( props.getProperty( "MOTHER_CELL_BOTTOM_TRICK_MAX_PIXELS", Integer.toString( MOTHER_CELL_BOTTOM_TRICK_MAX_PIXELS ) ) );
-		GL_FLUORESCENCE_COLLECTION_WIDTH_IN_PIXELS = Integer.parseInt( props.getProperty( "GL_FLUORESCENCE_COLLECTION_WIDTH_IN_PIXELS", Integer.toString( GL_FLUORESCENCE_COLLECTION_WIDTH_IN_PIXELS ) ) );
-		GL_OFFSET_BOTTOM = Integer.parseInt( props.getProperty( "GL_OFFSET_BOTTOM", Integer.toString( GL_OFFSET_BOTTOM ) ) );
-		if ( GL_OFFSET_BOTTOM == -1 ) {
-			GL_OFFSET_BOTTOM_AUTODETECT = true;
-		} else {
-			GL_OFFSET_BOTTOM_AUTODETECT = false;
-		}
-		GL_OFFSET_TOP = Integer.parseInt( props.getProperty( "GL_OFFSET_TOP", Integer.toString( GL_OFFSET_TOP ) ) );
-		GL_OFFSET_LATERAL = Integer.parseInt( props.getProperty( "GL_OFFSET_LATERAL", Integer.toString( GL_OFFSET_LATERAL ) ) );
-		MIN_CELL_LENGTH = Integer.parseInt( props.getProperty( "MIN_CELL_LENGTH", Integer.toString( MIN_CELL_LENGTH ) ) );
-		MIN_GAP_CONTRAST = Float.parseFloat( props.getProperty( "MIN_GAP_CONTRAST", Float.toString( MIN_GAP_CONTRAST ) ) );
-		SIGMA_PRE_SEGMENTATION_X = Float.parseFloat( props.getProperty( "SIGMA_PRE_SEGMENTATION_X", Float.toString( SIGMA_PRE_SEGMENTATION_X ) ) );
-		SIGMA_PRE_SEGMENTATION_Y = Float.parseFloat( props.getProperty( "SIGMA_PRE_SEGMENTATION_Y", Float.toString( SIGMA_PRE_SEGMENTATION_Y ) ) );
-		SIGMA_GL_DETECTION_X = Float.parseFloat( props.getProperty( "SIGMA_GL_DETECTION_X", Float.toString( SIGMA_GL_DETECTION_X ) ) );
-		SIGMA_GL_DETECTION_Y = Float.parseFloat( props.getProperty( "SIGMA_GL_DETECTION_Y", Float.toString( SIGMA_GL_DETECTION_Y ) ) );
-		SEGMENTATION_MIX_CT_INTO_PMFRF = Float.parseFloat( props.getProperty( "SEGMENTATION_MIX_CT_INTO_PMFRF", Float.toString( SEGMENTATION_MIX_CT_INTO_PMFRF ) ) );
-		SEGMENTATION_CLASSIFIER_MODEL_FILE = props.getProperty( "SEGMENTATION_CLASSIFIER_MODEL_FILE", SEGMENTATION_CLASSIFIER_MODEL_FILE );
-		CELLSIZE_CLASSIFIER_MODEL_FILE = props.getProperty( "CELLSIZE_CLASSIFIER_MODEL_FILE", CELLSIZE_CLASSIFIER_MODEL_FILE );
-		DEFAULT_PATH = props.getProperty( "DEFAULT_PATH", DEFAULT_PATH );
-
-		GUROBI_TIME_LIMIT = Double.parseDouble( props.getProperty( "GUROBI_TIME_LIMIT", Double.toString( GUROBI_TIME_LIMIT ) ) );
-		GUROBI_MAX_OPTIMALITY_GAP = Double.parseDouble( props.getProperty( "GUROBI_MAX_OPTIMALITY_GAP", Double.toString( GUROBI_MAX_OPTIMALITY_GAP ) ) );
-
-		GUI_POS_X = Integer.parseInt( props.getProperty( "GUI_POS_X", Integer.toString( DEFAULT_GUI_POS_X ) ) );
-		GUI_POS_Y = Integer.parseInt( props.getProperty( "GUI_POS_Y", Integer.toString( DEFAULT_GUI_POS_X ) ) );
-		GUI_WIDTH = Integer.parseInt( props.getProperty( "GUI_WIDTH", Integer.toString( GUI_WIDTH ) ) );
-		GUI_HEIGHT = Integer.parseInt( props.getProperty( "GUI_HEIGHT", Integer.toString( GUI_HEIGHT ) ) );
-		GUI_CONSOLE_WIDTH = Integer.parseInt( props.getProperty( "GUI_CONSOLE_WIDTH", Integer.toString( GUI_CONSOLE_WIDTH ) ) );
-
-		EXPORT_DO_TRACK_EXPORT = props.getProperty( "EXPORT_DO_TRACK_EXPORT", Integer.toString(EXPORT_DO_TRACK_EXPORT?1:0) ).equals("1");
-		EXPORT_USER_INPUTS = props.getProperty( "EXPORT_USER_INPUTS", Integer.toString(EXPORT_USER_INPUTS?1:0) ).equals("1");
-		EXPORT_INCLUDE_HISTOGRAMS = props.getProperty( "EXPORT_INCLUDE_HISTOGRAMS", Integer.toString(EXPORT_INCLUDE_HISTOGRAMS?1:0) ).equals("1");
-		EXPORT_INCLUDE_QUANTILES = props.getProperty( "EXPORT_INCLUDE_QUANTILES", Integer.toString(EXPORT_INCLUDE_QUANTILES?1:0) ).equals("1");
-		EXPORT_INCLUDE_COL_INTENSITY_SUMS = props.getProperty( "EXPORT_INCLUDE_COL_INTENSITY_SUMS", Integer.toString(EXPORT_INCLUDE_COL_INTENSITY_SUMS?1:0) ).equals("1");
-		EXPORT_INCLUDE_PIXEL_INTENSITIES = props.getProperty( "EXPORT_INCLUDE_PIXEL_INTENSITIES", Integer.toString(EXPORT_INCLUDE_PIXEL_INTENSITIES?1:0) ).equals("1");
-
-
-		OPTIMISATION_INTERVAL_LENGTH = Integer.parseInt( props.getProperty( "OPTIMISATION_INTERVAL_LENGTH", Integer.toString(OPTIMISATION_INTERVAL_LENGTH) ));
+		final Properties props = main.loadParams();
+		context.setProps( props );
+		config.load( props, cmd.hasOption( "solver" ) );
+		loadGuiParams( props );
 
 
 		if ( !HEADLESS ) {
@@ -682,7 +423,7 @@ public class MoMA {
 			inputFolder = main.showStartupDialog( guiFrame, path );
 		}
 		System.out.println( "Default filename decoration = " + inputFolder.getName() );
-		defaultFilenameDecoration = inputFolder.getName();
+		context.setDefaultFilenameDecoration( inputFolder.getName() );
 		path = inputFolder.getAbsolutePath();
 		props.setProperty( "import_path", path );
 
@@ -700,9 +441,8 @@ public class MoMA {
 		// ------------------------------------------------------------------------------------------------------
 		// ------------------------------------------------------------------------------------------------------
 		final MoMAModel mmm = new MoMAModel( main );
-		instance = main;
 		try {
-			main.processDataFromFolder( path, minTime, maxTime, minChannelIdx, numChannels );
+			main.processDataFromFolder( path, context.getMinTime(), context.getMaxTime(), context.getMinChannelIdx(), context.getNumChannels() );
 		} catch ( final Exception e ) {
 			e.printStackTrace();
 			if (!running_as_Fiji_plugin) {
@@ -756,7 +496,7 @@ public class MoMA {
 			gui.exportHtmlOverview();
 			gui.exportDataFiles();
 
-			instance.saveParams();
+			main.saveParams();
 
 			if (!running_as_Fiji_plugin) {
 				System.exit( 11 );
@@ -775,6 +515,12 @@ public class MoMA {
 	 */
 	public ImageJ ij;
 
+	/**
+	 * The run processed by this instance and its parameters.
+	 */
+	private final MoMAContext context;
+	private final MoMAConfig config;
+
 	private List< Img< FloatType >> rawChannelImgs;
 	private Img< FloatType > imgRaw;
 	private Img< FloatType > imgTemp;
@@ -782,6 +528,12 @@ public class MoMA {
 	private Img< FloatType > imgClassified;
 	private Img< ShortType > imgSegmented;
 
+	/**
+	 * Growth lines for which <code>imgSegmented</code> was computed already.
+	 */
+	private final Set< GrowthLine > cellSegmentedGLs = new HashSet< GrowthLine >();
+	private PixelClassificationService cellSizeClassification;
+
 	/**
 	 * Contains all detected growth line center points. The structure goes in
 	 * line with image data: Outermost list: one element per frame (image in
@@ -810,9 +562,39 @@ public class MoMA {
 	 */
 	private String datasetName;
 
+	// -------------------------------------------------------------------------------------
+	// construction
+	// -------------------------------------------------------------------------------------
+	/**
+	 * Creates an instance using the default parameters.
+	 */
+	public MoMA() {
+		this( new MoMAContext( new MoMAConfig() ) );
+	}
+
+	public MoMA( final MoMAContext context ) {
+		this.context = context;
+		this.config = context.getConfig();
+		context.setMoMA( this );
+	}
+
 	// -------------------------------------------------------------------------------------
 	// setters and getters
 	// -------------------------------------------------------------------------------------
+	/**
+	 * @return the run processed by this instance
+	 */
+	public MoMAContext getContext() {
+		return context;
+	}
+
+	/**
+	 * @return the parameters of the run processed by this instance
+	 */
+	public MoMAConfig getConfig() {
+		return config;
+	}
+
 	/**
 	 * @return the imgRaw
 	 */
@@ -866,91 +648,112 @@ public class MoMA {
 	}
 
 	/**
-	 * @return imgSegmented
+	 * @return imgSegmented (see <code>getCellSegmentedChannelImgs()</code>)
 	 */
 	public RandomAccessibleInterval< FloatType > getCellClassificationImgs() {
-		if ( this.imgSegmented == null ) {
-			getCellSegmentedChannelImgs();
-		}
+		getCellSegmentedChannelImgs();
 		return this.imgClassified;
 	}
 
 	/**
-	 * @return imgSegmented
+	 * @return imgSegmented, classified within the region of the current
+	 *         growth line (see
+	 *         <code>getCellSegmentedChannelImgs(GrowthLine)</code>).
 	 */
 	public RandomAccessibleInterval< ShortType > getCellSegmentedChannelImgs() {
-		if ( this.imgSegmented == null ) {
-			final DialogProgress dialogProgress = new DialogProgress( MoMA.getGui(), "Estimating cell-area using RF classifier...", MoMA.getGui().model.getCurrentGL().size() );
-			if ( !HEADLESS ) {
-				dialogProgress.setVisible( true );
-			}
-
-			final SilentWekaSegmenter< FloatType > oldClassifier = GrowthLineSegmentationMagic.getClassifier();
-			GrowthLineSegmentationMagic.setClassifier( MoMA.CELLSIZE_CLASSIFIER_MODEL_FILE, "" );
+		return getCellSegmentedChannelImgs( MoMA.getGui().model.getCurrentGL() );
+	}
 
+	/**
+	 * Estimates the cell area in all frames using the RF cell size
+	 * classifier. Only the region of the given growth line is classified
+	 * (once); the rest of the returned image stays 0 until other growth lines
+	 * are requested.
+	 *
+	 * @return imgSegmented
+	 */
+	public synchronized RandomAccessibleInterval< ShortType > getCellSegmentedChannelImgs( final GrowthLine gl ) {
+		if ( this.imgSegmented == null ) {
 			imgClassified = new ArrayImgFactory< FloatType >().create( imgTemp, new FloatType() );
 			imgSegmented = new ArrayImgFactory< ShortType >().create( imgTemp, new ShortType() );
-			final RealFloatProbMapToSegmentation< FloatType > converter = new RealFloatProbMapToSegmentation< FloatType >( 0.5f );
-
-			final int numProcessors = Prefs.getThreads();
-			final int numThreads = Math.min( ( int ) getImgTemp().dimension( 2 ), numProcessors );
-			final Thread[] threads = new Thread[ numThreads ];
-
-			class ImageProcessingThread extends Thread {
+			cellSegmentedGLs.clear();
+		}
+		if ( cellSegmentedGLs.contains( gl ) ) { return imgSegmented; }
 
-				final int numThread;
-				final int numThreads;
+		final PixelClassificationService service = getCellSizeClassificationService();
+		final DialogProgress dialogProgress = ( HEADLESS ) ? null : new DialogProgress( MoMA.getGui(), "Estimating cell-area using RF classifier...", service.getNumBatches( getImgRaw().dimension( 2 ) ) );
+		if ( !HEADLESS ) {
+			dialogProgress.setVisible( true );
+		}
 
-				public ImageProcessingThread( final int numThread, final int numThreads ) {
-					this.numThread = numThread;
-					this.numThreads = numThreads;
-				}
+		final Interval roi = getGrowthLineRoi( gl );
+		final RunReport.Span span = context.getRunReport().start( "classification", getGrowthLines().indexOf( gl ) );
+		service.classify( getImgRaw(), roi, imgClassified, new FrameExecutor.StageListener() {  // RAWest data at hand   ;)
 
-				@Override
-				public void run() {
-					RandomAccessibleInterval< FloatType > classified;
-					for ( int frameIdx = numThread; frameIdx < getImgTemp().dimension( 2 ); frameIdx += numThreads ) {
-//						final IntervalView< FloatType > channel0Frame = Views.hyperSlice( getImgTemp(), 2, frameIdx );  // normalized and modified
-						final IntervalView< FloatType > channel0Frame = Views.hyperSlice( getImgRaw(), 2, frameIdx );  // RAWest data at hand   ;)
-						classified = Views.hyperSlice( GrowthLineSegmentationMagic.returnClassification( channel0Frame ), 2, 0 );
-
-						final RandomAccessibleInterval< FloatType > newClassificationSlize = Views.hyperSlice( imgClassified, 2, frameIdx );
-						final RandomAccessibleInterval< ShortType > newSegmentationSlize = Views.hyperSlice( imgSegmented, 2, frameIdx );
-
-						DataMover.copy( classified, Views.iterable( newClassificationSlize ) );
-						DataMover.copy( classified, Views.iterable( newSegmentationSlize ), converter );
-
-						if ( !HEADLESS ) {
-							dialogProgress.hasProgressed();
-						}
-					}
+			@Override
+			public void taskDone( final String stage, final int numDone, final int numTasks ) {
+				if ( !HEADLESS ) {
+					dialogProgress.hasProgressed();
 				}
 			}
 
-			// start threads
-			for ( int i = 0; i < numThreads; i++ ) {
-				threads[ i ] = new ImageProcessingThread( i, numThreads );
-				threads[ i ].start();
+			@Override
+			public void stageDone( final String stage, final int numTasks, final long millis ) {
+				System.out.println( String.format( "Cell-area estimation: %d batch(es) in %.2fs.", numTasks, millis / 1000.0 ) );
 			}
+		} );
 
-			// wait for all threads to terminate
-			for ( final Thread thread : threads ) {
-				try {
-					thread.join();
-				} catch ( final InterruptedException e ) {}
-			}
+		final RealFloatProbMapToSegmentation< FloatType > converter = new RealFloatProbMapToSegmentation< FloatType >( 0.5f );
+		final long[] min = new long[] { roi.min( 0 ), roi.min( 1 ), imgTemp.min( 2 ) };
+		final long[] max = new long[] { roi.max( 0 ), roi.max( 1 ), imgTemp.max( 2 ) };
+		DataMover.copy( Views.interval( imgClassified, min, max ), Views.iterable( Views.interval( imgSegmented, min, max ) ), converter );
+		cellSegmentedGLs.add( gl );
+		span.stop();
 
-			// clean up
-			GrowthLineSegmentationMagic.setClassifier( oldClassifier );
-			if ( !HEADLESS ) {
-				dialogProgress.setVisible( false );
-				dialogProgress.dispose();
-			}
+		if ( !HEADLESS ) {
+			dialogProgress.setVisible( false );
+			dialogProgress.dispose();
 		}
-
 		return imgSegmented;
 	}
 
+	/**
+	 * @return the classification service for the cell size classifier
+	 *         (<code>CELLSIZE_CLASSIFIER_MODEL_FILE</code>).
+	 */
+	private PixelClassificationService getCellSizeClassificationService() {
+		// each pooled classifier holds its own copy of the random forest
+		final ClassifierPool pool = ClassifierPool.getShared( config.CELLSIZE_CLASSIFIER_MODEL_FILE, Math.min( 4, config.PREPROCESSING_THREADS ) );
+		if ( cellSizeClassification == null || cellSizeClassification.getPool() != pool ) {
+			cellSizeClassification = new PixelClassificationService( pool );
+		}
+		return cellSizeClassification;
+	}
+
+	/**
+	 * @return the (x,y) region covered by the given growth line in any frame
+	 *         (including the padding shown in the views), clipped to the
+	 *         image.
+	 */
+	private Interval getGrowthLineRoi( final GrowthLine gl ) {
+		long minX = Long.MAX_VALUE;
+		long maxX = Long.MIN_VALUE;
+		for ( final GrowthLineFrame glf : gl.getFrames() ) {
+			if ( glf.size() > 0 ) {
+				minX = Math.min( minX, glf.getAvgXpos() );
+				maxX = Math.max( maxX, glf.getAvgXpos() );
+			}
+		}
+		if ( minX > maxX ) { // no center points at all -- use the full width
+			minX = imgRaw.min( 0 );
+			maxX = imgRaw.max( 0 );
+		}
+		final int halfWidth = config.GL_WIDTH_IN_PIXELS / 2 + config.GL_PIXEL_PADDING_IN_VIEWS;
+		return new FinalInterval(
+				new long[] { Math.max( imgRaw.min( 0 ), minX - halfWidth ), imgRaw.min( 1 ) },
+				new long[] { Math.min( imgRaw.max( 0 ), maxX + halfWidth ), imgRaw.max( 1 ) } );
+	}
+
 	/**
 	 * @return the growthLines
 	 */
@@ -1079,6 +882,9 @@ public class MoMA {
 				if (!running_as_Fiji_plugin) {
 					System.exit(0);
 				} else {
+					if ( gui != null ) {
+						gui.dispose();
+					}
 					return;
 				}
 			}
@@ -1247,6 +1053,7 @@ public class MoMA {
 
 		// ADD USER PROPS IF GIVEN VIA CLI
 		final Properties props = new Properties( defaultProps );
+		final File fileUserProps = context.getFileUserProps();
 		if ( fileUserProps != null ) {
 			System.out.println( "Loading user properties from: " + fileUserProps.getAbsolutePath() );
 			try {
@@ -1277,6 +1084,149 @@ public class MoMA {
 		return props;
 	}
 
+	/**
+	 * Processes one dataset without user interface and exports all results
+	 * into <code>outputFolder</code>, just like <code>main</code> does in
+	 * headless mode, but without terminating the JVM. Used by
+	 * <code>BatchRunner</code> to process many datasets in one JVM.
+	 *
+	 * The run starts from a copy of <code>defaults</code> and then loads
+	 * mm.properties and the given user properties like <code>main</code>
+	 * does. All state of the run is kept in its own <code>MoMAContext</code>,
+	 * so several datasets can be processed concurrently.
+	 *
+	 * @param userPropsFile
+	 *            user properties, or <code>null</code>.
+	 * @param ilpSolver
+	 *            the ILP solver to use, or <code>null</code> to take the one
+	 *            in the properties.
+	 */
+	public static void processHeadless( final File inputFolder, final File outputFolder, final File userPropsFile, final MoMAConfig defaults, final String ilpSolver ) throws Exception {
+		HEADLESS = true;
+		final MoMAContext context = new MoMAContext( defaults.copy() );
+		final MoMAConfig config = context.getConfig();
+		if ( ilpSolver != null ) {
+			config.ILP_SOLVER = ilpSolver.toUpperCase();
+		}
+		config.STATS_OUTPUT_PATH = outputFolder.getAbsolutePath();
+		context.setFileUserProps( userPropsFile );
+		context.determineDatasetDimensions( inputFolder );
+
+		MoMAGui headlessGui = null;
+		try {
+			final MoMA main = new MoMA( context );
+			final Properties props = main.loadParams();
+			context.setProps( props );
+			config.load( props, ilpSolver != null );
+
+			context.setDefaultFilenameDecoration( inputFolder.getName() );
+			props.setProperty( "import_path", inputFolder.getAbsolutePath() );
+
+			final MoMAModel mmm = new MoMAModel( main );
+			main.processDataFromFolder( inputFolder.getAbsolutePath(), context.getMinTime(), context.getMaxTime(), context.getMinChannelIdx(), context.getNumChannels() );
+
+			// exports mm.properties into outputFolder as well
+			headlessGui = new MoMAGui( mmm );
+			final RunReport report = context.getRunReport();
+			RunReport.Span span = report.start( "export_html" );
+			try {
+				headlessGui.exportHtmlOverview();
+			} finally {
+				span.stop();
+			}
+			span = report.start( "export_data" );
+			try {
+				headlessGui.exportDataFiles();
+			} finally {
+				span.stop();
+			}
+
+			final File reportFile = new File( config.STATS_OUTPUT_PATH, "RunReport_" + context.getDefaultFilenameDecoration() + ".json" );
+			try {
+				report.writeJson( reportFile );
+				System.out.println( "Run report written to " + reportFile.getAbsolutePath() );
+			} catch ( final IOException e ) {
+				System.out.println( "Could not write run report to " + reportFile.getAbsolutePath() );
+				e.printStackTrace();
+			}
+		} finally {
+			if ( headlessGui != null ) {
+				headlessGui.dispose();
+			}
+			context.shutdown();
+		}
+	}
+
+	/**
+	 * Checks if the chosen ILP solver can be used.
+	 *
+	 * @param ilpSolver
+	 *            the solver to check (see <code>MoMAConfig.ILP_SOLVER</code>).
+	 * @return 0 if it can, otherwise the exit code to terminate with.
+	 */
+	static int checkIlpSolver( final String ilpSolver ) {
+		// ******** CHECK GUROBI ********* CHECK GUROBI ********* CHECK GUROBI *********
+		final String jlp = System.getProperty( "java.library.path" );
+//		System.out.println( jlp );
+		try {
+			if ( !ILP_SOLVER_JAVA.equals( ilpSolver ) ) {
+				new GRBEnv( "MoMA_gurobi.log" );
+			}
+		} catch ( final GRBException e ) {
+			final String msgs = "Initial Gurobi test threw exception... check your Gruobi setup!\n\nJava library path: " + jlp;
+			if ( HEADLESS ) {
+				System.out.println( msgs );
+			} else {
+				JOptionPane.showMessageDialog(
+						MoMA.guiFrame,
+						msgs,
+						"Gurobi Error?",
+						JOptionPane.ERROR_MESSAGE );
+			}
+			e.printStackTrace();
+			return 98;
+		} catch ( final UnsatisfiedLinkError ulr ) {
+			final String msgs = "Could not initialize Gurobi.\n" + "You might not have installed Gurobi properly or you miss a valid license.\n" + "Please visit 'www.gurobi.com' for further information.\n\n" + ulr.getMessage() + "\nJava library path: " + jlp;
+			if ( HEADLESS ) {
+				System.out.println( msgs );
+			} else {
+				JOptionPane.showMessageDialog(
+						MoMA.guiFrame,
+						msgs,
+						"Gurobi Error?",
+						JOptionPane.ERROR_MESSAGE );
+				ulr.printStackTrace();
+			}
+			System.out.println( "\n>>>>> Java library path: " + jlp + "\n" );
+			return 99;
+		}
+		// ******* END CHECK GUROBI **** END CHECK GUROBI **** END CHECK GUROBI ********
+		return 0;
+	}
+
+	/**
+	 * Sets the GUI window geometry found in the given properties. (All other
+	 * parameters are loaded by <code>MoMAConfig.load</code>.)
+	 */
+	private static void loadGuiParams( final Properties props ) {
+		GUI_POS_X = Integer.parseInt( props.getProperty( "GUI_POS_X", Integer.toString( DEFAULT_GUI_POS_X ) ) );
+		GUI_POS_Y = Integer.parseInt( props.getProperty( "GUI_POS_Y", Integer.toString( DEFAULT_GUI_POS_X ) ) );
+		GUI_WIDTH = Integer.parseInt( props.getProperty( "GUI_WIDTH", Integer.toString( GUI_WIDTH ) ) );
+		GUI_HEIGHT = Integer.parseInt( props.getProperty( "GUI_HEIGHT", Integer.toString( GUI_HEIGHT ) ) );
+		GUI_CONSOLE_WIDTH = Integer.parseInt( props.getProperty( "GUI_CONSOLE_WIDTH", Integer.toString( GUI_CONSOLE_WIDTH ) ) );
+	}
+
+	/**
+	 * Stores the GUI window geometry into the given properties.
+	 */
+	private static void storeGuiParams( final Properties props ) {
+		props.setProperty( "GUI_POS_X", Integer.toString( GUI_POS_X ) );
+		props.setProperty( "GUI_POS_Y", Integer.toString( GUI_POS_Y ) );
+		props.setProperty( "GUI_WIDTH", Integer.toString( GUI_WIDTH ) );
+		props.setProperty( "GUI_HEIGHT", Integer.toString( GUI_HEIGHT ) );
+		props.setProperty( "GUI_CONSOLE_WIDTH", Integer.toString( GUI_CONSOLE_WIDTH ) );
+	}
+
 	public void saveParams() {
 		final File f = new File( "mm.properties" );
 		saveParams (f);
@@ -1294,33 +1244,6 @@ public class MoMA {
 		try {
 			final OutputStream out = new FileOutputStream( f );
 
-			props.setProperty( "BGREM_TEMPLATE_XMIN", Integer.toString( BGREM_TEMPLATE_XMIN ) );
-			props.setProperty( "BGREM_TEMPLATE_XMAX", Integer.toString( BGREM_TEMPLATE_XMAX ) );
-			props.setProperty( "BGREM_X_OFFSET", Integer.toString( BGREM_X_OFFSET ) );
-			props.setProperty( "GL_WIDTH_IN_PIXELS", Integer.toString( GL_WIDTH_IN_PIXELS ) );
-			props.setProperty( "MOTHER_CELL_BOTTOM_TRICK_MAX_PIXELS", Integer.toString( MOTHER_CELL_BOTTOM_TRICK_MAX_PIXELS ) );
-			props.setProperty( "GL_FLUORESCENCE_COLLECTION_WIDTH_IN_PIXELS", Integer.toString( GL_FLUORESCENCE_COLLECTION_WIDTH_IN_PIXELS ) );
-			int offset = GL_OFFSET_BOTTOM;
-			if ( GL_OFFSET_BOTTOM_AUTODETECT ) {
-				offset = -1;
-			}
-			props.setProperty( "GL_OFFSET_BOTTOM", Integer.toString( offset ) );
-			props.setProperty( "GL_OFFSET_TOP", Integer.toString( GL_OFFSET_TOP ) );
-			props.setProperty( "GL_OFFSET_LATERAL", Integer.toString( GL_OFFSET_LATERAL ) );
-			props.setProperty( "MIN_CELL_LENGTH", Integer.toString( MIN_CELL_LENGTH ) );
-			props.setProperty( "MIN_GAP_CONTRAST", Double.toString( MIN_GAP_CONTRAST ) );
-			props.setProperty( "SIGMA_PRE_SEGMENTATION_X", Double.toString( SIGMA_PRE_SEGMENTATION_X ) );
-			props.setProperty( "SIGMA_PRE_SEGMENTATION_Y", Double.toString( SIGMA_PRE_SEGMENTATION_Y ) );
-			props.setProperty( "SIGMA_GL_DETECTION_X", Double.toString( SIGMA_GL_DETECTION_X ) );
-			props.setProperty( "SIGMA_GL_DETECTION_Y", Double.toString( SIGMA_GL_DETECTION_Y ) );
-			props.setProperty( "SEGMENTATION_MIX_CT_INTO_PMFRF", Double.toString( SEGMENTATION_MIX_CT_INTO_PMFRF ) );
-			props.setProperty( "SEGMENTATION_CLASSIFIER_MODEL_FILE", SEGMENTATION_CLASSIFIER_MODEL_FILE );
-			props.setProperty( "CELLSIZE_CLASSIFIER_MODEL_FILE", CELLSIZE_CLASSIFIER_MODEL_FILE );
-			props.setProperty( "DEFAULT_PATH", DEFAULT_PATH );
-
-			props.setProperty( "GUROBI_TIME_LIMIT", Double.toString( GUROBI_TIME_LIMIT ) );
-			props.setProperty( "GUROBI_MAX_OPTIMALITY_GAP", Double.toString( GUROBI_MAX_OPTIMALITY_GAP ) );
-
 			if ( !MoMA.HEADLESS ) {
 				GUI_POS_X = guiFrame.getX();
 				GUI_POS_Y = guiFrame.getY();
@@ -1328,21 +1251,9 @@ public class MoMA {
 				GUI_HEIGHT = guiFrame.getHeight();
 			}
 
-			props.setProperty( "GUI_POS_X", Integer.toString( GUI_POS_X ) );
-			props.setProperty( "GUI_POS_Y", Integer.toString( GUI_POS_Y ) );
-			props.setProperty( "GUI_WIDTH", Integer.toString( GUI_WIDTH ) );
-			props.setProperty( "GUI_HEIGHT", Integer.toString( GUI_HEIGHT ) );
-			props.setProperty( "GUI_CONSOLE_WIDTH", Integer.toString( GUI_CONSOLE_WIDTH ) );
-
-
-			props.setProperty( "EXPORT_DO_TRACK_EXPORT", Integer.toString(EXPORT_DO_TRACK_EXPORT?1:0) );
-			props.setProperty( "EXPORT_USER_INPUTS", Integer.toString(EXPORT_USER_INPUTS?1:0) );
-			props.setProperty( "EXPORT_INCLUDE_HISTOGRAMS", Integer.toString(EXPORT_INCLUDE_HISTOGRAMS?1:0) );
-			props.setProperty( "EXPORT_INCLUDE_QUANTILES", Integer.toString(EXPORT_INCLUDE_QUANTILES?1:0) );
-			props.setProperty( "EXPORT_INCLUDE_COL_INTENSITY_SUMS", Integer.toString(EXPORT_INCLUDE_COL_INTENSITY_SUMS?1:0) );
-			props.setProperty( "EXPORT_INCLUDE_PIXEL_INTENSITIES", Integer.toString(EXPORT_INCLUDE_PIXEL_INTENSITIES?1:0) );
-
-			props.setProperty("OPTIMISATION_INTERVAL_LENGTH", Integer.toString(OPTIMISATION_INTERVAL_LENGTH));
+			final Properties props = context.getProps();
+			config.store( props );
+			storeGuiParams( props );
 
 			props.store( out, "MotherMachine properties" );
 		} catch ( final Exception e ) {
@@ -1375,11 +1286,27 @@ public class MoMA {
 		final File folder = new File( path );
 		setDatasetName( String.format( "%s >> %s", folder.getParentFile().getName(), folder.getName() ) );
 
+		// try to get preprocessed data from cache, otherwise
 		// load channels separately into Img objects
-		rawChannelImgs = FloatTypeImgLoader.loadTiffsFromFileOrFolder(path, minTime, maxTime, minChannelIdx, numChannels + minChannelIdx - 1);
-
+		final RunReport report = context.getRunReport();
+		report.setDataset( path );
+		report.setJfrEvents( config.EMIT_JFR_EVENTS );
+		final RunReport.Span span = report.start( "load" );
+		final PreprocessingCache cache = ( config.USE_PREPROCESSING_CACHE ) ? new PreprocessingCache( new File( config.PREPROCESSING_CACHE_DIR ), 1024L * 1024L * config.PREPROCESSING_CACHE_MAX_MB, path, getPreprocessingParameters( minTime, maxTime, minChannelIdx, numChannels ) ) : null;
+		final boolean cached;
+		try {
+			cached = ( cache != null && cache.load( context ) );
+			if ( cached ) {
+				rawChannelImgs = cache.getRawChannelImgs();
+			} else {
+				rawChannelImgs = FloatTypeImgLoader.loadTiffsFromFileOrFolder(path, minTime, maxTime, minChannelIdx, numChannels + minChannelIdx - 1);
+			}
+		} finally {
+			span.stop();
+		}
 
 		imgRaw = rawChannelImgs.get( 0 );
+		span.count( "frames", imgRaw.dimension( 2 ) ).count( "channels", rawChannelImgs.size() ).count( "fromCache", cached ? 1 : 0 );
 
 		// setup ARGB image (that will eventually contain annotations)
 		System.out.print( "Spawning off annotation image (ARGB)..." );
@@ -1392,15 +1319,20 @@ public class MoMA {
 		}
 		System.out.println( " done!" );
 
-		restartFromGLSegmentation();
+		if ( cached ) {
+			restartFromCachedPreprocessing( cache );
+		} else {
+			restartFromGLSegmentation( cache );
+		}
 
 		if ( HEADLESS ) {
-			System.out.println( "Generating Integer Linear Program(s)..." );
-			generateILPs();
-			System.out.println( " done!" );
-
-			System.out.println( "Running Integer Linear Program(s)..." );
-			runILPs();
+			System.out.println( "Generating and running Integer Linear Program(s)..." );
+			final RunReport.Span ilpSpan = report.start( "ilp" );
+			try {
+				generateAndRunILPs();
+			} finally {
+				ilpSpan.stop();
+			}
 			System.out.println( " done!" );
 		}
 	}
@@ -1419,12 +1351,26 @@ public class MoMA {
 		imgAnnotated = DataMover.createEmptyArrayImgLike( img, new ARGBType() );
 	}
 
+	/**
+	 * @return the executor used to process frames concurrently during
+	 *         preprocessing (one per run, see
+	 *         <code>MoMAContext.getFrameExecutor()</code>).
+	 */
+	public FrameExecutor getFrameExecutor() {
+		return context.getFrameExecutor();
+	}
+
 	private void normalizePerFrame( final Img< FloatType > img, final int topOffset, final int bottomOffset ) {
-		for ( int f = 0; f < img.dimension( 2 ); f++ ) {
-			final IntervalView< FloatType > slice = Views.hyperSlice( img, 2, f );
-			final IntervalView< FloatType > roi = Views.interval( slice, new long[] { img.min( 0 ), img.min( 1 ) + topOffset }, new long[] { img.max( 0 ), img.max( 1 ) - bottomOffset } );
-			Normalize.normalize( Views.iterable( roi ), new FloatType( 0.0f ), new FloatType( 1.0f ) );
-		}
+		getFrameExecutor().run( "normalize", ( int ) img.dimension( 2 ), new FrameExecutor.FrameTask< Void >() {
+
+			@Override
+			public Void process( final int f ) {
+				final IntervalView< FloatType > slice = Views.hyperSlice( img, 2, f );
+				final IntervalView< FloatType > roi = Views.interval( slice, new long[] { img.min( 0 ), img.min( 1 ) + topOffset }, new long[] { img.max( 0 ), img.max( 1 ) - bottomOffset } );
+				Normalize.normalize( Views.iterable( roi ), new FloatType( 0.0f ), new FloatType( 1.0f ) );
+				return null;
+			}
+		} );
 	}
 
 	/**
@@ -1435,50 +1381,64 @@ public class MoMA {
 	 *            DoubleType image stack.
 	 */
 	private void subtractBackgroundInTemp() {
+		// Frames are independent, but within a frame the GLs must be processed
+		// in order (background windows may reach into the neighboring GL).
+		int numFrames = 0;
+		for ( final GrowthLine gl : getGrowthLines() ) {
+			numFrames = Math.max( numFrames, gl.size() );
+		}
+		getFrameExecutor().run( "background", numFrames, new FrameExecutor.FrameTask< Void >() {
 
-		for ( int i = 0; i < getGrowthLines().size(); i++ ) {
-			for ( int f = 0; f < getGrowthLines().get( i ).size(); f++ ) {
-				final GrowthLineFrame glf = getGrowthLines().get( i ).get( f );
-
-				final int glfX = glf.getAvgXpos();
-				if ( glfX == -1 ) continue; // do not do anything with empty GLFs
+			@Override
+			public Void process( final int f ) {
+				for ( final GrowthLine gl : getGrowthLines() ) {
+					if ( f < gl.size() ) {
+						subtractBackgroundInTemp( gl.get( f ), f );
+					}
+				}
+				return null;
+			}
+		} );
+	}
 
-				int glfY1 = glf.getFirstPoint().getIntPosition( 1 ) - 1;
-				if ( glfY1 < 0 ) glfY1 = 0;
+	private void subtractBackgroundInTemp( final GrowthLineFrame glf, final int f ) {
+		final int glfX = glf.getAvgXpos();
+		if ( glfX == -1 ) return; // do not do anything with empty GLFs
 
-				final int glfY2 = glf.getLastPoint().getIntPosition( 1 );
+		int glfY1 = glf.getFirstPoint().getIntPosition( 1 ) - 1;
+		if ( glfY1 < 0 ) glfY1 = 0;
 
-				final IntervalView< FloatType > frame = Views.hyperSlice( imgTemp, 2, f );
+		final int glfY2 = glf.getLastPoint().getIntPosition( 1 );
 
-				float rowAvgs[] = new float[ glfY2 - glfY1 + 1 ];
-				int colCount = 0;
-				// Look to the left if you are not the first GLF
-				if ( glfX > MoMA.BGREM_TEMPLATE_XMAX ) {
-					final IntervalView< FloatType > leftBackgroundWindow = Views.interval( frame, new long[] { glfX - MoMA.BGREM_TEMPLATE_XMAX, glfY1 }, new long[] { glfX - MoMA.BGREM_TEMPLATE_XMIN, glfY2 } );
-					rowAvgs = addRowSumsFromInterval( leftBackgroundWindow, rowAvgs );
-					colCount += ( MoMA.BGREM_TEMPLATE_XMAX - MoMA.BGREM_TEMPLATE_XMIN );
-				}
-				// Look to the right if you are not the last GLF
-				if ( glfX < imgTemp.dimension( 0 ) - MoMA.BGREM_TEMPLATE_XMAX ) {
-					final IntervalView< FloatType > rightBackgroundWindow = Views.interval( frame, new long[] { glfX + MoMA.BGREM_TEMPLATE_XMIN, glfY1 }, new long[] { glfX + MoMA.BGREM_TEMPLATE_XMAX, glfY2 } );
-					rowAvgs = addRowSumsFromInterval( rightBackgroundWindow, rowAvgs );
-					colCount += ( MoMA.BGREM_TEMPLATE_XMAX - MoMA.BGREM_TEMPLATE_XMIN );
-				}
-				// compute averages
-				for ( int j = 0; j < rowAvgs.length; j++ ) {
-					rowAvgs[ j ] /= colCount;
-				}
+		final IntervalView< FloatType > frame = Views.hyperSlice( imgTemp, 2, f );
 
-				// Subtract averages you've seen to your left and/or to your
-				// right
-				final long x1 = Math.max( 0, glfX - MoMA.BGREM_X_OFFSET );
-				final long x2 = Math.min( frame.dimension( 0 ) - 1, glfX + MoMA.BGREM_X_OFFSET );
-				final IntervalView< FloatType > growthLineArea = Views.interval( frame, new long[] { x1, glfY1 }, new long[] { x2, glfY2 } );
-				removeValuesFromRows( growthLineArea, rowAvgs );
-				// Normalize the zone we removed the background from...
-				Normalize.normalize( Views.iterable( growthLineArea ), new FloatType( 0f ), new FloatType( 1f ) );
-			}
+		float rowAvgs[] = new float[ glfY2 - glfY1 + 1 ];
+		int colCount = 0;
+		// Look to the left if you are not the first GLF
+		if ( glfX > config.BGREM_TEMPLATE_XMAX ) {
+			final IntervalView< FloatType > leftBackgroundWindow = Views.interval( frame, new long[] { glfX - config.BGREM_TEMPLATE_XMAX, glfY1 }, new long[] { glfX - config.BGREM_TEMPLATE_XMIN, glfY2 } );
+			rowAvgs = addRowSumsFromInterval( leftBackgroundWindow, rowAvgs );
+			colCount += ( config.BGREM_TEMPLATE_XMAX - config.BGREM_TEMPLATE_XMIN );
+		}
+		// Look to the right if you are not the last GLF
+		if ( glfX < imgTemp.dimension( 0 ) - config.BGREM_TEMPLATE_XMAX ) {
+			final IntervalView< FloatType > rightBackgroundWindow = Views.interval( frame, new long[] { glfX + config.BGREM_TEMPLATE_XMIN, glfY1 }, new long[] { glfX + config.BGREM_TEMPLATE_XMAX, glfY2 } );
+			rowAvgs = addRowSumsFromInterval( rightBackgroundWindow, rowAvgs );
+			colCount += ( config.BGREM_TEMPLATE_XMAX - config.BGREM_TEMPLATE_XMIN );
 		}
+		// compute averages
+		for ( int j = 0; j < rowAvgs.length; j++ ) {
+			rowAvgs[ j ] /= colCount;
+		}
+
+		// Subtract averages you've seen to your left and/or to your
+		// right
+		final long x1 = Math.max( 0, glfX - config.BGREM_X_OFFSET );
+		final long x2 = Math.min( frame.dimension( 0 ) - 1, glfX + config.BGREM_X_OFFSET );
+		final IntervalView< FloatType > growthLineArea = Views.interval( frame, new long[] { x1, glfY1 }, new long[] { x2, glfY2 } );
+		removeValuesFromRows( growthLineArea, rowAvgs );
+		// Normalize the zone we removed the background from...
+		Normalize.normalize( Views.iterable( growthLineArea ), new FloatType( 0f ), new FloatType( 1f ) );
 	}
 
 	/**
@@ -1528,14 +1488,12 @@ public class MoMA {
 		this.setGrowthLines( new ArrayList< GrowthLine >() );
 		this.glCenterPoints = new ArrayList< List< List< Point >>>();
 
-		List< List< Point > > frameWellCenters;
-
 		// ------ GAUSS -----------------------------
 
 		final int n = imgTemp.numDimensions();
 		final double[] sigmas = new double[ n ];
-		sigmas[ 0 ] = SIGMA_GL_DETECTION_X;
-		sigmas[ 1 ] = SIGMA_GL_DETECTION_Y;
+		sigmas[ 0 ] = config.SIGMA_GL_DETECTION_X;
+		sigmas[ 1 ] = config.SIGMA_GL_DETECTION_Y;
 		try {
 			Gauss3.gauss( sigmas, Views.extendZero( imgTemp ), imgTemp );
 		} catch ( final IncompatibleTypeException e ) {
@@ -1546,40 +1504,18 @@ public class MoMA {
 
 		final List< List< GrowthLineFrame >> collectionOfFrames = new ArrayList< List< GrowthLineFrame >>();
 
-		for ( long frameIdx = 0; frameIdx < imgTemp.dimension( 2 ); frameIdx++ ) {
-			final IntervalView< FloatType > ivFrame = Views.hyperSlice( imgTemp, 2, frameIdx );
+		final List< FrameDetection > detections = getFrameExecutor().run( "find GLs", ( int ) imgTemp.dimension( 2 ), new FrameExecutor.FrameTask< FrameDetection >() {
 
-			// Find maxima per image row (per frame)
-			frameWellCenters = new Loops< FloatType, List< Point >>().forEachHyperslice( ivFrame, 1, FindLocalMaxima.class);
-
-			// Delete detected points that are too lateral
-			for ( int y = 0; y < frameWellCenters.size(); y++ ) {
-				final List< Point > lstPoints = frameWellCenters.get( y );
-				for ( int x = lstPoints.size() - 1; x >= 0; x-- ) {
-					if ( lstPoints.get( x ).getIntPosition( 0 ) < GL_OFFSET_LATERAL || lstPoints.get( x ).getIntPosition( 0 ) > imgTemp.dimension( 0 ) - GL_OFFSET_LATERAL ) {
-						lstPoints.remove( x );
-					}
-				}
-				frameWellCenters.set( y, lstPoints );
+			@Override
+			public FrameDetection process( final int frameIdx ) {
+				return findGrowthLineFrames( frameIdx );
 			}
+		} );
 
-			// Delete detected points that are too high or too low
-			// (and use this sweep to compute 'maxWellCenterIdx' and
-			// 'maxWellCenters')
-			int maxWellCenters = 0;
-			int maxWellCentersIdx = 0;
-			for ( int y = 0; y < frameWellCenters.size(); y++ ) {
-				if ( y < GL_OFFSET_TOP || y >= imgTemp.dimension( 1 ) - GL_OFFSET_BOTTOM ) {
-					frameWellCenters.get( y ).clear();
-				} else {
-					if ( maxWellCenters < frameWellCenters.get( y ).size() ) {
-						maxWellCenters = frameWellCenters.get( y ).size();
-						maxWellCentersIdx = y;
-					}
-				}
-			}
+		for ( int frameIdx = 0; frameIdx < detections.size(); frameIdx++ ) {
+			final FrameDetection detection = detections.get( frameIdx );
 
-			if ( maxWellCenters > 1 ) {
+			if ( detection.maxWellCenters > 1 ) {
 				final String msg =
 						"ERROR: Two maxima in a single pixel row found while looking for GL centerline at  frame " + frameIdx + ".\nPlease check input images or adjust (increase?) SIGMA_GL_DETECTION_X in properties.";
 				System.out.println( msg );
@@ -1593,93 +1529,10 @@ public class MoMA {
 			}
 
 			// add filtered points to 'glCenterPoints'
-			this.glCenterPoints.add( frameWellCenters );
-
-			// ------ DISTRIBUTE POINTS TO CORRESPONDING GROWTH LINES -------
-
-			final List< GrowthLineFrame > glFrames = new ArrayList< GrowthLineFrame >();
-
-			final Point pOrig = new Point( 3 );
-			pOrig.setPosition( frameIdx, 2 ); // location in original Img (will
-												// be recovered step by step)
-
-			// start at the row containing the maximum number of well centers
-			// (see above for the code that found maxWellCenter*)
-			pOrig.setPosition( maxWellCentersIdx, 1 );
-			for ( int x = 0; x < maxWellCenters; x++ ) {
-				glFrames.add( new GrowthLineFrame() ); // add one GLF for each
-														// found column
-				final Point p = frameWellCenters.get( maxWellCentersIdx ).get( x );
-				pOrig.setPosition( p.getLongPosition( 0 ), 0 );
-				glFrames.get( x ).addPoint( new Point( pOrig ) );
-			}
-			// now go backwards from 'maxWellCenterIdx' and find the right
-			// assignment in case
-			// a different number of wells was found (going forwards comes
-			// below!)
-			for ( int y = maxWellCentersIdx - 1; y >= 0; y-- ) {
-				pOrig.setPosition( y, 1 ); // location in orig. Img (2nd of 3
-											// steps)
-
-				final List< Point > maximaPerImgRow = frameWellCenters.get( y );
-				if ( maximaPerImgRow.size() == 0 ) {
-					continue;
-				}
-				// find best matching well for first point
-				final int posX = frameWellCenters.get( y ).get( 0 ).getIntPosition( 0 );
-				int mindist = ( int ) imgTemp.dimension( 0 );
-				int offset = 0;
-				for ( int x = 0; x < maxWellCenters; x++ ) {
-					final int wellPosX = glFrames.get( x ).getFirstPoint().getIntPosition( 0 );
-					if ( mindist > Math.abs( wellPosX - posX ) ) {
-						mindist = Math.abs( wellPosX - posX );
-						offset = x;
-					}
-				}
-				// move points into detected wells
-				for ( int x = offset; x < maximaPerImgRow.size(); x++ ) {
-					final Point p = maximaPerImgRow.get( x );
-					pOrig.setPosition( p.getLongPosition( 0 ), 0 );
-					glFrames.get( x ).addPoint( new Point( pOrig ) );
-				}
-			}
-			// now go forward from 'maxWellCenterIdx' and find the right
-			// assignment in case
-			// a different number of wells was found
-			for ( int y = maxWellCentersIdx + 1; y < frameWellCenters.size(); y++ ) {
-				pOrig.setPosition( y, 1 ); // location in original Img (2nd of 3
-				// steps)
-
-				final List< Point > maximaPerImgRow = frameWellCenters.get( y );
-				if ( maximaPerImgRow.size() == 0 ) {
-					continue;
-				}
-				// find best matching well for first point
-				final int posX = frameWellCenters.get( y ).get( 0 ).getIntPosition( 0 );
-				int mindist = ( int ) imgTemp.dimension( 0 );
-				int offset = 0;
-				for ( int x = 0; x < maxWellCenters; x++ ) {
-					final int wellPosX = glFrames.get( x ).getLastPoint().getIntPosition( 0 );
-					if ( mindist > Math.abs( wellPosX - posX ) ) {
-						mindist = Math.abs( wellPosX - posX );
-						offset = x;
-					}
-				}
-				// move points into GLFs
-				for ( int x = offset; x < maximaPerImgRow.size(); x++ ) {
-					final Point p = maximaPerImgRow.get( x );
-					pOrig.setPosition( p.getLongPosition( 0 ), 0 );
-					glFrames.get( x ).addPoint( new Point( pOrig ) );
-				}
-			}
-
-			// sort points
-			for ( final GrowthLineFrame glf : glFrames ) {
-				glf.sortPoints();
-			}
+			this.glCenterPoints.add( detection.wellCenters );
 
 			// add this list of GrowhtLIneFrames to the collection
-			collectionOfFrames.add( glFrames );
+			collectionOfFrames.add( detection.glFrames );
 		}
 
 		// ------ SORT GrowthLineFrames FROM collectionOfFrames INTO this.growthLines -------------
@@ -1694,7 +1547,7 @@ public class MoMA {
 		// copy the max-GLs frame into this.growthLines
 		this.setGrowthLines( new ArrayList< GrowthLine >( maxGLsPerFrame ) );
 		for ( int i = 0; i < maxGLsPerFrame; i++ ) {
-			getGrowthLines().add( new GrowthLine() );
+			getGrowthLines().add( new GrowthLine( context ) );
 			getGrowthLines().get( i ).add( collectionOfFrames.get( maxGLsPerFrameIdx ).get( i ) );
 		}
 		// go backwards from there and prepand into GL
@@ -1736,6 +1589,155 @@ public class MoMA {
 
 	}
 
+	/**
+	 * Growth line center points and <code>GrowthLineFrame</code>s found in
+	 * one single frame.
+	 */
+	private static class FrameDetection {
+
+		List< List< Point > > wellCenters;
+		List< GrowthLineFrame > glFrames;
+		int maxWellCenters;
+	}
+
+	private final ThreadLocal< RowMaxima > rowMaximaPerThread = new ThreadLocal< RowMaxima >() {
+
+		@Override
+		protected RowMaxima initialValue() {
+			return new RowMaxima();
+		}
+	};
+
+	/**
+	 * Finds the growth line center points in the given frame of 'imgTemp' and
+	 * distributes them to one <code>GrowthLineFrame</code> per detected
+	 * growth line. Frames are independent, so this can be called concurrently.
+	 */
+	private FrameDetection findGrowthLineFrames( final long frameIdx ) {
+		final IntervalView< FloatType > ivFrame = Views.hyperSlice( imgTemp, 2, frameIdx );
+
+		// Find maxima per image row (per frame) and delete detected points
+		// that are too lateral
+		final RowMaxima rowMaxima = rowMaximaPerThread.get();
+		rowMaxima.compute( ivFrame );
+		final List< List< Point > > frameWellCenters = new ArrayList< List< Point > >( rowMaxima.getNumRows() );
+		for ( int y = 0; y < rowMaxima.getNumRows(); y++ ) {
+			final List< Point > lstPoints = new ArrayList< Point >( rowMaxima.getNumPeaks( y ) );
+			for ( int i = 0; i < rowMaxima.getNumPeaks( y ); i++ ) {
+				final int x = rowMaxima.getPeak( y, i );
+				if ( x >= config.GL_OFFSET_LATERAL && x <= imgTemp.dimension( 0 ) - config.GL_OFFSET_LATERAL ) {
+					lstPoints.add( new Point( new long[] { x } ) );
+				}
+			}
+			frameWellCenters.add( lstPoints );
+		}
+
+		// Delete detected points that are too high or too low
+		// (and use this sweep to compute 'maxWellCenterIdx' and
+		// 'maxWellCenters')
+		int maxWellCenters = 0;
+		int maxWellCentersIdx = 0;
+		for ( int y = 0; y < frameWellCenters.size(); y++ ) {
+			if ( y < config.GL_OFFSET_TOP || y >= imgTemp.dimension( 1 ) - config.GL_OFFSET_BOTTOM ) {
+				frameWellCenters.get( y ).clear();
+			} else {
+				if ( maxWellCenters < frameWellCenters.get( y ).size() ) {
+					maxWellCenters = frameWellCenters.get( y ).size();
+					maxWellCentersIdx = y;
+				}
+			}
+		}
+
+		// ------ DISTRIBUTE POINTS TO CORRESPONDING GROWTH LINES -------
+
+		final List< GrowthLineFrame > glFrames = new ArrayList< GrowthLineFrame >();
+
+		final Point pOrig = new Point( 3 );
+		pOrig.setPosition( frameIdx, 2 ); // location in original Img (will
+											// be recovered step by step)
+
+		// start at the row containing the maximum number of well centers
+		// (see above for the code that found maxWellCenter*)
+		pOrig.setPosition( maxWellCentersIdx, 1 );
+		for ( int x = 0; x < maxWellCenters; x++ ) {
+			glFrames.add( new GrowthLineFrame( context ) ); // add one GLF for each
+													// found column
+			final Point p = frameWellCenters.get( maxWellCentersIdx ).get( x );
+			pOrig.setPosition( p.getLongPosition( 0 ), 0 );
+			glFrames.get( x ).addPoint( new Point( pOrig ) );
+		}
+		// now go backwards from 'maxWellCenterIdx' and find the right
+		// assignment in case
+		// a different number of wells was found (going forwards comes
+		// below!)
+		for ( int y = maxWellCentersIdx - 1; y >= 0; y-- ) {
+			pOrig.setPosition( y, 1 ); // location in orig. Img (2nd of 3
+										// steps)
+
+			final List< Point > maximaPerImgRow = frameWellCenters.get( y );
+			if ( maximaPerImgRow.size() == 0 ) {
+				continue;
+			}
+			// find best matching well for first point
+			final int posX = frameWellCenters.get( y ).get( 0 ).getIntPosition( 0 );
+			int mindist = ( int ) imgTemp.dimension( 0 );
+			int offset = 0;
+			for ( int x = 0; x < maxWellCenters; x++ ) {
+				final int wellPosX = glFrames.get( x ).getFirstPoint().getIntPosition( 0 );
+				if ( mindist > Math.abs( wellPosX - posX ) ) {
+					mindist = Math.abs( wellPosX - posX );
+					offset = x;
+				}
+			}
+			// move points into detected wells
+			for ( int x = offset; x < maximaPerImgRow.size(); x++ ) {
+				final Point p = maximaPerImgRow.get( x );
+				pOrig.setPosition( p.getLongPosition( 0 ), 0 );
+				glFrames.get( x ).addPoint( new Point( pOrig ) );
+			}
+		}
+		// now go forward from 'maxWellCenterIdx' and find the right
+		// assignment in case
+		// a different number of wells was found
+		for ( int y = maxWellCentersIdx + 1; y < frameWellCenters.size(); y++ ) {
+			pOrig.setPosition( y, 1 ); // location in original Img (2nd of 3
+			// steps)
+
+			final List< Point > maximaPerImgRow = frameWellCenters.get( y );
+			if ( maximaPerImgRow.size() == 0 ) {
+				continue;
+			}
+			// find best matching well for first point
+			final int posX = frameWellCenters.get( y ).get( 0 ).getIntPosition( 0 );
+			int mindist = ( int ) imgTemp.dimension( 0 );
+			int offset = 0;
+			for ( int x = 0; x < maxWellCenters; x++ ) {
+				final int wellPosX = glFrames.get( x ).getLastPoint().getIntPosition( 0 );
+				if ( mindist > Math.abs( wellPosX - posX ) ) {
+					mindist = Math.abs( wellPosX - posX );
+					offset = x;
+				}
+			}
+			// move points into GLFs
+			for ( int x = offset; x < maximaPerImgRow.size(); x++ ) {
+				final Point p = maximaPerImgRow.get( x );
+				pOrig.setPosition( p.getLongPosition( 0 ), 0 );
+				glFrames.get( x ).addPoint( new Point( pOrig ) );
+			}
+		}
+
+		// sort points
+		for ( final GrowthLineFrame glf : glFrames ) {
+			glf.sortPoints();
+		}
+
+		final FrameDetection detection = new FrameDetection();
+		detection.wellCenters = frameWellCenters;
+		detection.glFrames = glFrames;
+		detection.maxWellCenters = maxWellCenters;
+		return detection;
+	}
+
 	/**
 	 * Draws the detected well centers, <code>detectedWellCenters</code>, into
 	 * the annotation layer, <code>imgAnnotated</code>.
@@ -1754,15 +1756,24 @@ public class MoMA {
 	 * the image data in 'imgTemp'.
 	 */
 	public void generateAllSimpleSegmentationHypotheses() {
+		final RunReport.Span span = context.getRunReport().start( "hypotheses" );
+		try {
+			generateAllSimpleSegmentationHypotheses( span );
+		} finally {
+			span.stop();
+		}
+	}
+
+	private void generateAllSimpleSegmentationHypotheses( final RunReport.Span span ) {
 
 		// ------ GAUSS -----------------------------
 
-		if ( SIGMA_PRE_SEGMENTATION_X + SIGMA_PRE_SEGMENTATION_Y > 0.000001 ) {
+		if ( config.SIGMA_PRE_SEGMENTATION_X + config.SIGMA_PRE_SEGMENTATION_Y > 0.000001 ) {
 			System.out.print( " ...Note: smoothing performed before building GapHypotheses... " );
 			final int n = imgTemp.numDimensions();
 			final double[] sigmas = new double[ n ];
-			sigmas[ 0 ] = SIGMA_PRE_SEGMENTATION_X;
-			sigmas[ 1 ] = SIGMA_PRE_SEGMENTATION_Y;
+			sigmas[ 0 ] = config.SIGMA_PRE_SEGMENTATION_X;
+			sigmas[ 1 ] = config.SIGMA_PRE_SEGMENTATION_Y;
 			try {
 				Gauss3.gauss( sigmas, Views.extendMirrorDouble( imgTemp ), imgTemp );
 			} catch ( final IncompatibleTypeException e ) {
@@ -1772,39 +1783,43 @@ public class MoMA {
 
 		// ------ DETECTION --------------------------
 
-		System.out.println( "" );
-		int i = 0;
+		int numFrames = 0;
 		for ( final GrowthLine gl : getGrowthLines() ) {
-			i++;
-			System.out.print( "   Working on GL#" + i + " of " + getGrowthLines().size() + "... " );
-			for ( final GrowthLineFrame glf : gl.getFrames() ) {
-				System.out.print( "." );
-				glf.generateSimpleSegmentationHypotheses( imgTemp );
-			}
-			System.out.println( " ...done!" );
+			numFrames = Math.max( numFrames, gl.size() );
 		}
-	}
+		getFrameExecutor().run( "hypotheses", numFrames, new FrameExecutor.FrameTask< Void >() {
 
-	/**
-	 * Creates and triggers filling of mmILP, containing all
-	 * optimization-related structures used to compute the optimal tracking.
-	 */
-	private void generateILPs() {
+			@Override
+			public Void process( final int f ) {
+				for ( final GrowthLine gl : getGrowthLines() ) {
+					if ( f < gl.size() ) {
+						gl.get( f ).generateSimpleSegmentationHypotheses( imgTemp );
+					}
+				}
+				return null;
+			}
+		} );
+
+		long numHypotheses = 0;
 		for ( final GrowthLine gl : getGrowthLines() ) {
-			gl.generateILP( null );
+			for ( final GrowthLineFrame glf : gl.getFrames() ) {
+				if ( glf.getComponentTree() != null ) {
+					numHypotheses += ComponentTreeUtils.countNodes( glf.getComponentTree() );
+				}
+			}
 		}
+		span.count( "frames", numFrames ).count( "hypotheses", numHypotheses );
 	}
 
 	/**
-	 * Runs all the generated ILPs.
+	 * Builds and runs the ILPs of all growth lines. The growth lines are
+	 * processed concurrently, splitting <code>ILP_THREAD_BUDGET</code> between
+	 * concurrently solved models and <code>GUROBI_THREADS_PER_MODEL</code>
+	 * solver threads each.
 	 */
-	private void runILPs() {
-		int i = 0;
-		for ( final GrowthLine gl : getGrowthLines() ) {
-			System.out.println( " > > > > > Starting LP for GL# " + i + " < < < < < " );
-			gl.runILP();
-			i++;
-		}
+	private void generateAndRunILPs() {
+		final GrowthLineIlpScheduler scheduler = new GrowthLineIlpScheduler( config.ILP_THREAD_BUDGET, config.GUROBI_THREADS_PER_MODEL );
+		scheduler.buildAndRun( getGrowthLines() );
 	}
 
 	/**
@@ -1822,95 +1837,77 @@ public class MoMA {
 	}
 
 	/**
-	 * @return the defaultFilenameDecoration
-	 */
-	public static String getDefaultFilenameDecoration() {
-		return defaultFilenameDecoration;
-	}
-
-	/**
-	 * @param defaultFilenameDecoration
-	 *            the defaultFilenameDecoration to set
-	 */
-	public static void setDefaultFilenameDecoration( final String defaultFilenameDecoration ) {
-		MoMA.defaultFilenameDecoration = defaultFilenameDecoration;
-	}
-
-	/**
-	 * @return the first time-point loaded
-	 */
-	public static int getMinTime() {
-		return minTime;
-	}
-
-	/**
-	 * @return the last loaded time-point
-	 */
-	public static int getMaxTime() {
-		return maxTime;
-	}
-
-	/**
-	 * @return the initial optimization range, -1 if it is infinity.
-	 */
-	public static int getInitialOptRange() {
-		return initOptRange;
-	}
-
-	/**
-	 * @return the first channel index of the loaded data
-	 */
-	public static int getMinChannelIdx() {
-		return minChannelIdx;
-	}
-
-	/**
-	 * @return the number of channels loaded
+	 * Allows one to restart by GL segmentation. This is e.g. needed after top
+	 * or bottom offsets are altered, which invalidates all analysis run so far.
 	 */
-	public static int getNumChannels() {
-		return numChannels;
+	public void restartFromGLSegmentation() {
+		restartFromGLSegmentation( null );
 	}
 
 	/**
-	 * Allows one to restart by GL segmentation. This is e.g. needed after top
-	 * or bottom offsets are altered, which invalidates all analysis run so far.
+	 * Like <code>restartFromGLSegmentation()</code>, but stores the
+	 * preprocessed data in the given cache (if not <code>null</code>) before
+	 * segmentation hypotheses are generated.
 	 */
-	public void restartFromGLSegmentation() {
+	private void restartFromGLSegmentation( final PreprocessingCache preprocessingCache ) {
 		boolean hideConsoleLater = false;
 		if ( !HEADLESS && !isConsoleVisible() ) {
 			showConsoleWindow( true );
 			hideConsoleLater = true;
 		}
 
-		if ( GL_OFFSET_BOTTOM_AUTODETECT ) {
+		final RunReport report = context.getRunReport();
+		RunReport.Span span = report.start( "gl_detection" );
+		if ( config.GL_OFFSET_BOTTOM_AUTODETECT ) {
 			System.out.print( "Automatic estimation of GL_OFFSET_BOTTOM..." );
 			resetImgTempToRaw();
 			autodetectBottomOffset();
 			System.out.println( " done!" );
 		} else {
-			if ( GL_OFFSET_BOTTOM == -1 ) {
+			if ( config.GL_OFFSET_BOTTOM == -1 ) {
 				System.err.println(
 						"GL_OFFSET_BOTTOM and GL_OFFSET_BOTTOM_AUTODETECT are inconsistent. This is a programmatic problem, please contact the MotherMachine developers!" );
 			}
 		}
 
 		System.out.print( "Searching for GrowthLines..." );
-		resetImgTempToRaw();
-		findGrowthLines();
-//		annotateDetectedWellCenters();
+		try {
+			resetImgTempToRaw();
+			findGrowthLines();
+//			annotateDetectedWellCenters();
+		} finally {
+			span.stop();
+		}
+		span.count( "growthLines", getGrowthLines().size() );
 		System.out.println( " done!" );
 
 		// subtracting BG in RAW image...
 		System.out.print( "Subtracting background..." );
-		// ...and make temp image be the same
-		resetImgTempToRaw();
-		subtractBackgroundInTemp();
+		span = report.start( "background_subtraction" );
+		try {
+			// ...and make temp image be the same
+			resetImgTempToRaw();
+			subtractBackgroundInTemp();
+		} finally {
+			span.stop();
+		}
 		System.out.println( " done!" );
 
 		System.out.print( "Normalize loaded images..." );
-		normalizePerFrame( imgTemp, MoMA.GL_OFFSET_TOP, MoMA.GL_OFFSET_BOTTOM );
+		span = report.start( "normalization" );
+		try {
+			normalizePerFrame( imgTemp, config.GL_OFFSET_TOP, config.GL_OFFSET_BOTTOM );
+		} finally {
+			span.stop();
+		}
 		System.out.println( " done!" );
 
+		if ( preprocessingCache != null ) {
+			System.out.print( "Writing preprocessing cache..." );
+			preprocessingCache.store( rawChannelImgs, imgTemp, getGrowthLines(), glCenterPoints, config.GL_OFFSET_BOTTOM );
+			System.out.println( " done!" );
+		}
+
 		System.out.print( "Generating Segmentation Hypotheses..." );
 		generateAllSimpleSegmentationHypotheses();
 		System.out.println( " done!" );
@@ -1920,6 +1917,45 @@ public class MoMA {
 		}
 	}
 
+	/**
+	 * Continues with the preprocessed data found in the given (loaded) cache:
+	 * growth line detection, background subtraction and normalization are
+	 * skipped, only segmentation hypotheses are generated.
+	 */
+	private void restartFromCachedPreprocessing( final PreprocessingCache cache ) {
+		if ( config.GL_OFFSET_BOTTOM_AUTODETECT ) {
+			config.GL_OFFSET_BOTTOM = cache.getGlOffsetBottom();
+		}
+		setImgTemp( cache.getImgTemp() );
+		setGrowthLines( cache.getGrowthLines() );
+		this.glCenterPoints = cache.getGlCenterPoints();
+
+		System.out.print( "Generating Segmentation Hypotheses..." );
+		generateAllSimpleSegmentationHypotheses();
+		System.out.println( " done!" );
+	}
+
+	/**
+	 * @return all parameters that influence loading and preprocessing, as
+	 *         used to identify <code>PreprocessingCache</code> files.
+	 */
+	private String getPreprocessingParameters( final int minTime, final int maxTime, final int minChannelIdx, final int numChannels ) {
+		return String.format(
+				"t=[%d,%d] c=[%d,+%d] sigmaGL=(%s,%s) offsets=(%d,%s,%d) bgrem=(%d,%d,%d)",
+				minTime,
+				maxTime,
+				minChannelIdx,
+				numChannels,
+				Float.toString( config.SIGMA_GL_DETECTION_X ),
+				Float.toString( config.SIGMA_GL_DETECTION_Y ),
+				config.GL_OFFSET_TOP,
+				( config.GL_OFFSET_BOTTOM_AUTODETECT ) ? "auto" : Integer.toString( config.GL_OFFSET_BOTTOM ),
+				config.GL_OFFSET_LATERAL,
+				config.BGREM_TEMPLATE_XMIN,
+				config.BGREM_TEMPLATE_XMAX,
+				config.BGREM_X_OFFSET );
+	}
+
 	/**
 	 * Autodetects bottom offset.
 	 * This is implemented by averaging all pixel-rows over all time-points and
@@ -1938,8 +1974,8 @@ public class MoMA {
 		final long xDimLen = getImgTemp().dimension( 0 );
 		// Note: the '/3' below was not there. Basel noted some rare problems by averaging the entire lateral offset range when there was
 		// some brighter background close below the GL (at the imgage border). In their case that came from the cropped numbers below the GL.
-		mins[ 0 ] = xDimLen / 2 - GL_OFFSET_LATERAL / 3; // we use the fact that we know that the GL is in the center of the image given to us
-		maxs[ 0 ] = xDimLen / 2 + GL_OFFSET_LATERAL / 3; // we use the fact that we know that the GL is in the center of the image given to us
+		mins[ 0 ] = xDimLen / 2 - config.GL_OFFSET_LATERAL / 3; // we use the fact that we know that the GL is in the center of the image given to us
+		maxs[ 0 ] = xDimLen / 2 + config.GL_OFFSET_LATERAL / 3; // we use the fact that we know that the GL is in the center of the image given to us
 		final RandomAccessibleInterval<FloatType> centralArea = Views.interval( getImgTemp(), mins, maxs );
 		final List< FloatType > rowTimeAverages = new Loops< FloatType, FloatType >()
 				.forEachHyperslice( centralArea, 1, SumOfRai.class);
@@ -1969,7 +2005,7 @@ public class MoMA {
 		}
 
 		System.out.println( "\n  >> Detected GL_OFFSET_BOTTOM is: " + bottom_offset );
-		GL_OFFSET_BOTTOM = bottom_offset;
+		config.GL_OFFSET_BOTTOM = bottom_offset;
 	}
 
 	/**
@@ -0,0 +1,367 @@
+package com.jug;
+
+import java.io.File;
+import java.util.Properties;
+
+/**
+ * All parameters of one MoMA run. Field names equal the keys used in
+ * mm.properties. Each run (interactive or headless) owns its own instance,
+ * such that several pipelines with different parameters can be processed in
+ * the same JVM.
+ *
+ * @author jug
+ */
+public class MoMAConfig {
+
+	/**
+	 * Parameter: sigma for gaussian blurring in x-direction of the raw image
+	 * data. Used while searching the growth line centers.
+	 */
+	public float SIGMA_GL_DETECTION_X = 20f;
+	public float SIGMA_GL_DETECTION_Y = 0f;
+
+	/**
+	 * Parameter: sigma for gaussian blurring in x-direction of the raw image
+	 * data. Used while searching the gaps between bacteria.
+	 */
+	public float SIGMA_PRE_SEGMENTATION_X = 0f;
+	public float SIGMA_PRE_SEGMENTATION_Y = 0f;
+
+	/**
+	 * Parameter: how many pixels wide is the image containing the selected
+	 * GrowthLine?
+	 */
+	public int GL_WIDTH_IN_PIXELS = 20;
+	public int GL_FLUORESCENCE_COLLECTION_WIDTH_IN_PIXELS = 100;
+	public int GL_PIXEL_PADDING_IN_VIEWS = 15;
+	public int MOTHER_CELL_BOTTOM_TRICK_MAX_PIXELS = 10;
+
+	/**
+	 * Parameter: later border in pixels - well centers detected too close to
+	 * the left and right image border will be neglected. Reason: detection not
+	 * reliable if well is truncated.
+	 */
+	public int GL_OFFSET_LATERAL = 20;
+
+	/**
+	 * Prior knowledge: hard offset in detected well center lines - will be cut
+	 * of from top.
+	 */
+	public int GL_OFFSET_TOP = 65;
+
+	/**
+	 * Prior knowledge: hard offset in detected well center lines - will be cut
+	 * of from bottom. If set to -1, an automatic bottom offset detection will
+	 * be launched when data is read from disk.
+	 */
+	public int GL_OFFSET_BOTTOM = -1;
+	public boolean GL_OFFSET_BOTTOM_AUTODETECT = true;
+
+	/**
+	 * Maximum offset in x direction (with respect to growth line center) to
+	 * take the background intensities from that will be subtracted from the
+	 * growth line.
+	 */
+	public int BGREM_TEMPLATE_XMAX = 35;
+
+	/**
+	 * Minimum offset in x direction (with respect to growth line center) to
+	 * take the background intensities from that will be subtracted from the
+	 * growth line.
+	 */
+	public int BGREM_TEMPLATE_XMIN = 20;
+
+	/**
+	 * Offsets in +- x direction (with respect to growth line center) where the
+	 * measured background values will be subtracted from.
+	 */
+	public int BGREM_X_OFFSET = 35;
+
+	/**
+	 * Prior knowledge: minimal length of detected cells
+	 */
+	public int MIN_CELL_LENGTH = 18;
+
+	/**
+	 * Prior knowledge: minimal contrast of a gap (also used for MSERs)
+	 */
+	public float MIN_GAP_CONTRAST = 0.02f; // This is set to a very low
+											// value that will basically
+											// not filter anything...
+
+	/**
+	 * Prior knowledge: maximal distance (in pixels) the lower boundary of a
+	 * cell can move down from one frame to the next.
+	 */
+	public int MAX_CELL_DROP = 50;
+
+	/**
+	 * When using the learned classification boosted paramaxflow segmentation,
+	 * how much of the midline data obtained by the 'simple' linescan +
+	 * component tree segmentation should mix in? Rational: if the
+	 * classification is flat, the original (simple) mehod might still offer
+	 * some modulation!
+	 */
+	public float SEGMENTATION_MIX_CT_INTO_PMFRF = 0.25f;
+
+	/**
+	 * String pointing at the weka-segmenter model file that should be used for
+	 * classification during segmentation.
+	 */
+	public String SEGMENTATION_CLASSIFIER_MODEL_FILE = "CellGapClassifier.model";
+
+	/**
+	 * String pointing at the weka-segmenter model file that should be used for
+	 * classification during cell-stats export for cell-size estimation.
+	 */
+	public String CELLSIZE_CLASSIFIER_MODEL_FILE = "CellSizeClassifier.model";
+
+	/**
+	 * Switch that turns the use of the weka classifier for paramaxflow on or
+	 * off.
+	 * Default: ON (true)
+	 */
+	public boolean USE_CLASSIFIER_FOR_PMF = true;
+
+	/**
+	 * Switches for export options
+	 */
+	public boolean EXPORT_DO_TRACK_EXPORT = false;
+	public boolean EXPORT_USER_INPUTS = true;
+	public boolean EXPORT_INCLUDE_HISTOGRAMS = false;
+	public boolean EXPORT_INCLUDE_QUANTILES = false;
+	public boolean EXPORT_INCLUDE_COL_INTENSITY_SUMS = true;
+	public boolean EXPORT_INCLUDE_PIXEL_INTENSITIES = false;
+	/**
+	 * Also write the cell statistics column-wise into a binary file next to
+	 * the CSV export (see <code>ColumnarStatsWriter</code>).
+	 */
+	public boolean EXPORT_COLUMNAR_STATS = false;
+
+	/**
+	 *
+	 */
+	public int OPTIMISATION_INTERVAL_LENGTH = -1;
+
+	/**
+	 * The path to usually open JFileChoosers at (except for initial load
+	 * dialog).
+	 */
+	public String DEFAULT_PATH = System.getProperty( "user.home" );
+
+	/**
+	 * The path to save ground truth and time statistics to (yes, we write
+	 * papers!).
+	 */
+	public String STATS_OUTPUT_PATH = DEFAULT_PATH;
+
+	/**
+	 * The maximum time in seconds GUROBI is allowed to search for a good
+	 * tracking solution. (After that period of time GUROBI will stop and best
+	 * solution found so far will be used.)
+	 */
+	public double GUROBI_TIME_LIMIT = 15.0;
+	public double GUROBI_MAX_OPTIMALITY_GAP = 0.99;
+
+	/**
+	 * The solver used for the tracking ILPs: <code>MoMA.ILP_SOLVER_GUROBI</code>
+	 * or <code>MoMA.ILP_SOLVER_JAVA</code> (pure Java, no license needed).
+	 */
+	public String ILP_SOLVER = MoMA.ILP_SOLVER_GUROBI;
+
+	/**
+	 * Total number of threads used to build and solve the ILPs of all growth
+	 * lines in headless mode.
+	 */
+	public int ILP_THREAD_BUDGET = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Number of threads GUROBI may use for one single ILP. The remaining
+	 * <code>ILP_THREAD_BUDGET</code> is used to solve several growth lines at
+	 * the same time.
+	 */
+	public int GUROBI_THREADS_PER_MODEL = 1;
+
+	/**
+	 * After a user edit at time-point t only the time-points
+	 * [t-REOPTIMIZATION_WINDOW_RADIUS, t+REOPTIMIZATION_WINDOW_RADIUS] are
+	 * re-optimized (the window grows if needed, see
+	 * <code>GrowthLineTrackingILP.runIncremental</code>). 0 always re-solves
+	 * the entire growth line.
+	 */
+	public int REOPTIMIZATION_WINDOW_RADIUS = 10;
+
+	/**
+	 * Number of threads used to process frames concurrently during
+	 * preprocessing (growth line detection, background subtraction,
+	 * normalization and segmentation hypothesis generation). 1 processes all
+	 * frames sequentially.
+	 */
+	public int PREPROCESSING_THREADS = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * If true, preprocessed data (loaded channels, <code>imgTemp</code> and
+	 * detected growth lines) is cached on disk and reused when the same
+	 * dataset is opened again with the same preprocessing parameters.
+	 * Off by default, since every dataset takes several times its own size
+	 * (as float32) in the cache folder.
+	 */
+	public boolean USE_PREPROCESSING_CACHE = false;
+
+	/**
+	 * Folder holding the preprocessing cache files.
+	 */
+	public String PREPROCESSING_CACHE_DIR = System.getProperty( "user.home" ) + File.separator + ".moma" + File.separator + "cache";
+
+	/**
+	 * Maximum size of the preprocessing cache folder in MB. When exceeded,
+	 * the least recently used cache files are deleted.
+	 */
+	public int PREPROCESSING_CACHE_MAX_MB = 10240;
+
+	/**
+	 * If true, the stages recorded in the run report (see
+	 * <code>MoMAContext.getRunReport()</code>) are also committed as JFR
+	 * events, e.g. to be inspected in a recording started with
+	 * <code>-XX:StartFlightRecording</code>.
+	 */
+	public boolean EMIT_JFR_EVENTS = false;
+
+	// -------------------------------------------------------------------------------------
+	// methods
+	// -------------------------------------------------------------------------------------
+	/**
+	 * @return a copy of this configuration, e.g. to be used as the defaults
+	 *         of another run.
+	 */
+	public MoMAConfig copy() {
+		final MoMAConfig ret = new MoMAConfig();
+		ret.load( toProperties(), false );
+		// not (fully) contained in the properties
+		ret.GL_OFFSET_BOTTOM = GL_OFFSET_BOTTOM;
+		ret.GL_OFFSET_BOTTOM_AUTODETECT = GL_OFFSET_BOTTOM_AUTODETECT;
+		ret.STATS_OUTPUT_PATH = STATS_OUTPUT_PATH;
+		ret.USE_CLASSIFIER_FOR_PMF = USE_CLASSIFIER_FOR_PMF;
+		return ret;
+	}
+
+	/**
+	 * @return all parameters as properties.
+	 */
+	public Properties toProperties() {
+		final Properties ret = new Properties();
+		store( ret );
+		return ret;
+	}
+
+	/**
+	 * Sets all parameters found in the given properties.
+	 *
+	 * @param keepIlpSolver
+	 *            if true, <code>ILP_SOLVER</code> is not changed (e.g. since
+	 *            it was given on the command line).
+	 */
+	public void load( final Properties props, final boolean keepIlpSolver ) {
+		BGREM_TEMPLATE_XMIN = Integer.parseInt( props.getProperty( "BGREM_TEMPLATE_XMIN", Integer.toString( BGREM_TEMPLATE_XMIN ) ) );
+		BGREM_TEMPLATE_XMAX = Integer.parseInt( props.getProperty( "BGREM_TEMPLATE_XMAX", Integer.toString( BGREM_TEMPLATE_XMAX ) ) );
+		BGREM_X_OFFSET = Integer.parseInt( props.getProperty( "BGREM_X_OFFSET", Integer.toString( BGREM_X_OFFSET ) ) );
+		GL_WIDTH_IN_PIXELS = Integer.parseInt( props.getProperty( "GL_WIDTH_IN_PIXELS", Integer.toString( GL_WIDTH_IN_PIXELS ) ) );
+		MOTHER_CELL_BOTTOM_TRICK_MAX_PIXELS = Integer.parseInt( props.getProperty( "MOTHER_CELL_BOTTOM_TRICK_MAX_PIXELS", Integer.toString( MOTHER_CELL_BOTTOM_TRICK_MAX_PIXELS ) ) );
+		GL_FLUORESCENCE_COLLECTION_WIDTH_IN_PIXELS = Integer.parseInt( props.getProperty( "GL_FLUORESCENCE_COLLECTION_WIDTH_IN_PIXELS", Integer.toString( GL_FLUORESCENCE_COLLECTION_WIDTH_IN_PIXELS ) ) );
+		GL_OFFSET_BOTTOM = Integer.parseInt( props.getProperty( "GL_OFFSET_BOTTOM", Integer.toString( GL_OFFSET_BOTTOM ) ) );
+		if ( GL_OFFSET_BOTTOM == -1 ) {
+			GL_OFFSET_BOTTOM_AUTODETECT = true;
+		} else {
+			GL_OFFSET_BOTTOM_AUTODETECT = false;
+		}
+		GL_OFFSET_TOP = Integer.parseInt( props.getProperty( "GL_OFFSET_TOP", Integer.toString( GL_OFFSET_TOP ) ) );
+		GL_OFFSET_LATERAL = Integer.parseInt( props.getProperty( "GL_OFFSET_LATERAL", Integer.toString( GL_OFFSET_LATERAL ) ) );
+		MIN_CELL_LENGTH = Integer.parseInt( props.getProperty( "MIN_CELL_LENGTH", Integer.toString( MIN_CELL_LENGTH ) ) );
+		MIN_GAP_CONTRAST = Float.parseFloat( props.getProperty( "MIN_GAP_CONTRAST", Float.toString( MIN_GAP_CONTRAST ) ) );
+		MAX_CELL_DROP = Integer.parseInt( props.getProperty( "MAX_CELL_DROP", Integer.toString( MAX_CELL_DROP ) ) );
+		SIGMA_PRE_SEGMENTATION_X = Float.parseFloat( props.getProperty( "SIGMA_PRE_SEGMENTATION_X", Float.toString( SIGMA_PRE_SEGMENTATION_X ) ) );
+		SIGMA_PRE_SEGMENTATION_Y = Float.parseFloat( props.getProperty( "SIGMA_PRE_SEGMENTATION_Y", Float.toString( SIGMA_PRE_SEGMENTATION_Y ) ) );
+		SIGMA_GL_DETECTION_X = Float.parseFloat( props.getProperty( "SIGMA_GL_DETECTION_X", Float.toString( SIGMA_GL_DETECTION_X ) ) );
+		SIGMA_GL_DETECTION_Y = Float.parseFloat( props.getProperty( "SIGMA_GL_DETECTION_Y", Float.toString( SIGMA_GL_DETECTION_Y ) ) );
+		SEGMENTATION_MIX_CT_INTO_PMFRF = Float.parseFloat( props.getProperty( "SEGMENTATION_MIX_CT_INTO_PMFRF", Float.toString( SEGMENTATION_MIX_CT_INTO_PMFRF ) ) );
+		SEGMENTATION_CLASSIFIER_MODEL_FILE = props.getProperty( "SEGMENTATION_CLASSIFIER_MODEL_FILE", SEGMENTATION_CLASSIFIER_MODEL_FILE );
+		CELLSIZE_CLASSIFIER_MODEL_FILE = props.getProperty( "CELLSIZE_CLASSIFIER_MODEL_FILE", CELLSIZE_CLASSIFIER_MODEL_FILE );
+		DEFAULT_PATH = props.getProperty( "DEFAULT_PATH", DEFAULT_PATH );
+
+		GUROBI_TIME_LIMIT = Double.parseDouble( props.getProperty( "GUROBI_TIME_LIMIT", Double.toString( GUROBI_TIME_LIMIT ) ) );
+		GUROBI_MAX_OPTIMALITY_GAP = Double.parseDouble( props.getProperty( "GUROBI_MAX_OPTIMALITY_GAP", Double.toString( GUROBI_MAX_OPTIMALITY_GAP ) ) );
+		if ( !keepIlpSolver ) {
+			ILP_SOLVER = props.getProperty( "ILP_SOLVER", ILP_SOLVER ).toUpperCase();
+		}
+		ILP_THREAD_BUDGET = Integer.parseInt( props.getProperty( "ILP_THREAD_BUDGET", Integer.toString( ILP_THREAD_BUDGET ) ) );
+		GUROBI_THREADS_PER_MODEL = Integer.parseInt( props.getProperty( "GUROBI_THREADS_PER_MODEL", Integer.toString( GUROBI_THREADS_PER_MODEL ) ) );
+		REOPTIMIZATION_WINDOW_RADIUS = Integer.parseInt( props.getProperty( "REOPTIMIZATION_WINDOW_RADIUS", Integer.toString( REOPTIMIZATION_WINDOW_RADIUS ) ) );
+		PREPROCESSING_THREADS = Integer.parseInt( props.getProperty( "PREPROCESSING_THREADS", Integer.toString( PREPROCESSING_THREADS ) ) );
+		USE_PREPROCESSING_CACHE = props.getProperty( "USE_PREPROCESSING_CACHE", Integer.toString( USE_PREPROCESSING_CACHE ? 1 : 0 ) ).equals( "1" );
+		PREPROCESSING_CACHE_DIR = props.getProperty( "PREPROCESSING_CACHE_DIR", PREPROCESSING_CACHE_DIR );
+		PREPROCESSING_CACHE_MAX_MB = Integer.parseInt( props.getProperty( "PREPROCESSING_CACHE_MAX_MB", Integer.toString( PREPROCESSING_CACHE_MAX_MB ) ) );
+		EMIT_JFR_EVENTS = props.getProperty( "EMIT_JFR_EVENTS", Integer.toString( EMIT_JFR_EVENTS ? 1 : 0 ) ).equals( "1" );
+
+		EXPORT_DO_TRACK_EXPORT = props.getProperty( "EXPORT_DO_TRACK_EXPORT", Integer.toString(EXPORT_DO_TRACK_EXPORT?1:0) ).equals("1");
+		EXPORT_USER_INPUTS = props.getProperty( "EXPORT_USER_INPUTS", Integer.toString(EXPORT_USER_INPUTS?1:0) ).equals("1");
+		EXPORT_INCLUDE_HISTOGRAMS = props.getProperty( "EXPORT_INCLUDE_HISTOGRAMS", Integer.toString(EXPORT_INCLUDE_HISTOGRAMS?1:0) ).equals("1");
+		EXPORT_INCLUDE_QUANTILES = props.getProperty( "EXPORT_INCLUDE_QUANTILES", Integer.toString(EXPORT_INCLUDE_QUANTILES?1:0) ).equals("1");
+		EXPORT_INCLUDE_COL_INTENSITY_SUMS = props.getProperty( "EXPORT_INCLUDE_COL_INTENSITY_SUMS", Integer.toString(EXPORT_INCLUDE_COL_INTENSITY_SUMS?1:0) ).equals("1");
+		EXPORT_INCLUDE_PIXEL_INTENSITIES = props.getProperty( "EXPORT_INCLUDE_PIXEL_INTENSITIES", Integer.toString(EXPORT_INCLUDE_PIXEL_INTENSITIES?1:0) ).equals("1");
+		EXPORT_COLUMNAR_STATS = props.getProperty( "EXPORT_COLUMNAR_STATS", Integer.toString(EXPORT_COLUMNAR_STATS?1:0) ).equals("1");
+
+		OPTIMISATION_INTERVAL_LENGTH = Integer.parseInt( props.getProperty( "OPTIMISATION_INTERVAL_LENGTH", Integer.toString(OPTIMISATION_INTERVAL_LENGTH) ));
+	}
+
+	/**
+	 * Stores all parameters into the given properties.
+	 */
+	public void store( final Properties props ) {
+		props.setProperty( "BGREM_TEMPLATE_XMIN", Integer.toString( BGREM_TEMPLATE_XMIN ) );
+		props.setProperty( "BGREM_TEMPLATE_XMAX", Integer.toString( BGREM_TEMPLATE_XMAX ) );
+		props.setProperty( "BGREM_X_OFFSET", Integer.toString( BGREM_X_OFFSET ) );
+		props.setProperty( "GL_WIDTH_IN_PIXELS", Integer.toString( GL_WIDTH_IN_PIXELS ) );
+		props.setProperty( "MOTHER_CELL_BOTTOM_TRICK_MAX_PIXELS", Integer.toString( MOTHER_CELL_BOTTOM_TRICK_MAX_PIXELS ) );
+		props.setProperty( "GL_FLUORESCENCE_COLLECTION_WIDTH_IN_PIXELS", Integer.toString( GL_FLUORESCENCE_COLLECTION_WIDTH_IN_PIXELS ) );
+		int offset = GL_OFFSET_BOTTOM;
+		if ( GL_OFFSET_BOTTOM_AUTODETECT ) {
+			offset = -1;
+		}
+		props.setProperty( "GL_OFFSET_BOTTOM", Integer.toString( offset ) );
+		props.setProperty( "GL_OFFSET_TOP", Integer.toString( GL_OFFSET_TOP ) );
+		props.setProperty( "GL_OFFSET_LATERAL", Integer.toString( GL_OFFSET_LATERAL ) );
+		props.setProperty( "MIN_CELL_LENGTH", Integer.toString( MIN_CELL_LENGTH ) );
+		props.setProperty( "MIN_GAP_CONTRAST", Double.toString( MIN_GAP_CONTRAST ) );
+		props.setProperty( "MAX_CELL_DROP", Integer.toString( MAX_CELL_DROP ) );
+		props.setProperty( "SIGMA_PRE_SEGMENTATION_X", Double.toString( SIGMA_PRE_SEGMENTATION_X ) );
+		props.setProperty( "SIGMA_PRE_SEGMENTATION_Y", Double.toString( SIGMA_PRE_SEGMENTATION_Y ) );
+		props.setProperty( "SIGMA_GL_DETECTION_X", Double.toString( SIGMA_GL_DETECTION_X ) );
+		props.setProperty( "SIGMA_GL_DETECTION_Y", Double.toString( SIGMA_GL_DETECTION_Y ) );
+		props.setProperty( "SEGMENTATION_MIX_CT_INTO_PMFRF", Double.toString( SEGMENTATION_MIX_CT_INTO_PMFRF ) );
+		props.setProperty( "SEGMENTATION_CLASSIFIER_MODEL_FILE", SEGMENTATION_CLASSIFIER_MODEL_FILE );
+		props.setProperty( "CELLSIZE_CLASSIFIER_MODEL_FILE", CELLSIZE_CLASSIFIER_MODEL_FILE );
+		props.setProperty( "DEFAULT_PATH", DEFAULT_PATH );
+
+		props.setProperty( "GUROBI_TIME_LIMIT", Double.toString( GUROBI_TIME_LIMIT ) );
+		props.setProperty( "GUROBI_MAX_OPTIMALITY_GAP", Double.toString( GUROBI_MAX_OPTIMALITY_GAP ) );
+		props.setProperty( "ILP_SOLVER", ILP_SOLVER );
+		props.setProperty( "ILP_THREAD_BUDGET", Integer.toString( ILP_THREAD_BUDGET ) );
+		props.setProperty( "GUROBI_THREADS_PER_MODEL", Integer.toString( GUROBI_THREADS_PER_MODEL ) );
+		props.setProperty( "REOPTIMIZATION_WINDOW_RADIUS", Integer.toString( REOPTIMIZATION_WINDOW_RADIUS ) );
+		props.setProperty( "PREPROCESSING_THREADS", Integer.toString( PREPROCESSING_THREADS ) );
+		props.setProperty( "USE_PREPROCESSING_CACHE", Integer.toString( USE_PREPROCESSING_CACHE ? 1 : 0 ) );
+		props.setProperty( "PREPROCESSING_CACHE_DIR", PREPROCESSING_CACHE_DIR );
+		props.setProperty( "PREPROCESSING_CACHE_MAX_MB", Integer.toString( PREPROCESSING_CACHE_MAX_MB ) );
+		props.setProperty( "EMIT_JFR_EVENTS", Integer.toString( EMIT_JFR_EVENTS ? 1 : 0 ) );
+
+		props.setProperty( "EXPORT_DO_TRACK_EXPORT", Integer.toString(EXPORT_DO_TRACK_EXPORT?1:0) );
+		props.setProperty( "EXPORT_USER_INPUTS", Integer.toString(EXPORT_USER_INPUTS?1:0) );
+		props.setProperty( "EXPORT_INCLUDE_HISTOGRAMS", Integer.toString(EXPORT_INCLUDE_HISTOGRAMS?1:0) );
+		props.setProperty( "EXPORT_INCLUDE_QUANTILES", Integer.toString(EXPORT_INCLUDE_QUANTILES?1:0) );
+		props.setProperty( "EXPORT_INCLUDE_COL_INTENSITY_SUMS", Integer.toString(EXPORT_INCLUDE_COL_INTENSITY_SUMS?1:0) );
+		props.setProperty( "EXPORT_INCLUDE_PIXEL_INTENSITIES", Integer.toString(EXPORT_INCLUDE_PIXEL_INTENSITIES?1:0) );
+		props.setProperty( "EXPORT_COLUMNAR_STATS", Integer.toString(EXPORT_COLUMNAR_STATS?1:0) );
+
+		props.setProperty("OPTIMISATION_INTERVAL_LENGTH", Integer.toString(OPTIMISATION_INTERVAL_LENGTH));
+	}
+}
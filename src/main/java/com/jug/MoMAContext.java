@@ -0,0 +1,306 @@
+package com.jug;
+
+import java.io.File;
+import java.util.Properties;
+
+import com.jug.lp.costs.CostManager;
+import com.jug.segmentation.GrowthLineSegmentationMagic;
+import com.jug.util.FloatTypeImgLoader;
+import com.jug.util.FrameExecutor;
+import com.jug.util.RunReport;
+
+import gurobi.GRBEnv;
+import gurobi.GRBException;
+import ij.IJ;
+import ij.ImagePlus;
+
+/**
+ * Everything that belongs to one MoMA run: its parameters, the range of the
+ * loaded dataset and the objects shared by all growth lines of the run (cost
+ * manager, Gurobi environment, classifier, preprocessing threads). Nothing in here is static, such
+ * that several runs can be processed in the same JVM at the same time.
+ *
+ * @author jug
+ */
+public class MoMAContext {
+
+	// -------------------------------------------------------------------------------------
+	// fields
+	// -------------------------------------------------------------------------------------
+	private final MoMAConfig config;
+
+	/**
+	 * Properties to configure the run (loaded and saved to properties file!).
+	 */
+	private Properties props = new Properties();
+
+	/**
+	 * A properties file that will be used to 'overwrite' default properties in
+	 * mm.properties.
+	 */
+	private File fileUserProps;
+
+	/**
+	 * Stores a string used to decorate filenames e.g. before export.
+	 */
+	private String defaultFilenameDecoration;
+
+	// - - - - - - - - - - - - - -
+	// Info about loaded data
+	// - - - - - - - - - - - - - -
+	private int minTime = -1;
+	private int maxTime = -1;
+	private int initOptRange = -1;
+	private int minChannelIdx = 1;
+	private int numChannels = 1;
+
+	/**
+	 * The MoMA instance processing this run.
+	 */
+	private MoMA moma;
+
+	/**
+	 * Feature matrix and weights shared by the ILPs of all growth lines (see
+	 * <code>getCostManager()</code>).
+	 */
+	private CostManager costManager;
+
+	/**
+	 * Gurobi environment used by ILPs that do not bring their own.
+	 */
+	private GRBEnv env;
+
+	private final GrowthLineSegmentationMagic segmentationMagic = new GrowthLineSegmentationMagic();
+
+	/**
+	 * Timings, allocations and counts of the processing stages of this run.
+	 */
+	private final RunReport runReport = new RunReport();
+
+	/**
+	 * Threads processing the frames of this run (see
+	 * <code>getFrameExecutor()</code>).
+	 */
+	private FrameExecutor frameExecutor;
+
+	// -------------------------------------------------------------------------------------
+	// construction
+	// -------------------------------------------------------------------------------------
+	public MoMAContext( final MoMAConfig config ) {
+		this.config = config;
+	}
+
+	// -------------------------------------------------------------------------------------
+	// getters and setters
+	// -------------------------------------------------------------------------------------
+	public MoMAConfig getConfig() {
+		return config;
+	}
+
+	public Properties getProps() {
+		return props;
+	}
+
+	public void setProps( final Properties props ) {
+		this.props = props;
+	}
+
+	public File getFileUserProps() {
+		return fileUserProps;
+	}
+
+	public void setFileUserProps( final File fileUserProps ) {
+		this.fileUserProps = fileUserProps;
+	}
+
+	public String getDefaultFilenameDecoration() {
+		return defaultFilenameDecoration;
+	}
+
+	public void setDefaultFilenameDecoration( final String defaultFilenameDecoration ) {
+		this.defaultFilenameDecoration = defaultFilenameDecoration;
+	}
+
+	public int getMinTime() {
+		return minTime;
+	}
+
+	public void setMinTime( final int minTime ) {
+		this.minTime = minTime;
+	}
+
+	public int getMaxTime() {
+		return maxTime;
+	}
+
+	public void setMaxTime( final int maxTime ) {
+		this.maxTime = maxTime;
+	}
+
+	public int getInitialOptRange() {
+		return initOptRange;
+	}
+
+	public void setInitialOptRange( final int initOptRange ) {
+		this.initOptRange = initOptRange;
+	}
+
+	public int getMinChannelIdx() {
+		return minChannelIdx;
+	}
+
+	public int getNumChannels() {
+		return numChannels;
+	}
+
+	public MoMA getMoMA() {
+		return moma;
+	}
+
+	void setMoMA( final MoMA moma ) {
+		this.moma = moma;
+	}
+
+	public GrowthLineSegmentationMagic getSegmentationMagic() {
+		return segmentationMagic;
+	}
+
+	public RunReport getRunReport() {
+		return runReport;
+	}
+
+	/**
+	 * @return the cost manager shared by the ILPs of all growth lines of this
+	 *         run (created with the default weights on first use).
+	 */
+	public synchronized CostManager getCostManager() {
+		if ( costManager == null ) {
+			costManager = new CostManager( 6, 13 );
+			costManager.setWeights( new double[] { 0.1, 0.9, 0.5, 0.5, 0, 1, 								// mapping
+			                                       0.1, 0.9, 0.5, 0.5, 0, 1, 1, 0, 1, 1, 0, 0.1, 0.03 } );  // division
+		}
+		return costManager;
+	}
+
+	/**
+	 * Drops the cost manager, such that the next ILP starts with a fresh one.
+	 */
+	public synchronized void resetCostManager() {
+		costManager = null;
+	}
+
+	/**
+	 * @return the Gurobi environment of this run (created on first use), or
+	 *         <code>null</code> if it could not be initialized.
+	 */
+	public synchronized GRBEnv getGurobiEnv() {
+		if ( env == null ) {
+			try {
+				env = new GRBEnv( "MotherMachineILPs.log" );
+			} catch ( final GRBException e ) {
+				System.out.println( "MoMAContext::env could not be initialized!" );
+				e.printStackTrace();
+			}
+		}
+		return env;
+	}
+
+	/**
+	 * @return the executor used to process the frames of this run
+	 *         concurrently, using <code>PREPROCESSING_THREADS</code> threads.
+	 *         It is recreated if that number changed. Unless another
+	 *         <code>StageListener</code> is set, a summary line is printed
+	 *         after each stage.
+	 */
+	public synchronized FrameExecutor getFrameExecutor() {
+		if ( frameExecutor == null || frameExecutor.getParallelism() != Math.max( 1, config.PREPROCESSING_THREADS ) ) {
+			if ( frameExecutor != null ) {
+				frameExecutor.shutdown();
+			}
+			final FrameExecutor executor = new FrameExecutor( config.PREPROCESSING_THREADS );
+			executor.setStageListener( new FrameExecutor.StageListener() {
+
+				@Override
+				public void taskDone( final String stage, final int numDone, final int numTasks ) {}
+
+				@Override
+				public void stageDone( final String stage, final int numTasks, final long millis ) {
+					System.out.print( String.format( " [%s: %d frames in %.2fs using %d thread(s)]", stage, numTasks, millis / 1000.0, executor.getParallelism() ) );
+				}
+			} );
+			frameExecutor = executor;
+		}
+		return frameExecutor;
+	}
+
+	/**
+	 * Stops the threads of this run. Later calls to
+	 * <code>getFrameExecutor()</code> start new ones.
+	 */
+	public synchronized void shutdown() {
+		if ( frameExecutor != null ) {
+			frameExecutor.shutdown();
+			frameExecutor = null;
+		}
+	}
+
+	// -------------------------------------------------------------------------------------
+	// methods
+	// -------------------------------------------------------------------------------------
+	/**
+	 * Determines the time and channel range of the dataset in the given
+	 * folder (a folder of tiffs, a folder with a single tiff, or a tiff file).
+	 */
+	public void determineDatasetDimensions( final File inputFolder ) {
+		if (inputFolder.isDirectory() && inputFolder.listFiles(FloatTypeImgLoader.tifFilter).length > 1) {
+			System.out.println("reading a folder of images");
+			int min_t = Integer.MAX_VALUE;
+			int max_t = Integer.MIN_VALUE;
+			int min_c = Integer.MAX_VALUE;
+			int max_c = Integer.MIN_VALUE;
+			for (final File image : inputFolder.listFiles(FloatTypeImgLoader.tifFilter)) {
+
+				final int c = FloatTypeImgLoader.getChannelFromFilename(image.getName());
+				final int t = FloatTypeImgLoader.getTimeFromFilename(image.getName());
+
+				if (c < min_c) {
+					min_c = c;
+				}
+				if (c > max_c) {
+					max_c = c;
+				}
+
+				if (t < min_t) {
+					min_t = t;
+				}
+				if (t > max_t) {
+					max_t = t;
+				}
+			}
+			minTime = min_t;
+			maxTime = max_t + 1;
+			minChannelIdx = min_c;
+			numChannels = max_c - min_c + 1;
+		} else {
+
+			ImagePlus imp;
+			if (inputFolder.isDirectory() && inputFolder.listFiles(FloatTypeImgLoader.tifFilter).length == 1) {
+				System.out.println("reading a folder with a single image");
+				imp = IJ.openImage(inputFolder.listFiles(FloatTypeImgLoader.tifFilter)[0].getAbsolutePath());
+			} else {
+				System.out.println("reading a file");
+				imp = IJ.openImage(inputFolder.getAbsolutePath());
+			}
+
+			minTime = 1;
+			maxTime = imp.getNFrames();
+			minChannelIdx = 1;
+			numChannels = imp.getNChannels();
+		}
+		System.out.println("Determined minTime" + minTime);
+		System.out.println("Determined maxTime" + maxTime);
+
+		System.out.println("Determined minChannelIdx" + minChannelIdx);
+		System.out.println("Determined numChannels" + numChannels);
+	}
+}
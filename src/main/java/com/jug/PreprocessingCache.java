@@ -0,0 +1,412 @@
+package com.jug;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import com.jug.util.FloatTypeImgLoader;
+
+import net.imglib2.Cursor;
+import net.imglib2.Point;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.Img;
+import net.imglib2.img.basictypeaccess.array.FloatArray;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.img.planar.PlanarImgs;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.view.Views;
+
+/**
+ * Persistent cache of the preprocessed data of one dataset: the (loaded and
+ * normalized) raw channel images, the background subtracted and normalized
+ * <code>imgTemp</code>, the detected growth line center points and the
+ * growth lines themselves. With it, re-opening a dataset skips loading the
+ * TIFFs, growth line detection and background subtraction and goes straight
+ * to the generation of segmentation hypotheses.
+ *
+ * A cache file is identified by a hash over the version, the input files
+ * (names, sizes and modification times) and all parameters influencing
+ * preprocessing. The file consists of a small header followed by all pixel
+ * data as little endian floats, which is read back plane by plane through
+ * memory mapped buffers.
+ *
+ * The cache folder is kept below a maximum size: after storing a file, the
+ * least recently used cache files (by modification time, which is updated
+ * whenever a file is loaded) are deleted until it fits again.
+ *
+ * @author jug
+ */
+public class PreprocessingCache {
+
+	private static final int MAGIC = 0x4D6F4D41; // "MoMA"
+	private static final int FORMAT_VERSION = 1;
+	private static final String FILE_SUFFIX = ".momacache";
+
+	// max bytes mapped at once (FileChannel.map is limited to 2GB)
+	private static final long MAX_MAPPED_BYTES = 1L << 30;
+
+	private final File cacheDir;
+	private final long maxBytes;
+	private final File cacheFile;
+	private final String key;
+
+	private ArrayList< Img< FloatType > > rawChannelImgs;
+	private Img< FloatType > imgTemp;
+	private List< GrowthLine > growthLines;
+	private List< List< List< Point > > > glCenterPoints;
+	private int glOffsetBottom;
+
+	/**
+	 * @param cacheDir
+	 *            folder in which cache files are kept.
+	 * @param maxBytes
+	 *            maximum total size of all cache files in
+	 *            <code>cacheDir</code>.
+	 * @param inputPath
+	 *            the file or folder the dataset is loaded from.
+	 * @param parameters
+	 *            textual representation of all parameters that influence
+	 *            the preprocessing.
+	 */
+	public PreprocessingCache( final File cacheDir, final long maxBytes, final String inputPath, final String parameters ) {
+		this.cacheDir = cacheDir;
+		this.maxBytes = maxBytes;
+		this.key = computeKey( inputPath, parameters );
+		this.cacheFile = new File( cacheDir, key + FILE_SUFFIX );
+	}
+
+	public File getCacheFile() {
+		return cacheFile;
+	}
+
+	private static String computeKey( final String inputPath, final String parameters ) {
+		final StringBuilder sb = new StringBuilder();
+		sb.append( MoMA.VERSION_STRING ).append( '|' ).append( FORMAT_VERSION ).append( '|' ).append( parameters ).append( '|' );
+
+		final File input = new File( inputPath );
+		sb.append( input.getAbsolutePath() ).append( '|' );
+		File[] files = new File[] { input };
+		if ( input.isDirectory() ) {
+			files = input.listFiles( FloatTypeImgLoader.tifFilter );
+			if ( files == null ) files = new File[ 0 ];
+			Arrays.sort( files );
+		}
+		for ( final File file : files ) {
+			sb.append( file.getName() ).append( ':' ).append( file.length() ).append( ':' ).append( file.lastModified() ).append( '|' );
+		}
+
+		try {
+			final MessageDigest md = MessageDigest.getInstance( "SHA-1" );
+			final byte[] digest = md.digest( sb.toString().getBytes( "UTF-8" ) );
+			final StringBuilder hex = new StringBuilder();
+			for ( final byte b : digest ) {
+				hex.append( String.format( "%02x", b ) );
+			}
+			return hex.toString();
+		} catch ( final NoSuchAlgorithmException e ) {
+			throw new RuntimeException( e );
+		} catch ( final IOException e ) {
+			throw new RuntimeException( e );
+		}
+	}
+
+	/**
+	 * Tries to read the cache file belonging to this dataset.
+	 *
+	 * @param context
+	 *            the run the restored growth lines will belong to.
+	 * @return true, if a valid cache file was found and read. The cached data
+	 *         can then be retrieved via the getters.
+	 */
+	public boolean load( final MoMAContext context ) {
+		if ( !cacheFile.exists() ) return false;
+
+		RandomAccessFile raf = null;
+		try {
+			raf = new RandomAccessFile( cacheFile, "r" );
+			final FileChannel channel = raf.getChannel();
+
+			final ByteBuffer lenBuffer = ByteBuffer.allocate( 4 ).order( ByteOrder.LITTLE_ENDIAN );
+			channel.read( lenBuffer, 0 );
+			lenBuffer.flip();
+			final int headerLength = lenBuffer.getInt();
+			final ByteBuffer headerBuffer = ByteBuffer.allocate( headerLength );
+			channel.read( headerBuffer, 4 );
+			final DataInputStream in = new DataInputStream( new ByteArrayInputStream( headerBuffer.array() ) );
+
+			if ( in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !key.equals( in.readUTF() ) ) {
+				System.out.println( "Ignoring incompatible preprocessing cache: " + cacheFile );
+				return false;
+			}
+
+			final int numChannels = in.readInt();
+			final int width = in.readInt();
+			final int height = in.readInt();
+			final int numFrames = in.readInt();
+			glOffsetBottom = in.readInt();
+
+			final int numGLs = in.readInt();
+			growthLines = new ArrayList< GrowthLine >( numGLs );
+			for ( int i = 0; i < numGLs; i++ ) {
+				final GrowthLine gl = new GrowthLine( context );
+				final int numGLFs = in.readInt();
+				for ( int f = 0; f < numGLFs; f++ ) {
+					final GrowthLineFrame glf = new GrowthLineFrame( context );
+					final int numPoints = in.readInt();
+					for ( int p = 0; p < numPoints; p++ ) {
+						glf.addPoint( new Point( new long[] { in.readInt(), in.readInt(), in.readInt() } ) );
+					}
+					gl.add( glf );
+				}
+				growthLines.add( gl );
+			}
+
+			final int numCenterFrames = in.readInt();
+			glCenterPoints = new ArrayList< List< List< Point > > >( numCenterFrames );
+			for ( int f = 0; f < numCenterFrames; f++ ) {
+				final int numRows = in.readInt();
+				final List< List< Point > > rows = new ArrayList< List< Point > >( numRows );
+				for ( int y = 0; y < numRows; y++ ) {
+					final int numPoints = in.readInt();
+					final List< Point > points = new ArrayList< Point >( numPoints );
+					for ( int p = 0; p < numPoints; p++ ) {
+						points.add( new Point( new long[] { in.readInt() } ) );
+					}
+					rows.add( points );
+				}
+				glCenterPoints.add( rows );
+			}
+
+			long offset = 4 + headerLength;
+			rawChannelImgs = new ArrayList< Img< FloatType > >( numChannels );
+			for ( int c = 0; c < numChannels; c++ ) {
+				rawChannelImgs.add( readImg( channel, offset, width, height, numFrames ) );
+				offset += 4L * width * height * numFrames;
+			}
+			imgTemp = readImg( channel, offset, width, height, numFrames );
+
+			// mark as recently used
+			cacheFile.setLastModified( System.currentTimeMillis() );
+			System.out.println( "Loaded preprocessed data from cache: " + cacheFile );
+			return true;
+		} catch ( final Exception e ) {
+			System.out.println( "Preprocessing cache could not be read: " + cacheFile );
+			e.printStackTrace();
+			return false;
+		} finally {
+			if ( raf != null ) {
+				try {
+					raf.close();
+				} catch ( final IOException e ) {}
+			}
+		}
+	}
+
+	/**
+	 * Writes the given preprocessed data to the cache file of this dataset.
+	 * Failures are reported but not propagated -- a missing cache only costs
+	 * time.
+	 */
+	public void store( final List< Img< FloatType > > rawChannelImgs, final Img< FloatType > imgTemp, final List< GrowthLine > growthLines, final List< List< List< Point > > > glCenterPoints, final int glOffsetBottom ) {
+		final File tmpFile = new File( cacheFile.getParentFile(), cacheFile.getName() + ".tmp" );
+		RandomAccessFile raf = null;
+		try {
+			cacheFile.getParentFile().mkdirs();
+
+			final int width = ( int ) imgTemp.dimension( 0 );
+			final int height = ( int ) imgTemp.dimension( 1 );
+			final int numFrames = ( int ) imgTemp.dimension( 2 );
+
+			final ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+			final DataOutputStream out = new DataOutputStream( headerBytes );
+			out.writeInt( MAGIC );
+			out.writeInt( FORMAT_VERSION );
+			out.writeUTF( key );
+			out.writeInt( rawChannelImgs.size() );
+			out.writeInt( width );
+			out.writeInt( height );
+			out.writeInt( numFrames );
+			out.writeInt( glOffsetBottom );
+
+			out.writeInt( growthLines.size() );
+			for ( final GrowthLine gl : growthLines ) {
+				out.writeInt( gl.size() );
+				for ( final GrowthLineFrame glf : gl.getFrames() ) {
+					out.writeInt( glf.getImgLocations().size() );
+					for ( final Point p : glf.getImgLocations() ) {
+						out.writeInt( p.getIntPosition( 0 ) );
+						out.writeInt( p.getIntPosition( 1 ) );
+						out.writeInt( p.getIntPosition( 2 ) );
+					}
+				}
+			}
+
+			out.writeInt( glCenterPoints.size() );
+			for ( final List< List< Point > > rows : glCenterPoints ) {
+				out.writeInt( rows.size() );
+				for ( final List< Point > points : rows ) {
+					out.writeInt( points.size() );
+					for ( final Point p : points ) {
+						out.writeInt( p.getIntPosition( 0 ) );
+					}
+				}
+			}
+			out.close();
+
+			raf = new RandomAccessFile( tmpFile, "rw" );
+			final FileChannel channel = raf.getChannel();
+			final ByteBuffer lenBuffer = ByteBuffer.allocate( 4 ).order( ByteOrder.LITTLE_ENDIAN );
+			lenBuffer.putInt( headerBytes.size() );
+			lenBuffer.flip();
+			channel.write( lenBuffer, 0 );
+			channel.write( ByteBuffer.wrap( headerBytes.toByteArray() ), 4 );
+
+			long offset = 4 + headerBytes.size();
+			for ( final Img< FloatType > img : rawChannelImgs ) {
+				writeImg( channel, offset, img );
+				offset += 4L * width * height * numFrames;
+			}
+			writeImg( channel, offset, imgTemp );
+			raf.close();
+			raf = null;
+
+			cacheFile.delete();
+			if ( !tmpFile.renameTo( cacheFile ) ) { throw new IOException( "Could not rename " + tmpFile + " to " + cacheFile ); }
+			System.out.println( "Stored preprocessed data in cache: " + cacheFile );
+			evict();
+		} catch ( final Exception e ) {
+			System.out.println( "Preprocessing cache could not be written: " + cacheFile );
+			e.printStackTrace();
+			tmpFile.delete();
+		} finally {
+			if ( raf != null ) {
+				try {
+					raf.close();
+				} catch ( final IOException e ) {}
+			}
+		}
+	}
+
+	/**
+	 * Deletes the least recently used cache files until all of them together
+	 * are not larger than <code>maxBytes</code> (possibly including the one
+	 * just stored, if it alone is too large).
+	 */
+	private void evict() {
+		final File[] files = cacheDir.listFiles();
+		if ( files == null ) return;
+
+		final List< File > cacheFiles = new ArrayList< File >();
+		long totalBytes = 0;
+		for ( final File file : files ) {
+			if ( file.isFile() && file.getName().endsWith( FILE_SUFFIX ) ) {
+				cacheFiles.add( file );
+				totalBytes += file.length();
+			}
+		}
+		if ( totalBytes <= maxBytes ) return;
+
+		final long[] lastUsed = new long[ cacheFiles.size() ];
+		final Integer[] order = new Integer[ cacheFiles.size() ];
+		for ( int i = 0; i < order.length; i++ ) {
+			lastUsed[ i ] = cacheFiles.get( i ).lastModified();
+			order[ i ] = i;
+		}
+		Arrays.sort( order, new Comparator< Integer >() {
+
+			@Override
+			public int compare( final Integer a, final Integer b ) {
+				return Long.compare( lastUsed[ a ], lastUsed[ b ] );
+			}
+		} );
+		for ( int i = 0; i < order.length && totalBytes > maxBytes; i++ ) {
+			final File file = cacheFiles.get( order[ i ] );
+			final long length = file.length();
+			if ( file.delete() ) {
+				totalBytes -= length;
+				System.out.println( String.format( "Evicted preprocessing cache file %s (%.1f MB, cache limit %.1f MB).", file, length / 1048576.0, maxBytes / 1048576.0 ) );
+			}
+		}
+	}
+
+	private static int planesPerMapping( final long planeBytes ) {
+		return ( int ) Math.max( 1, MAX_MAPPED_BYTES / planeBytes );
+	}
+
+	private static Img< FloatType > readImg( final FileChannel channel, final long offset, final int width, final int height, final int numFrames ) throws IOException {
+		final PlanarImg< FloatType, FloatArray > img = PlanarImgs.floats( width, height, numFrames );
+		final long planeBytes = 4L * width * height;
+		final int planesPerMapping = planesPerMapping( planeBytes );
+		for ( int t = 0; t < numFrames; t += planesPerMapping ) {
+			final int numPlanes = Math.min( planesPerMapping, numFrames - t );
+			final MappedByteBuffer mapped = channel.map( FileChannel.MapMode.READ_ONLY, offset + t * planeBytes, numPlanes * planeBytes );
+			final FloatBuffer floats = mapped.order( ByteOrder.LITTLE_ENDIAN ).asFloatBuffer();
+			for ( int i = 0; i < numPlanes; i++ ) {
+				floats.get( img.getPlane( t + i ).getCurrentStorageArray() );
+			}
+		}
+		return img;
+	}
+
+	private static void writeImg( final FileChannel channel, final long offset, final RandomAccessibleInterval< FloatType > img ) throws IOException {
+		final int width = ( int ) img.dimension( 0 );
+		final int height = ( int ) img.dimension( 1 );
+		final int numFrames = ( int ) img.dimension( 2 );
+		final long planeBytes = 4L * width * height;
+		final int planesPerMapping = planesPerMapping( planeBytes );
+		final float[] plane = new float[ width * height ];
+		for ( int t = 0; t < numFrames; t += planesPerMapping ) {
+			final int numPlanes = Math.min( planesPerMapping, numFrames - t );
+			final MappedByteBuffer mapped = channel.map( FileChannel.MapMode.READ_WRITE, offset + t * planeBytes, numPlanes * planeBytes );
+			final FloatBuffer floats = mapped.order( ByteOrder.LITTLE_ENDIAN ).asFloatBuffer();
+			for ( int i = 0; i < numPlanes; i++ ) {
+				final Cursor< FloatType > cursor = Views.flatIterable( Views.hyperSlice( img, 2, img.min( 2 ) + t + i ) ).cursor();
+				int j = 0;
+				while ( cursor.hasNext() ) {
+					plane[ j++ ] = cursor.next().get();
+				}
+				floats.put( plane );
+			}
+			mapped.force();
+		}
+	}
+
+	public ArrayList< Img< FloatType > > getRawChannelImgs() {
+		return rawChannelImgs;
+	}
+
+	public Img< FloatType > getImgTemp() {
+		return imgTemp;
+	}
+
+	public List< GrowthLine > getGrowthLines() {
+		return growthLines;
+	}
+
+	public List< List< List< Point > > > getGlCenterPoints() {
+		return glCenterPoints;
+	}
+
+	/**
+	 * @return the value <code>GL_OFFSET_BOTTOM</code> had after preprocessing
+	 *         (it might have been autodetected).
+	 */
+	public int getGlOffsetBottom() {
+		return glOffsetBottom;
+	}
+}
@@ -3,6 +3,7 @@
  */
 package com.jug.export;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
@@ -10,7 +11,8 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.Formatter;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
@@ -20,6 +22,8 @@ import javax.swing.JOptionPane;
 
 import com.jug.GrowthLineFrame;
 import com.jug.MoMA;
+import com.jug.MoMAConfig;
+import com.jug.MoMAContext;
 import com.jug.gui.DialogCellStatsExportSetup;
 import com.jug.gui.MoMAGui;
 import com.jug.gui.OsDependentFileChooser;
@@ -30,15 +34,16 @@ import com.jug.lp.GrowthLineTrackingILP;
 import com.jug.lp.Hypothesis;
 import com.jug.lp.MappingAssignment;
 import com.jug.util.ComponentTreeUtils;
+import com.jug.util.FrameExecutor;
 import com.jug.util.Util;
-import com.jug.util.filteredcomponents.FilteredComponent;
+import com.jug.util.filteredcomponents.ExtendableComponent;
 
-import gurobi.GRBException;
+import com.jug.lp.solver.IlpException;
 import net.imglib2.IterableInterval;
-import net.imglib2.Point;
 import net.imglib2.algorithm.componenttree.Component;
 import net.imglib2.histogram.Histogram1d;
 import net.imglib2.histogram.Real1dBinMapper;
+import net.imglib2.img.Img;
 import net.imglib2.type.numeric.real.FloatType;
 import net.imglib2.util.ValuePair;
 import net.imglib2.view.IntervalView;
@@ -157,7 +162,7 @@ public class CellStatsExporter {
 					terminated_by = rightAssmt.getType();
 					exists = false;
 				}
-			} catch ( final GRBException ge ) {
+			} catch ( final IlpException ge ) {
 				exists = false;
 				System.err.println( ge.getMessage() );
 			}
@@ -176,7 +181,7 @@ public class CellStatsExporter {
 		 * @return
 		 */
 		public long[] computeChannelHistogram( final IterableInterval< FloatType > view, final float min, final float max ) {
-			final Histogram1d< FloatType > histogram = new Histogram1d< FloatType >( view, new Real1dBinMapper< FloatType >( min, max, 20, false ) );
+			final Histogram1d< FloatType > histogram = new Histogram1d< FloatType >( view, new Real1dBinMapper< FloatType >( min, max, NUM_HISTOGRAM_BINS, false ) );
 			return histogram.toLongArray();
 		}
 
@@ -185,17 +190,17 @@ public class CellStatsExporter {
 		 * @return
 		 */
 		public float[] computeChannelPercentile( final IterableInterval< FloatType > channel ) {
-			final List< Float > pixelVals = new ArrayList< Float >();
+			final float[] pixelVals = new float[ ( int ) channel.size() ];
+			int n = 0;
 			for ( final FloatType ftPixel : channel ) {
-				pixelVals.add( ftPixel.get() );
+				pixelVals[ n++ ] = ftPixel.get();
 			}
-			Collections.sort( pixelVals );
+			Arrays.sort( pixelVals );
 
-			final int numPercentiles = 20;
-			final float ret[] = new float[ numPercentiles - 1 ];
-			for ( int i = 1; i < numPercentiles; i++ ) {
-				final int index = ( i * pixelVals.size() / numPercentiles ) - 1;
-				ret[ i - 1 ] = pixelVals.get( index );
+			final float ret[] = new float[ NUM_PERCENTILES - 1 ];
+			for ( int i = 1; i < NUM_PERCENTILES; i++ ) {
+				final int index = ( i * pixelVals.length / NUM_PERCENTILES ) - 1;
+				ret[ i - 1 ] = pixelVals[ index ];
 			}
 			return ret;
 		}
@@ -205,8 +210,8 @@ public class CellStatsExporter {
 		 * @return
 		 */
 		public float[] computeChannelColumnIntensities( final IntervalView< FloatType > columnBoxInChannel ) {
-			if ( MoMA.GL_FLUORESCENCE_COLLECTION_WIDTH_IN_PIXELS != columnBoxInChannel.dimension( 0 ) ) {
-				System.out.println( "EXPORT WARNING: intensity columns to be exported are " + columnBoxInChannel.dimension( 0 ) + " instead of " + MoMA.GL_FLUORESCENCE_COLLECTION_WIDTH_IN_PIXELS );
+			if ( config.GL_FLUORESCENCE_COLLECTION_WIDTH_IN_PIXELS != columnBoxInChannel.dimension( 0 ) ) {
+				System.out.println( "EXPORT WARNING: intensity columns to be exported are " + columnBoxInChannel.dimension( 0 ) + " instead of " + config.GL_FLUORESCENCE_COLLECTION_WIDTH_IN_PIXELS );
 			}
 
 			final float ret[] = new float[ ( int ) columnBoxInChannel.dimension( 0 ) ];
@@ -265,23 +270,49 @@ public class CellStatsExporter {
 
 	// //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
+	private static final int NUM_HISTOGRAM_BINS = 20;
+	private static final int NUM_PERCENTILES = 20;
+
+	/**
+	 * Number of cells whose statistics are computed concurrently per export
+	 * thread before they are written. Bounds the memory used by the export.
+	 */
+	private static final int CELLS_PER_THREAD_AND_CHUNK = 4;
+
 	private final MoMAGui gui;
+	private final MoMA mm;
+	private final MoMAContext context;
+	private final MoMAConfig config;
 
 	public CellStatsExporter( final MoMAGui gui ) {
+		this( gui, gui.model.getMoMA() );
+	}
+
+	/**
+	 * @param gui
+	 *            the GUI to export from (<code>null</code> if only the
+	 *            statistics of single segments are computed).
+	 * @param mm
+	 *            the MoMA instance whose run is exported.
+	 */
+	CellStatsExporter( final MoMAGui gui, final MoMA mm ) {
 		this.gui = gui;
+		this.mm = mm;
+		this.context = mm.getContext();
+		this.config = mm.getConfig();
 	}
 
 	public boolean showConfigDialog() {
 		final DialogCellStatsExportSetup dialog =
-				new DialogCellStatsExportSetup( gui, MoMA.EXPORT_USER_INPUTS, MoMA.EXPORT_DO_TRACK_EXPORT, MoMA.EXPORT_INCLUDE_HISTOGRAMS, MoMA.EXPORT_INCLUDE_QUANTILES, MoMA.EXPORT_INCLUDE_COL_INTENSITY_SUMS, MoMA.EXPORT_INCLUDE_PIXEL_INTENSITIES);
+				new DialogCellStatsExportSetup( gui, config.EXPORT_USER_INPUTS, config.EXPORT_DO_TRACK_EXPORT, config.EXPORT_INCLUDE_HISTOGRAMS, config.EXPORT_INCLUDE_QUANTILES, config.EXPORT_INCLUDE_COL_INTENSITY_SUMS, config.EXPORT_INCLUDE_PIXEL_INTENSITIES);
 		dialog.ask();
 		if ( !dialog.wasCanceled() ) {
-			MoMA.EXPORT_DO_TRACK_EXPORT = dialog.doExportTracks;
-			MoMA.EXPORT_USER_INPUTS = dialog.doExportUserInputs;
-			MoMA.EXPORT_INCLUDE_HISTOGRAMS = dialog.includeHistograms;
-			MoMA.EXPORT_INCLUDE_QUANTILES = dialog.includeQuantiles;
-			MoMA.EXPORT_INCLUDE_COL_INTENSITY_SUMS = dialog.includeColIntensitySums;
-			MoMA.EXPORT_INCLUDE_PIXEL_INTENSITIES = dialog.includePixelIntensities;
+			config.EXPORT_DO_TRACK_EXPORT = dialog.doExportTracks;
+			config.EXPORT_USER_INPUTS = dialog.doExportUserInputs;
+			config.EXPORT_INCLUDE_HISTOGRAMS = dialog.includeHistograms;
+			config.EXPORT_INCLUDE_QUANTILES = dialog.includeQuantiles;
+			config.EXPORT_INCLUDE_COL_INTENSITY_SUMS = dialog.includeColIntensitySums;
+			config.EXPORT_INCLUDE_PIXEL_INTENSITIES = dialog.includePixelIntensities;
 			return true;
 		} else {
 			return false;
@@ -291,7 +322,7 @@ public class CellStatsExporter {
 	public void export() {
 		if ( !MoMA.HEADLESS ) {
 			if ( showConfigDialog() ) {
-				final File folderToUse = OsDependentFileChooser.showSaveFolderChooser( gui, MoMA.STATS_OUTPUT_PATH, "Choose export folder..." );
+				final File folderToUse = OsDependentFileChooser.showSaveFolderChooser( gui, config.STATS_OUTPUT_PATH, "Choose export folder..." );
 				if ( folderToUse == null ) {
 					JOptionPane.showMessageDialog(
 							gui,
@@ -300,94 +331,172 @@ public class CellStatsExporter {
 							JOptionPane.ERROR_MESSAGE );
 					return;
 				}
-				if ( MoMA.EXPORT_DO_TRACK_EXPORT) {
-					exportTracks( new File( folderToUse, "ExportedTracks_" + MoMA.getDefaultFilenameDecoration() + ".csv" ) );
+				if ( config.EXPORT_DO_TRACK_EXPORT) {
+					exportTracks( new File( folderToUse, "ExportedTracks_" + context.getDefaultFilenameDecoration() + ".csv" ) );
 				}
-				if ( MoMA.EXPORT_USER_INPUTS) {
-					final int tmin = MoMA.getMinTime();
-					final int tmax = MoMA.getMaxTime();
+				if ( config.EXPORT_USER_INPUTS) {
+					final int tmin = context.getMinTime();
+					final int tmax = context.getMaxTime();
 					final File file =
 							new File( folderToUse, String.format(
 									"--[%d-%d]_%s.timm",
 									tmin,
 									tmax,
-									MoMA.getDefaultFilenameDecoration() ) );
-					MoMA.getGui().model.getCurrentGL().getIlp().saveState( file );
+									context.getDefaultFilenameDecoration() ) );
+					gui.model.getCurrentGL().getIlp().saveState( file );
 				}
 				try {
-					exportCellStats( new File( folderToUse, "ExportedCellStats_" + MoMA.getDefaultFilenameDecoration() + ".csv" ) );
-				} catch ( final GRBException e ) {
+					exportCellStats( new File( folderToUse, "ExportedCellStats_" + context.getDefaultFilenameDecoration() + ".csv" ) );
+				} catch ( final IlpException e ) {
 					e.printStackTrace();
 				}
 				// always export mmproperties
-				MoMA.instance.saveParams(new File( folderToUse, "mm.properties" ));
+				mm.saveParams(new File( folderToUse, "mm.properties" ));
 			}
 		} else {
-			if ( MoMA.EXPORT_DO_TRACK_EXPORT) {
-				exportTracks( new File( MoMA.STATS_OUTPUT_PATH, "ExportedTracks_" + MoMA.getDefaultFilenameDecoration() + ".csv" ) );
+			if ( config.EXPORT_DO_TRACK_EXPORT) {
+				exportTracks( new File( config.STATS_OUTPUT_PATH, "ExportedTracks_" + context.getDefaultFilenameDecoration() + ".csv" ) );
 			}
-			if ( MoMA.EXPORT_USER_INPUTS) {
-				final int tmin = MoMA.getMinTime();
-				final int tmax = MoMA.getMaxTime();
+			if ( config.EXPORT_USER_INPUTS) {
+				final int tmin = context.getMinTime();
+				final int tmax = context.getMaxTime();
 				final File file =
-						new File( MoMA.STATS_OUTPUT_PATH, String.format(
+						new File( config.STATS_OUTPUT_PATH, String.format(
 								"--[%d-%d]_%s.timm",
 								tmin,
 								tmax,
-								MoMA.getDefaultFilenameDecoration() ) );
-				MoMA.getGui().model.getCurrentGL().getIlp().saveState( file );
+								context.getDefaultFilenameDecoration() ) );
+				gui.model.getCurrentGL().getIlp().saveState( file );
 			}
 
 			try {
-				exportCellStats( new File( MoMA.STATS_OUTPUT_PATH, "ExportedCellStats_" + MoMA.getDefaultFilenameDecoration() + ".csv" ) );
-			} catch ( final GRBException e ) {
+				exportCellStats( new File( config.STATS_OUTPUT_PATH, "ExportedCellStats_" + context.getDefaultFilenameDecoration() + ".csv" ) );
+			} catch ( final IlpException e ) {
 				e.printStackTrace();
 			}
 			// always export mmproperties
-			MoMA.instance.saveParams(new File( MoMA.STATS_OUTPUT_PATH, "mm.properties" ));
+			mm.saveParams(new File( config.STATS_OUTPUT_PATH, "mm.properties" ));
 		}
 	}
 
 	/**
+	 * Exports the statistics of all cells in the current growth line.
+	 * The lineage is walked once to find all cells, their statistics are then
+	 * computed in parallel, a few cells per thread at a time, and written in
+	 * cell order through a buffered writer. Memory use is hence bounded by
+	 * the number of cells in flight, not by the length of the movie.
+	 * If <code>MoMAConfig.EXPORT_COLUMNAR_STATS</code> is set, the numeric
+	 * per-segment statistics are also written column-wise into a binary file
+	 * next to <code>file</code> (see <code>ColumnarStatsWriter</code>).
+	 *
 	 * @param file
-	 * @throws GRBException
+	 * @throws IlpException
 	 */
-	public void exportCellStats( final File file ) throws GRBException {
-
-		// ------- THE MAGIC *** THE MAGIC *** THE MAGIC *** THE MAGIG -------
-		final Vector< String > linesToExport = getCellStatsExportData();
-		// -------------------------------------------------------------------
-
-		System.out.println( "Exporting collected cell-statistics..." );
+	public void exportCellStats( final File file ) throws IlpException {
+		System.out.println( "Exporting cell-statistics..." );
 		Writer out = null;
+		ColumnarStatsWriter columnar = null;
 		try {
-			out = new OutputStreamWriter( new FileOutputStream( file ) );
-
-			for ( final String line : linesToExport ) {
-				out.write( line );
-				out.write( "\n" );
+			out = new BufferedWriter( new OutputStreamWriter( new FileOutputStream( file ) ), 1 << 16 );
+			if ( config.EXPORT_COLUMNAR_STATS ) {
+				columnar = createColumnarStatsWriter( getColumnarStatsFile( file ) );
 			}
+
+			// ------- THE MAGIC *** THE MAGIC *** THE MAGIC *** THE MAGIG -------
+			writeCellStatsExportData( out, columnar );
+			// -------------------------------------------------------------------
+
 			out.close();
+			out = null;
+			if ( columnar != null ) {
+				columnar.close();
+				columnar = null;
+			}
 		} catch ( final FileNotFoundException e1 ) {
-			JOptionPane.showMessageDialog( gui, "File not found!", "Error!", JOptionPane.ERROR_MESSAGE );
+			if ( !MoMA.HEADLESS )
+				JOptionPane.showMessageDialog( gui, "File not found!", "Error!", JOptionPane.ERROR_MESSAGE );
+			System.err.println( "Export Error: File not found!" );
 			e1.printStackTrace();
 		} catch ( final IOException e1 ) {
-			JOptionPane.showMessageDialog( gui, "Selected file could not be written!", "Error!", JOptionPane.ERROR_MESSAGE );
+			if ( !MoMA.HEADLESS )
+				JOptionPane.showMessageDialog( gui, "Selected file could not be written!", "Error!", JOptionPane.ERROR_MESSAGE );
+			System.err.println( "Export Error: Selected file could not be written!" );
 			e1.printStackTrace();
+		} finally {
+			if ( out != null ) {
+				try {
+					out.close();
+				} catch ( final IOException e ) {}
+			}
+			if ( columnar != null ) {
+				columnar.discard();
+			}
 		}
 		System.out.println( "...done!" );
 	}
 
-	private Vector< String > getCellStatsExportData() throws GRBException {
-		// use US-style number formats! (e.g. '.' as decimal point)
-		Locale.setDefault( new Locale( "en", "US" ) );
+	/**
+	 * @return the file the columnar statistics belonging to the given CSV
+	 *         file are written to.
+	 */
+	public static File getColumnarStatsFile( final File csvFile ) {
+		String name = csvFile.getName();
+		if ( name.toLowerCase().endsWith( ".csv" ) ) {
+			name = name.substring( 0, name.length() - 4 );
+		}
+		return new File( csvFile.getParentFile(), name + ".mmcs" );
+	}
 
-		final String loadedDataFolder = MoMA.props.getProperty( "import_path", "BUG -- could not get property 'import_path' while exporting cell statistics..." );
-		final int numCurrGL = gui.sliderGL.getValue();
-		final Vector< String > linesToExport = new Vector< String >();
+	/**
+	 * Columns: ids, frame, position and box of the segment, followed by
+	 * min/max and (if enabled) histogram, percentiles and column intensity
+	 * sums per channel. Pixel intensities are only exported to the CSV file.
+	 */
+	private ColumnarStatsWriter createColumnarStatsWriter( final File file ) throws IOException {
+		final List< String > names = new ArrayList< String >();
+		final List< Byte > types = new ArrayList< Byte >();
+		for ( final String name : new String[] { "cell_id", "parent_id", "birth_frame", "frame", "pos_in_GL", "num_cells_in_GL", "pixel_top", "pixel_bottom", "num_pixels_in_box" } ) {
+			names.add( name );
+			types.add( ColumnarStatsWriter.INT );
+		}
+		for ( int c = 0; c < mm.getRawChannelImgs().size(); c++ ) {
+			names.add( "ch" + c + "_min" );
+			types.add( ColumnarStatsWriter.FLOAT );
+			names.add( "ch" + c + "_max" );
+			types.add( ColumnarStatsWriter.FLOAT );
+			if ( config.EXPORT_INCLUDE_HISTOGRAMS ) {
+				for ( int i = 0; i < NUM_HISTOGRAM_BINS; i++ ) {
+					names.add( "ch" + c + "_hist" + i );
+					types.add( ColumnarStatsWriter.INT );
+				}
+			}
+			if ( config.EXPORT_INCLUDE_QUANTILES ) {
+				for ( int i = 1; i < NUM_PERCENTILES; i++ ) {
+					names.add( "ch" + c + "_p" + ( i * 100 / NUM_PERCENTILES ) );
+					types.add( ColumnarStatsWriter.FLOAT );
+				}
+			}
+			if ( config.EXPORT_INCLUDE_COL_INTENSITY_SUMS ) {
+				for ( int i = 0; i < config.GL_FLUORESCENCE_COLLECTION_WIDTH_IN_PIXELS; i++ ) {
+					names.add( "ch" + c + "_col" + i );
+					types.add( ColumnarStatsWriter.FLOAT );
+				}
+			}
+		}
+		final byte[] typeArray = new byte[ types.size() ];
+		for ( int i = 0; i < typeArray.length; i++ ) {
+			typeArray[ i ] = types.get( i );
+		}
+		return new ColumnarStatsWriter( file, names, typeArray );
+	}
 
-		final GrowthLineFrame firstGLF = gui.model.getCurrentGL().getFrames().get( 0 );
-		final GrowthLineTrackingILP ilp = firstGLF.getParent().getIlp();
+	/**
+	 * Walks the lineage of the current growth line once.
+	 *
+	 * @return the first segment of every cell, in the order the cells are
+	 *         exported.
+	 */
+	private List< SegmentRecord > collectCellStartingPoints( final GrowthLineTrackingILP ilp, final GrowthLineFrame firstGLF ) throws IlpException {
 		final Vector< ValuePair< Integer, Hypothesis< Component< FloatType, ? > > > > segmentsInFirstFrameSorted =
 				firstGLF.getSortedActiveHypsAndPos();
 		final List< SegmentRecord > startingPoints = new ArrayList< SegmentRecord >();
@@ -459,156 +568,267 @@ public class CellStatsExporter {
 				}
 			}
 		}
+		return startingPoints;
+	}
+
+	private void writeCellStatsExportData( final Writer out, final ColumnarStatsWriter columnar ) throws IlpException, IOException {
+		// use US-style number formats! (e.g. '.' as decimal point)
+		Locale.setDefault( new Locale( "en", "US" ) );
+
+		final String loadedDataFolder = context.getProps().getProperty( "import_path", "BUG -- could not get property 'import_path' while exporting cell statistics..." );
+		final int numCurrGL = gui.sliderGL.getValue();
+
+		// everything the (parallel) statistics computation needs -- no GUI access from the workers
+		final List< GrowthLineFrame > frames = gui.model.getCurrentGL().getFrames();
+		final GrowthLineFrame firstGLF = frames.get( 0 );
+		final GrowthLineTrackingILP ilp = firstGLF.getParent().getIlp();
+		final long avgXpos = firstGLF.getAvgXpos();
+		final List< Img< FloatType > > channels = mm.getRawChannelImgs();
+
+		final List< SegmentRecord > startingPoints = collectCellStartingPoints( ilp, firstGLF );
 
 		// INITIALIZE PROGRESS-BAR if not run headless
-		final DialogProgress dialogProgress = new DialogProgress( gui, "Exporting selected cell-statistics...", startingPoints.size() );
+		DialogProgress dialogProgress = null;
 		if ( !MoMA.HEADLESS ) {
+			dialogProgress = new DialogProgress( gui, "Exporting selected cell-statistics...", startingPoints.size() );
 			dialogProgress.setVisible( true );
 		}
 
 		// Line 1: import folder
-		linesToExport.add( loadedDataFolder );
+		writeLine( out, loadedDataFolder );
 
 		// Line 2: GL-id
-		linesToExport.add( "GLidx = " + numCurrGL );
+		writeLine( out, "GLidx = " + numCurrGL );
 
 		// Line 3: #cells
-		linesToExport.add( "numCells = " + startingPoints.size() );
+		writeLine( out, "numCells = " + startingPoints.size() );
 
 		// Line 4: #channels
-		linesToExport.add( "numChannels = " + MoMA.instance.getRawChannelImgs().size() );
+		writeLine( out, "numChannels = " + channels.size() );
 
 		// Line 5: imageHeight
-		final long h = MoMA.instance.getImgRaw().dimension( 1 );
-		linesToExport.add( "imageHeight = " + h + "\n" );
+		final long h = mm.getImgRaw().dimension( 1 );
+		writeLine( out, "imageHeight = " + h + "\n" );
 
 		// Line 6: bottomOffset
-		linesToExport.add(
-				"glHeight = " + ( h - MoMA.GL_OFFSET_BOTTOM - MoMA.GL_OFFSET_TOP ) + "\n" );
+		writeLine( out, "glHeight = " + ( h - config.GL_OFFSET_BOTTOM - config.GL_OFFSET_TOP ) + "\n" );
 
 		// Line 7: track region (pixel row interval we perform tracking within -- this is all but top and bottom offset areas)
-		linesToExport.add( String.format("trackRegionInterval = [%d,%d]", MoMA.GL_OFFSET_TOP, h - 1 - MoMA.GL_OFFSET_BOTTOM ) );
-
-		// Export all cells (we found all their starting segments above)
-		for ( int cid = 0; cid < startingPoints.size(); cid++ ) {
-			SegmentRecord segmentRecord = startingPoints.get( cid );
-
-			linesToExport.add( segmentRecord.toString() );
-			do {
-				ValuePair< Integer, Integer > limits =
-						ComponentTreeUtils.getTreeNodeInterval( segmentRecord.hyp.getWrappedHypothesis() );
-				if ( segmentRecord.hyp.getWrappedHypothesis() instanceof FilteredComponent ) {
-					limits = ComponentTreeUtils.getExtendedTreeNodeInterval( ( FilteredComponent< ? > ) segmentRecord.hyp.getWrappedHypothesis() );
-				}
+		writeLine( out, String.format( "trackRegionInterval = [%d,%d]", config.GL_OFFSET_TOP, h - 1 - config.GL_OFFSET_BOTTOM ) );
 
-				final GrowthLineFrame glf = gui.model.getCurrentGL().getFrames().get( segmentRecord.frame );
-				final List< Point > centerLine = glf.getImgLocations();
-//				final double height = Util.evaluatePolygonLength( centerLine, limits.getA(), limits.getB() );
-
-				final int numCells = glf.getSolutionStats_numCells();
-				final int cellPos = glf.getSolutionStats_cellPos( segmentRecord.hyp );
-
-				final String genealogy = segmentRecord.getGenealogyString();
-
-				// WARNING -- if you change substring 'frame' you need also to change the last-row-deletion procedure below for the ENDOFTRACKING case... yes, this is not clean... ;)
-				linesToExport.add( String.format(
-						"\tframe=%d; pos_in_GL=[%d,%d]; pixel_limits=[%d,%d]; num_pixels_in_box=%d; genealogy=%s",
-						segmentRecord.frame,
-						cellPos,
-						numCells,
-						limits.getA(),
-						limits.getB(),
-						Util.getSegmentBoxPixelCount( segmentRecord.hyp, firstGLF.getAvgXpos() ),
-						genealogy ) );
-
-				// export info per image channel
-				for ( int c = 0; c < MoMA.instance.getRawChannelImgs().size(); c++ ) {
-					final IntervalView< FloatType > channelFrame = Views.hyperSlice( MoMA.instance.getRawChannelImgs().get( c ), 2, segmentRecord.frame );
-					final IterableInterval< FloatType > segmentBoxInChannel = Util.getSegmentBoxInImg( channelFrame, segmentRecord.hyp, firstGLF.getAvgXpos() );
-
-					final FloatType min = new FloatType();
-					final FloatType max = new FloatType();
-					Util.computeMinMax( segmentBoxInChannel, min, max );
-
-					if ( MoMA.EXPORT_INCLUDE_HISTOGRAMS) {
-						final long[] hist = segmentRecord.computeChannelHistogram( segmentBoxInChannel, min.get(), max.get() );
-						String histStr = String.format( "\t\tch=%d; output=HISTOGRAM", c );
-						histStr += String.format( "; min=%8.3f; max=%8.3f", min.get(), max.get() );
-						for ( final long value : hist ) {
-							histStr += String.format( "; %5d", value );
-						}
-						linesToExport.add( histStr );
+		// Export all cells (we found all their starting segments above), a chunk of cells at a time
+		final FrameExecutor executor = new FrameExecutor( config.PREPROCESSING_THREADS );
+		final int chunkSize = executor.getParallelism() * CELLS_PER_THREAD_AND_CHUNK;
+		try {
+			for ( int chunkStart = 0; chunkStart < startingPoints.size(); chunkStart += chunkSize ) {
+				final int firstCell = chunkStart;
+				final int numCells = Math.min( chunkSize, startingPoints.size() - chunkStart );
+				final List< CellExport > cellExports = executor.run( "cell statistics", numCells, new FrameExecutor.FrameTask< CellExport >() {
+
+					@Override
+					public CellExport process( final int idx ) {
+						return exportCell( startingPoints.get( firstCell + idx ), ilp, frames, avgXpos, channels, columnar != null );
 					}
+				} );
 
-					if ( MoMA.EXPORT_INCLUDE_QUANTILES) {
-						final float[] percentile = segmentRecord.computeChannelPercentile( segmentBoxInChannel );
-						String percentileStr = String.format( "\t\tch=%d; output=PERCENTILES", c );
-						percentileStr += String.format( "; min=%8.3f; max=%8.3f", min.get(), max.get() );
-						for ( final float value : percentile ) {
-							percentileStr += String.format( "; %8.3f", value );
+				for ( final CellExport cellExport : cellExports ) {
+					out.write( cellExport.text.toString() );
+					if ( columnar != null ) {
+						for ( final double[] row : cellExport.rows ) {
+							columnar.addRow( row );
 						}
-						linesToExport.add( percentileStr );
 					}
 
-					if ( MoMA.EXPORT_INCLUDE_COL_INTENSITY_SUMS) {
-						final IntervalView< FloatType > columnBoxInChannel = Util.getColumnBoxInImg( channelFrame, segmentRecord.hyp, firstGLF.getAvgXpos() );
-						final float[] column_intensities = segmentRecord.computeChannelColumnIntensities( columnBoxInChannel );
-						String colIntensityStr = String.format( "\t\tch=%d; output=COLUMN_INTENSITIES", c );
-						for ( final float value : column_intensities ) {
-							colIntensityStr += String.format( "; %.3f", value );
-						}
-						linesToExport.add( colIntensityStr );
+					// REPORT PROGRESS if needbe
+					if ( !MoMA.HEADLESS ) {
+						dialogProgress.hasProgressed();
 					}
+				}
+			}
+		} finally {
+			executor.shutdown();
 
-					if ( MoMA.EXPORT_INCLUDE_PIXEL_INTENSITIES) {
-						final IntervalView< FloatType > intensityBoxInChannel = Util.getIntensityBoxInImg( channelFrame, segmentRecord.hyp, firstGLF.getAvgXpos() );
-						final float[][] intensities = segmentRecord.getIntensities( intensityBoxInChannel );
-						String intensityStr = String.format( "\t\tch=%d; output=PIXEL_INTENSITIES", c );
-						for ( int y = 0; y < intensities[ 0 ].length; y++ ) {
-							for ( int x = 0; x < intensities.length; x++ ) {
-								intensityStr += String.format( ";%.3f", intensities[ x ][ y ] );
-							}
-							intensityStr += " ";
-						}
-						linesToExport.add( intensityStr );
-					}
+			// Dispose ProgressBar in needbe
+			if ( !MoMA.HEADLESS ) {
+				dialogProgress.setVisible( false );
+				dialogProgress.dispose();
+			}
+		}
+	}
+
+	private static void writeLine( final Writer out, final String line ) throws IOException {
+		out.write( line );
+		out.write( "\n" );
+	}
+
+	/**
+	 * Everything exported for one cell: its block of lines in the CSV file
+	 * and one row for the columnar output per exported segment.
+	 */
+	private static final class CellExport {
+
+		private final StringBuilder text = new StringBuilder();
+		private final List< double[] > rows = new ArrayList< double[] >();
+	}
+
+	/**
+	 * Follows the given cell through time and computes the statistics of all
+	 * its segments. Only touches the (immutable) solution of the ILP and the
+	 * raw channel images, hence several cells can be exported concurrently.
+	 */
+	private CellExport exportCell( final SegmentRecord startingPoint, final GrowthLineTrackingILP ilp, final List< GrowthLineFrame > frames, final long avgXpos, final List< Img< FloatType > > channels, final boolean doColumnar ) {
+		final CellExport ret = new CellExport();
+		final Formatter fmt = new Formatter( ret.text, Locale.US );
+
+		final List< SegmentRecord > segments = new ArrayList< SegmentRecord >();
+		SegmentRecord segmentRecord = startingPoint;
+		do {
+			segments.add( segmentRecord );
+			segmentRecord = segmentRecord.nextSegmentInTime( ilp );
+		}
+		while ( segmentRecord.exists() );
+
+		if ( segmentRecord.terminated_by == SegmentRecord.ENDOFTRACKING ) {
+			// UGLY TRICK ALERT: remember the trick to fix the tracking towards the last frame?
+			// Yes, we double the last frame. This also means that we should not export this fake frame, ergo we remove it here!
+			segments.remove( segments.size() - 1 );
+		}
+
+		ret.text.append( startingPoint.toString() ).append( '\n' );
+		for ( final SegmentRecord segment : segments ) {
+			exportSegment( segment, startingPoint, frames.get( segment.frame ), avgXpos, channels, fmt, ( doColumnar ) ? ret.rows : null );
+		}
+
+		if ( segmentRecord.terminated_by == GrowthLineTrackingILP.ASSIGNMENT_EXIT ) {
+			ret.text.append( "\tEXIT\n\n" );
+		} else if ( segmentRecord.terminated_by == GrowthLineTrackingILP.ASSIGNMENT_DIVISION ) {
+			ret.text.append( "\tDIVISION\n\n" );
+		} else if ( segmentRecord.terminated_by == SegmentRecord.USER_PRUNING ) {
+			ret.text.append( "\tUSER_PRUNING\n\n" );
+		} else if ( segmentRecord.terminated_by == SegmentRecord.ENDOFTRACKING ) {
+			ret.text.append( "\tENDOFDATA\n\n" );
+		} else {
+			ret.text.append( "\tGUROBI_EXCEPTION\n\n" );
+		}
+		fmt.close();
+		return ret;
+	}
+
+	private void exportSegment( final SegmentRecord segmentRecord, final SegmentRecord cell, final GrowthLineFrame glf, final long avgXpos, final List< Img< FloatType > > channels, final Formatter fmt, final List< double[] > rows ) {
+		ValuePair< Integer, Integer > limits =
+				ComponentTreeUtils.getTreeNodeInterval( segmentRecord.hyp.getWrappedHypothesis() );
+		if ( segmentRecord.hyp.getWrappedHypothesis() instanceof ExtendableComponent ) {
+			limits = ComponentTreeUtils.getExtendedTreeNodeInterval( ( ExtendableComponent< ? > ) segmentRecord.hyp.getWrappedHypothesis() );
+		}
+
+		final int numCells = glf.getSolutionStats_numCells();
+		final int cellPos = glf.getSolutionStats_cellPos( segmentRecord.hyp );
+		final long numPixelsInBox = Util.getSegmentBoxPixelCount( segmentRecord.hyp, avgXpos, config );
+
+		final double[] row = ( rows != null ) ? new double[ numColumnarColumns( channels.size() ) ] : null;
+		int col = 0;
+		if ( row != null ) {
+			row[ col++ ] = cell.id;
+			row[ col++ ] = cell.pid;
+			row[ col++ ] = cell.tbirth;
+			row[ col++ ] = segmentRecord.frame;
+			row[ col++ ] = cellPos;
+			row[ col++ ] = numCells;
+			row[ col++ ] = limits.getA();
+			row[ col++ ] = limits.getB();
+			row[ col++ ] = numPixelsInBox;
+		}
+
+		fmt.format(
+				"\tframe=%d; pos_in_GL=[%d,%d]; pixel_limits=[%d,%d]; num_pixels_in_box=%d; genealogy=%s\n",
+				segmentRecord.frame,
+				cellPos,
+				numCells,
+				limits.getA(),
+				limits.getB(),
+				numPixelsInBox,
+				segmentRecord.getGenealogyString() );
+
+		// export info per image channel
+		for ( int c = 0; c < channels.size(); c++ ) {
+			final IntervalView< FloatType > channelFrame = Views.hyperSlice( channels.get( c ), 2, segmentRecord.frame );
+			final IterableInterval< FloatType > segmentBoxInChannel = Util.getSegmentBoxInImg( channelFrame, segmentRecord.hyp, avgXpos, config );
+
+			final FloatType min = new FloatType();
+			final FloatType max = new FloatType();
+			Util.computeMinMax( segmentBoxInChannel, min, max );
+			if ( row != null ) {
+				row[ col++ ] = min.get();
+				row[ col++ ] = max.get();
+			}
+
+			if ( config.EXPORT_INCLUDE_HISTOGRAMS ) {
+				final long[] hist = segmentRecord.computeChannelHistogram( segmentBoxInChannel, min.get(), max.get() );
+				fmt.format( "\t\tch=%d; output=HISTOGRAM", c );
+				fmt.format( "; min=%8.3f; max=%8.3f", min.get(), max.get() );
+				for ( final long value : hist ) {
+					fmt.format( "; %5d", value );
+					if ( row != null ) row[ col++ ] = value;
 				}
-				segmentRecord = segmentRecord.nextSegmentInTime( ilp );
+				fmt.format( "\n" );
 			}
-			while ( segmentRecord.exists() );
-
-			if ( segmentRecord.terminated_by == GrowthLineTrackingILP.ASSIGNMENT_EXIT ) {
-				linesToExport.add( "\tEXIT\n" );
-			} else if ( segmentRecord.terminated_by == GrowthLineTrackingILP.ASSIGNMENT_DIVISION ) {
-				linesToExport.add( "\tDIVISION\n" );
-			} else if ( segmentRecord.terminated_by == SegmentRecord.USER_PRUNING ) {
-				linesToExport.add( "\tUSER_PRUNING\n" );
-			} else if ( segmentRecord.terminated_by == SegmentRecord.ENDOFTRACKING ) {
-//				// UGLY TRICK ALERT: remember the trick to fix the tracking towards the last frame?
-//				// Yes, we double the last frame. This also means that we should not export this fake frame, ergo we remove it here!
-				String deleted = "";
-				do {
-					deleted = linesToExport.remove( linesToExport.size() - 1 );
+
+			if ( config.EXPORT_INCLUDE_QUANTILES ) {
+				final float[] percentile = segmentRecord.computeChannelPercentile( segmentBoxInChannel );
+				fmt.format( "\t\tch=%d; output=PERCENTILES", c );
+				fmt.format( "; min=%8.3f; max=%8.3f", min.get(), max.get() );
+				for ( final float value : percentile ) {
+					fmt.format( "; %8.3f", value );
+					if ( row != null ) row[ col++ ] = value;
 				}
-				while ( !deleted.trim().startsWith( "frame" ) );
-				linesToExport.add( "\tENDOFDATA\n" );
-			} else {
-				linesToExport.add( "\tGUROBI_EXCEPTION\n" );
+				fmt.format( "\n" );
 			}
 
-			// REPORT PROGRESS if needbe
-			if ( !MoMA.HEADLESS ) {
-				dialogProgress.hasProgressed();
+			if ( config.EXPORT_INCLUDE_COL_INTENSITY_SUMS ) {
+				final IntervalView< FloatType > columnBoxInChannel = Util.getColumnBoxInImg( channelFrame, segmentRecord.hyp, avgXpos, config );
+				final float[] column_intensities = segmentRecord.computeChannelColumnIntensities( columnBoxInChannel );
+				fmt.format( "\t\tch=%d; output=COLUMN_INTENSITIES", c );
+				for ( final float value : column_intensities ) {
+					fmt.format( "; %.3f", value );
+				}
+				fmt.format( "\n" );
+				if ( row != null ) {
+					// fixed number of columns -- pad with NaN (or cut) if the box has a different width
+					for ( int i = 0; i < config.GL_FLUORESCENCE_COLLECTION_WIDTH_IN_PIXELS; i++ ) {
+						row[ col++ ] = ( i < column_intensities.length ) ? column_intensities[ i ] : Double.NaN;
+					}
+				}
+			}
+
+			if ( config.EXPORT_INCLUDE_PIXEL_INTENSITIES ) {
+				final IntervalView< FloatType > intensityBoxInChannel = Util.getIntensityBoxInImg( channelFrame, segmentRecord.hyp, avgXpos, config );
+				final float[][] intensities = segmentRecord.getIntensities( intensityBoxInChannel );
+				fmt.format( "\t\tch=%d; output=PIXEL_INTENSITIES", c );
+				for ( int y = 0; y < intensities[ 0 ].length; y++ ) {
+					for ( int x = 0; x < intensities.length; x++ ) {
+						fmt.format( ";%.3f", intensities[ x ][ y ] );
+					}
+					fmt.format( " " );
+				}
+				fmt.format( "\n" );
 			}
 		}
 
-		// Dispose ProgressBar in needbe
-		if ( !MoMA.HEADLESS ) {
-			dialogProgress.setVisible( false );
-			dialogProgress.dispose();
+		if ( row != null ) {
+			rows.add( row );
 		}
+	}
 
-		return linesToExport;
+	/**
+	 * @return the number of columns written by
+	 *         <code>createColumnarStatsWriter</code>.
+	 */
+	private int numColumnarColumns( final int numChannels ) {
+		int perChannel = 2;
+		if ( config.EXPORT_INCLUDE_HISTOGRAMS ) perChannel += NUM_HISTOGRAM_BINS;
+		if ( config.EXPORT_INCLUDE_QUANTILES ) perChannel += NUM_PERCENTILES - 1;
+		if ( config.EXPORT_INCLUDE_COL_INTENSITY_SUMS ) perChannel += config.GL_FLUORESCENCE_COLLECTION_WIDTH_IN_PIXELS;
+		return 9 + numChannels * perChannel;
 	}
 
 	public void exportTracks( final File file ) {
@@ -646,7 +866,7 @@ public class CellStatsExporter {
 		// use US-style number formats! (e.g. '.' as decimal point)
 		Locale.setDefault( new Locale( "en", "US" ) );
 
-		final String loadedDataFolder = MoMA.props.getProperty( "import_path", "BUG -- could not get property 'import_path' while exporting tracks..." );
+		final String loadedDataFolder = context.getProps().getProperty( "import_path", "BUG -- could not get property 'import_path' while exporting tracks..." );
 		final int numCurrGL = gui.sliderGL.getValue();
 		final int numGLFs = gui.model.getCurrentGL().getFrames().size();
 		final Vector< Vector< String >> dataToExport = new Vector< Vector< String >>();
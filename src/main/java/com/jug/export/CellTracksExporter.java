@@ -28,7 +28,7 @@ public class CellTracksExporter {
 		// use US-style number formats! (e.g. '.' as decimal point)
 		Locale.setDefault( new Locale( "en", "US" ) );
 
-		final String loadedDataFolder = MoMA.props.getProperty( "import_path", "BUG -- could not get property 'import_path' while exporting tracks..." );
+		final String loadedDataFolder = gui.model.getMoMA().getContext().getProps().getProperty( "import_path", "BUG -- could not get property 'import_path' while exporting tracks..." );
 		final int numCurrGL = gui.sliderGL.getValue();
 		final int numGLFs = gui.model.getCurrentGL().getFrames().size();
 		final Vector< Vector< String >> dataToExport = new Vector< Vector< String >>();
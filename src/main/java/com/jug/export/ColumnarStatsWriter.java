@@ -0,0 +1,214 @@
+/**
+ *
+ */
+package com.jug.export;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+/**
+ * Writes a table of numbers column by column into a simple binary file, such
+ * that single statistics (e.g. the mean intensity of one channel over all
+ * segments) can be read without parsing the whole cell statistics CSV.
+ *
+ * Rows are streamed in: blocks of <code>ROWS_PER_BLOCK</code> rows are
+ * buffered in memory (column by column) and appended to one temporary file
+ * next to the target file, <code>close()</code> gathers the blocks of each
+ * column behind the header. Memory use and the number of open files do
+ * hence depend neither on the number of rows nor on the number of columns.
+ *
+ * File layout (big endian):
+ * <ul>
+ * <li>int magic (<code>MAGIC</code>), int format version;</li>
+ * <li>int number of columns, long number of rows;</li>
+ * <li>per column: name (modified UTF-8, see
+ * <code>DataOutput.writeUTF</code>), byte type (<code>'I'</code> for
+ * int32, <code>'F'</code> for float32) and long byte offset of the column
+ * data from the start of the file;</li>
+ * <li>the column data, one column after the other.</li>
+ * </ul>
+ *
+ * @author jug
+ */
+public class ColumnarStatsWriter {
+
+	public static final int MAGIC = 0x4D4D4353; // "MMCS"
+	public static final int FORMAT_VERSION = 1;
+
+	public static final byte INT = 'I';
+	public static final byte FLOAT = 'F';
+
+	/**
+	 * Number of rows buffered in memory before they are appended to the
+	 * temporary file.
+	 */
+	public static final int ROWS_PER_BLOCK = 1024;
+
+	/**
+	 * All values (int32 or float32) take 4 bytes.
+	 */
+	private static final int VALUE_SIZE = 4;
+
+	private final File file;
+	private final List< String > names;
+	private final byte[] types;
+
+	/**
+	 * The current block, column-major: column <code>i</code> starts at
+	 * <code>i * ROWS_PER_BLOCK * VALUE_SIZE</code>.
+	 */
+	private final byte[] block;
+	private int rowsInBlock = 0;
+
+	private final File blockFile;
+	private final BufferedOutputStream blocks;
+	private long numRows = 0;
+
+	/**
+	 * @param file
+	 *            the file to write to.
+	 * @param names
+	 *            the column names.
+	 * @param types
+	 *            per column either <code>INT</code> or <code>FLOAT</code>.
+	 * @throws IOException
+	 */
+	public ColumnarStatsWriter( final File file, final List< String > names, final byte[] types ) throws IOException {
+		if ( names.size() != types.length ) { throw new IllegalArgumentException( "Need one type per column." ); }
+		this.file = file;
+		this.names = names;
+		this.types = types;
+		this.block = new byte[ types.length * ROWS_PER_BLOCK * VALUE_SIZE ];
+		blockFile = File.createTempFile( "." + file.getName() + "_", ".tmp", file.getAbsoluteFile().getParentFile() );
+		try {
+			blocks = new BufferedOutputStream( new FileOutputStream( blockFile ), 1 << 16 );
+		} catch ( final IOException e ) {
+			blockFile.delete();
+			throw e;
+		}
+	}
+
+	public int getNumColumns() {
+		return types.length;
+	}
+
+	/**
+	 * Appends one row. Values of <code>INT</code> columns are rounded.
+	 *
+	 * @throws IOException
+	 */
+	public void addRow( final double[] values ) throws IOException {
+		if ( values.length != types.length ) { throw new IllegalArgumentException( "Row has " + values.length + " values, expected " + types.length + "." ); }
+		for ( int i = 0; i < types.length; i++ ) {
+			final int bits = ( types[ i ] == INT ) ? ( int ) Math.round( values[ i ] ) : Float.floatToIntBits( ( float ) values[ i ] );
+			putInt( block, ( i * ROWS_PER_BLOCK + rowsInBlock ) * VALUE_SIZE, bits );
+		}
+		rowsInBlock++;
+		numRows++;
+		if ( rowsInBlock == ROWS_PER_BLOCK ) {
+			flushBlock();
+		}
+	}
+
+	/**
+	 * Appends the buffered rows to the temporary file. Every column
+	 * contributes <code>rowsInBlock</code> values, one column after the
+	 * other.
+	 */
+	private void flushBlock() throws IOException {
+		if ( rowsInBlock == ROWS_PER_BLOCK ) {
+			blocks.write( block );
+		} else {
+			for ( int i = 0; i < types.length; i++ ) {
+				blocks.write( block, i * ROWS_PER_BLOCK * VALUE_SIZE, rowsInBlock * VALUE_SIZE );
+			}
+		}
+		rowsInBlock = 0;
+	}
+
+	/**
+	 * Writes the file and removes the temporary file.
+	 *
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		try {
+			flushBlock();
+			blocks.close();
+
+			final ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+			final DataOutputStream header = new DataOutputStream( headerBytes );
+			header.writeInt( MAGIC );
+			header.writeInt( FORMAT_VERSION );
+			header.writeInt( types.length );
+			header.writeLong( numRows );
+			// offsets are patched below, once the header size is known
+			final int[] offsetPositions = new int[ types.length ];
+			for ( int i = 0; i < types.length; i++ ) {
+				header.writeUTF( names.get( i ) );
+				header.writeByte( types[ i ] );
+				offsetPositions[ i ] = header.size();
+				header.writeLong( 0 );
+			}
+			header.close();
+
+			final byte[] headerArray = headerBytes.toByteArray();
+			final long columnSize = numRows * VALUE_SIZE;
+			for ( int i = 0; i < types.length; i++ ) {
+				putLong( headerArray, offsetPositions[ i ], headerArray.length + i * columnSize );
+			}
+
+			final long blockSize = ( long ) types.length * ROWS_PER_BLOCK * VALUE_SIZE;
+			final int numBlocks = ( int ) ( ( numRows + ROWS_PER_BLOCK - 1 ) / ROWS_PER_BLOCK );
+			final BufferedOutputStream out = new BufferedOutputStream( new FileOutputStream( file ), 1 << 16 );
+			final RandomAccessFile in = new RandomAccessFile( blockFile, "r" );
+			try {
+				out.write( headerArray );
+				final byte[] buffer = new byte[ ROWS_PER_BLOCK * VALUE_SIZE ];
+				for ( int i = 0; i < types.length; i++ ) {
+					for ( int b = 0; b < numBlocks; b++ ) {
+						final int rows = ( int ) Math.min( ROWS_PER_BLOCK, numRows - ( long ) b * ROWS_PER_BLOCK );
+						in.seek( b * blockSize + ( long ) i * rows * VALUE_SIZE );
+						in.readFully( buffer, 0, rows * VALUE_SIZE );
+						out.write( buffer, 0, rows * VALUE_SIZE );
+					}
+				}
+			} finally {
+				in.close();
+				out.close();
+			}
+		} finally {
+			discard();
+		}
+	}
+
+	/**
+	 * Closes and deletes the temporary file without writing
+	 * <code>file</code>.
+	 */
+	public void discard() {
+		try {
+			blocks.close();
+		} catch ( final IOException e ) {}
+		blockFile.delete();
+	}
+
+	private static void putInt( final byte[] array, final int pos, final int value ) {
+		array[ pos ] = ( byte ) ( value >>> 24 );
+		array[ pos + 1 ] = ( byte ) ( value >>> 16 );
+		array[ pos + 2 ] = ( byte ) ( value >>> 8 );
+		array[ pos + 3 ] = ( byte ) value;
+	}
+
+	private static void putLong( final byte[] array, final int pos, final long value ) {
+		for ( int i = 0; i < 8; i++ ) {
+			array[ pos + i ] = ( byte ) ( value >>> ( 56 - 8 * i ) );
+		}
+	}
+}
@@ -3,19 +3,46 @@
  */
 package com.jug.export;
 
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.util.List;
 
+import javax.swing.JComponent;
 import javax.swing.JOptionPane;
 
+import com.jug.GrowthLine;
+import com.jug.GrowthLineFrame;
+import com.jug.MoMA;
+import com.jug.gui.AssignmentView;
+import com.jug.gui.FrameRenderService.FrameSource;
 import com.jug.gui.MoMAGui;
+import com.jug.lp.GrowthLineTrackingILP;
+import com.jug.util.FrameExecutor;
 import com.jug.util.Util;
 
+import net.imglib2.FinalInterval;
+import net.imglib2.img.display.imagej.ImageJFunctions;
+import net.imglib2.view.Views;
+
 /**
+ * Exports the tracking of the current growth line as an HTML page showing,
+ * for every frame, the image shown in the center view and the active
+ * assignments towards the next frame.
+ *
+ * The images are rendered directly from the image data and the current
+ * solution (not by moving the time slider and taking screenshots of the
+ * GUI) and are rendered and encoded in parallel on the
+ * <code>FrameExecutor</code>. Image sizes are taken from the sizes the views
+ * were created with (not their size on screen), hence this also works
+ * headless, where the GUI is never laid out.
+ *
  * @author jug
  */
 public class HtmlOverviewExporter {
@@ -45,71 +72,135 @@ public class HtmlOverviewExporter {
 		// create folders to imgs if not exists
 		final File fImgpath = new File( imgpath );
 		if ( !fImgpath.exists() && !fImgpath.mkdirs() ) {
-			JOptionPane.showMessageDialog( gui, "Saving of HTML canceled! Couldn't create dir: " + fImgpath, "Saving canceled...", JOptionPane.ERROR_MESSAGE );
+			showError( "Saving of HTML canceled! Couldn't create dir: " + fImgpath, "Saving canceled..." );
+			return;
+		}
+
+		final MoMA mm = gui.model.getMoMA();
+		final GrowthLine gl = gui.model.getCurrentGL();
+		final List< GrowthLineFrame > frames = gl.getFrames();
+		final int glIdx = mm.getGrowthLines().indexOf( gl );
+		final int first = Math.max( 0, startFrame );
+		final int last = Math.min( frames.size() - 1, endFrame );
+		final String[] frameImgs = new String[ last - first + 1 ];
+		final String[] assignmentImgs = new String[ last - first + 1 ];
+		for ( int i = first; i <= last; i++ ) {
+			frameImgs[ i - first ] = String.format( "/" + basename + "_gl_%02d_glf_%03d.png", glIdx, i );
+			if ( i < last ) {
+				assignmentImgs[ i - first ] = String.format( "/" + basename + "_gl_%02d_assmnts_%03d.png", glIdx, i );
+			}
+		}
+
+		// render + encode all images
+		final FrameSource source = gui.getCenterFrameSource();
+		final Dimension canvasSize = gui.imgCanvasActiveCenter.getPreferredSize();
+		final int w = canvasSize.width;
+		final int h = canvasSize.height;
+		if ( w <= 0 || h <= 0 ) {
+			showError( "Saving of HTML canceled! The center view has no size.", "Export Error" );
+			return;
+		}
+		try {
+			mm.getFrameExecutor().run( "export_html", frameImgs.length, new FrameExecutor.FrameTask< Void >() {
+
+				@Override
+				public Void process( final int idx ) throws Exception {
+					final int t = first + idx;
+					final GrowthLineFrame glf = frames.get( t );
+					final BufferedImage frameImg = ImageJFunctions.wrapFloat( Views.interval( source.getView( glf ), new FinalInterval( w, h ) ), "export" ).getBufferedImage();
+					Util.saveImage( frameImg, imgpath + frameImgs[ idx ] );
+
+					if ( assignmentImgs[ idx ] != null ) {
+						Util.saveImage( renderActiveAssignments( gl.getIlp(), t, h ), imgpath + assignmentImgs[ idx ] );
+					}
+					return null;
+				}
+			} );
+		} catch ( final RuntimeException e ) {
+			showError( "Tracking imagery could not be saved entirely!", "Export Error" );
+			e.printStackTrace();
 			return;
 		}
 
-		Writer out = null;
 		try {
-			out = new OutputStreamWriter( new FileOutputStream( htmlFile ) );
+			writeHtml( htmlFile, first, frameImgs, assignmentImgs );
+		} catch ( final FileNotFoundException e1 ) {
+			showError( "File not found!", "Error!" );
+			e1.printStackTrace();
+		} catch ( final IOException e1 ) {
+			showError( "Selected file could not be written!", "Error!" );
+			e1.printStackTrace();
+		}
+
+	}
 
+	/**
+	 * Writes the HTML page showing the given images (paths relative to the
+	 * <code>imgs</code> folder next to <code>htmlFile</code>).
+	 * <code>assignmentImgs[i]</code> might be <code>null</code>.
+	 */
+	static void writeHtml( final File htmlFile, final int first, final String[] frameImgs, final String[] assignmentImgs ) throws IOException {
+		final Writer out = new BufferedWriter( new OutputStreamWriter( new FileOutputStream( htmlFile ) ) );
+		try {
 			out.write( "<html>\n" );
 			out.write( "<body>\n" );
 			out.write( "	<table border='0' cellspacing='1' cellpadding='0'>\n" );
 			out.write( "		<tr>\n" );
 
-			String row1 = "";
 			final String nextrow = "		</tr>\n			<tr>\n";
-			String row2 = "";
-			final String row3 = "";
-
-			for ( int i = startFrame; i <= endFrame; i++ ) {
-				gui.sliderTime.setValue( i );
-				try {
-					String fn1 = String.format( "/" + basename + "_gl_%02d_glf_%03d.png", gui.sliderGL.getValue(), i );
-					gui.imgCanvasActiveCenter.exportScreenImage( imgpath + fn1 );
-//					final String fn2 = String.format( "/" + basename + "_gl_%02d_glf_%03d_segmentation.png", gui.sliderGL.getValue(), i );
-//					gui.imgCanvasActiveCenter.exportSegmentationImage( imgpath + fn2 );
-					row1 += "			<th><font size='+2'>t=" + i + "</font></th>\n";
-					row2 += "			<td><img src='./imgs" + fn1 + "'></td>\n";
-//					row3 += "			<td><img src='./imgs" + fn2 + "'></td>\n";
-
-					if ( i < endFrame ) {
-						fn1 = String.format( "/" + basename + "_gl_%02d_assmnts_%03d.png", gui.sliderGL.getValue(), i );
-						Util.saveImage( Util.getImageOf( gui.rightAssignmentViewer.getActiveAssignments(), gui.imgCanvasActiveCenter.getWidth(), gui.imgCanvasActiveCenter.getHeight() ), imgpath + fn1 );
-						row1 += "			<th></th>\n";
-						row2 += "			<td><img src='./imgs" + fn1 + "'></td>\n"; // + "' width='10' height='" + this.imgCanvasActiveCenter.getHeight()
-//						row3 += "			<td><img src='./imgs" + fn1 + "'></td>\n"; // + "' width='10' height='" + this.imgCanvasActiveCenter.getHeight()
-					}
-				} catch ( final IOException e ) {
-					JOptionPane.showMessageDialog( gui, "Tracking imagery could not be saved entirely!", "Export Error", JOptionPane.ERROR_MESSAGE );
-					e.printStackTrace();
-					out.close();
-					return;
+
+			for ( int i = 0; i < frameImgs.length; i++ ) {
+				out.write( "			<th><font size='+2'>t=" + ( first + i ) + "</font></th>\n" );
+				if ( assignmentImgs[ i ] != null ) {
+					out.write( "			<th></th>\n" );
 				}
 			}
-
-			out.write( row1 );
 			out.write( nextrow );
-			out.write( row2 );
+			for ( int i = 0; i < frameImgs.length; i++ ) {
+				out.write( "			<td><img src='./imgs" + frameImgs[ i ] + "'></td>\n" );
+				if ( assignmentImgs[ i ] != null ) {
+					out.write( "			<td><img src='./imgs" + assignmentImgs[ i ] + "'></td>\n" );
+				}
+			}
 			out.write( nextrow );
 			out.write( nextrow );
-			out.write( row3 );
 
 			out.write( "		</tr>\n" );
 			out.write( "	</table>\n" );
 			out.write( "</body>\n" );
 			out.write( "</html>\n" );
-
+		} finally {
 			out.close();
-		} catch ( final FileNotFoundException e1 ) {
-			JOptionPane.showMessageDialog( gui, "File not found!", "Error!", JOptionPane.ERROR_MESSAGE );
-			e1.printStackTrace();
-		} catch ( final IOException e1 ) {
-			JOptionPane.showMessageDialog( gui, "Selected file could not be written!", "Error!", JOptionPane.ERROR_MESSAGE );
-			e1.printStackTrace();
 		}
+	}
 
+	/**
+	 * Draws the active assignments from time-point <code>t</code> to
+	 * <code>t+1</code> like the right <code>AssignmentViewer</code> does,
+	 * using a view of its own (not shown on screen).
+	 */
+	private BufferedImage renderActiveAssignments( final GrowthLineTrackingILP ilp, final int t, final int h ) {
+		final AssignmentView view = new AssignmentView( h, gui );
+		view.display( ilp.getAllCompatibleRightAssignments( t ), true );
+		return renderOffscreen( view );
+	}
+
+	/**
+	 * Renders a component that is not (necessarily) laid out, in its
+	 * preferred size.
+	 */
+	static BufferedImage renderOffscreen( final JComponent component ) {
+		final Dimension size = component.getPreferredSize();
+		component.setSize( size );
+		return Util.getImageOf( component, size.width, size.height );
+	}
+
+	private void showError( final String message, final String title ) {
+		if ( MoMA.HEADLESS ) {
+			System.out.println( title + " " + message );
+		} else {
+			JOptionPane.showMessageDialog( gui, message, title, JOptionPane.ERROR_MESSAGE );
+		}
 	}
 
 }
@@ -1,7 +1,13 @@
 package com.jug.fijiplugins;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
 
+import com.jug.BatchRunner;
+import com.jug.MoMA;
 import com.jug.gurobi.GurobiInstaller;
 import com.jug.util.FloatTypeImgLoader;
 
@@ -18,12 +24,21 @@ import ij.plugin.PlugIn;
  * - Splitting the different growth channels from the original huge images
  * - Analyse one particular growth channel. If the user wants to analyse another Growth channel, he just need to restart this plugin.
  *
+ * Alternatively all split growth channels are analysed headless, several at the same time (see BatchRunner). In this
+ * mode the intermediate results (registered stack, split growth channels) are only written to the input folder if
+ * requested, otherwise they go to a local temporary folder that is deleted afterwards. A single input file is handed
+ * to the splitting directly instead of being saved again as registered stack. Note: splitting is done by the
+ * MMPreprocess plugin, which reads and writes files -- hence the intermediate files cannot be skipped entirely.
+ *
  * Author: Robert Haase, Scientific Computing Facility, MPI-CBG Dresden, rhaase@mpi-cbg.de
  * Date: October 2016
  */
 public class MotherMachineDefaultPipelinePlugin implements PlugIn {
 
     private static String currentDir = Prefs.getDefaultDirectory();
+    private static boolean analyseAll = true;
+    private static boolean keepIntermediates = false;
+    private static int numParallelAnalyses = 2;
 
     public MotherMachineDefaultPipelinePlugin()
     {
@@ -58,6 +73,11 @@ public class MotherMachineDefaultPipelinePlugin implements PlugIn {
         gd.addNumericField("Lateral offset", 40, 0);
         gd.addNumericField("Crop width", 100, 0);
 
+        gd.addMessage("Analysis");
+        gd.addCheckbox("Analyse all datasets headless", analyseAll);
+        gd.addNumericField("Parallel analyses", numParallelAnalyses, 0);
+        gd.addCheckbox("Keep intermediate files (when analysing headless)", keepIntermediates);
+
         gd.showDialog();
         if (gd.wasCanceled()) {
             return;
@@ -77,6 +97,9 @@ public class MotherMachineDefaultPipelinePlugin implements PlugIn {
         final double varianceThreshold = gd.getNextNumber();
         final int lateralOffset = (int)gd.getNextNumber();
         final int cropWidth = (int)gd.getNextNumber();
+        analyseAll = gd.getNextBoolean();
+        numParallelAnalyses = Math.max(1, (int)gd.getNextNumber());
+        keepIntermediates = gd.getNextBoolean();
 
         currentDir = inputFolder;
 
@@ -106,10 +129,6 @@ public class MotherMachineDefaultPipelinePlugin implements PlugIn {
             analysisResultsFolder = inputFolder + "_3_analysed/";
         }
 
-        Utilities.ensureFolderExists(registeredFolder);
-        Utilities.ensureFolderExists(splitFolder);
-        Utilities.ensureFolderExists(analysisResultsFolder);
-
         boolean executeRegistration = true;
         boolean executeSplitting = true;
 
@@ -117,13 +136,67 @@ public class MotherMachineDefaultPipelinePlugin implements PlugIn {
             executeRegistration = false;
         }
 
-        if (Utilities.countFilesInFolder(splitFolder) > 0) {
+        if (Utilities.countFilesInFolder(splitFolder) > 0 || Utilities.listSubFolderNames(splitFolder).length > 0) {
+            executeRegistration = false;
             executeSplitting = false;
         }
 
+        // intermediate results not asked for go to a local temporary folder
+        File tempFolder = null;
+        if (analyseAll && !keepIntermediates && executeSplitting) {
+            try {
+                tempFolder = Files.createTempDirectory("moma_pipeline_").toFile();
+            } catch (final IOException e) {
+                IJ.log("Could not create temporary folder, keeping intermediate files in the input folder.");
+                e.printStackTrace();
+            }
+        }
+        if (tempFolder != null) {
+            if (executeRegistration) {
+                registeredFolder = tempFolder.getAbsolutePath() + "/1_registered/";
+            }
+            splitFolder = tempFolder.getAbsolutePath() + "/2_split/";
+        }
+
+        try {
+            runPipeline(inputFolder, inputFolderFile, dataSetName, registeredFolder, splitFolder, analysisResultsFolder, executeRegistration, executeSplitting, varianceThreshold, lateralOffset, cropWidth, tempFolder != null);
+        } finally {
+            if (tempFolder != null) {
+                Utilities.deleteRecursively(tempFolder);
+            }
+        }
+    }
+
+    private void runPipeline(
+            final String inputFolder,
+            final File inputFolderFile,
+            final String dataSetName,
+            final String registeredFolder,
+            final String splitFolder,
+            final String analysisResultsFolder,
+            final boolean executeRegistration,
+            final boolean executeSplitting,
+            final double varianceThreshold,
+            final int lateralOffset,
+            final int cropWidth,
+            final boolean temporaryIntermediates) {
+
+        Utilities.ensureFolderExists(registeredFolder);
+        Utilities.ensureFolderExists(splitFolder);
+        Utilities.ensureFolderExists(analysisResultsFolder);
+
+        String registeredFile = registeredFolder + dataSetName + ".tif";
+
         int numberOfTimePoints = 0;
         int numberOfChannels = 0;
-        if (executeRegistration) {
+        if (executeRegistration && temporaryIntermediates && !inputFolderFile.isDirectory()) {
+            // a single file is not registered, hand it to the splitting as it is
+            final ImagePlus imp = IJ.openVirtual(inputFolder);
+            numberOfChannels = imp.getNChannels();
+            numberOfTimePoints = imp.getNFrames();
+            imp.close();
+            registeredFile = inputFolder;
+        } else if (executeRegistration) {
 
             ImagePlus imp;
             ImagePlus hyperStackImp;
@@ -173,7 +246,7 @@ public class MotherMachineDefaultPipelinePlugin implements PlugIn {
             // -------------------------------------------------------------------------------
             // Save intermediate results
             //IJ.run(registeredStackImp, "Image Sequence... ", "format=TIFF digits=4 save=[" + registeredFolder + "]");
-            IJ.saveAsTiff(registeredStackImp, registeredFolder + dataSetName + ".tif");
+            IJ.saveAsTiff(registeredStackImp, registeredFile);
 
             // cleanup
             registeredStackImp.close();
@@ -188,7 +261,8 @@ public class MotherMachineDefaultPipelinePlugin implements PlugIn {
             final File registeredFolderFile = new File(registeredFolder);
             final File[] filelist = registeredFolderFile.listFiles(FloatTypeImgLoader.tifFilter);
             if (filelist.length == 1) { // registration result saved as single stack file
-                final ImagePlus imp = IJ.openImage(filelist[0].getAbsolutePath());
+                registeredFile = filelist[0].getAbsolutePath();
+                final ImagePlus imp = IJ.openVirtual(registeredFile);
                 numberOfChannels = imp.getNChannels();
                 numberOfTimePoints = imp.getNFrames();
             } else {
@@ -213,7 +287,7 @@ public class MotherMachineDefaultPipelinePlugin implements PlugIn {
             // Run MMPreprocess
 
             final String parameters =
-                    "input_file=[" + registeredFolder + dataSetName + ".tif" + "]" +
+                    "input_file=[" + registeredFile + "]" +
                             " output_folder=[" + splitFolder + "]" +
                             " number_of_Time_points=" + numberOfTimePoints +
                             " time_points_start_with=1" +
@@ -243,6 +317,11 @@ public class MotherMachineDefaultPipelinePlugin implements PlugIn {
             IJ.log("No data sets found. Consider removing the 2_split subfolder to rerun splitting (MMPreprocess).");
             return;
         }
+
+        if (analyseAll) {
+            analyseAllHeadless(splitFolder, datasets, analysisResultsFolder);
+            return;
+        }
         final String[] dataSetDescriptions = new String[datasets.length];
         int nextIndexToAnalyse = -1;
         for (int i = 0; i < datasets.length; i++) {
@@ -293,5 +372,31 @@ public class MotherMachineDefaultPipelinePlugin implements PlugIn {
         // -------------------------------------------------------------------------------
     }
 
+    /**
+     * Analyses all given datasets headless, <code>numParallelAnalyses</code> at the same time. Datasets completed
+     * before (according to the manifest in the analysis results folder) are skipped. The manifest identifies datasets
+     * by their results folder, so this also works when the split datasets are in a new temporary folder every run.
+     */
+    private void analyseAllHeadless(final String splitFolder, final String[] datasets, final String analysisResultsFolder) {
+        final List<File> datasetFolders = new ArrayList<File>();
+        for (final String dataset : datasets) {
+            datasetFolders.add(new File(splitFolder, dataset));
+        }
+        final File manifestFile = new File(analysisResultsFolder, BatchRunner.DEFAULT_MANIFEST_NAME);
+
+        IJ.log("Analysing " + datasets.length + " datasets, " + numParallelAnalyses + " at a time...");
+        final boolean wasHeadless = MoMA.HEADLESS;
+        MoMA.running_as_Fiji_plugin = true;
+        try {
+            final int ret = new BatchRunner(datasetFolders, new File(analysisResultsFolder), null, null, manifestFile, 0, false, numParallelAnalyses).run();
+            IJ.log("Analysis done" + (ret == 0 ? "." : " with problems, see " + manifestFile));
+        } catch (final IOException e) {
+            IJ.log("Could not read or write manifest " + manifestFile);
+            e.printStackTrace();
+        } finally {
+            MoMA.HEADLESS = wasHeadless;
+        }
+    }
+
 
 }
@@ -23,6 +23,23 @@ public class Utilities {
         }
     }
 
+    /**
+     * Deletes a file or a folder with all its content.
+     *
+     * @param file file or folder to be deleted
+     */
+    public static void deleteRecursively(File file) {
+        File[] subfiles = file.listFiles();
+        if (subfiles != null) {
+            for (File subfile : subfiles) {
+                deleteRecursively(subfile);
+            }
+        }
+        if (!file.delete()) {
+            IJ.log("Could not delete " + file);
+        }
+    }
+
     /**
      * Count files in a folder which are neighter hidden nor a directory
      * @param folder folder to count files in
@@ -8,17 +8,24 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Shape;
 import java.awt.event.MouseEvent;
 import java.awt.geom.GeneralPath;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import javax.swing.JComponent;
 import javax.swing.SwingUtilities;
 import javax.swing.event.MouseInputListener;
 
-import com.jug.MoMA;
 import com.jug.lp.AbstractAssignment;
 import com.jug.lp.DivisionAssignment;
 import com.jug.lp.ExitAssignment;
@@ -27,12 +34,19 @@ import com.jug.lp.Hypothesis;
 import com.jug.lp.MappingAssignment;
 import com.jug.util.OSValidator;
 
-import gurobi.GRBException;
+import com.jug.lp.solver.IlpException;
 import net.imglib2.algorithm.componenttree.Component;
 import net.imglib2.type.numeric.real.FloatType;
 import net.imglib2.util.ValuePair;
 
 /**
+ * Shows the assignments between two time-points.
+ *
+ * The shapes of all shown assignments are computed once per change of data
+ * or filters and drawn into a cached layer (the scene). Repaints (e.g. when
+ * moving the mouse) only copy that layer; the assignments under the mouse are
+ * found via the y-intervals of their shapes.
+ *
  * @author jug
  */
 public class AssignmentView extends JComponent implements MouseInputListener {
@@ -96,6 +110,36 @@ public class AssignmentView extends JComponent implements MouseInputListener {
 
 	private boolean doFilterGroundTruth = false;
 
+	/**
+	 * A shown assignment and its shape.
+	 */
+	private static final class SceneItem {
+
+		private final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> assignment;
+		private final Shape shape;
+		private final int minY;
+		private final int maxY;
+		/**
+		 * Drawing order (within a scene).
+		 */
+		private final int order;
+
+		private SceneItem( final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> assignment, final Shape shape, final int order ) {
+			this.assignment = assignment;
+			this.shape = shape;
+			final Rectangle bounds = shape.getBounds();
+			this.minY = bounds.y;
+			this.maxY = bounds.y + bounds.height;
+			this.order = order;
+		}
+	}
+
+	// the cached scene, null if it needs to be rebuilt
+	private SceneItem[] scene;
+	private SceneItem[] sceneByMinY;
+	private int[] sceneMaxYPrefix;
+	private BufferedImage layer;
+
 	// -------------------------------------------------------------------------------------
 	// construction
 	// -------------------------------------------------------------------------------------
@@ -153,6 +197,7 @@ public class AssignmentView extends JComponent implements MouseInputListener {
 	 */
 	public void setCostFilterMin( final float filterMinCost ) {
 		this.filterMinCost = filterMinCost;
+		invalidateScene();
 	}
 
 	/**
@@ -168,6 +213,7 @@ public class AssignmentView extends JComponent implements MouseInputListener {
 	 */
 	public void setCostFilterMax( final float filterMaxCost ) {
 		this.filterMaxCost = filterMaxCost;
+		invalidateScene();
 	}
 
 	// -------------------------------------------------------------------------------------
@@ -250,8 +296,9 @@ public class AssignmentView extends JComponent implements MouseInputListener {
 	}
 
 	/**
-	 * In this overwritten method we added filtering and calling
-	 * <code>drawAssignment(...)</code>.
+	 * Shows the cached scene (see <code>buildScene</code>) and the costs of
+	 * the assignments at the mouse location, and applies pending mouse
+	 * interactions to them.
 	 *
 	 * @see java.awt.Component#paint(java.awt.Graphics)
 	 */
@@ -259,16 +306,53 @@ public class AssignmentView extends JComponent implements MouseInputListener {
 	public void paint( final Graphics g ) {
 		if ( data == null ) return;
 
-		this.currentCostLine = 0;
-		for ( final Set< AbstractAssignment< Hypothesis< Component< FloatType, ? >>> > setOfAssignments : data.values() ) {
-			for ( final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> assignment : setOfAssignments ) {
-				if ( doFilterDataByType && assignment.getType() != filterAssignmentType ) {
-					continue;
-				}
-				if ( doFilterDataByCost && ( assignment.getCost() < this.getCostFilterMin() || assignment.getCost() > this.getCostFilterMax() ) ) {
-					continue;
+		if ( scene == null || layer == null || layer.getWidth() != Math.max( 1, getWidth() ) || layer.getHeight() != Math.max( 1, getHeight() ) ) {
+			buildScene();
+		}
+		g.drawImage( layer, 0, 0, null );
+
+		// Interaction with mouse:
+		if ( !this.isDragging && this.isMouseOver ) {
+			final Graphics2D g2 = ( Graphics2D ) g;
+			this.currentCostLine = 0;
+			boolean filterChanged = false;
+			for ( final SceneItem item : getItemsAt( this.mousePosX, this.mousePosY ) ) {
+				final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> assignment = item.assignment;
+				if ( doAddToFilter ) {
+					// this case happens after shift-click
+					this.filteredAssignments.add( assignment );
+					filterChanged = true;
+				} else if ( this.doAddAsGroundTruth ) {
+					this.doAddAsGroundTruth = false;
+					assignment.setGroundTruth( !assignment.isGroundTruth() );
+					assignment.reoptimize();
+					invalidateScene();
+					SwingUtilities.invokeLater( new Runnable() {
+
+						@Override
+						public void run() {
+							gui.dataToDisplayChanged();
+						}
+					} );
+				} else if ( this.doAddAsGroundUntruth ) {
+					this.doAddAsGroundUntruth = false;
+					assignment.setGroundUntruth( !assignment.isGroundUntruth() );
+					assignment.reoptimize();
+					invalidateScene();
+					SwingUtilities.invokeLater( new Runnable() {
+
+						@Override
+						public void run() {
+							gui.dataToDisplayChanged();
+						}
+					} );
+				} else {
+					drawCost( g2, assignment );
 				}
-				drawAssignment( g, assignment );
+			}
+			if ( filterChanged ) {
+				invalidateScene();
+				repaint();
 			}
 		}
 
@@ -286,43 +370,121 @@ public class AssignmentView extends JComponent implements MouseInputListener {
 	}
 
 	/**
-	 * Checks the type of assignment we have and call the corresponding drawing
-	 * method.
-	 *
-	 * @param g
-	 * @param assignment
+	 * Drops the cached scene; it is rebuilt at the next repaint.
 	 */
-	private void drawAssignment( final Graphics g, final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> assignment ) {
+	private void invalidateScene() {
+		this.scene = null;
+	}
 
-		// Just return in case the given component is in the
-		// set of filtered assignments.
-		if ( this.doFilterDataByIdentity && this.filteredAssignments.contains( assignment ) ) { return; }
-		if ( this.doFilterGroundTruth && !( assignment.isGroundTruth() || assignment.isGroundUntruth() ) ) { return; }
+	/**
+	 * Computes the shapes of all assignments to be shown (after filtering),
+	 * draws them into <code>layer</code> and indexes them by their
+	 * y-interval.
+	 */
+	private void buildScene() {
+		final List< SceneItem > items = new ArrayList< SceneItem >();
+		for ( final Set< AbstractAssignment< Hypothesis< Component< FloatType, ? >>> > setOfAssignments : data.values() ) {
+			for ( final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> assignment : setOfAssignments ) {
+				if ( doFilterDataByType && assignment.getType() != filterAssignmentType ) {
+					continue;
+				}
+				if ( doFilterDataByCost && ( assignment.getCost() < this.getCostFilterMin() || assignment.getCost() > this.getCostFilterMax() ) ) {
+					continue;
+				}
+				// Skip assignments in the set of filtered assignments.
+				if ( this.doFilterDataByIdentity && this.filteredAssignments.contains( assignment ) ) {
+					continue;
+				}
+				if ( this.doFilterGroundTruth && !( assignment.isGroundTruth() || assignment.isGroundUntruth() ) ) {
+					continue;
+				}
+				final Shape shape = createShape( assignment );
+				if ( shape != null ) {
+					items.add( new SceneItem( assignment, shape, items.size() ) );
+				}
+			}
+		}
 
-		final int type = assignment.getType();
+		layer = new BufferedImage( Math.max( 1, getWidth() ), Math.max( 1, getHeight() ), BufferedImage.TYPE_INT_ARGB );
+		final Graphics2D g2 = layer.createGraphics();
+		for ( final SceneItem item : items ) {
+			drawAssignment( g2, item );
+		}
+		g2.dispose();
 
-		final Graphics2D g2 = ( Graphics2D ) g;
-		final Dimension size = getSize();
+		scene = items.toArray( new SceneItem[ items.size() ] );
+		sceneByMinY = scene.clone();
+		Arrays.sort( sceneByMinY, new Comparator< SceneItem >() {
 
-		if ( type == GrowthLineTrackingILP.ASSIGNMENT_EXIT ) {
-			drawExitAssignment( g, g2, ( ExitAssignment ) assignment, size );
-		} else if ( type == GrowthLineTrackingILP.ASSIGNMENT_MAPPING ) {
-			drawMappingAssignment( g, g2, ( MappingAssignment ) assignment, size );
-		} else if ( type == GrowthLineTrackingILP.ASSIGNMENT_DIVISION ) {
-			drawDivisionAssignment( g, g2, ( DivisionAssignment ) assignment, size );
+			@Override
+			public int compare( final SceneItem o1, final SceneItem o2 ) {
+				return Integer.compare( o1.minY, o2.minY );
+			}
+		} );
+		sceneMaxYPrefix = new int[ sceneByMinY.length ];
+		for ( int i = 0; i < sceneByMinY.length; i++ ) {
+			sceneMaxYPrefix[ i ] = ( i == 0 ) ? sceneByMinY[ i ].maxY : Math.max( sceneMaxYPrefix[ i - 1 ], sceneByMinY[ i ].maxY );
 		}
 	}
 
 	/**
-	 * This methods draws the given mapping-assignment into the component.
+	 * @return all shown assignments containing the given location, in drawing
+	 *         order.
+	 */
+	private List< SceneItem > getItemsAt( final int x, final int y ) {
+		final List< SceneItem > ret = new ArrayList< SceneItem >();
+		// last item starting at or above y...
+		int lo = 0;
+		int hi = sceneByMinY.length - 1;
+		int last = -1;
+		while ( lo <= hi ) {
+			final int mid = ( lo + hi ) >>> 1;
+			if ( sceneByMinY[ mid ].minY <= y ) {
+				last = mid;
+				lo = mid + 1;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		// ...and all before it, as long as one of them reaches down to y
+		for ( int i = last; i >= 0 && sceneMaxYPrefix[ i ] >= y; i-- ) {
+			final SceneItem item = sceneByMinY[ i ];
+			if ( item.maxY >= y && item.shape.contains( x, y ) ) {
+				ret.add( item );
+			}
+		}
+		Collections.sort( ret, new Comparator< SceneItem >() {
+
+			@Override
+			public int compare( final SceneItem o1, final SceneItem o2 ) {
+				return Integer.compare( o1.order, o2.order );
+			}
+		} );
+		return ret;
+	}
+
+	/**
+	 * Creates the shape of the given assignment, depending on its type.
 	 *
-	 * @param g
-	 * @param g2
+	 * @return the shape, or <code>null</code> for unknown assignment types.
+	 */
+	private Shape createShape( final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> assignment ) {
+		final int type = assignment.getType();
+		if ( type == GrowthLineTrackingILP.ASSIGNMENT_EXIT ) {
+			return createExitShape( ( ExitAssignment ) assignment );
+		} else if ( type == GrowthLineTrackingILP.ASSIGNMENT_MAPPING ) {
+			return createMappingShape( ( MappingAssignment ) assignment );
+		} else if ( type == GrowthLineTrackingILP.ASSIGNMENT_DIVISION ) { return createDivisionShape( ( DivisionAssignment ) assignment ); }
+		return null;
+	}
+
+	/**
 	 * @param ma
 	 *            a mapping-assignment that should be visualized.
-	 * @param size
+	 * @return the polygon connecting source and destination hypothesis.
 	 */
-	private void drawMappingAssignment( final Graphics g, final Graphics2D g2, final MappingAssignment ma, final Dimension size ) {
+	private Shape createMappingShape( final MappingAssignment ma ) {
+		final int glOffsetTop = gui.model.getMoMA().getConfig().GL_OFFSET_TOP;
 		final Hypothesis< Component< FloatType, ? >> leftHyp = ma.getSourceHypothesis();
 		final Hypothesis< Component< FloatType, ? >> rightHyp = ma.getDestinationHypothesis();
 
@@ -330,13 +492,13 @@ public class AssignmentView extends JComponent implements MouseInputListener {
 		final ValuePair< Integer, Integer > limitsRight = rightHyp.getLocation();
 
 		final int x1 = 0;
-		final int y1 = MoMA.GL_OFFSET_TOP + limitsLeft.getA().intValue() + ASSIGNMENT_DISPLAY_OFFSET;
+		final int y1 = glOffsetTop + limitsLeft.getA().intValue() + ASSIGNMENT_DISPLAY_OFFSET;
 		final int x2 = 0;
-		final int y2 = MoMA.GL_OFFSET_TOP + limitsLeft.getB().intValue() + ASSIGNMENT_DISPLAY_OFFSET;
+		final int y2 = glOffsetTop + limitsLeft.getB().intValue() + ASSIGNMENT_DISPLAY_OFFSET;
 		final int x3 = this.width;
-		final int y3 = MoMA.GL_OFFSET_TOP + limitsRight.getB().intValue() + ASSIGNMENT_DISPLAY_OFFSET;
+		final int y3 = glOffsetTop + limitsRight.getB().intValue() + ASSIGNMENT_DISPLAY_OFFSET;
 		final int x4 = this.width;
-		final int y4 = MoMA.GL_OFFSET_TOP + limitsRight.getA().intValue() + ASSIGNMENT_DISPLAY_OFFSET;
+		final int y4 = glOffsetTop + limitsRight.getA().intValue() + ASSIGNMENT_DISPLAY_OFFSET;
 
 		final GeneralPath polygon = new GeneralPath();
 		polygon.moveTo( x1, y1 );
@@ -344,82 +506,17 @@ public class AssignmentView extends JComponent implements MouseInputListener {
 		polygon.lineTo( x3, y3 );
 		polygon.lineTo( x4, y4 );
 		polygon.closePath();
-
-		// Interaction with mouse:
-		if ( !this.isDragging && this.isMouseOver && polygon.contains( this.mousePosX, this.mousePosY ) ) {
-			if ( doAddToFilter ) {
-				// this case happens after shift-click
-				this.filteredAssignments.add( ma );
-			} else if ( this.doAddAsGroundTruth ) {
-				this.doAddAsGroundTruth = false;
-				ma.setGroundTruth( !ma.isGroundTruth() );
-				ma.reoptimize();
-				SwingUtilities.invokeLater( new Runnable() {
-
-					@Override
-					public void run() {
-						gui.dataToDisplayChanged();
-					}
-				} );
-			} else if ( this.doAddAsGroundUntruth ) {
-				this.doAddAsGroundUntruth = false;
-				ma.setGroundUntruth( !ma.isGroundUntruth() );
-				ma.reoptimize();
-				SwingUtilities.invokeLater( new Runnable() {
-
-					@Override
-					public void run() {
-						gui.dataToDisplayChanged();
-					}
-				} );
-			} else {
-				final float cost = ma.getCost();
-				if ( ma.isGroundTruth() ) {
-					g2.setPaint( Color.GREEN.darker() );
-				} else if ( ma.isGroundUntruth() ) {
-					g2.setPaint( Color.RED.darker() );
-				} else {
-					g2.setPaint( new Color( 25 / 256f, 65 / 256f, 165 / 256f, 1.0f ).darker().darker() );
-				}
-				g2.drawString(
-						String.format( "c=%.4f", cost ),
-						DISPLAY_COSTS_ABSOLUTE_X,
-						this.mousePosY + OFFSET_DISPLAY_COSTS - this.currentCostLine * LINEHEIGHT_DISPLAY_COSTS );
-				this.currentCostLine++;
-			}
-		}
-
-		// draw it!
-		g2.setStroke( new BasicStroke( 1 ) );
-		if ( !ma.isPruned() ) {
-			g2.setPaint( new Color( 25 / 256f, 65 / 256f, 165 / 256f, 0.2f ) );
-			if ( ma.isGroundTruth() || ma.isGroundUntruth() ) {
-				g2.setPaint( g2.getColor().brighter().brighter() );
-			}
-			g2.fill( polygon );
-		}
-		if ( ma.isGroundTruth() ) {
-			g2.setPaint( Color.GREEN.darker() );
-			g2.setStroke( new BasicStroke( 3 ) );
-		} else if ( ma.isGroundUntruth() ) {
-			g2.setPaint( Color.RED.darker() );
-			g2.setStroke( new BasicStroke( 3 ) );
-		} else {
-			g2.setPaint( new Color( 25 / 256f, 65 / 256f, 165 / 256f, 1.0f ) );
-		}
-		g2.draw( polygon );
+		return polygon;
 	}
 
 	/**
-	 * This methods draws the given division-assignment into the component.
-	 *
-	 * @param g
-	 * @param g2
 	 * @param da
 	 *            a division-assignment that should be visualized.
-	 * @param size
+	 * @return the polygon connecting the source with both destination
+	 *         hypotheses.
 	 */
-	private void drawDivisionAssignment( final Graphics g, final Graphics2D g2, final DivisionAssignment da, final Dimension size ) {
+	private Shape createDivisionShape( final DivisionAssignment da ) {
+		final int glOffsetTop = gui.model.getMoMA().getConfig().GL_OFFSET_TOP;
 		final Hypothesis< Component< FloatType, ? >> leftHyp = da.getSourceHypothesis();
 		final Hypothesis< Component< FloatType, ? >> rightHypUpper = da.getUpperDesinationHypothesis();
 		final Hypothesis< Component< FloatType, ? >> rightHypLower = da.getLowerDesinationHypothesis();
@@ -429,20 +526,20 @@ public class AssignmentView extends JComponent implements MouseInputListener {
 		final ValuePair< Integer, Integer > limitsRightLower = rightHypLower.getLocation();
 
 		final int x1 = 0;
-		final int y1 = MoMA.GL_OFFSET_TOP + limitsLeft.getA().intValue() + ASSIGNMENT_DISPLAY_OFFSET;
+		final int y1 = glOffsetTop + limitsLeft.getA().intValue() + ASSIGNMENT_DISPLAY_OFFSET;
 		final int x2 = 0;
-		final int y2 = MoMA.GL_OFFSET_TOP + limitsLeft.getB().intValue() + ASSIGNMENT_DISPLAY_OFFSET;
+		final int y2 = glOffsetTop + limitsLeft.getB().intValue() + ASSIGNMENT_DISPLAY_OFFSET;
 		final int x3 = this.width;
-		final int y3 = MoMA.GL_OFFSET_TOP + limitsRightLower.getB().intValue() + ASSIGNMENT_DISPLAY_OFFSET;
+		final int y3 = glOffsetTop + limitsRightLower.getB().intValue() + ASSIGNMENT_DISPLAY_OFFSET;
 		final int x4 = this.width;
-		final int y4 = MoMA.GL_OFFSET_TOP + limitsRightLower.getA().intValue() + ASSIGNMENT_DISPLAY_OFFSET;
+		final int y4 = glOffsetTop + limitsRightLower.getA().intValue() + ASSIGNMENT_DISPLAY_OFFSET;
 		final int x5 = this.width / 3;
 		final int y5 =
-				MoMA.GL_OFFSET_TOP + ASSIGNMENT_DISPLAY_OFFSET + ( 2 * ( limitsLeft.getA().intValue() + limitsLeft.getB().intValue() ) / 2 + 1 * ( limitsRightUpper.getB().intValue() + limitsRightLower.getA().intValue() ) / 2 ) / 3;
+				glOffsetTop + ASSIGNMENT_DISPLAY_OFFSET + ( 2 * ( limitsLeft.getA().intValue() + limitsLeft.getB().intValue() ) / 2 + 1 * ( limitsRightUpper.getB().intValue() + limitsRightLower.getA().intValue() ) / 2 ) / 3;
 		final int x6 = this.width;
-		final int y6 = MoMA.GL_OFFSET_TOP + limitsRightUpper.getB().intValue() + ASSIGNMENT_DISPLAY_OFFSET;
+		final int y6 = glOffsetTop + limitsRightUpper.getB().intValue() + ASSIGNMENT_DISPLAY_OFFSET;
 		final int x7 = this.width;
-		final int y7 = MoMA.GL_OFFSET_TOP + limitsRightUpper.getA().intValue() + ASSIGNMENT_DISPLAY_OFFSET;
+		final int y7 = glOffsetTop + limitsRightUpper.getA().intValue() + ASSIGNMENT_DISPLAY_OFFSET;
 
 		final GeneralPath polygon = new GeneralPath();
 		polygon.moveTo( x1, y1 );
@@ -453,142 +550,81 @@ public class AssignmentView extends JComponent implements MouseInputListener {
 		polygon.lineTo( x6, y6 );
 		polygon.lineTo( x7, y7 );
 		polygon.closePath();
-
-		// Interaction with mouse:
-		if ( !this.isDragging && this.isMouseOver && polygon.contains( this.mousePosX, this.mousePosY ) ) {
-			if ( doAddToFilter ) {
-				// this case happens after shift-click
-				this.filteredAssignments.add( da );
-			} else if ( this.doAddAsGroundTruth ) {
-				this.doAddAsGroundTruth = false;
-				da.setGroundTruth( !da.isGroundTruth() );
-				da.reoptimize();
-				SwingUtilities.invokeLater( new Runnable() {
-
-					@Override
-					public void run() {
-						gui.dataToDisplayChanged();
-					}
-				} );
-			} else if ( this.doAddAsGroundUntruth ) {
-				this.doAddAsGroundUntruth = false;
-				da.setGroundUntruth( !da.isGroundUntruth() );
-				da.reoptimize();
-				SwingUtilities.invokeLater( new Runnable() {
-
-					@Override
-					public void run() {
-						gui.dataToDisplayChanged();
-					}
-				} );
-			} else {
-				final float cost = da.getCost();
-				if ( da.isGroundTruth() ) {
-					g2.setPaint( Color.GREEN.darker() );
-				} else if ( da.isGroundUntruth() ) {
-					g2.setPaint( Color.RED.darker() );
-				} else {
-					g2.setPaint( new Color( 250 / 256f, 150 / 256f, 40 / 256f, 1.0f ).darker().darker() );
-				}
-				g2.drawString(
-						String.format( "c=%.4f", cost ),
-						DISPLAY_COSTS_ABSOLUTE_X,
-						this.mousePosY + OFFSET_DISPLAY_COSTS - this.currentCostLine * LINEHEIGHT_DISPLAY_COSTS );
-				this.currentCostLine++;
-			}
-		}
-
-		// draw it!
-		g2.setStroke( new BasicStroke( 1 ) );
-		if ( !da.isPruned() ) {
-			g2.setPaint( new Color( 250 / 256f, 150 / 256f, 40 / 256f, 0.2f ) );
-			if ( da.isGroundTruth() || da.isGroundUntruth() ) {
-				g2.setPaint( g2.getColor().brighter().brighter() );
-			}
-			g2.fill( polygon );
-		}
-		if ( da.isGroundTruth() ) {
-			g2.setPaint( Color.GREEN.darker() );
-			g2.setStroke( new BasicStroke( 3 ) );
-		} else if ( da.isGroundUntruth() ) {
-			g2.setPaint( Color.RED.darker() );
-			g2.setStroke( new BasicStroke( 3 ) );
-		} else {
-			g2.setPaint( new Color( 250 / 256f, 150 / 256f, 40 / 256f, 1.0f ) );
-		}
-		g2.draw( polygon );
+		return polygon;
 	}
 
 	/**
-	 * This methods draws the given exit-assignment into the component.
-	 *
-	 * @param g
-	 * @param g2
 	 * @param ea
 	 *            a exit-assignment that should be visualized.
-	 * @param size
+	 * @return the box next to the exiting hypothesis.
 	 */
-	private void drawExitAssignment( final Graphics g, final Graphics2D g2, final ExitAssignment ea, final Dimension size ) {
+	private Shape createExitShape( final ExitAssignment ea ) {
+		final int glOffsetTop = gui.model.getMoMA().getConfig().GL_OFFSET_TOP;
 		final Hypothesis< Component< FloatType, ? >> hyp = ea.getAssociatedHypothesis();
 		final ValuePair< Integer, Integer > limits = hyp.getLocation();
 
 		final int x1 = 0;
 		final int x2 = this.getWidth() / 5;
-		final int y1 = MoMA.GL_OFFSET_TOP + limits.getA().intValue() + ASSIGNMENT_DISPLAY_OFFSET;
+		final int y1 = glOffsetTop + limits.getA().intValue() + ASSIGNMENT_DISPLAY_OFFSET;
 		final int y2 = y1 + limits.getB().intValue() - limits.getA().intValue();
+		return new Rectangle( x1, y1, x2 - x1, y2 - y1 );
+	}
 
-		if ( !this.isDragging && this.isMouseOver && this.mousePosX > x1 && this.mousePosX < x2 && this.mousePosY > y1 && this.mousePosY < y2 ) {
-			if ( doAddToFilter ) {
-				// this case happens after shift-click
-				this.filteredAssignments.add( ea );
-			} else if ( this.doAddAsGroundTruth ) {
-				this.doAddAsGroundTruth = false;
-				ea.setGroundTruth( !ea.isGroundTruth() );
-				ea.reoptimize();
-				SwingUtilities.invokeLater( new Runnable() {
-
-					@Override
-					public void run() {
-						gui.dataToDisplayChanged();
-					}
-				} );
-			} else if ( this.doAddAsGroundUntruth ) {
-				this.doAddAsGroundUntruth = false;
-				ea.setGroundUntruth( !ea.isGroundUntruth() );
-				ea.reoptimize();
-				SwingUtilities.invokeLater( new Runnable() {
-
-					@Override
-					public void run() {
-						gui.dataToDisplayChanged();
-					}
-				} );
-			} else {
-				final float cost = ea.getCost();
-				g2.drawString( String.format( "c=%.4f", cost ), 10, this.mousePosY - 10 - this.currentCostLine * 20 );
-				this.currentCostLine++;
-			}
-		}
+	/**
+	 * @return the base color of the given type of assignment.
+	 */
+	private static Color getBaseColor( final int type ) {
+		if ( type == GrowthLineTrackingILP.ASSIGNMENT_MAPPING ) {
+			return new Color( 25 / 256f, 65 / 256f, 165 / 256f, 1.0f );
+		} else if ( type == GrowthLineTrackingILP.ASSIGNMENT_DIVISION ) { return new Color( 250 / 256f, 150 / 256f, 40 / 256f, 1.0f ); }
+		return Color.RED;
+	}
+
+	/**
+	 * Draws the shape of the given assignment (filled unless pruned,
+	 * highlighted if it is flagged as ground-(un)truth).
+	 */
+	private static void drawAssignment( final Graphics2D g2, final SceneItem item ) {
+		final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> assignment = item.assignment;
+		final Color color = getBaseColor( assignment.getType() );
 
-		// draw it!
 		g2.setStroke( new BasicStroke( 1 ) );
-		if ( !ea.isPruned() ) {
-			g2.setPaint( new Color( 1f, 0f, 0f, 0.2f ) );
-			if ( ea.isGroundTruth() || ea.isGroundUntruth() ) {
+		if ( !assignment.isPruned() ) {
+			g2.setPaint( new Color( color.getRed(), color.getGreen(), color.getBlue(), 51 ) );
+			if ( assignment.isGroundTruth() || assignment.isGroundUntruth() ) {
 				g2.setPaint( g2.getColor().brighter().brighter() );
 			}
-			g2.fillRect( x1, y1, x2 - x1, y2 - y1 );
+			g2.fill( item.shape );
 		}
-		if ( ea.isGroundTruth() ) {
+		if ( assignment.isGroundTruth() ) {
 			g2.setPaint( Color.GREEN.darker() );
 			g2.setStroke( new BasicStroke( 3 ) );
-		} else if ( ea.isGroundUntruth() ) {
+		} else if ( assignment.isGroundUntruth() ) {
 			g2.setPaint( Color.RED.darker() );
 			g2.setStroke( new BasicStroke( 3 ) );
 		} else {
-			g2.setPaint( Color.RED );
+			g2.setPaint( color );
+		}
+		g2.draw( item.shape );
+	}
+
+	/**
+	 * Draws the costs of the given assignment next to the mouse, one line
+	 * per assignment at the mouse location.
+	 */
+	private void drawCost( final Graphics2D g2, final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> assignment ) {
+		if ( assignment.isGroundTruth() ) {
+			g2.setPaint( Color.GREEN.darker() );
+		} else if ( assignment.isGroundUntruth() ) {
+			g2.setPaint( Color.RED.darker() );
+		} else {
+			g2.setPaint( getBaseColor( assignment.getType() ).darker().darker() );
 		}
-		g2.drawRect( x1, y1, x2 - x1, y2 - y1 );
+		g2.drawString(
+				String.format( "c=%.4f", assignment.getCost() ),
+				DISPLAY_COSTS_ABSOLUTE_X,
+				this.mousePosY + OFFSET_DISPLAY_COSTS - this.currentCostLine * LINEHEIGHT_DISPLAY_COSTS );
+		this.currentCostLine++;
 	}
 
 	/**
@@ -607,7 +643,7 @@ public class AssignmentView extends JComponent implements MouseInputListener {
 						if ( ass.isChoosen() || ass.isGroundTruth() ) {
 							activeSet.add( ass );
 						}
-					} catch ( final GRBException e ) {
+					} catch ( final IlpException e ) {
 						e.printStackTrace();
 					}
 					this.data.put( hypo, activeSet );
@@ -616,6 +652,7 @@ public class AssignmentView extends JComponent implements MouseInputListener {
 		} else {
 			this.data = data;
 		}
+		invalidateScene();
 		this.repaint();
 	}
 
@@ -664,6 +701,7 @@ public class AssignmentView extends JComponent implements MouseInputListener {
 		if ( !e.isAltDown() && !e.isControlDown() && e.getButton() == MouseEvent.BUTTON3 ) {
 			this.doFilterDataByIdentity = false;
 			this.filteredAssignments.clear();
+			invalidateScene();
 		}
 
 		// I repaint before detecting dragging (since this can interfere with filtering)
@@ -712,6 +750,7 @@ public class AssignmentView extends JComponent implements MouseInputListener {
 	@Override
 	public void mouseDragged( final MouseEvent e ) {
 		this.doFilterDataByCost = true;
+		invalidateScene();
 
 		final float minstep = 0.01f;
 		final float xsensitivity = 30.0f;
@@ -759,6 +798,7 @@ public class AssignmentView extends JComponent implements MouseInputListener {
 	 */
 	public void setFilterGroundTruth( final boolean doIt ) {
 		this.doFilterGroundTruth = doIt;
+		invalidateScene();
 	}
 
 }
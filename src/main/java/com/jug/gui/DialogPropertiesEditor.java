@@ -4,7 +4,6 @@
 package com.jug.gui;
 
 import java.awt.BorderLayout;
-import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.Toolkit;
@@ -23,7 +22,7 @@ import javax.swing.JPanel;
 import javax.swing.KeyStroke;
 import javax.swing.SwingUtilities;
 
-import com.jug.MoMA;
+import com.jug.MoMAConfig;
 import com.l2fprod.common.propertysheet.DefaultProperty;
 import com.l2fprod.common.propertysheet.Property;
 import com.l2fprod.common.propertysheet.PropertySheet;
@@ -35,67 +34,75 @@ import com.l2fprod.common.propertysheet.PropertySheetPanel;
 public class DialogPropertiesEditor extends JDialog implements ActionListener {
 
 	private static final long serialVersionUID = -5529104109524798394L;
-	protected static final PropEditedListener propEditListener = new PropEditedListener();
 
 	protected static class PropEditedListener implements PropertyChangeListener {
 
+		private final MoMAGui gui;
+		private final Properties props;
+
+		public PropEditedListener( final MoMAGui gui, final Properties props ) {
+			this.gui = gui;
+			this.props = props;
+		}
+
 		@Override
 		public void propertyChange( final PropertyChangeEvent evt ) {
 			final String sourceName = ( ( Property ) evt.getSource() ).getName();
+			final MoMAConfig config = gui.model.getMoMA().getConfig();
 
 			try {
 			if ( sourceName.equals( "GUROBI_TIME_LIMIT" ) ) {
-				MoMA.GUROBI_TIME_LIMIT =
+				config.GUROBI_TIME_LIMIT =
 						Double.parseDouble( evt.getNewValue().toString() );
-					MoMA.props.setProperty(
+					props.setProperty(
 							"GUROBI_TIME_LIMIT",
-							"" + MoMA.GUROBI_TIME_LIMIT );
+							"" + config.GUROBI_TIME_LIMIT );
 			} else if ( sourceName.equals( "GUROBI_MAX_OPTIMALITY_GAP" ) ) {
-				MoMA.GUROBI_MAX_OPTIMALITY_GAP =
+				config.GUROBI_MAX_OPTIMALITY_GAP =
 						Double.parseDouble( evt.getNewValue().toString() );
-					MoMA.props.setProperty(
+					props.setProperty(
 							"GUROBI_MAX_OPTIMALITY_GAP",
-							"" + MoMA.GUROBI_MAX_OPTIMALITY_GAP );
+							"" + config.GUROBI_MAX_OPTIMALITY_GAP );
 			} else if ( sourceName.equals( "GL_OFFSET_TOP" ) ) {
-				MoMA.GL_OFFSET_TOP =
+				config.GL_OFFSET_TOP =
 						Integer.parseInt( evt.getNewValue().toString() );
-				MoMA.props.setProperty(
+				props.setProperty(
 						"GL_OFFSET_TOP",
-						"" + MoMA.GL_OFFSET_TOP );
+						"" + config.GL_OFFSET_TOP );
 				final Thread t = new Thread( new Runnable() {
 
 					@Override
 					public void run() {
-						MoMA.instance.restartFromGLSegmentation();
-						MoMA.getGui().dataToDisplayChanged();
+						gui.model.getMoMA().restartFromGLSegmentation();
+						gui.dataToDisplayChanged();
 					}
 				} );
 				t.start();
 			} else if ( sourceName.equals( "GL_OFFSET_BOTTOM" ) ) {
-				MoMA.GL_OFFSET_BOTTOM =
+				config.GL_OFFSET_BOTTOM =
 						Integer.parseInt( evt.getNewValue().toString() );
-				MoMA.props.setProperty(
+				props.setProperty(
 						"GL_OFFSET_BOTTOM",
-						"" + MoMA.GL_OFFSET_BOTTOM );
+						"" + config.GL_OFFSET_BOTTOM );
 				final Thread t = new Thread( new Runnable() {
 
 					@Override
 					public void run() {
-						MoMA.instance.restartFromGLSegmentation();
-						MoMA.getGui().dataToDisplayChanged();
+						gui.model.getMoMA().restartFromGLSegmentation();
+						gui.dataToDisplayChanged();
 					}
 				} );
 				t.start();
 			} else {
 				JOptionPane.showMessageDialog(
-						MoMA.getGui(),
+						gui,
 						"Value not changed - NOT YET IMPLEMENTED!",
 							"Warning",
 						JOptionPane.WARNING_MESSAGE );
 			}
 			} catch ( final NumberFormatException e ) {
 				JOptionPane.showMessageDialog(
-						MoMA.getGui(),
+						gui,
 						"Illegal value entered -- value not changed!",
 						"Error",
 						JOptionPane.ERROR_MESSAGE );
@@ -112,7 +119,7 @@ public class DialogPropertiesEditor extends JDialog implements ActionListener {
 		private static String SEG = "Segmentation props";
 		private static String GRB = "GUROBI props";
 
-		public static Property buildFor(final String key, final Object value) {
+		public static Property buildFor(final String key, final Object value, final PropertyChangeListener propEditListener) {
 			final DefaultProperty property = new DefaultProperty();
 			property.setDisplayName( key );
 			property.setName( key );
@@ -221,8 +228,9 @@ public class DialogPropertiesEditor extends JDialog implements ActionListener {
 
 	private JButton bClose;
 	private final Properties props;
+	private final PropEditedListener propEditListener;
 
-	public DialogPropertiesEditor( final Component parent, final Properties props ) {
+	public DialogPropertiesEditor( final MoMAGui parent, final Properties props ) {
 		super( SwingUtilities.windowForComponent( parent ), "TIMM Properties Editor" );
 		this.dialogInit();
 		this.setModal( true );
@@ -236,6 +244,7 @@ public class DialogPropertiesEditor extends JDialog implements ActionListener {
 		this.setBounds( ( screenWidth - width ) / 2, ( screenHeight - height ) / 2, width, height );
 
 		this.props = props;
+		this.propEditListener = new PropEditedListener( parent, props );
 
 		buildGui();
 		setKeySetup();
@@ -251,7 +260,7 @@ public class DialogPropertiesEditor extends JDialog implements ActionListener {
 		sheet.setSortingProperties( false );
 		sheet.setRestoreToggleStates( false );
 		for ( final String key : this.props.stringPropertyNames() ) {
-			sheet.addProperty( PropFactory.buildFor( key, props.getProperty( key ) ) );
+			sheet.addProperty( PropFactory.buildFor( key, props.getProperty( key ), propEditListener ) );
 		}
 //		sheet.setEditorFactory( PropertyEditorRegistry.Instance );
 
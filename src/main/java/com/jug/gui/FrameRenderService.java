@@ -0,0 +1,358 @@
+/**
+ *
+ */
+package com.jug.gui;
+
+import java.awt.Component;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.jug.GrowthLineFrame;
+import com.jug.lp.GrowthLineTrackingILP;
+
+import net.imglib2.converter.RealARGBConverter;
+import net.imglib2.display.projector.IterableIntervalProjector2D;
+import net.imglib2.display.screenimage.awt.ARGBScreenImage;
+import net.imglib2.type.numeric.ARGBType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.view.IntervalView;
+
+/**
+ * Renders the frames shown in the <code>Viewer2DCanvas</code>es (projected
+ * image data plus center line and optimal segmentation) in background
+ * threads and keeps the most recently used ones in a cache, such that the
+ * EDT only has to copy them to the screen. While scrubbing through time, the
+ * frames following in scrubbing direction are rendered ahead of time.
+ *
+ * A rendered frame is identified by its growth line frame, the image source,
+ * its size, whether annotations are shown and the ILP solution (every solver
+ * run creates a new <code>SolutionSnapshot</code>). Changes not reflected in
+ * these (e.g. pruning) require a call to <code>invalidate</code>.
+ *
+ * The worker threads are started with the first request (a GUI that is only
+ * used for exporting never starts them) and stopped by <code>dispose</code>.
+ *
+ * @author jug
+ */
+public class FrameRenderService {
+
+	/**
+	 * Provides the view onto the image data to be shown for a growth line
+	 * frame.
+	 */
+	public interface FrameSource {
+
+		IntervalView< FloatType > getView( GrowthLineFrame glf );
+	}
+
+	/**
+	 * A rendered frame. Must not be modified (copy the pixels instead).
+	 */
+	public static final class RenderedFrame {
+
+		private final int[] pixels;
+		private final BufferedImage image;
+
+		private RenderedFrame( final int[] pixels, final BufferedImage image ) {
+			this.pixels = pixels;
+			this.image = image;
+		}
+
+		public int[] getPixels() {
+			return pixels;
+		}
+
+		public BufferedImage getImage() {
+			return image;
+		}
+	}
+
+	/**
+	 * Identifies a rendered frame (all objects are compared by identity).
+	 */
+	public static final class Key {
+
+		private final GrowthLineFrame glf;
+		private final FrameSource source;
+		private final int w;
+		private final int h;
+		private final boolean annotations;
+		private final Object solution;
+
+		public Key( final GrowthLineFrame glf, final FrameSource source, final int w, final int h, final boolean annotations ) {
+			this.glf = glf;
+			this.source = source;
+			this.w = w;
+			this.h = h;
+			this.annotations = annotations;
+			final GrowthLineTrackingILP ilp = glf.getParent().getIlp();
+			this.solution = ( annotations && ilp != null ) ? ilp.getSolution() : null;
+		}
+
+		@Override
+		public boolean equals( final Object obj ) {
+			if ( !( obj instanceof Key ) ) return false;
+			final Key other = ( Key ) obj;
+			return glf == other.glf && source == other.source && w == other.w && h == other.h && annotations == other.annotations && solution == other.solution;
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = System.identityHashCode( glf );
+			hash = 31 * hash + System.identityHashCode( source );
+			hash = 31 * hash + w;
+			hash = 31 * hash + h;
+			hash = 31 * hash + ( annotations ? 1 : 0 );
+			hash = 31 * hash + System.identityHashCode( solution );
+			return hash;
+		}
+	}
+
+	/**
+	 * A pending render request.
+	 */
+	private static final class Job {
+
+		private final Key key;
+		private final int generation;
+		private volatile IntervalView< FloatType > view;
+		private volatile Component repaintWhenDone;
+		/**
+		 * Set once a worker took the job (it is not queued anymore).
+		 */
+		private boolean running = false;
+
+		private Job( final Key key, final int generation ) {
+			this.key = key;
+			this.generation = generation;
+		}
+	}
+
+	/**
+	 * Number of frames rendered ahead in scrubbing direction.
+	 */
+	public static final int NUM_PREFETCHED_FRAMES = 4;
+
+	private static final int CACHE_SIZE = 64;
+	/**
+	 * Prefetch requests beyond this number are dropped (oldest first), they
+	 * are outdated anyways when scrubbing fast.
+	 */
+	private static final int MAX_PENDING_PREFETCHES = 4 * NUM_PREFETCHED_FRAMES;
+
+	private final Map< Key, RenderedFrame > cache = new LinkedHashMap< Key, RenderedFrame >( 16, 0.75f, true ) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry( final Map.Entry< Key, RenderedFrame > eldest ) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	/**
+	 * Requests for frames to be shown, most recent first. Workers take these
+	 * before any prefetch.
+	 */
+	private final ArrayDeque< Job > requests = new ArrayDeque< Job >();
+	/**
+	 * Prefetch requests, most recent last. Workers take the most recent ones
+	 * (closest to the time slider) first.
+	 */
+	private final ArrayDeque< Job > prefetches = new ArrayDeque< Job >();
+	private final Map< Key, Job > pending = new HashMap< Key, Job >();
+	/**
+	 * Incremented by <code>invalidate</code>, frames of jobs created before
+	 * are not cached.
+	 */
+	private int generation = 0;
+
+	private final int numThreads;
+	private final List< Thread > workers = new ArrayList< Thread >();
+	private boolean disposed = false;
+
+	public FrameRenderService( final int numThreads ) {
+		this.numThreads = numThreads;
+	}
+
+	/**
+	 * Starts the worker threads if not done yet. Must be called while
+	 * holding the lock of this service.
+	 */
+	private void startWorkers() {
+		if ( !workers.isEmpty() ) return;
+		for ( int i = 0; i < numThreads; i++ ) {
+			final Thread worker = new Thread( "moma-frame-render-" + i ) {
+
+				@Override
+				public void run() {
+					while ( true ) {
+						final Job job;
+						try {
+							job = take();
+						} catch ( final InterruptedException e ) {
+							return;
+						}
+						if ( job == null ) return;
+						try {
+							process( job );
+						} catch ( final RuntimeException e ) {
+							e.printStackTrace();
+						}
+					}
+				}
+			};
+			worker.setDaemon( true );
+			worker.start();
+			workers.add( worker );
+		}
+	}
+
+	/**
+	 * Stops the worker threads and drops all rendered frames. Requests made
+	 * afterwards are ignored.
+	 */
+	public synchronized void dispose() {
+		disposed = true;
+		for ( final Thread worker : workers ) {
+			worker.interrupt();
+		}
+		workers.clear();
+		invalidate();
+	}
+
+	/**
+	 * Waits for the next job and marks it as running.
+	 *
+	 * @return the job, or <code>null</code> if the service was disposed.
+	 */
+	private synchronized Job take() throws InterruptedException {
+		while ( !disposed && requests.isEmpty() && prefetches.isEmpty() ) {
+			wait();
+		}
+		if ( disposed ) return null;
+		final Job job = ( requests.isEmpty() ) ? prefetches.pollLast() : requests.pollFirst();
+		job.running = true;
+		return job;
+	}
+
+	/**
+	 * Returns the rendered frame for the given key if it is cached. Otherwise
+	 * it is rendered with priority and the given component is repainted once
+	 * it is done.
+	 *
+	 * @param view
+	 *            the view for the key (if already at hand), or
+	 *            <code>null</code>.
+	 * @return the rendered frame, or <code>null</code> if not rendered yet.
+	 */
+	public synchronized RenderedFrame get( final Key key, final IntervalView< FloatType > view, final Component repaintWhenDone ) {
+		final RenderedFrame frame = cache.get( key );
+		if ( frame != null || disposed ) return frame;
+		startWorkers();
+
+		Job job = pending.get( key );
+		if ( job != null && job.running ) {
+			// rendered already, only repaint the (latest) requester
+			job.repaintWhenDone = repaintWhenDone;
+			return null;
+		}
+		if ( job == null ) {
+			job = new Job( key, generation );
+			pending.put( key, job );
+		} else {
+			requests.remove( job );
+			prefetches.remove( job );
+		}
+		if ( view != null ) {
+			job.view = view;
+		}
+		job.repaintWhenDone = repaintWhenDone;
+		requests.addFirst( job );
+		notify();
+		return null;
+	}
+
+	/**
+	 * Renders the frame for the given key in the background, unless it is
+	 * cached or requested already.
+	 */
+	public synchronized void prefetch( final Key key ) {
+		if ( disposed || cache.containsKey( key ) || pending.containsKey( key ) ) return;
+		startWorkers();
+
+		while ( prefetches.size() >= MAX_PENDING_PREFETCHES ) {
+			pending.remove( prefetches.pollFirst().key );
+		}
+		final Job job = new Job( key, generation );
+		pending.put( key, job );
+		prefetches.addLast( job );
+		notify();
+	}
+
+	/**
+	 * Drops all rendered frames and all requests not being rendered yet.
+	 */
+	public synchronized void invalidate() {
+		cache.clear();
+		pending.clear();
+		requests.clear();
+		prefetches.clear();
+		generation++;
+		notifyAll();
+	}
+
+	private void process( final Job job ) {
+		final RenderedFrame frame = render( job.key, job.view );
+		final Component repaintWhenDone;
+		synchronized ( this ) {
+			if ( pending.get( job.key ) == job ) {
+				pending.remove( job.key );
+			}
+			if ( job.generation == generation ) {
+				cache.put( job.key, frame );
+			}
+			repaintWhenDone = job.repaintWhenDone;
+		}
+		if ( repaintWhenDone != null ) {
+			repaintWhenDone.repaint();
+		}
+	}
+
+	private static RenderedFrame render( final Key key, IntervalView< FloatType > view ) {
+		final int[] pixels = new int[ key.w * key.h ];
+		final ARGBScreenImage screenImage = new ARGBScreenImage( key.w, key.h, pixels );
+		final GrowthLineFrame glf = key.glf;
+		try {
+			if ( view == null ) {
+				view = key.source.getView( glf );
+			}
+			new IterableIntervalProjector2D< FloatType, ARGBType >( 0, 1, view, screenImage, new RealARGBConverter< FloatType >( 0, 1 ) ).map();
+
+			if ( key.annotations ) {
+				glf.drawCenterLine( screenImage, view );
+
+				// DRAW OPTIMAL SEGMENTATION + PRUNE-COLORING
+				final GrowthLineTrackingILP ilp = glf.getParent().getIlp();
+				if ( ilp != null ) {
+					final int t = glf.getParent().getFrames().indexOf( glf );
+					glf.drawOptimalSegmentation( screenImage, view, ilp.getOptimalSegmentation( t ) );
+				}
+			}
+		} catch ( final ArrayIndexOutOfBoundsException e ) {
+			// this can happen if a growth line, due to shift, exists in one
+			// frame, and does not exist in others.
+			// If for this growth line we want to visualize a time where the
+			// GrowthLine is empty, the projector
+			// throws a ArrayIndexOutOfBoundsException that I catch
+			// hereby... ;)
+			System.err.println( "ArrayIndexOutOfBoundsException while rendering frame for Viewer2DCanvas!" );
+		}
+		return new RenderedFrame( pixels, screenImage.image() );
+	}
+}
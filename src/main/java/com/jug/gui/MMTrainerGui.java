@@ -18,7 +18,6 @@ import javax.swing.JFrame;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 
-import com.jug.MoMA;
 import com.jug.sbmrm.MMTrainer;
 
 /**
@@ -38,7 +37,7 @@ public class MMTrainerGui extends JFrame implements ActionListener {
 
 		buildGui();
 
-		this.trainer = new MMTrainer( MoMA.instance, loggingTextArea );
+		this.trainer = new MMTrainer( mmGui.model.getMoMA(), loggingTextArea );
 	}
 
 	private void buildGui() {
@@ -15,10 +15,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.FocusEvent;
 import java.awt.event.FocusListener;
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -32,19 +29,22 @@ import org.math.plot.Plot2DPanel;
 import com.jug.GrowthLine;
 import com.jug.GrowthLineFrame;
 import com.jug.MoMA;
+import com.jug.MoMAConfig;
 import com.jug.export.CellStatsExporter;
 import com.jug.export.HtmlOverviewExporter;
+import com.jug.gui.FrameRenderService.FrameSource;
 import com.jug.gui.progress.DialogProgress;
 import com.jug.gui.slider.RangeSlider;
 import com.jug.lp.GrowthLineTrackingILP;
 import com.jug.lp.Hypothesis;
+import com.jug.lp.TrackingState;
 import com.jug.util.ComponentTreeUtils;
 import com.jug.util.SimpleFunctionAnalysis;
 import com.jug.util.Util;
 import com.jug.util.converter.RealFloatNormalizeConverter;
-import com.jug.util.filteredcomponents.FilteredComponent;
+import com.jug.util.filteredcomponents.ExtendableComponent;
 
-import gurobi.GRBException;
+import com.jug.lp.solver.IlpException;
 import ij.ImageJ;
 import net.imglib2.Localizable;
 import net.imglib2.RandomAccessibleInterval;
@@ -70,6 +70,11 @@ public class MoMAGui extends JPanel implements ChangeListener, ActionListener {
 	// -------------------------------------------------------------------------------------
 	public MoMAModel model;
 
+	/**
+	 * The parameters of the run shown in this GUI.
+	 */
+	private final MoMAConfig config;
+
 	/**
 	 * The view onto <code>imgRaw</code> that is supposed to be shown on screen
 	 * (left one in active assignments view).
@@ -89,6 +94,31 @@ public class MoMAGui extends JPanel implements ChangeListener, ActionListener {
 	// show helper lines in IntervalViews?
 	private boolean showSegmentationAnnotations = true;
 
+	/**
+	 * Renders the frames shown in the Viewer2DCanvases.
+	 */
+	private final FrameRenderService frameRenderService = new FrameRenderService( 2 );
+
+	/**
+	 * The images that can be shown in the Viewer2DCanvases.
+	 */
+	private final FrameSource frameSourceRaw = new FrameSource() {
+
+		@Override
+		public IntervalView< FloatType > getView( final GrowthLineFrame glf ) {
+			return viewOntoGLF( model.mm.getImgRaw(), glf );
+		}
+	};
+	private final FrameSource frameSourceBGSubtracted = new FrameSource() {
+
+		@Override
+		public IntervalView< FloatType > getView( final GrowthLineFrame glf ) {
+			return viewOntoGLF( model.mm.getImgTemp(), glf );
+		}
+	};
+	private final FrameSource frameSourceChannel1 = createNormalizedFrameSource( 1 );
+	private final FrameSource frameSourceChannel2 = createNormalizedFrameSource( 2 );
+
 
 	// -------------------------------------------------------------------------------------
 	// gui-fields
@@ -174,6 +204,7 @@ public class MoMAGui extends JPanel implements ChangeListener, ActionListener {
 		super( new BorderLayout() );
 
 		this.model = mmm;
+		this.config = mmm.getMoMA().getConfig();
 
 		buildGui();
 		dataToDisplayChanged();
@@ -247,15 +278,15 @@ public class MoMAGui extends JPanel implements ChangeListener, ActionListener {
 		// --- Slider for TrackingRage ----------
 
 		int max = model.getCurrentGL().size() - 2;
-		if ( MoMA.getInitialOptRange() != -1 ) {
-			max = Math.min( MoMA.getInitialOptRange(), model.getCurrentGL().size() - 2 );
+		if ( model.mm.getContext().getInitialOptRange() != -1 ) {
+			max = Math.min( model.mm.getContext().getInitialOptRange(), model.getCurrentGL().size() - 2 );
 		}
 		sliderTrackingRange =
 				new RangeSlider( 0, model.getCurrentGL().size() - 2 );
 		sliderTrackingRange.setBorder( BorderFactory.createEmptyBorder( 0, 7, 0, 7 ) );
 		sliderTrackingRange.setValue( 0 );
-		if (MoMA.OPTIMISATION_INTERVAL_LENGTH >= 0) {
-			sliderTrackingRange.setUpperValue(MoMA.OPTIMISATION_INTERVAL_LENGTH);
+		if (config.OPTIMISATION_INTERVAL_LENGTH >= 0) {
+			sliderTrackingRange.setUpperValue(config.OPTIMISATION_INTERVAL_LENGTH);
 		} else {
 			sliderTrackingRange.setUpperValue(max);
 		}
@@ -468,16 +499,17 @@ public class MoMAGui extends JPanel implements ChangeListener, ActionListener {
 					try {
 						ilp.removeSegmentsInFrameCountConstraint( model.getCurrentTime() );
 						ilp.addSegmentsInFrameCountConstraint( model.getCurrentTime(), numCells );
-					} catch ( final GRBException e1 ) {
+					} catch ( final IlpException e1 ) {
 						e1.printStackTrace();
 					}
 				}
 
+				final int tEdit = model.getCurrentTime();
 				final Thread t = new Thread( new Runnable() {
 
 					@Override
 					public void run() {
-						model.getCurrentGL().runILP();
+						model.getCurrentGL().runILPIncremental( tEdit );
 						dataToDisplayChanged();
 						sliderTime.requestFocus();
 					}
@@ -560,7 +592,7 @@ public class MoMAGui extends JPanel implements ChangeListener, ActionListener {
 		panelHorizontalHelper.add( labelHelper );
 		panelVerticalHelper.add( panelHorizontalHelper, BorderLayout.NORTH );
 		// - - - - - -
-		imgCanvasActiveLeft = new Viewer2DCanvas( this, MoMA.GL_WIDTH_IN_PIXELS + 2 * MoMA.GL_PIXEL_PADDING_IN_VIEWS, ( int ) model.mm.getImgRaw().dimension( 1 ) );
+		imgCanvasActiveLeft = new Viewer2DCanvas( this, config.GL_WIDTH_IN_PIXELS + 2 * config.GL_PIXEL_PADDING_IN_VIEWS, ( int ) model.mm.getImgRaw().dimension( 1 ) );
 		panelVerticalHelper.add( imgCanvasActiveLeft, BorderLayout.CENTER );
 		panelVerticalHelper.setBorder( BorderFactory.createMatteBorder( 2, 2, 2, 2, Color.GRAY ) );
 		panelVerticalHelper.setBackground( Color.BLACK );
@@ -597,7 +629,7 @@ public class MoMAGui extends JPanel implements ChangeListener, ActionListener {
 		panelHorizontalHelper.add( labelHelper );
 		panelVerticalHelper.add( panelHorizontalHelper, BorderLayout.NORTH );
 		// - - - - - -
-		imgCanvasActiveCenter = new Viewer2DCanvas( this, MoMA.GL_WIDTH_IN_PIXELS + 2 * MoMA.GL_PIXEL_PADDING_IN_VIEWS, ( int ) model.mm.getImgRaw().dimension( 1 ) );
+		imgCanvasActiveCenter = new Viewer2DCanvas( this, config.GL_WIDTH_IN_PIXELS + 2 * config.GL_PIXEL_PADDING_IN_VIEWS, ( int ) model.mm.getImgRaw().dimension( 1 ) );
 		panelVerticalHelper.add( imgCanvasActiveCenter, BorderLayout.CENTER );
 		panelVerticalHelper.setBorder( BorderFactory.createMatteBorder( 3, 3, 3, 3, Color.RED ) );
 		panelVerticalHelper.setBackground( Color.BLACK );
@@ -621,7 +653,7 @@ public class MoMAGui extends JPanel implements ChangeListener, ActionListener {
 		panelHorizontalHelper.add( labelHelper );
 		panelVerticalHelper.add( panelHorizontalHelper, BorderLayout.NORTH );
 		// - - - - - -
-		imgCanvasActiveRight = new Viewer2DCanvas( this, MoMA.GL_WIDTH_IN_PIXELS + 2 * MoMA.GL_PIXEL_PADDING_IN_VIEWS, ( int ) model.mm.getImgRaw().dimension( 1 ) );
+		imgCanvasActiveRight = new Viewer2DCanvas( this, config.GL_WIDTH_IN_PIXELS + 2 * config.GL_PIXEL_PADDING_IN_VIEWS, ( int ) model.mm.getImgRaw().dimension( 1 ) );
 		panelVerticalHelper.add( imgCanvasActiveRight, BorderLayout.CENTER );
 		panelVerticalHelper.setBorder( BorderFactory.createMatteBorder( 2, 2, 2, 2, Color.GRAY ) );
 		panelVerticalHelper.setBackground( Color.BLACK );
@@ -783,8 +815,8 @@ public class MoMAGui extends JPanel implements ChangeListener, ActionListener {
 		int min = Integer.MAX_VALUE;
 		int max = Integer.MIN_VALUE;
 		Iterator< Localizable > componentIterator = ctn.iterator();
-		if ( ctn instanceof FilteredComponent ) {
-			componentIterator = ( ( FilteredComponent< FloatType > ) ctn ).iteratorExtended();
+		if ( ctn instanceof ExtendableComponent ) {
+			componentIterator = ( ( ExtendableComponent< FloatType > ) ctn ).iteratorExtended();
 		}
 		while ( componentIterator.hasNext() ) {
 			final int pos = componentIterator.next().getIntPosition( 0 );
@@ -800,9 +832,72 @@ public class MoMAGui extends JPanel implements ChangeListener, ActionListener {
 	// getters and setters
 	// -------------------------------------------------------------------------------------
 
+	/**
+	 * @return the FrameSource of the image chosen to be shown in the center
+	 *         view (see <code>cbWhichImgToShow</code>).
+	 */
+	public FrameSource getCenterFrameSource() {
+		final Object item = cbWhichImgToShow.getSelectedItem();
+		if ( itemChannel0.equals( item ) ) {
+			return frameSourceRaw;
+		} else if ( itemChannel1.equals( item ) ) {
+			return frameSourceChannel1;
+		} else if ( itemChannel2.equals( item ) ) { return frameSourceChannel2; }
+		return frameSourceBGSubtracted;
+	}
+
+	/**
+	 * @return the service rendering the frames shown in the Viewer2DCanvases.
+	 */
+	public FrameRenderService getFrameRenderService() {
+		return frameRenderService;
+	}
+
+	/**
+	 * Releases the resources of this GUI that are not freed with it (the
+	 * frame render threads). To be called once it is not used anymore.
+	 */
+	public void dispose() {
+		frameRenderService.dispose();
+	}
+
 	// -------------------------------------------------------------------------------------
 	// methods
 	// -------------------------------------------------------------------------------------
+	/**
+	 * Picks the right hyperslice in Z direction in the given image and sets
+	 * an View.offset according to the position of the given
+	 * GrowthLineFrame.
+	 */
+	private IntervalView< FloatType > viewOntoGLF( final RandomAccessibleInterval< FloatType > img, final GrowthLineFrame glf ) {
+		return Views.offset( Views.hyperSlice( img, 2, glf.getOffsetF() ), glf.getOffsetX() - config.GL_WIDTH_IN_PIXELS / 2 - config.GL_PIXEL_PADDING_IN_VIEWS, glf.getOffsetY() );
+	}
+
+	/**
+	 * @return a FrameSource showing the given raw channel, normalized per
+	 *         frame.
+	 */
+	private FrameSource createNormalizedFrameSource( final int channel ) {
+		return new FrameSource() {
+
+			@SuppressWarnings( { "unchecked", "rawtypes" } )
+			@Override
+			public IntervalView< FloatType > getView( final GrowthLineFrame glf ) {
+				final IntervalView< FloatType > viewToShow = Views.hyperSlice( model.mm.getRawChannelImgs().get( channel ), 2, glf.getOffsetF() );
+				final FloatType min = new FloatType();
+				final FloatType max = new FloatType();
+				Util.computeMinMax( Views.iterable( viewToShow ), min, max );
+				return Views.offset(
+						Converters.convert(
+								( RandomAccessibleInterval< FloatType > ) viewToShow,
+								new RealFloatNormalizeConverter( max.get() ),
+								new FloatType() ),
+						glf.getOffsetX() - config.GL_WIDTH_IN_PIXELS / 2 - config.GL_PIXEL_PADDING_IN_VIEWS,
+						glf.getOffsetY() );
+			}
+		};
+	}
+
 	/**
 	 * Picks the right hyperslice in Z direction in imgRaw and sets an
 	 * View.offset according to the current offset settings. Note: this method
@@ -830,8 +925,7 @@ public class MoMAGui extends JPanel implements ChangeListener, ActionListener {
 
 			if ( model.getCurrentGLFsPredecessor() != null ) {
 				final GrowthLineFrame glf = model.getCurrentGLFsPredecessor();
-				viewImgLeftActive = Views.offset( Views.hyperSlice( model.mm.getImgRaw(), 2, glf.getOffsetF() ), glf.getOffsetX() - MoMA.GL_WIDTH_IN_PIXELS / 2 - MoMA.GL_PIXEL_PADDING_IN_VIEWS, glf.getOffsetY() );
-				imgCanvasActiveLeft.setScreenImage( glf, viewImgLeftActive );
+				viewImgLeftActive = imgCanvasActiveLeft.setScreenImage( glf, frameSourceRaw );
 			} else {
 				// show something empty
 				imgCanvasActiveLeft.setEmptyScreenImage();
@@ -841,8 +935,7 @@ public class MoMAGui extends JPanel implements ChangeListener, ActionListener {
 
 			if ( model.getCurrentGLFsSuccessor() != null && sliderTime.getValue() < sliderTime.getMaximum() ) { // hence copy of last frame for border-problem avoidance
 				final GrowthLineFrame glf = model.getCurrentGLFsSuccessor();
-				viewImgRightActive = Views.offset( Views.hyperSlice( model.mm.getImgRaw(), 2, glf.getOffsetF() ), glf.getOffsetX() - MoMA.GL_WIDTH_IN_PIXELS / 2 - MoMA.GL_PIXEL_PADDING_IN_VIEWS, glf.getOffsetY() );
-				imgCanvasActiveRight.setScreenImage( glf, viewImgRightActive );
+				viewImgRightActive = imgCanvasActiveRight.setScreenImage( glf, frameSourceRaw );
 			} else {
 				// show something empty
 				imgCanvasActiveRight.setEmptyScreenImage();
@@ -852,39 +945,16 @@ public class MoMAGui extends JPanel implements ChangeListener, ActionListener {
 
 			final GrowthLineFrame glf = model.getCurrentGLF();
 //			final IntervalView< FloatType > paramaxflowSumImageFloatTyped = model.getCurrentGLF().getParamaxflowSumImageFloatTyped( null );
-			final FloatType min = new FloatType();
-			final FloatType max = new FloatType();
 
 //			if ( paramaxflowSumImageFloatTyped != null && cbWhichImgToShow.getSelectedItem().equals( itemPMFRF ) ) {
 //				imgCanvasActiveCenter.setScreenImage( glf, paramaxflowSumImageFloatTyped );
 //			} else
 			if ( cbWhichImgToShow.getSelectedItem().equals( itemChannel0 ) ) {
-				viewImgCenterActive = Views.offset( Views.hyperSlice( model.mm.getImgRaw(), 2, glf.getOffsetF() ), glf.getOffsetX() - MoMA.GL_WIDTH_IN_PIXELS / 2 - MoMA.GL_PIXEL_PADDING_IN_VIEWS, glf.getOffsetY() );
-				imgCanvasActiveCenter.setScreenImage( glf, viewImgCenterActive );
+				viewImgCenterActive = imgCanvasActiveCenter.setScreenImage( glf, frameSourceRaw );
 			} else if ( cbWhichImgToShow.getSelectedItem().equals( itemChannel1 ) ) {
-				final IntervalView< FloatType > viewToShow = Views.hyperSlice( model.mm.getRawChannelImgs().get( 1 ), 2, glf.getOffsetF() );
-				Util.computeMinMax( Views.iterable( viewToShow ), min, max );
-				viewImgCenterActive =
-						Views.offset(
-								Converters.convert(
-										( RandomAccessibleInterval< FloatType > ) viewToShow,
-										new RealFloatNormalizeConverter( max.get() ),
-										new FloatType() ),
-								glf.getOffsetX() - MoMA.GL_WIDTH_IN_PIXELS / 2 - MoMA.GL_PIXEL_PADDING_IN_VIEWS,
-								glf.getOffsetY() );
-				imgCanvasActiveCenter.setScreenImage( glf, viewImgCenterActive );
+				viewImgCenterActive = imgCanvasActiveCenter.setScreenImage( glf, frameSourceChannel1 );
 			} else if ( cbWhichImgToShow.getSelectedItem().equals( itemChannel2 ) ) {
-				final IntervalView< FloatType > viewToShow = Views.hyperSlice( model.mm.getRawChannelImgs().get( 2 ), 2, glf.getOffsetF() );
-				Util.computeMinMax( Views.iterable( viewToShow ), min, max );
-				viewImgCenterActive =
-						Views.offset(
-								Converters.convert(
-										( RandomAccessibleInterval< FloatType > ) viewToShow,
-										new RealFloatNormalizeConverter( max.get() ),
-										new FloatType() ),
-								glf.getOffsetX() - MoMA.GL_WIDTH_IN_PIXELS / 2 - MoMA.GL_PIXEL_PADDING_IN_VIEWS,
-								glf.getOffsetY() );
-				imgCanvasActiveCenter.setScreenImage( glf, viewImgCenterActive );
+				viewImgCenterActive = imgCanvasActiveCenter.setScreenImage( glf, frameSourceChannel2 );
 //			} else if ( cbWhichImgToShow.getSelectedItem().equals( itemClassified ) ) {
 //				final Thread t = new Thread() {
 //
@@ -906,8 +976,7 @@ public class MoMAGui extends JPanel implements ChangeListener, ActionListener {
 //				};
 //				t.start();
 			} else { // BG-subtracted Channel 0 selected or PMFRF not available
-				viewImgCenterActive = Views.offset( Views.hyperSlice( model.mm.getImgTemp(), 2, glf.getOffsetF() ), glf.getOffsetX() - MoMA.GL_WIDTH_IN_PIXELS / 2 - MoMA.GL_PIXEL_PADDING_IN_VIEWS, glf.getOffsetY() );
-				imgCanvasActiveCenter.setScreenImage( glf, viewImgCenterActive );
+				viewImgCenterActive = imgCanvasActiveCenter.setScreenImage( glf, frameSourceBGSubtracted );
 			}
 
 //			if ( glf.isParaMaxFlowComponentTree() ) {
@@ -1001,7 +1070,7 @@ public class MoMAGui extends JPanel implements ChangeListener, ActionListener {
 
 		if ( e.getSource().equals( menuProps ) ) {
 			final DialogPropertiesEditor propsEditor =
-					new DialogPropertiesEditor( this, MoMA.props );
+					new DialogPropertiesEditor( this, model.mm.getContext().getProps() );
 			propsEditor.setVisible( true );
 		}
 		if ( e.getSource().equals( menuTrain ) ) {
@@ -1030,9 +1099,9 @@ public class MoMAGui extends JPanel implements ChangeListener, ActionListener {
 
 					final File file = OsDependentFileChooser.showLoadFileChooser(
 							self,
-							MoMA.STATS_OUTPUT_PATH,
+							config.STATS_OUTPUT_PATH,
 							"Choose tracking to load...",
-							new ExtensionFileFilter( "timm", "Curated TIMM tracking" ) );
+							new ExtensionFileFilter( new String[] { TrackingState.TEXT_SUFFIX, TrackingState.BINARY_SUFFIX }, "Curated TIMM tracking" ) );
 					System.out.println( "File to load tracking from: " + file.getAbsolutePath() );
 
 					try {
@@ -1046,6 +1115,7 @@ public class MoMAGui extends JPanel implements ChangeListener, ActionListener {
 								ilp = model.getCurrentGL().getIlp();
 							}
 							ilp.loadState( file );
+							frameRenderService.invalidate();
 						}
 					} catch ( final IOException e1 ) {
 						e1.printStackTrace();
@@ -1053,48 +1123,27 @@ public class MoMAGui extends JPanel implements ChangeListener, ActionListener {
 				}
 
 				private void doBottomOffsetAdjustmentIfNecessary( final File file )
-						throws FileNotFoundException {
-					final BufferedReader reader = new BufferedReader( new FileReader( file ) );
-
-					String line;
-					try {
-						while ( ( line = reader.readLine() ) != null ) {
-							// ignore comments and empty lines
-							if ( line.trim().startsWith( "#" ) || line.trim().length() == 0 )
-								continue;
-
-							final String[] columns = line.split( "," );
-							if ( columns.length > 1 ) {
-								final String keyword = columns[ 0 ].trim();
-
-								if ( keyword.equals( "BOTTOM_OFFSET" ) ) {
-									final int newBottomOffset =
-											Integer.parseInt( columns[ 1 ].trim() );
-									if ( MoMA.GL_OFFSET_BOTTOM != newBottomOffset ) {
-										MoMA.GL_OFFSET_BOTTOM = newBottomOffset;
-
-										final String message =
-												" >> Loaded tracking is based on a different value for GL_OFFSET_BOTTOM...\n >> Segmentation hypotheses need to be rebuild, please be patient...";
-										System.out.println( message );
-										if ( !MoMA.HEADLESS ) {
-											JOptionPane.showMessageDialog(
-													MoMA.getGui(),
-													message,
-													"Bottom offset needs adjusting...",
-													JOptionPane.INFORMATION_MESSAGE );
-										}
-										MoMA.instance.restartFromGLSegmentation();
-										MoMA.getGui().dataToDisplayChanged();
-									}
-								}
+						throws IOException {
+					final int newBottomOffset = TrackingState.read( file ).getBottomOffset();
+					if ( newBottomOffset >= 0 && config.GL_OFFSET_BOTTOM != newBottomOffset ) {
+						config.GL_OFFSET_BOTTOM = newBottomOffset;
+
+						final String message =
+								" >> Loaded tracking is based on a different value for GL_OFFSET_BOTTOM...\n >> Segmentation hypotheses need to be rebuild, please be patient...";
+						System.out.println( message );
+						if ( !MoMA.HEADLESS ) {
+							try {
+								JOptionPane.showMessageDialog(
+										MoMAGui.this,
+										message,
+										"Bottom offset needs adjusting...",
+										JOptionPane.INFORMATION_MESSAGE );
+							} catch ( final HeadlessException e ) {
+								e.printStackTrace();
 							}
 						}
-					} catch ( final NumberFormatException e ) {
-						e.printStackTrace();
-					} catch ( final HeadlessException e ) {
-						e.printStackTrace();
-					} catch ( final IOException e ) {
-						e.printStackTrace();
+						model.mm.restartFromGLSegmentation();
+						dataToDisplayChanged();
 					}
 				}
 
@@ -1108,9 +1157,9 @@ public class MoMAGui extends JPanel implements ChangeListener, ActionListener {
 			if ( ilp != null ) { // && ilp.getStatus() != GrowthLineTrackingILP.OPTIMIZATION_NEVER_PERFORMED
 				final File file = OsDependentFileChooser.showSaveFileChooser(
 						this,
-						MoMA.STATS_OUTPUT_PATH,
+						config.STATS_OUTPUT_PATH,
 						"Save current tracking to...",
-						new ExtensionFileFilter( "timm", "Curated TIMM tracking" ) );
+						new ExtensionFileFilter( new String[] { TrackingState.TEXT_SUFFIX, TrackingState.BINARY_SUFFIX }, "Curated TIMM tracking (.timm text, .timb binary)" ) );
 				System.out.println( "File to save tracking to: " + file.getAbsolutePath() );
 				ilp.saveState( file );
 			} else {
@@ -1122,26 +1171,26 @@ public class MoMAGui extends JPanel implements ChangeListener, ActionListener {
 			}
 		}
 		if ( e.getSource().equals( menuViewShowConsole ) ) {
-			MoMA.instance.showConsoleWindow( !MoMA.instance.isConsoleVisible() );
+			model.mm.showConsoleWindow( !model.mm.isConsoleVisible() );
 			MoMA.getGuiFrame().setVisible( true );
 		}
 		if ( e.getSource().equals( menuShowImgTemp ) ) {
 			new ImageJ();
-			ImageJFunctions.show( MoMA.instance.getImgTemp(), "BG-subtracted data" );
+			ImageJFunctions.show( model.mm.getImgTemp(), "BG-subtracted data" );
 		}
 		if ( e.getSource().equals( menuShowImgRaw ) ) {
 			new ImageJ();
-			ImageJFunctions.show( MoMA.instance.getRawChannelImgs().get( 0 ), "raw data (ch.0)" );
+			ImageJFunctions.show( model.mm.getRawChannelImgs().get( 0 ), "raw data (ch.0)" );
 		}
 		if ( e.getSource().equals( menuSaveFG ) ) {
 			final File file = OsDependentFileChooser.showSaveFileChooser(
 					this,
-					MoMA.DEFAULT_PATH,
+					config.DEFAULT_PATH,
 					"Save Factor Graph...",
 					new ExtensionFileFilter( new String[] { "txt", "TXT" }, "TXT-file" ) );
 
 			if ( file != null ) {
-				MoMA.DEFAULT_PATH = file.getParent();
+				config.DEFAULT_PATH = file.getParent();
 
 				if ( model.getCurrentGL().getIlp() == null ) {
 					System.out.println( "Generating ILP..." );
@@ -1366,7 +1415,7 @@ public class MoMAGui extends JPanel implements ChangeListener, ActionListener {
 		System.out.println( "Filling in CT hypotheses where needed..." );
 		for ( final GrowthLineFrame glf : model.getCurrentGL().getFrames() ) {
 			if ( glf.getComponentTree() == null ) {
-				glf.generateSimpleSegmentationHypotheses( MoMA.instance.getImgTemp() );
+				glf.generateSimpleSegmentationHypotheses( model.mm.getImgTemp() );
 			}
 		}
 
@@ -1473,7 +1522,7 @@ public class MoMAGui extends JPanel implements ChangeListener, ActionListener {
 		int startFrame = 1;
 		int endFrame = sliderTime.getMaximum() + 1;
 
-		File file = new File( String.format( MoMA.STATS_OUTPUT_PATH + String.format( "/index.html" ) ) );
+		File file = new File( String.format( config.STATS_OUTPUT_PATH + String.format( "/index.html" ) ) );
 
 		if ( !MoMA.HEADLESS ) {
 			final JFileChooser fc = new JFileChooser();
@@ -1485,7 +1534,7 @@ public class MoMAGui extends JPanel implements ChangeListener, ActionListener {
 				if ( !file.getAbsolutePath().endsWith( ".html" ) && !file.getAbsolutePath().endsWith( ".htm" ) ) {
 					file = new File( file.getAbsolutePath() + ".html" );
 				}
-				MoMA.STATS_OUTPUT_PATH = file.getParent();
+				config.STATS_OUTPUT_PATH = file.getParent();
 
 				boolean done = false;
 				while ( !done ) {
@@ -44,6 +44,10 @@ public class MoMAModel {
 	// -------------------------------------------------------------------------------------
 	// getters and setters
 	// -------------------------------------------------------------------------------------
+	public MoMA getMoMA() {
+		return mm;
+	}
+
 	public GrowthLine getCurrentGL() {
 		return mm.getGrowthLines().get( currentGLidx );
 	}
@@ -7,33 +7,36 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.event.MouseEvent;
+import java.util.Arrays;
 import java.util.List;
 
 import javax.swing.JComponent;
 import javax.swing.event.MouseInputListener;
 
 import com.jug.GrowthLineFrame;
-import com.jug.MoMA;
+import com.jug.gui.FrameRenderService.FrameSource;
+import com.jug.gui.FrameRenderService.RenderedFrame;
 import com.jug.lp.GrowthLineTrackingILP;
 import com.jug.lp.Hypothesis;
 import com.jug.util.OSValidator;
 
-import gurobi.GRBException;
+import com.jug.lp.solver.IlpException;
 import ij.IJ;
 import ij.ImagePlus;
 import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.algorithm.componenttree.Component;
-import net.imglib2.converter.RealARGBConverter;
-import net.imglib2.display.projector.IterableIntervalProjector2D;
 import net.imglib2.display.screenimage.awt.ARGBScreenImage;
 import net.imglib2.img.display.imagej.ImageJFunctions;
-import net.imglib2.type.numeric.ARGBType;
 import net.imglib2.type.numeric.integer.ShortType;
 import net.imglib2.type.numeric.real.FloatType;
 import net.imglib2.view.IntervalView;
 import net.imglib2.view.Views;
 
 /**
+ * Shows one growth line frame. The frames (image data plus annotations) are
+ * rendered by the <code>FrameRenderService</code> of the GUI, this canvas only
+ * copies them to the screen and draws the mouse-over highlighting on top.
+ *
  * @author jug
  */
 public class Viewer2DCanvas extends JComponent implements MouseInputListener {
@@ -42,11 +45,19 @@ public class Viewer2DCanvas extends JComponent implements MouseInputListener {
 
 	private final int w;
 	private final int h;
-	private IterableIntervalProjector2D< ?, ? > projector;
-	private ARGBScreenImage screenImage;
+	private final int[] screenPixels;
+	private final ARGBScreenImage screenImage;
+	private FrameSource source;
 	private IntervalView< FloatType > view;
 	private GrowthLineFrame glf;
 
+	/**
+	 * The frame shown last, kept on screen until the rendering of the current
+	 * one is done.
+	 */
+	private RenderedFrame shownFrame;
+	private int scrubbingDirection = 1;
+
 	private boolean showSegmentationAnnotations = true;
 
 	// tracking the mouse (when over)
@@ -85,27 +96,41 @@ public class Viewer2DCanvas extends JComponent implements MouseInputListener {
 		this.w = w;
 		this.h = h;
 		setPreferredSize( new Dimension( w, h ) );
-		this.screenImage = new ARGBScreenImage( w, h );
-		this.projector = null;
+		this.screenPixels = new int[ w * h ];
+		this.screenImage = new ARGBScreenImage( w, h, screenPixels );
+		this.source = null;
 		this.view = null;
 		this.glf = null;
 	}
 
 	/**
-	 * Sets the image data to be displayed when paintComponent is called.
+	 * Sets the image data to be displayed when paintComponent is called and
+	 * prefetches the next frames in scrubbing direction.
 	 *
 	 * @param glf
 	 *            the GrowthLineFrameto be displayed
-	 * @param viewImg
-	 *            an IntervalView<FloatType> containing the desired view
-	 *            onto the raw image data
+	 * @param source
+	 *            provides the view onto the image data for glf (and its
+	 *            neighbors)
+	 * @return the view onto the image data of glf.
 	 */
-	public void setScreenImage( final GrowthLineFrame glf, final IntervalView< FloatType > viewImg ) {
-		setEmptyScreenImage();
-		this.projector = new IterableIntervalProjector2D< FloatType, ARGBType >( 0, 1, viewImg, screenImage, new RealARGBConverter< FloatType >( 0, 1 ) );
-		this.view = viewImg;
+	public IntervalView< FloatType > setScreenImage( final GrowthLineFrame glf, final FrameSource source ) {
+		if ( this.glf != null && glf.getParent() == this.glf.getParent() && glf != this.glf ) {
+			scrubbingDirection = ( glf.getTime() < this.glf.getTime() ) ? -1 : 1;
+		}
+		this.source = source;
+		this.view = source.getView( glf );
 		this.glf = glf;
+
+		final List< GrowthLineFrame > frames = glf.getParent().getFrames();
+		final int t = frames.indexOf( glf );
+		for ( int i = 1; i <= FrameRenderService.NUM_PREFETCHED_FRAMES; i++ ) {
+			final int tNext = t + i * scrubbingDirection;
+			if ( tNext < 0 || tNext >= frames.size() ) break;
+			mmgui.getFrameRenderService().prefetch( new FrameRenderService.Key( frames.get( tNext ), source, w, h, showSegmentationAnnotations ) );
+		}
 		this.repaint();
+		return view;
 	}
 
 	/**
@@ -126,15 +151,16 @@ public class Viewer2DCanvas extends JComponent implements MouseInputListener {
 	 *            note that the extension you give determines the file format!
 	 */
 	public void exportSegmentationImage( final String path ) {
-		final RandomAccessibleInterval< ShortType > segmImg = MoMA.instance.getCellSegmentedChannelImgs();
+		final RandomAccessibleInterval< ShortType > segmImg = mmgui.model.getMoMA().getCellSegmentedChannelImgs( glf.getParent() );
 		final long[] min = new long[ 2 ];
 		final long[] max = new long[ 2 ];
 		screenImage.min( min );
 		screenImage.max( max );
-		final long shift = ( segmImg.dimension( 0 ) - screenImage.dimension( 0 ) ) / 2;
+		// same offset as used for the views onto the raw image (see MoMAGui)
+		final long shift = glf.getOffsetX() - glf.getConfig().GL_WIDTH_IN_PIXELS / 2 - glf.getConfig().GL_PIXEL_PADDING_IN_VIEWS;
 		min[ 0 ] += shift;
 		max[ 0 ] += shift;
-		final IntervalView< ShortType > imgToExport = Views.interval( Views.hyperSlice( segmImg, 2, MoMA.getGui().sliderTime.getValue() ), min, max );
+		final IntervalView< ShortType > imgToExport = Views.interval( Views.hyperSlice( segmImg, 2, mmgui.sliderTime.getValue() ), min, max );
 		final ImagePlus segImage = ImageJFunctions.wrapFloat( imgToExport, "export" );
 		IJ.save( segImage, path );
 	}
@@ -143,48 +169,35 @@ public class Viewer2DCanvas extends JComponent implements MouseInputListener {
 	 * Prepares to display an empty image.
 	 */
 	public void setEmptyScreenImage() {
-		screenImage = new ARGBScreenImage( w, h );
-		this.projector = null;
+		this.source = null;
 		this.view = null;
 		this.glf = null;
+		this.shownFrame = null;
 	}
 
 	@Override
 	public void paintComponent( final Graphics g ) {
-		try {
-			if ( projector != null ) {
-				projector.map();
-			}
-
-			if ( showSegmentationAnnotations ) {
-				glf.drawCenterLine( screenImage, view );
-				final int t = glf.getParent().getFrames().indexOf( glf );
-
-				// DRAW OPTIMAL SEGMENTATION + PRUNE-COLORING
-				glf.drawOptimalSegmentation(
-						screenImage,
-						view,
-						glf.getParent().getIlp().getOptimalSegmentation( t ) );
+		// only rendered frames are shown, otherwise the last one stays
+		boolean isCurrent = false;
+		if ( glf == null ) {
+			shownFrame = null;
+		} else {
+			final RenderedFrame frame = mmgui.getFrameRenderService().get( new FrameRenderService.Key( glf, source, w, h, showSegmentationAnnotations ), view, this );
+			if ( frame != null ) {
+				shownFrame = frame;
+				isCurrent = true;
 			}
-
-		} catch ( final ArrayIndexOutOfBoundsException e ) {
-			// this can happen if a growth line, due to shift, exists in one
-			// frame, and does not exist in others.
-			// If for this growth line we want to visualize a time where the
-			// GrowthLine is empty, the projector
-			// throws a ArrayIndexOutOfBoundsException that I catch
-			// hereby... ;)
-			System.err.println( "ArrayIndexOutOfBoundsException in paintComponent of Viewer2DCanvas!" );
-			// e.printStackTrace();
-		} catch ( final NullPointerException e ) {
-			// System.err.println( "View or glf not yet set in MotherMachineGui!" );
-			// e.printStackTrace();
+		}
+		if ( shownFrame != null ) {
+			System.arraycopy( shownFrame.getPixels(), 0, screenPixels, 0, screenPixels.length );
+		} else {
+			Arrays.fill( screenPixels, 0 );
 		}
 
 		// Mouse-position related stuff...
 		String strToShow = "";
 		String str2ToShow = " ";
-		if ( !this.isDragging && this.isMouseOver && glf != null && glf.getParent().getIlp() != null ) {
+		if ( isCurrent && !this.isDragging && this.isMouseOver && glf.getParent().getIlp() != null ) {
 			float cost = Float.NaN;
 			//TODO NOT nice... do something against that, please!
 			final int t = glf.getTime();
@@ -250,6 +263,7 @@ public class Viewer2DCanvas extends JComponent implements MouseInputListener {
 						hyp.setPruneRoot( !hyp.isPruneRoot(), ilp );
 					}
 				}
+				mmgui.getFrameRenderService().invalidate();
 				mmgui.dataToDisplayChanged();
 				return; // avoid re-optimization!
 			} else {
@@ -264,7 +278,7 @@ public class Viewer2DCanvas extends JComponent implements MouseInputListener {
 						}
 						ilp.addSegmentNotInSolutionConstraint( hyp2avoid );
 					}
-				} catch ( final GRBException e1 ) {
+				} catch ( final IlpException e1 ) {
 					e1.printStackTrace();
 				}
 			}
@@ -280,7 +294,7 @@ public class Viewer2DCanvas extends JComponent implements MouseInputListener {
 					ilp.model.remove( hyp2add.getSegmentSpecificConstraint() );
 				}
 				ilp.addSegmentInSolutionConstraint( hyp2add, hyps2remove );
-			} catch ( final GRBException e1 ) {
+			} catch ( final IlpException e1 ) {
 				e1.printStackTrace();
 			}
 		}
@@ -289,7 +303,7 @@ public class Viewer2DCanvas extends JComponent implements MouseInputListener {
 
 			@Override
 			public void run() {
-				ilp.run();
+				ilp.runIncremental( t );
 			}
 		}
 		final IlpThread thread = new IlpThread();
@@ -1,10 +1,14 @@
 /**
- * 
+ *
  */
 package com.jug.loops;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import net.imagej.ImageJ;
 import net.imagej.ops.Op;
@@ -13,12 +17,47 @@ import net.imglib2.type.Type;
 import net.imglib2.view.Views;
 
 /**
+ * Maps an Op over all slices of a <code>RandomAccessibleInterval</code>.
+ * All instances share one lazily created ImageJ/Ops context, such that
+ * calling these methods once per frame does not pay the context startup
+ * for every frame. If an <code>ExecutorService</code> is given, slices are
+ * processed concurrently; results are always returned in slice order.
+ *
  * @author jug
  *
  */
 public class Loops<IMG_T extends Type< IMG_T >, INNER_RET_T> {
 
-    /** Hyperslices given <code>RandomAccessibleInterval</code> and hands individual slices to a 
+    private static ImageJ ij;
+
+    private final ExecutorService executor;
+
+    /**
+     * Creates a Loops instance that processes slices sequentially.
+     */
+    public Loops() {
+	this( null );
+    }
+
+    /**
+     * @param executor - used to process slices concurrently. If
+     * <code>null</code>, slices will be processed sequentially in the calling thread.
+     */
+    public Loops( final ExecutorService executor ) {
+	this.executor = executor;
+    }
+
+    /**
+     * @return the ImageJ context shared by all Loops (created on first use).
+     */
+    public static synchronized ImageJ getSharedContext() {
+	if ( ij == null ) {
+	    ij = new ImageJ();
+	}
+	return ij;
+    }
+
+    /** Hyperslices given <code>RandomAccessibleInterval</code> and hands individual slices to a
      *  given UnaryOperation.
      * @param rai - <code>RandomAccessibleInterval</code> to be hypersliced.
      * @param d - dimension along which the hyperslices will be created.
@@ -28,25 +67,21 @@ public class Loops<IMG_T extends Type< IMG_T >, INNER_RET_T> {
      * @return a List of all the individual return values.
      */
     public List<INNER_RET_T> forEachHyperslice(
-	    RandomAccessibleInterval<IMG_T> rai, int d, 
+	    RandomAccessibleInterval<IMG_T> rai, int d,
 	    Class<? extends Op> opClass) {
-    	
-	final ImageJ ij = new ImageJ();
-	
-	ArrayList<INNER_RET_T> ret = new ArrayList<INNER_RET_T>((int)rai.dimension(d));
-	
+
+	final List< RandomAccessibleInterval< IMG_T > > slices = new ArrayList< RandomAccessibleInterval< IMG_T > >( ( int ) rai.dimension( d ) );
 	for (long i=0; i<rai.dimension(d); i++) {
-	    INNER_RET_T r = (INNER_RET_T) ij.op().run(opClass, Views.hyperSlice(rai, d, i));
-	    ret.add(r);
+	    slices.add( Views.hyperSlice( rai, d, rai.min( d ) + i ) );
 	}
-	
-	return ret;
+
+	return runOnSlices( slices, opClass );
     }
-    
-    /** Slices given <code>RandomAccessibleInterval</code> along given dimension and hands those to a 
-     *  given UnaryOperation. The difference to <code>forEachHyperslice</code> is, 
-     *  that the image dimensions of the given <code>RandomAccessibleInterval</code> 
-     *  are preserved and pointers (like e.g. Cursors) created on the slices can be 
+
+    /** Slices given <code>RandomAccessibleInterval</code> along given dimension and hands those to a
+     *  given UnaryOperation. The difference to <code>forEachHyperslice</code> is,
+     *  that the image dimensions of the given <code>RandomAccessibleInterval</code>
+     *  are preserved and pointers (like e.g. Cursors) created on the slices can be
      *  used to locate the same places in the original <code>RandomAccessibleInterval</code>.
      * @param rai - <code>RandomAccessibleInterval</code> to be hypersliced.
      * @param d - dimension along which the hyperslices will be created.
@@ -56,25 +91,58 @@ public class Loops<IMG_T extends Type< IMG_T >, INNER_RET_T> {
      * @return a List of all the individual return values.
      */
     public List<INNER_RET_T> forEachIntervalSlice(
-	    RandomAccessibleInterval<IMG_T> rai, int d, 
+	    RandomAccessibleInterval<IMG_T> rai, int d,
 	    Class<? extends Op> opClass) {
-    	
-	final ImageJ ij = new ImageJ();
-	
-	ArrayList<INNER_RET_T> ret = new ArrayList<INNER_RET_T>((int)rai.dimension(d));
-	
+
+	final List< RandomAccessibleInterval< IMG_T > > slices = new ArrayList< RandomAccessibleInterval< IMG_T > >( ( int ) rai.dimension( d ) );
+
 	final int n = rai.numDimensions();
-	long[] min = new long[n];
-	rai.min( min );
-	long[] max = new long[n];
-	rai.max( max );
 	for (long i=0; i<rai.dimension(d); i++) {
-	    min[ d ] = i;
-	    max[ d ] = i;
-	    INNER_RET_T r = (INNER_RET_T) ij.op().run(opClass, Views.interval(rai, min, max));
-	    ret.add(r);
+	    long[] min = new long[n];
+	    rai.min( min );
+	    long[] max = new long[n];
+	    rai.max( max );
+	    min[ d ] = rai.min( d ) + i;
+	    max[ d ] = rai.min( d ) + i;
+	    slices.add( Views.interval( rai, min, max ) );
+	}
+
+	return runOnSlices( slices, opClass );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private List< INNER_RET_T > runOnSlices( final List< RandomAccessibleInterval< IMG_T > > slices, final Class< ? extends Op > opClass ) {
+	final ImageJ context = getSharedContext();
+
+	final ArrayList< INNER_RET_T > ret = new ArrayList< INNER_RET_T >( slices.size() );
+
+	if ( executor == null || slices.size() < 2 ) {
+	    for ( final RandomAccessibleInterval< IMG_T > slice : slices ) {
+		ret.add( ( INNER_RET_T ) context.op().run( opClass, slice ) );
+	    }
+	    return ret;
+	}
+
+	final List< Future< INNER_RET_T > > futures = new ArrayList< Future< INNER_RET_T > >( slices.size() );
+	for ( final RandomAccessibleInterval< IMG_T > slice : slices ) {
+	    futures.add( executor.submit( new Callable< INNER_RET_T >() {
+
+		@Override
+		public INNER_RET_T call() throws Exception {
+		    return ( INNER_RET_T ) context.op().run( opClass, slice );
+		}
+	    } ) );
+	}
+	for ( final Future< INNER_RET_T > future : futures ) {
+	    try {
+		ret.add( future.get() );
+	    } catch ( final InterruptedException e ) {
+		Thread.currentThread().interrupt();
+		throw new RuntimeException( "Interrupted while waiting for slice results.", e );
+	    } catch ( final ExecutionException e ) {
+		throw new RuntimeException( "Op " + opClass.getSimpleName() + " failed on slice.", e.getCause() );
+	    }
 	}
-	
 	return ret;
     }
 }
@@ -7,11 +7,11 @@ import java.util.List;
 
 import com.jug.export.FactorGraphFileBuilder_SCALAR;
 
-import gurobi.GRB;
-import gurobi.GRBConstr;
-import gurobi.GRBException;
-import gurobi.GRBLinExpr;
-import gurobi.GRBVar;
+import com.jug.lp.solver.IlpConstr;
+import com.jug.lp.solver.IlpException;
+import com.jug.lp.solver.IlpLinExpr;
+import com.jug.lp.solver.IlpModel;
+import com.jug.lp.solver.IlpVar;
 
 /**
  * Partially implemented class for everything that wants to be an assignment.
@@ -29,28 +29,42 @@ public abstract class AbstractAssignment< H extends Hypothesis< ? > > {
 	protected GrowthLineTrackingILP ilp;
 
 	private int exportVarIdx = -1;
-	private GRBVar ilpVar;
+	private IlpVar ilpVar;
 
 	private boolean isGroundTruth = false;
 	private boolean isGroundUntruth = false;
-	private GRBConstr constrGroundTruth;
+	private IlpConstr constrGroundTruth;
 
 	private boolean isPruned = false;
 
+	/**
+	 * Id of this assignment in the <code>HypothesisAssignmentStore</code> it
+	 * was added to (-1 if none).
+	 */
+	private int storeId = -1;
+
 	/**
 	 * Creates an assignment...
 	 *
 	 * @param type
 	 * @param cost
 	 */
-	public AbstractAssignment( final int type, final GRBVar ilpVariable, final GrowthLineTrackingILP ilp ) {
+	public AbstractAssignment( final int type, final IlpVar ilpVariable, final GrowthLineTrackingILP ilp ) {
 		this.setType( type );
-		setGRBVar( ilpVariable );
+		setIlpVar( ilpVariable );
 		setGrowthLineTrackingILP( ilp );
 	}
 
 	abstract public int getId();
 
+	int getStoreId() {
+		return storeId;
+	}
+
+	void setStoreId( final int storeId ) {
+		this.storeId = storeId;
+	}
+
 	/**
 	 * @return the type
 	 */
@@ -84,7 +98,7 @@ public abstract class AbstractAssignment< H extends Hypothesis< ? > > {
 	/**
 	 * @return the ilpVar
 	 */
-	public GRBVar getGRBVar() {
+	public IlpVar getIlpVar() {
 		return ilpVar;
 	}
 
@@ -92,7 +106,7 @@ public abstract class AbstractAssignment< H extends Hypothesis< ? > > {
 	 * @param ilpVar
 	 *            the ilpVar to set
 	 */
-	public void setGRBVar( final GRBVar ilpVar ) {
+	public void setIlpVar( final IlpVar ilpVar ) {
 		this.ilpVar = ilpVar;
 	}
 
@@ -109,7 +123,7 @@ public abstract class AbstractAssignment< H extends Hypothesis< ? > > {
 
 	/**
 	 * @param model
-	 *            GRBModel instance (the ILP)
+	 *            IlpModel instance (the ILP)
 	 */
 	public void setGrowthLineTrackingILP( final GrowthLineTrackingILP ilp ) {
 		this.ilp = ilp;
@@ -117,49 +131,45 @@ public abstract class AbstractAssignment< H extends Hypothesis< ? > > {
 
 	/**
 	 * @return the cost
-	 * @throws GRBException
 	 */
 	public float getCost() {
-		float cost = 0;
-		try {
-			cost = ( float ) getGRBVar().get( GRB.DoubleAttr.Obj );
-		} catch ( final GRBException e ) {
-			System.err.println( "CRITICAL: cost could not be read out of Gurobi ILP!" );
-//			e.printStackTrace();
-		}
-		return cost;
+		return ( float ) getIlpVar().getObj();
 	}
 
 	/**
 	 * @param cost
 	 *            the cost to set
-	 * @throws GRBException
+	 * @throws IlpException
 	 */
-	public void setCost( final float cost ) throws GRBException {
-		getGRBVar().set( GRB.DoubleAttr.ObjVal, cost );
+	public void setCost( final float cost ) throws IlpException {
+		getIlpVar().setObj( cost );
 	}
 
 	/**
-	 * @return true, if the ilpVar of this Assignment is equal to 1.0.
-	 * @throws GRBException
+	 * @return true, if the ilpVar of this Assignment is equal to 1.0 in the
+	 *         last solution of the ILP.
+	 * @throws IlpException
+	 *             if the ILP has no solution (yet).
 	 */
-	public boolean isChoosen() throws GRBException {
-		return ( getGRBVar().get( GRB.DoubleAttr.X ) == 1.0 );
+	public boolean isChoosen() throws IlpException {
+		final SolutionSnapshot solution = ilp.getSolution();
+		if ( solution == null ) { throw new IlpException( "No solution available." ); }
+		return solution.isChosen( this );
 	}
 
 	/**
 	 * Abstract method that will, once implemented, add a set of assignment
 	 * related constraints to the ILP (model) later to be solved by Gurobi.
 	 *
-	 * @throws GRBException
+	 * @throws IlpException
 	 */
-	public abstract void addConstraintsToLP() throws GRBException;
+	public abstract void addConstraintsToLP() throws IlpException;
 
 	/**
 	 * Abstract method that will, once implemented, build the constraint
 	 * representations needed to save the FG.
 	 *
-	 * @throws GRBException
+	 * @throws IlpException
 	 */
 	public abstract List< String > getConstraintsToSave_PASCAL();
 
@@ -203,7 +213,9 @@ public abstract class AbstractAssignment< H extends Hypothesis< ? > > {
 	}
 
 	/**
-	 *
+	 * Re-optimizes the ILP in a new thread. Only a time window around this
+	 * assignment is re-solved (see
+	 * <code>GrowthLineTrackingILP.runIncremental</code>).
 	 */
 	public void reoptimize() {
 		try {
@@ -213,11 +225,11 @@ public abstract class AbstractAssignment< H extends Hypothesis< ? > > {
 
 				@Override
 				public void run() {
-					ilp.run();
+					ilp.runIncremental( Math.max( 0, getIlpVar().getLayer() ) );
 				}
 			} );
 			t.start();
-		} catch ( final GRBException e ) {
+		} catch ( final IlpException e ) {
 			e.printStackTrace();
 		}
 	}
@@ -230,25 +242,25 @@ public abstract class AbstractAssignment< H extends Hypothesis< ? > > {
 			if ( add ) {
 				final float value = ( this.isGroundUntruth ) ? 0f : 1f;
 
-				final GRBLinExpr exprGroundTruth = new GRBLinExpr();
-				exprGroundTruth.addTerm( 1.0, getGRBVar() );
-				constrGroundTruth = ilp.model.addConstr( exprGroundTruth, GRB.EQUAL, value, "GroundTruthConstraint_" + getGRBVar().toString() );
+				final IlpLinExpr exprGroundTruth = new IlpLinExpr();
+				exprGroundTruth.addTerm( 1.0, getIlpVar() );
+				constrGroundTruth = ilp.model.addConstr( exprGroundTruth, IlpModel.EQUAL, value, "GroundTruthConstraint_" + getIlpVar().toString() );
 			} else {
 				if ( constrGroundTruth != null ) {
 					ilp.model.remove( constrGroundTruth );
 					constrGroundTruth = null;
 				}
 			}
-		} catch ( final GRBException e ) {
+		} catch ( final IlpException e ) {
 			e.printStackTrace();
 		}
 	}
 
 	/**
 	 *
-	 * @return null if not set, otherwise the GRBConstr.
+	 * @return null if not set, otherwise the IlpConstr.
 	 */
-	public GRBConstr getGroundTroothConstraint() {
+	public IlpConstr getGroundTroothConstraint() {
 		return constrGroundTruth;
 	}
 
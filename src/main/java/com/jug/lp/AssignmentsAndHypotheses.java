@@ -9,6 +9,11 @@ import java.util.List;
 import java.util.Map;
 
 /**
+ * Hypotheses and assignments of a tracking ILP, grouped by time-point. All
+ * entries are also registered in a <code>HypothesisAssignmentStore</code>,
+ * which hands out their int ids and holds the neighborhoods (see
+ * <code>HypothesisNeighborhoods</code>).
+ *
  * @author jug
  */
 public class AssignmentsAndHypotheses< A extends AbstractAssignment< H >, H extends Hypothesis< ? > > {
@@ -38,10 +43,17 @@ public class AssignmentsAndHypotheses< A extends AbstractAssignment< H >, H exte
 	 */
 	private final Map< Object, H > hmap;
 
+	private final HypothesisAssignmentStore< H, A > store;
+
 	// -------------------------------------------------------------------------------------
 	// construction
 	// -------------------------------------------------------------------------------------
 	public AssignmentsAndHypotheses() {
+		this( new HypothesisAssignmentStore< H, A >() );
+	}
+
+	public AssignmentsAndHypotheses( final HypothesisAssignmentStore< H, A > store ) {
+		this.store = store;
 		a_t = new ArrayList< List< A > >();
 		h_t = new ArrayList< List< H > >();
 		hmap = new HashMap< Object, H >();
@@ -76,6 +88,7 @@ public class AssignmentsAndHypotheses< A extends AbstractAssignment< H >, H exte
 		while ( t >= a_t.size() ) {
 			addTimeStep();
 		}
+		store.addAssignment( t, a );
 		return a_t.get( t ).add( a );
 	}
 
@@ -122,6 +135,7 @@ public class AssignmentsAndHypotheses< A extends AbstractAssignment< H >, H exte
 			addTimeStep();
 		}
 		if ( h_t.get( t ).add( h ) ) {
+			store.addHypothesis( t, h );
 			hmap.put( h.getWrappedHypothesis(), h );
 			return true;
 		}
@@ -172,6 +186,14 @@ public class AssignmentsAndHypotheses< A extends AbstractAssignment< H >, H exte
 		return hmap.get( something );
 	}
 
+	/**
+	 * @return the store holding the int ids of all hypotheses and
+	 *         assignments.
+	 */
+	public HypothesisAssignmentStore< H, A > getStore() {
+		return store;
+	}
+
 	/**
 	 * @return the number of entries in the outer lists of <code>h_t</code> and
 	 *         <code>a_t</code>.
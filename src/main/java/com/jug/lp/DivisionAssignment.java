@@ -8,8 +8,8 @@ import java.util.List;
 
 import com.jug.export.FactorGraphFileBuilder_SCALAR;
 
-import gurobi.GRBException;
-import gurobi.GRBVar;
+import com.jug.lp.solver.IlpException;
+import com.jug.lp.solver.IlpVar;
 import net.imglib2.algorithm.componenttree.Component;
 import net.imglib2.type.numeric.real.FloatType;
 
@@ -34,9 +34,9 @@ public class DivisionAssignment extends AbstractAssignment< Hypothesis< Componen
 	 * @param from
 	 * @param to1
 	 * @param to2
-	 * @throws GRBException
+	 * @throws IlpException
 	 */
-	public DivisionAssignment( final int t, final GRBVar ilpVariable, final GrowthLineTrackingILP ilp, final AssignmentsAndHypotheses< AbstractAssignment< Hypothesis< Component< FloatType, ? > > >, Hypothesis< Component< FloatType, ? > > > nodes, final HypothesisNeighborhoods< Hypothesis< Component< FloatType, ? > >, AbstractAssignment< Hypothesis< Component< FloatType, ? > > > > edges, final Hypothesis< Component< FloatType, ? >> from, final Hypothesis< Component< FloatType, ? >> toUpper, final Hypothesis< Component< FloatType, ? >> toLower ) throws GRBException {
+	public DivisionAssignment( final int t, final IlpVar ilpVariable, final GrowthLineTrackingILP ilp, final AssignmentsAndHypotheses< AbstractAssignment< Hypothesis< Component< FloatType, ? > > >, Hypothesis< Component< FloatType, ? > > > nodes, final HypothesisNeighborhoods< Hypothesis< Component< FloatType, ? > >, AbstractAssignment< Hypothesis< Component< FloatType, ? > > > > edges, final Hypothesis< Component< FloatType, ? >> from, final Hypothesis< Component< FloatType, ? >> toUpper, final Hypothesis< Component< FloatType, ? >> toLower ) throws IlpException {
 		super( GrowthLineTrackingILP.ASSIGNMENT_DIVISION, ilpVariable, ilp );
 		this.from = from;
 		this.toUpper = toUpper;
@@ -49,13 +49,13 @@ public class DivisionAssignment extends AbstractAssignment< Hypothesis< Componen
 	 * This method is void. DIVISION assignments do not come with assignment
 	 * specific constrains...
 	 *
-	 * @throws GRBException
-	 * @see com.jug.lp.AbstractAssignment#addConstraintsToLP(gurobi.GRBModel,
+	 * @throws IlpException
+	 * @see com.jug.lp.AbstractAssignment#addConstraintsToLP(com.jug.lp.solver.IlpModel,
 	 *      com.jug.lp.AssignmentsAndHypotheses,
 	 *      com.jug.lp.HypothesisNeighborhoods)
 	 */
 	@Override
-	public void addConstraintsToLP() throws GRBException {}
+	public void addConstraintsToLP() throws IlpException {}
 
 	/**
 	 * Division assignments do not come with constraints.
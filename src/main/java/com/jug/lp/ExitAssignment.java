@@ -5,14 +5,15 @@ package com.jug.lp;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.jug.MoMA;
 import com.jug.export.FactorGraphFileBuilder_SCALAR;
 
-import gurobi.GRB;
-import gurobi.GRBException;
-import gurobi.GRBLinExpr;
-import gurobi.GRBVar;
+import com.jug.lp.solver.IlpException;
+import com.jug.lp.solver.IlpLinExpr;
+import com.jug.lp.solver.IlpModel;
+import com.jug.lp.solver.IlpVar;
 import net.imglib2.algorithm.componenttree.Component;
 import net.imglib2.type.numeric.real.FloatType;
 
@@ -28,7 +29,7 @@ public class ExitAssignment extends AbstractAssignment< Hypothesis< Component< F
 	private final HypothesisNeighborhoods< Hypothesis< Component< FloatType, ? > >, AbstractAssignment< Hypothesis< Component< FloatType, ? > > > > edges;
 	private final Hypothesis< Component< FloatType, ? >> who;
 
-	private static int dcId = 0;
+	private static final AtomicInteger dcId = new AtomicInteger( 0 );
 
 	/**
 	 * Creates an ExitAssignment.
@@ -36,9 +37,9 @@ public class ExitAssignment extends AbstractAssignment< Hypothesis< Component< F
 	 * @param nodes
 	 * @param edges
 	 * @param who
-	 * @throws GRBException
+	 * @throws IlpException
 	 */
-	public ExitAssignment( final int t, final GRBVar ilpVariable, final GrowthLineTrackingILP ilp, final AssignmentsAndHypotheses< AbstractAssignment< Hypothesis< Component< FloatType, ? > > >, Hypothesis< Component< FloatType, ? > > > nodes, final HypothesisNeighborhoods< Hypothesis< Component< FloatType, ? > >, AbstractAssignment< Hypothesis< Component< FloatType, ? > > > > edges, final List< Hypothesis< Component< FloatType, ? >>> Hup, final Hypothesis< Component< FloatType, ? >> who ) throws GRBException {
+	public ExitAssignment( final int t, final IlpVar ilpVariable, final GrowthLineTrackingILP ilp, final AssignmentsAndHypotheses< AbstractAssignment< Hypothesis< Component< FloatType, ? > > >, Hypothesis< Component< FloatType, ? > > > nodes, final HypothesisNeighborhoods< Hypothesis< Component< FloatType, ? > >, AbstractAssignment< Hypothesis< Component< FloatType, ? > > > > edges, final List< Hypothesis< Component< FloatType, ? >>> Hup, final Hypothesis< Component< FloatType, ? >> who ) throws IlpException {
 		super( GrowthLineTrackingILP.ASSIGNMENT_EXIT, ilpVariable, ilp );
 		this.Hup = Hup;
 		this.edges = edges;
@@ -47,16 +48,16 @@ public class ExitAssignment extends AbstractAssignment< Hypothesis< Component< F
 	}
 
 	/**
-	 * @throws GRBException
-	 * @see com.jug.lp.AbstractAssignment#addConstraintsToLP(gurobi.GRBModel,
+	 * @throws IlpException
+	 * @see com.jug.lp.AbstractAssignment#addConstraintsToLP(com.jug.lp.solver.IlpModel,
 	 *      com.jug.lp.AssignmentsAndHypotheses,
 	 *      com.jug.lp.HypothesisNeighborhoods)
 	 */
 	@Override
-	public void addConstraintsToLP() throws GRBException {
-		final GRBLinExpr expr = new GRBLinExpr();
+	public void addConstraintsToLP() throws IlpException {
+		final IlpLinExpr expr = new IlpLinExpr();
 
-		expr.addTerm( Hup.size(), this.getGRBVar() );
+		expr.addTerm( Hup.size(), this.getIlpVar() );
 
 		boolean add = false;
 		for ( final Hypothesis< Component< FloatType, ? >> upperHyp : Hup ) {
@@ -67,15 +68,15 @@ public class ExitAssignment extends AbstractAssignment< Hypothesis< Component< F
 						continue;
 					}
 					// add term if assignment is NOT another exit-assignment
-					expr.addTerm( 1.0, a_j.getGRBVar() );
+					expr.addTerm( 1.0, a_j.getIlpVar() );
 				}
 			}
 		}
 
+		final int id = dcId.getAndIncrement();
 		if ( add && !MoMA.DISABLE_EXIT_CONSTRAINTS ) {
-			ilp.model.addConstr( expr, GRB.LESS_EQUAL, Hup.size(), "dc_" + dcId );
+			ilp.model.addConstr( expr, IlpModel.LESS_EQUAL, Hup.size(), "dc_" + id );
 		}
-		dcId++;
 	}
 
 	/**
@@ -116,7 +117,7 @@ public class ExitAssignment extends AbstractAssignment< Hypothesis< Component< F
 		final List< Integer > varIds = new ArrayList< Integer >();
 		final List< Integer > coeffs = new ArrayList< Integer >();
 
-		// expr.addTerm( Hup.size(), this.getGRBVar() );
+		// expr.addTerm( Hup.size(), this.getIlpVar() );
 		coeffs.add( new Integer( Hup.size() ) );
 //		varIds.add( new Integer( this.getVarIdx() ) );
 
@@ -127,14 +128,14 @@ public class ExitAssignment extends AbstractAssignment< Hypothesis< Component< F
 						continue;
 					}
 					// add term if assignment is NOT another exit-assignment
-					// expr.addTerm( 1.0, a_j.getGRBVar() );
+					// expr.addTerm( 1.0, a_j.getIlpVar() );
 					coeffs.add( new Integer( 1 ) );
 //					varIds.add( new Integer( a_j.getVarIdx() ) );
 				}
 			}
 		}
 
-		// model.addConstr( expr, GRB.LESS_EQUAL, Hup.size(), "dc_" + dcId );
+		// model.addConstr( expr, IlpModel.LESS_EQUAL, Hup.size(), "dc_" + dcId );
 		final int fkt_id = fgFile.addConstraintFkt( coeffs, "<=", Hup.size() );
 		fgFile.addFactor( fkt_id, varIds, regionIds );
 	}
@@ -0,0 +1,188 @@
+package com.jug.lp;
+
+import gurobi.GRB;
+import gurobi.GRBEnv;
+import gurobi.GRBException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.jug.GrowthLine;
+import com.jug.MoMA;
+import com.jug.util.RunReport;
+
+/**
+ * Builds and solves the tracking ILPs of many growth lines concurrently.
+ * The given thread budget is split between the number of models solved at
+ * the same time and the number of threads GUROBI may use per model.
+ * Each worker uses a <code>GRBEnv</code> of its own while building and
+ * solving a growth line, since GUROBI environments must not be used by
+ * several threads at the same time. Environments are pooled and reused by
+ * later runs (e.g. the next dataset of a batch).
+ *
+ * @author jug
+ */
+public class GrowthLineIlpScheduler {
+
+	/**
+	 * Per growth line outcome of <code>buildAndRun</code>.
+	 */
+	public static class Result {
+
+		public final int glIdx;
+		public long buildMillis;
+		public long solveMillis;
+		public int status = GrowthLineTrackingILP.OPTIMIZATION_NEVER_PERFORMED;
+		public Throwable error;
+
+		public Result( final int glIdx ) {
+			this.glIdx = glIdx;
+		}
+	}
+
+	private final int concurrentModels;
+	private final int solverThreads;
+
+	/**
+	 * GUROBI environments currently not used by any worker.
+	 */
+	private static final ConcurrentLinkedQueue< GRBEnv > idleEnvs = new ConcurrentLinkedQueue< GRBEnv >();
+
+	/**
+	 * @param threadBudget
+	 *            total number of threads to be used.
+	 * @param solverThreadsPerModel
+	 *            number of threads GUROBI may use to solve one model.
+	 */
+	public GrowthLineIlpScheduler( final int threadBudget, final int solverThreadsPerModel ) {
+		final int budget = Math.max( 1, threadBudget );
+		this.solverThreads = Math.max( 1, Math.min( solverThreadsPerModel, budget ) );
+		this.concurrentModels = Math.max( 1, budget / solverThreads );
+	}
+
+	public int getConcurrentModels() {
+		return concurrentModels;
+	}
+
+	public int getSolverThreads() {
+		return solverThreads;
+	}
+
+	/**
+	 * Builds and runs the ILPs of all given growth lines.
+	 *
+	 * @param gls
+	 *            the growth lines to process.
+	 * @return one <code>Result</code> per growth line, in the order of
+	 *         <code>gls</code>.
+	 */
+	public List< Result > buildAndRun( final List< GrowthLine > gls ) {
+		final List< Result > results = new ArrayList< Result >( gls.size() );
+		final int numWorkers = Math.max( 1, Math.min( concurrentModels, gls.size() ) );
+		System.out.println( String.format( "Solving %d ILPs using %d concurrent model(s) with %d solver thread(s) each.", gls.size(), numWorkers, solverThreads ) );
+
+		final ExecutorService pool = Executors.newFixedThreadPool( numWorkers );
+		try {
+			final List< Future< Result > > futures = new ArrayList< Future< Result > >( gls.size() );
+			for ( int i = 0; i < gls.size(); i++ ) {
+				final int glIdx = i;
+				final GrowthLine gl = gls.get( i );
+				futures.add( pool.submit( new Callable< Result >() {
+
+					@Override
+					public Result call() throws Exception {
+						return buildAndRun( glIdx, gl );
+					}
+				} ) );
+			}
+
+			for ( int i = 0; i < futures.size(); i++ ) {
+				Result result;
+				try {
+					result = futures.get( i ).get();
+				} catch ( final InterruptedException e ) {
+					Thread.currentThread().interrupt();
+					result = new Result( i );
+					result.error = e;
+				} catch ( final ExecutionException e ) {
+					result = new Result( i );
+					result.error = e.getCause();
+				}
+				results.add( result );
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		for ( final Result result : results ) {
+			System.out.println( String.format( " > GL# %d: build %.2fs, solve %.2fs, status %d%s", result.glIdx, result.buildMillis / 1000.0, result.solveMillis / 1000.0, result.status, ( result.error != null ) ? " -- FAILED: " + result.error : "" ) );
+		}
+		return results;
+	}
+
+	private Result buildAndRun( final int glIdx, final GrowthLine gl ) {
+		final Result result = new Result( glIdx );
+		GRBEnv env = null;
+		try {
+			System.out.println( " > > > > > Starting LP for GL# " + glIdx + " < < < < < " );
+			env = acquireEnv( gl );
+			final RunReport report = gl.getContext().getRunReport();
+			RunReport.Span span = report.startInThread( "ilp_build", glIdx );
+			try {
+				gl.generateILP( null, env );
+			} finally {
+				span.stop();
+			}
+			result.buildMillis = Math.round( span.getWallSeconds() * 1000 );
+			span.count( "hypotheses", gl.getIlp().nodes.getStore().getNumHypotheses() );
+			span.count( "assignments", gl.getIlp().nodes.getStore().getNumAssignments() );
+
+			span = report.startInThread( "ilp_solve", glIdx );
+			try {
+				gl.runILP();
+			} finally {
+				span.stop();
+			}
+			result.solveMillis = Math.round( span.getWallSeconds() * 1000 );
+			result.status = gl.getIlp().getStatus();
+			span.count( "status", result.status );
+			span.count( "mipGap", gl.getIlp().getMipGap() );
+		} catch ( final Exception e ) {
+			System.out.println( "Building or solving the ILP of GL# " + glIdx + " failed!" );
+			e.printStackTrace();
+			result.error = e;
+		} finally {
+			if ( env != null ) {
+				idleEnvs.add( env );
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Hands out an idle GUROBI environment (or creates a new one) for the
+	 * exclusive use of the calling worker until it is returned to
+	 * <code>idleEnvs</code>. Note that environments are never disposed since
+	 * the models created in them outlive the scheduler (they are used later
+	 * for export and editing). The solver thread count is set on every
+	 * hand-out and only affects models created afterwards.
+	 *
+	 * @return the environment, or <code>null</code> if GUROBI is not the
+	 *         ILP solver chosen for the given growth line.
+	 */
+	private GRBEnv acquireEnv( final GrowthLine gl ) throws GRBException {
+		if ( MoMA.ILP_SOLVER_JAVA.equalsIgnoreCase( gl.getConfig().ILP_SOLVER ) ) { return null; }
+		GRBEnv env = idleEnvs.poll();
+		if ( env == null ) {
+			env = new GRBEnv( "MotherMachineILPs.log" );
+		}
+		env.set( GRB.IntParam.Threads, solverThreads );
+		return env;
+	}
+}
@@ -3,13 +3,10 @@
  */
 package com.jug.lp;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -21,6 +18,7 @@ import javax.swing.JOptionPane;
 import com.jug.GrowthLine;
 import com.jug.GrowthLineFrame;
 import com.jug.MoMA;
+import com.jug.MoMAConfig;
 import com.jug.export.FactorGraphFileBuilder_PASCAL;
 import com.jug.export.FactorGraphFileBuilder_PAUL;
 import com.jug.export.FactorGraphFileBuilder_SCALAR;
@@ -28,15 +26,16 @@ import com.jug.gui.progress.DialogGurobiProgress;
 import com.jug.gui.progress.ProgressListener;
 import com.jug.lp.costs.CostFactory;
 import com.jug.lp.costs.CostManager;
+import com.jug.lp.solver.GurobiIlpModel;
+import com.jug.lp.solver.IlpConstr;
+import com.jug.lp.solver.IlpException;
+import com.jug.lp.solver.IlpLinExpr;
+import com.jug.lp.solver.IlpModel;
+import com.jug.lp.solver.IlpVar;
+import com.jug.lp.solver.LayeredBranchAndBoundModel;
 import com.jug.util.ComponentTreeUtils;
 
-import gurobi.GRB;
-import gurobi.GRBConstr;
 import gurobi.GRBEnv;
-import gurobi.GRBException;
-import gurobi.GRBLinExpr;
-import gurobi.GRBModel;
-import gurobi.GRBVar;
 import net.imglib2.Localizable;
 import net.imglib2.algorithm.componenttree.Component;
 import net.imglib2.algorithm.componenttree.ComponentForest;
@@ -69,30 +68,58 @@ public class GrowthLineTrackingILP {
 
 	public static final float CUTOFF_COST = 3.0f;
 
-	public static GRBEnv env;
-	public static CostManager costManager;
+	/**
+	 * Cost lower bounds are compared against
+	 * <code>CUTOFF_COST + PRUNING_EPSILON</code>, such that float rounding
+	 * can never prune an assignment that would pass the cutoff.
+	 */
+	private static final float PRUNING_EPSILON = 1e-4f;
 
 	// -------------------------------------------------------------------------------------
 	// fields
 	// -------------------------------------------------------------------------------------
 	private final GrowthLine gl;
+	private final MoMAConfig config;
+
+	/**
+	 * Shared by the ILPs of all growth lines of the run (see
+	 * <code>MoMAContext.getCostManager()</code>).
+	 */
+	private final CostManager costManager;
 
-	public GRBModel model;
+	public IlpModel model;
 	private int status = OPTIMIZATION_NEVER_PERFORMED;
 
+	/**
+	 * Snapshot of the last solution found by <code>run()</code>, null if
+	 * there is none.
+	 */
+	private volatile SolutionSnapshot solution = null;
+
 	public final AssignmentsAndHypotheses< AbstractAssignment< Hypothesis< Component< FloatType, ? > > >, Hypothesis< Component< FloatType, ? > > > nodes =
 			new AssignmentsAndHypotheses< AbstractAssignment< Hypothesis< Component< FloatType, ? > > >, Hypothesis< Component< FloatType, ? > > >();
 	public final HypothesisNeighborhoods< Hypothesis< Component< FloatType, ? > >, AbstractAssignment< Hypothesis< Component< FloatType, ? > > > > edgeSets =
-			new HypothesisNeighborhoods< Hypothesis< Component< FloatType, ? > >, AbstractAssignment< Hypothesis< Component< FloatType, ? > > > >();
+			new HypothesisNeighborhoods< Hypothesis< Component< FloatType, ? > >, AbstractAssignment< Hypothesis< Component< FloatType, ? > > > >( nodes.getStore() );
 
-	private final HashMap< Hypothesis< Component< FloatType, ? > >, GRBConstr > ignoreSegmentConstraints =
-			new HashMap< Hypothesis< Component< FloatType, ? > >, GRBConstr >();
-	private final HashMap< Hypothesis< Component< FloatType, ? > >, GRBConstr > freezeSegmentConstraints =
-			new HashMap< Hypothesis< Component< FloatType, ? > >, GRBConstr >();
+	private final HashMap< Hypothesis< Component< FloatType, ? > >, IlpConstr > ignoreSegmentConstraints =
+			new HashMap< Hypothesis< Component< FloatType, ? > >, IlpConstr >();
+	private final HashMap< Hypothesis< Component< FloatType, ? > >, IlpConstr > freezeSegmentConstraints =
+			new HashMap< Hypothesis< Component< FloatType, ? > >, IlpConstr >();
 
 	private int pbcId = 0;
 
-	private final GRBConstr[] segmentInFrameCountConstraint;
+	/**
+	 * Append-only journal used by <code>autosave()</code> (created on first
+	 * use).
+	 */
+	private TrackingStateJournal autosaveJournal = null;
+
+	/**
+	 * Reused buffer of candidate indices (see <code>collectCandidates</code>).
+	 */
+	private int[] candidates = new int[ 64 ];
+
+	private final IlpConstr[] segmentInFrameCountConstraint;
 
 	private final List< ProgressListener > progressListener;
 
@@ -100,30 +127,40 @@ public class GrowthLineTrackingILP {
 	// construction
 	// -------------------------------------------------------------------------------------
 	public GrowthLineTrackingILP( final GrowthLine gl ) {
+		this( gl, null );
+	}
+
+	/**
+	 * Creates an ILP for the given growth line. The solver used is chosen by
+	 * <code>MoMAConfig.ILP_SOLVER</code>. If Gurobi is used, the model lives in the
+	 * given Gurobi environment. Gurobi environments must not be used by more
+	 * than one thread at a time, so concurrently built ILPs should each bring
+	 * their own.
+	 *
+	 * @param gl
+	 *            the growth line to build the tracking ILP for.
+	 * @param modelEnv
+	 *            the environment to create the model in, or <code>null</code>
+	 *            to use the one of the run (see
+	 *            <code>MoMAContext.getGurobiEnv()</code>).
+	 */
+	public GrowthLineTrackingILP( final GrowthLine gl, final GRBEnv modelEnv ) {
 		this.gl = gl;
+		this.config = gl.getConfig();
+		this.costManager = gl.getContext().getCostManager();
 
 		// Array to hold segment# constraints
-		this.segmentInFrameCountConstraint = new GRBConstr[ gl.size() ];
+		this.segmentInFrameCountConstraint = new IlpConstr[ gl.size() ];
 
-		// Setting static stuff (this IS ugly!)
-		if ( env == null ) {
-			try {
-				env = new GRBEnv( "MotherMachineILPs.log" );
-			} catch ( final GRBException e ) {
-				System.out.println( "GrowthLineTrackingILP::env could not be initialized!" );
-				e.printStackTrace();
-			}
-		}
-
-		if ( costManager == null ) {
-			costManager = new CostManager( 6, 13 );
-			costManager.setWeights( new double[] { 0.1, 0.9, 0.5, 0.5, 0, 1, 								// mapping
-			                                       0.1, 0.9, 0.5, 0.5, 0, 1, 1, 0, 1, 1, 0, 0.1, 0.03 } );  // division
-		}
+		final boolean useGurobi = !MoMA.ILP_SOLVER_JAVA.equalsIgnoreCase( config.ILP_SOLVER );
 
 		try {
-			model = new GRBModel( env );
-		} catch ( final GRBException e ) {
+			if ( useGurobi ) {
+				model = new GurobiIlpModel( ( modelEnv != null ) ? modelEnv : gl.getContext().getGurobiEnv() );
+			} else {
+				model = new LayeredBranchAndBoundModel();
+			}
+		} catch ( final IlpException e ) {
 			System.out.println( "GrowthLineTrackingILP::model could not be initialized!" );
 			e.printStackTrace();
 		}
@@ -147,6 +184,22 @@ public class GrowthLineTrackingILP {
 		return status;
 	}
 
+	/**
+	 * @return the solution found by the last call to <code>run()</code>, or
+	 *         <code>null</code> if no solution is available.
+	 */
+	public SolutionSnapshot getSolution() {
+		return solution;
+	}
+
+	/**
+	 * @return the relative optimality gap of the last solver run (infinite if
+	 *         no solution was found, NaN if the model could not be created).
+	 */
+	public double getMipGap() {
+		return ( model == null ) ? Double.NaN : model.getMipGap();
+	}
+
 	// -------------------------------------------------------------------------------------
 	// methods
 	// -------------------------------------------------------------------------------------
@@ -154,6 +207,8 @@ public class GrowthLineTrackingILP {
 		try {
 			// add Hypothesis and Assignments
 			createHypsAndAssignments();
+			// all neighborhoods are known now -- switch to CSR arrays
+			edgeSets.compact();
 
 			// UPDATE GUROBI-MODEL
 			// - - - - - - - - - -
@@ -162,13 +217,7 @@ public class GrowthLineTrackingILP {
 			// Iterate over all assignments and ask them to add their
 			// constraints to the model
 			// - - - - - - - - - - - - - - - - - - - - - - - - - - - -
-			int numHyp = 0;
-			for ( final List< Hypothesis< Component< FloatType, ? >>> innerList : nodes.getAllHypotheses() ) {
-				for ( @SuppressWarnings( "unused" )
-				final Hypothesis< Component< FloatType, ? >> hypothesis : innerList ) {
-					numHyp++;
-				}
-			}
+			final int numHyp = nodes.getStore().getNumHypotheses();
 			int numAss = 0;
 			for ( final List< AbstractAssignment< Hypothesis< Component< FloatType, ? >>> > innerList : nodes.getAllAssignments() ) {
 				for ( final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> assignment : innerList ) {
@@ -190,7 +239,7 @@ public class GrowthLineTrackingILP {
 			model.update();
 //			System.out.println( "Constraints added: " + model.getConstrs().length );
 
-		} catch ( final GRBException e ) {
+		} catch ( final IlpException e ) {
 			System.out.println( "Could not fill data into GrowthLineTrackingILP!" );
 			e.printStackTrace();
 		}
@@ -198,10 +247,10 @@ public class GrowthLineTrackingILP {
 	}
 
 	/**
-	 * @throws GRBException
+	 * @throws IlpException
 	 *
 	 */
-	private void createHypsAndAssignments() throws GRBException {
+	private void createHypsAndAssignments() throws IlpException {
 		createSegmentationHypotheses( 0 );
 		for ( int t = 1; t < gl.size(); t++ ) {
 			createSegmentationHypotheses( t );
@@ -356,21 +405,21 @@ public class GrowthLineTrackingILP {
 
 					if ( edgeSets.getLeftNeighborhood( hyp ) != null ) {
 						for ( final AbstractAssignment< Hypothesis< Component< FloatType, ? > > > a_j : edgeSets.getLeftNeighborhood( hyp ) ) {
-							//expr.addTerm( 1.0, a_j.getGRBVar() );
+							//expr.addTerm( 1.0, a_j.getIlpVar() );
 							coeffs.add( new Integer( 1 ) );
 							varIds.add( new Integer( a_j.getVarIdx() ) );
 						}
 					}
 					if ( edgeSets.getRightNeighborhood( hyp ) != null ) {
 						for ( final AbstractAssignment< Hypothesis< Component< FloatType, ? > > > a_j : edgeSets.getRightNeighborhood( hyp ) ) {
-							//expr.addTerm( -1.0, a_j.getGRBVar() );
+							//expr.addTerm( -1.0, a_j.getIlpVar() );
 							coeffs.add( new Integer( -1 ) );
 							varIds.add( new Integer( a_j.getVarIdx() ) );
 						}
 					}
 
 					// add the constraint for this hypothesis
-					//model.addConstr( expr, GRB.EQUAL, 0.0, "ecc_" + eccId );
+					//model.addConstr( expr, IlpModel.EQUAL, 0.0, "ecc_" + eccId );
 					final int fkt_id = fgFile.addConstraintFkt( coeffs, "==", 0 );
 					fgFile.addFactor( fkt_id, varIds, regionId );
 				}
@@ -435,8 +484,8 @@ public class GrowthLineTrackingILP {
 	 */
 	public float localIntensityBasedCost( final int t, final Component< ?, ? > ctNode ) {
 		//TODO kotz
-		final float[] gapSepFkt = gl.getFrames().get( t ).getSimpleGapSeparationValues( MoMA.instance.getImgTemp() );
-		return CostFactory.getIntensitySegmentationCost( ctNode, gapSepFkt );
+		final float[] gapSepFkt = gl.getFrames().get( t ).getSimpleGapSeparationValues( gl.getContext().getMoMA().getImgTemp() );
+		return CostFactory.getIntensitySegmentationCost( ctNode, gapSepFkt, config );
 	}
 
 	/**
@@ -455,15 +504,17 @@ public class GrowthLineTrackingILP {
 	 * interesting assignments using the <code>addXXXAsignment(...)</code>
 	 * methods.
 	 *
-	 * @throws GRBException
+	 * @throws IlpException
 	 */
-	private void enumerateAndAddAssignments( final int t ) throws GRBException {
+	private void enumerateAndAddAssignments( final int t ) throws IlpException {
 		final List< Hypothesis< Component< FloatType, ? >>> curHyps = nodes.getHypothesesAt( t );
 		final List< Hypothesis< Component< FloatType, ? >>> nxtHyps = nodes.getHypothesesAt( t + 1 );
 
+		final HypothesisIntervalIndex nxtIndex = new HypothesisIntervalIndex( nxtHyps );
+
 		addExitAssignments( t, curHyps );
-		addMappingAssignments( t, curHyps, nxtHyps );
-		addDivisionAssignments( t, curHyps, nxtHyps );
+		addMappingAssignments( t, curHyps, nxtHyps, nxtIndex );
+		addDivisionAssignments( t, curHyps, nxtHyps, nxtIndex );
 		this.reportProgress();
 	}
 
@@ -480,9 +531,9 @@ public class GrowthLineTrackingILP {
 	 * @param hyps
 	 *            a list of hypothesis for which an <code>ExitAssignment</code>
 	 *            should be added.
-	 * @throws GRBException
+	 * @throws IlpException
 	 */
-	private void addExitAssignments( final int t, final List< Hypothesis< Component< FloatType, ? >>> hyps ) throws GRBException {
+	private void addExitAssignments( final int t, final List< Hypothesis< Component< FloatType, ? >>> hyps ) throws IlpException {
 		if ( hyps == null ) return;
 
 		float cost = 0.0f;
@@ -490,7 +541,7 @@ public class GrowthLineTrackingILP {
 		for ( final Hypothesis< Component< FloatType, ? >> hyp : hyps ) {
 			cost = costModulationForSubstitutedILP( hyp.getCosts() );
 
-			final GRBVar newLPVar = model.addVar( 0.0, 1.0, cost, GRB.BINARY, String.format( "a_%d^EXIT--%d", t, hyp.getId() ) );
+			final IlpVar newLPVar = model.addVar( 0.0, 1.0, cost, IlpModel.BINARY, String.format( "a_%d^EXIT--%d", t, hyp.getId() ), t );
 			final List< Hypothesis< Component< FloatType, ? >>> Hup = LpUtils.getHup( hyp, hyps );
 			final ExitAssignment ea = new ExitAssignment( t, newLPVar, this, nodes, edgeSets, Hup, hyp );
 			nodes.addAssignment( t, ea );
@@ -501,6 +552,12 @@ public class GrowthLineTrackingILP {
 
 	/**
 	 * Add a mapping-assignment to a bunch of segmentation hypotheses.
+	 * Only hypotheses in <code>nxtHyps</code> that lie in the window reachable
+	 * from <code>from</code> (see <code>collectCandidates</code>) are visited,
+	 * and pairs whose cost lower bound already exceeds
+	 * <code>CUTOFF_COST</code> are rejected before the compatibility costs are
+	 * computed. The assignments added are exactly the ones a full pairwise
+	 * enumeration would add (in the same order).
 	 *
 	 * @param t
 	 *            the time-point from which the <code>curHyps</code> originate.
@@ -510,63 +567,123 @@ public class GrowthLineTrackingILP {
 	 * @param nxtHyps
 	 *            a list of hypothesis at the next time-point at which the newly
 	 *            added <code>MappingAssignments</code> should end at.
-	 * @throws GRBException
+	 * @param nxtIndex
+	 *            the interval index built on <code>nxtHyps</code>.
+	 * @throws IlpException
 	 */
-	private void addMappingAssignments( final int t, final List< Hypothesis< Component< FloatType, ? >>> curHyps, final List< Hypothesis< Component< FloatType, ? >>> nxtHyps ) throws GRBException {
+	private void addMappingAssignments( final int t, final List< Hypothesis< Component< FloatType, ? >>> curHyps, final List< Hypothesis< Component< FloatType, ? >>> nxtHyps, final HypothesisIntervalIndex nxtIndex ) throws IlpException {
 		if ( curHyps == null || nxtHyps == null ) return;
 
 		float cost = 0.0f;
+		final float cutoff = CUTOFF_COST + PRUNING_EPSILON;
 
-		int i = 0;
 		for ( final Hypothesis< Component< FloatType, ? >> from : curHyps ) {
-			int j = 0;
 			final float fromCost = from.getCosts();
 
-			for ( final Hypothesis< Component< FloatType, ? >> to : nxtHyps ) {
+			// mapping costs are non-negative, so no 'to' can do better than this
+			final float budget = cutoff - costModulationForSubstitutedILP( fromCost, nxtIndex.getMinCost(), 0f );
+			if ( budget < 0 ) continue;
+
+			final int numCandidates = collectCandidates( from, nxtIndex, budget );
+			for ( int c = 0; c < numCandidates; c++ ) {
+				final Hypothesis< Component< FloatType, ? >> to = nxtHyps.get( candidates[ c ] );
 				final float toCost = to.getCosts();
 
-				if ( !( ComponentTreeUtils.isBelowByMoreThen( to, from, MoMA.MAX_CELL_DROP ) ) ) {
+				if ( costModulationForSubstitutedILP( fromCost, toCost, migrationLowerBound( from, to, to ) ) > cutoff ) {
+					continue;
+				}
 
-					final Pair< Float, float[] > compatibilityCostOfMapping = compatibilityCostOfMapping( from, to );
-					cost = costModulationForSubstitutedILP( fromCost, toCost, compatibilityCostOfMapping.getA() );
+				final Pair< Float, float[] > compatibilityCostOfMapping = compatibilityCostOfMapping( from, to );
+				cost = costModulationForSubstitutedILP( fromCost, toCost, compatibilityCostOfMapping.getA() );
 
-					final int numFeatures = 2 + compatibilityCostOfMapping.getB().length;
-					final float[] featureValues = new float[ numFeatures ];
-					int k = 0;
-					featureValues[ k++ ] = fromCost;
-					featureValues[ k++ ] = toCost;
-					for ( final float f : compatibilityCostOfMapping.getB() ) {
-						featureValues[ k++ ] = f;
-					}
+				final int numFeatures = 2 + compatibilityCostOfMapping.getB().length;
+				final float[] featureValues = new float[ numFeatures ];
+				int k = 0;
+				featureValues[ k++ ] = fromCost;
+				featureValues[ k++ ] = toCost;
+				for ( final float f : compatibilityCostOfMapping.getB() ) {
+					featureValues[ k++ ] = f;
+				}
 
-					// features = [ fromCost, toCost, HU, HL, L, onlyH ? 0 : L ]
-					// weights = [ 0.1, 0.9, 0.5, 0.5, 0.0, 1.0 ]
-					//             2.7, 2.7, 0.7, 0.6, 0.6, 0.2
-					if ( cost <= CUTOFF_COST ) {
-						final String name = String.format( "a_%d^MAPPING--(%d,%d)", t, from.getId(), to.getId() );
-						final GRBVar newLPVar = model.addVar( 0.0, 1.0, cost, GRB.BINARY, name );
+				// features = [ fromCost, toCost, HU, HL, L, onlyH ? 0 : L ]
+				// weights = [ 0.1, 0.9, 0.5, 0.5, 0.0, 1.0 ]
+				//             2.7, 2.7, 0.7, 0.6, 0.6, 0.2
+				if ( cost <= CUTOFF_COST ) {
+					final String name = String.format( "a_%d^MAPPING--(%d,%d)", t, from.getId(), to.getId() );
+					final IlpVar newLPVar = model.addVar( 0.0, 1.0, cost, IlpModel.BINARY, name, t );
 
-						costManager.addMappingVariable( newLPVar, featureValues );
-						if ( Math.abs( cost - costManager.getCurrentCost( newLPVar ) ) > 0.00001 ) {
-							System.err.println( "Mapping cost mismatch!" );
-						}
+					costManager.addMappingVariable( newLPVar, featureValues );
+					if ( Math.abs( cost - costManager.getCurrentCost( newLPVar ) ) > 0.00001 ) {
+						System.err.println( "Mapping cost mismatch!" );
+					}
 
-						final MappingAssignment ma = new MappingAssignment( t, newLPVar, this, nodes, edgeSets, from, to );
-						nodes.addAssignment( t, ma );
-						if ( edgeSets.addToRightNeighborhood( from, ma ) == false ) {
-							System.err.println( "ERROR: Mapping-assignment could not be added to right neighborhood!" );
-						}
-						if ( edgeSets.addToLeftNeighborhood( to, ma ) == false ) {
-							System.err.println( "ERROR: Mapping-assignment could not be added to left neighborhood!" );
-						}
-						j++;
+					final MappingAssignment ma = new MappingAssignment( t, newLPVar, this, nodes, edgeSets, from, to );
+					nodes.addAssignment( t, ma );
+					if ( edgeSets.addToRightNeighborhood( from, ma ) == false ) {
+						System.err.println( "ERROR: Mapping-assignment could not be added to right neighborhood!" );
+					}
+					if ( edgeSets.addToLeftNeighborhood( to, ma ) == false ) {
+						System.err.println( "ERROR: Mapping-assignment could not be added to left neighborhood!" );
 					}
 				}
 			}
-			i++;
 		}
 	}
 
+	/**
+	 * Collects the list indices of all hypotheses in <code>index</code> that
+	 * (i) are not below <code>from</code> by more than
+	 * <code>MoMAConfig.MAX_CELL_DROP</code> and (ii) whose upper boundary moved
+	 * little enough such that half its migration cost (a lower bound of the
+	 * migration part of mapping and division costs) stays within
+	 * <code>budget</code>.
+	 * The migration cost grows monotonically with the distance moved (in
+	 * both directions), hence the walk over the sorted upper bounds starts at
+	 * the position of <code>from</code> and stops at the first hypothesis
+	 * out of budget on either side.
+	 *
+	 * @return the number of indices written to <code>candidates</code>,
+	 *         sorted ascending (i.e. in the order of the indexed list).
+	 */
+	private int collectCandidates( final Hypothesis< Component< FloatType, ? >> from, final HypothesisIntervalIndex index, final float budget ) {
+		final int fromU = from.getLocation().getA().intValue();
+		final int maxToU = from.getLocation().getB().intValue() + config.MAX_CELL_DROP;
+		final float glLength = gl.get( 0 ).size();
+
+		if ( candidates.length < index.size() ) {
+			candidates = new int[ index.size() ];
+		}
+
+		int n = 0;
+		final int pivot = index.firstWithUpperAtLeast( fromU );
+		for ( int k = pivot; k < index.size() && index.getUpper( k ) <= maxToU; k++ ) {
+			if ( 0.5f * CostFactory.getMigrationCost( fromU, index.getUpper( k ), glLength ).getA() > budget ) break;
+			candidates[ n++ ] = index.getListIndex( k );
+		}
+		for ( int k = pivot - 1; k >= 0; k-- ) {
+			if ( 0.5f * CostFactory.getMigrationCost( fromU, index.getUpper( k ), glLength ).getA() > budget ) break;
+			candidates[ n++ ] = index.getListIndex( k );
+		}
+		Arrays.sort( candidates, 0, n );
+		return n;
+	}
+
+	/**
+	 * @return <code>0.5 * ( c_HU + c_HL )</code>, the migration part of the
+	 *         compatibility costs of a mapping (<code>toLower == toUpper</code>)
+	 *         or division from <code>from</code> to the given hypotheses. All
+	 *         other parts of these costs are non-negative.
+	 */
+	private float migrationLowerBound(
+			final Hypothesis< Component< FloatType, ? > > from,
+			final Hypothesis< Component< FloatType, ? > > toUpper,
+			final Hypothesis< Component< FloatType, ? > > toLower ) {
+		final float glLength = gl.get( 0 ).size();
+		final float costDeltaHU = CostFactory.getMigrationCost( from.getLocation().getA().intValue(), toUpper.getLocation().getA().intValue(), glLength ).getA();
+		final float costDeltaHL = CostFactory.getMigrationCost( from.getLocation().getB().intValue(), toLower.getLocation().getB().intValue(), glLength ).getA();
+		return 0.5f * costDeltaHL + 0.5f * costDeltaHU;
+	}
+
 	/**
 	 * Computes the compatibility-mapping-costs between the two given
 	 * hypothesis.
@@ -696,6 +813,9 @@ public class GrowthLineTrackingILP {
 	 * Add a division-assignment to a bunch of segmentation hypotheses. Note
 	 * that this function also looks for suitable pairs of hypothesis in
 	 * nxtHyps, since division-assignments naturally need two right-neighbors.
+	 * Upper hypotheses are enumerated and pruned as in
+	 * <code>addMappingAssignments</code>, lower neighbors are rejected by
+	 * their cost lower bound before the division costs are computed.
 	 *
 	 * @param t
 	 *            the time-point from which the <code>curHyps</code> originate.
@@ -705,69 +825,86 @@ public class GrowthLineTrackingILP {
 	 * @param nxtHyps
 	 *            a list of hypothesis at the next time-point at which the newly
 	 *            added <code>DivisionAssignments</code> should end at.
-	 * @throws GRBException
+	 * @param nxtIndex
+	 *            the interval index built on <code>nxtHyps</code>.
+	 * @throws IlpException
 	 */
-	private void addDivisionAssignments( final int t, final List< Hypothesis< Component< FloatType, ? >>> curHyps, final List< Hypothesis< Component< FloatType, ? >>> nxtHyps ) throws GRBException {
+	private void addDivisionAssignments( final int t, final List< Hypothesis< Component< FloatType, ? >>> curHyps, final List< Hypothesis< Component< FloatType, ? >>> nxtHyps, final HypothesisIntervalIndex nxtIndex ) throws IlpException {
 		if ( curHyps == null || nxtHyps == null ) return;
 
 		float cost = 0.0f;
+		final float cutoff = CUTOFF_COST + PRUNING_EPSILON;
+		final float minToCost = nxtIndex.getMinCost();
 
-		int i = 0;
 		for ( final Hypothesis< Component< FloatType, ? >> from : curHyps ) {
-			int j = 0;
 			final float fromCost = from.getCosts();
+			// part of every division cost out of 'from' (non-negative, as all others)
+			final float divisionLikelihoodCost = CostFactory.getDivisionLikelihoodCost( from );
 
-			for ( final Hypothesis< Component< FloatType, ? >> to : nxtHyps ) {
-				if ( !( ComponentTreeUtils.isBelowByMoreThen( to, from, MoMA.MAX_CELL_DROP ) ) ) {
-					for ( final Component< FloatType, ? > neighborCTN : ComponentTreeUtils.getRightNeighbors( to.getWrappedHypothesis() ) ) {
-						@SuppressWarnings( "unchecked" )
-						final Hypothesis< Component< FloatType, ? > > lowerNeighbor = ( Hypothesis< Component< FloatType, ? >> ) nodes.findHypothesisContaining( neighborCTN );
-						if ( lowerNeighbor == null ) {
-							System.out.println( "CRITICAL BUG!!!! Check GrowthLineTimeSeris::adDivisionAssignment(...)" );
-						} else {
-							final Pair< Float, float[] > compatibilityCostOfDivision = compatibilityCostOfDivision( from, to, lowerNeighbor );
-
-							//TODO toCosts should be split and structSVM routines should acknowledge two separated features!!!
-							final float toCost = to.getCosts() + lowerNeighbor.getCosts();
-							cost = costModulationForSubstitutedILP(
-									fromCost,
-									to.getCosts(),
-									lowerNeighbor.getCosts(),
-									compatibilityCostOfDivision.getA() );
-
-							final int numFeatures = 2 + compatibilityCostOfDivision.getB().length;
-							final float[] featureValues = new float[ numFeatures ];
-							int k = 0;
-							featureValues[ k++ ] = fromCost;
-							featureValues[ k++ ] = toCost;
-							for ( final float f : compatibilityCostOfDivision.getB() ) {
-								featureValues[ k++ ] = f;
-							}
+			final float budget = cutoff - costModulationForSubstitutedILP( fromCost, minToCost, minToCost, divisionLikelihoodCost );
+			if ( budget < 0 ) continue;
+
+			final int numCandidates = collectCandidates( from, nxtIndex, budget );
+			for ( int c = 0; c < numCandidates; c++ ) {
+				final Hypothesis< Component< FloatType, ? >> to = nxtHyps.get( candidates[ c ] );
+				if ( costModulationForSubstitutedILP( fromCost, to.getCosts(), minToCost, divisionLikelihoodCost ) > cutoff ) {
+					continue;
+				}
+
+				for ( final Component< FloatType, ? > neighborCTN : ComponentTreeUtils.getRightNeighbors( to.getWrappedHypothesis() ) ) {
+					@SuppressWarnings( "unchecked" )
+					final Hypothesis< Component< FloatType, ? > > lowerNeighbor = ( Hypothesis< Component< FloatType, ? >> ) nodes.findHypothesisContaining( neighborCTN );
+					if ( lowerNeighbor == null ) {
+						System.out.println( "CRITICAL BUG!!!! Check GrowthLineTimeSeris::adDivisionAssignment(...)" );
+					} else {
+						if ( costModulationForSubstitutedILP(
+								fromCost,
+								to.getCosts(),
+								lowerNeighbor.getCosts(),
+								divisionLikelihoodCost + migrationLowerBound( from, to, lowerNeighbor ) ) > cutoff ) {
+							continue;
+						}
+
+						final Pair< Float, float[] > compatibilityCostOfDivision = compatibilityCostOfDivision( from, to, lowerNeighbor );
+
+						//TODO toCosts should be split and structSVM routines should acknowledge two separated features!!!
+						final float toCost = to.getCosts() + lowerNeighbor.getCosts();
+						cost = costModulationForSubstitutedILP(
+								fromCost,
+								to.getCosts(),
+								lowerNeighbor.getCosts(),
+								compatibilityCostOfDivision.getA() );
+
+						final int numFeatures = 2 + compatibilityCostOfDivision.getB().length;
+						final float[] featureValues = new float[ numFeatures ];
+						int k = 0;
+						featureValues[ k++ ] = fromCost;
+						featureValues[ k++ ] = toCost;
+						for ( final float f : compatibilityCostOfDivision.getB() ) {
+							featureValues[ k++ ] = f;
+						}
 
-							// features = [ fromCost, toCost, HU, HL, L, c(L,0,0), c(0,LT,LT), S, c(S,0,S), cdl, c(1,0,0), c(0,1,0), c(0,0,1) ]
-							// weights =  [ 0.1, 0.9, 0.5, 0.5, 0.0, 1.0, 1.0, 0.0, 1.0, 1.0, 0.0, 0.1, 0.03 ]
-							//             -0.6, 1.1, 0.9, 0.6, 1.6, 1.1, 0.3, 0.4, 0.3, 0.8, 1.6, 1.3, 0.02
-							if ( cost <= CUTOFF_COST ) {
-								final String name = String.format( "a_%d^DIVISION--(%d,%d)", t, from.getId(), to.getId() );
-								final GRBVar newLPVar = model.addVar( 0.0, 1.0, cost, GRB.BINARY, name );
-
-								costManager.addDivisionVariable( newLPVar, featureValues );
-								if ( Math.abs( cost - costManager.getCurrentCost( newLPVar ) ) > 0.00001 ) {
-									System.err.println( "Division cost mismatch!" );
-								}
-
-								final DivisionAssignment da = new DivisionAssignment( t, newLPVar, this, nodes, edgeSets, from, to, lowerNeighbor );
-								nodes.addAssignment( t, da );
-								edgeSets.addToRightNeighborhood( from, da );
-								edgeSets.addToLeftNeighborhood( to, da );
-								edgeSets.addToLeftNeighborhood( lowerNeighbor, da );
-								j++;
+						// features = [ fromCost, toCost, HU, HL, L, c(L,0,0), c(0,LT,LT), S, c(S,0,S), cdl, c(1,0,0), c(0,1,0), c(0,0,1) ]
+						// weights =  [ 0.1, 0.9, 0.5, 0.5, 0.0, 1.0, 1.0, 0.0, 1.0, 1.0, 0.0, 0.1, 0.03 ]
+						//             -0.6, 1.1, 0.9, 0.6, 1.6, 1.1, 0.3, 0.4, 0.3, 0.8, 1.6, 1.3, 0.02
+						if ( cost <= CUTOFF_COST ) {
+							final String name = String.format( "a_%d^DIVISION--(%d,%d)", t, from.getId(), to.getId() );
+							final IlpVar newLPVar = model.addVar( 0.0, 1.0, cost, IlpModel.BINARY, name, t );
+
+							costManager.addDivisionVariable( newLPVar, featureValues );
+							if ( Math.abs( cost - costManager.getCurrentCost( newLPVar ) ) > 0.00001 ) {
+								System.err.println( "Division cost mismatch!" );
 							}
+
+							final DivisionAssignment da = new DivisionAssignment( t, newLPVar, this, nodes, edgeSets, from, to, lowerNeighbor );
+							nodes.addAssignment( t, da );
+							edgeSets.addToRightNeighborhood( from, da );
+							edgeSets.addToLeftNeighborhood( to, da );
+							edgeSets.addToLeftNeighborhood( lowerNeighbor, da );
 						}
 					}
 				}
 			}
-			i++;
 		}
 	}
 
@@ -934,10 +1071,10 @@ public class GrowthLineTrackingILP {
 	 * segmentation hypothesis along such a path can be chosen during the convex
 	 * optimization.
 	 *
-	 * @throws GRBException
+	 * @throws IlpException
 	 *
 	 */
-	public void addPathBlockingConstraints() throws GRBException {
+	public void addPathBlockingConstraints() throws IlpException {
 		// For each time-point
 		for ( int t = 0; t < gl.size(); t++ ) {
 			// Get the full component tree
@@ -964,7 +1101,7 @@ public class GrowthLineTrackingILP {
 	private < C extends Component< ?, C > > void recursivelyAddPathBlockingConstraints(
 			final ComponentForest< C > ct,
 			final int t )
-			throws GRBException {
+			throws IlpException {
 		for ( final C ctRoot : ct.roots() ) {
 			// And call the function adding all the path-blocking-constraints...
 			recursivelyAddPathBlockingConstraints( ctRoot, t );
@@ -991,18 +1128,18 @@ public class GrowthLineTrackingILP {
 	 * @param ctRoot
 	 * @param pbcId
 	 * @param t
-	 * @throws GRBException
+	 * @throws IlpException
 	 */
 	private < C extends Component< ?, C > > void recursivelyAddPathBlockingConstraints(
 			final C ctNode,
-			final int t ) throws GRBException {
+			final int t ) throws IlpException {
 
 		// if ctNode is a leave node -> add constraint (by going up the list of
 		// parents and building up the constraint)
 		if ( ctNode.getChildren().size() == 0 ) {
 			C runnerNode = ctNode;
 
-			final GRBLinExpr exprR = new GRBLinExpr();
+			final IlpLinExpr exprR = new IlpLinExpr();
 			while ( runnerNode != null ) {
 				@SuppressWarnings( "unchecked" )
 				final Hypothesis< Component< FloatType, ? > > hypothesis = ( Hypothesis< Component< FloatType, ? >> ) nodes.findHypothesisContaining( runnerNode );
@@ -1012,14 +1149,14 @@ public class GrowthLineTrackingILP {
 
 				if ( edgeSets.getRightNeighborhood( hypothesis ) != null ) {
 					for ( final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> a : edgeSets.getRightNeighborhood( hypothesis ) ) {
-						exprR.addTerm( 1.0, a.getGRBVar() );
+						exprR.addTerm( 1.0, a.getIlpVar() );
 					}
 				}
 				runnerNode = runnerNode.getParent();
 			}
 			pbcId++;
 			final String name = "pbc_r_t_" + t + "_" + pbcId;
-			model.addConstr( exprR, GRB.LESS_EQUAL, 1.0, name );
+			model.addConstr( exprR, IlpModel.LESS_EQUAL, 1.0, name );
 		} else {
 			// if ctNode is a inner node -> recursion
 			for ( final C ctChild : ctNode.getChildren() ) {
@@ -1085,7 +1222,7 @@ public class GrowthLineTrackingILP {
 
 			C runnerNode = ctNode;
 
-			// final GRBLinExpr exprR = new GRBLinExpr();
+			// final IlpLinExpr exprR = new IlpLinExpr();
 			while ( runnerNode != null ) {
 				@SuppressWarnings( "unchecked" )
 				final Hypothesis< Component< FloatType, ? > > hypothesis = ( Hypothesis< Component< FloatType, ? >> ) nodes.findHypothesisContaining( runnerNode );
@@ -1095,14 +1232,14 @@ public class GrowthLineTrackingILP {
 
 				if ( edgeSets.getRightNeighborhood( hypothesis ) != null ) {
 					for ( final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> a : edgeSets.getRightNeighborhood( hypothesis ) ) {
-						// exprR.addTerm( 1.0, a.getGRBVar() );
+						// exprR.addTerm( 1.0, a.getIlpVar() );
 						coeffs.add( new Integer( 1 ) );
 //						varIds.add( new Integer( a.getVarIdx() ) );
 					}
 				}
 				runnerNode = runnerNode.getParent();
 			}
-			// model.addConstr( exprR, GRB.LESS_EQUAL, 1.0, name );
+			// model.addConstr( exprR, IlpModel.LESS_EQUAL, 1.0, name );
 			final int fkt_id = fgFile.addConstraintFkt( coeffs, "<=", 1 );
 			// TODO puke!
 //			fgFile.addFactor( fkt_id, varIds, ( t + 1 ) / 2 );
@@ -1124,28 +1261,28 @@ public class GrowthLineTrackingILP {
 	 * assignment coming from t-1 we need to continue its interpretation by
 	 * finding an active assignment towards t+1.
 	 */
-	public void addExplainationContinuityConstraints() throws GRBException {
+	public void addExplainationContinuityConstraints() throws IlpException {
 		int eccId = 0;
 
 		// For each time-point
 		for ( int t = 1; t < gl.size(); t++ ) {
 
 			for ( final Hypothesis< Component< FloatType, ? >> hyp : nodes.getHypothesesAt( t ) ) {
-				final GRBLinExpr expr = new GRBLinExpr();
+				final IlpLinExpr expr = new IlpLinExpr();
 
 				if ( edgeSets.getLeftNeighborhood( hyp ) != null ) {
 					for ( final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> a_j : edgeSets.getLeftNeighborhood( hyp ) ) {
-						expr.addTerm( 1.0, a_j.getGRBVar() );
+						expr.addTerm( 1.0, a_j.getIlpVar() );
 					}
 				}
 				if ( edgeSets.getRightNeighborhood( hyp ) != null ) {
 					for ( final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> a_j : edgeSets.getRightNeighborhood( hyp ) ) {
-						expr.addTerm( -1.0, a_j.getGRBVar() );
+						expr.addTerm( -1.0, a_j.getIlpVar() );
 					}
 				}
 
 				// add the constraint for this hypothesis
-				model.addConstr( expr, GRB.EQUAL, 0.0, "ecc_" + eccId );
+				model.addConstr( expr, IlpModel.EQUAL, 0.0, "ecc_" + eccId );
 				eccId++;
 			}
 		}
@@ -1188,9 +1325,17 @@ public class GrowthLineTrackingILP {
 	public void autosave() {
 		if ( !MoMA.HEADLESS && MoMA.getGui().isAutosaveRequested() ) {
 			final File autosaveFile =
-					new File( MoMA.props.getProperty( "import_path" ) + "/--autosave.timm" );
-			saveState( autosaveFile );
-			System.out.println( "Autosave to: " + autosaveFile.getAbsolutePath() );
+					new File( gl.getContext().getProps().getProperty( "import_path" ) + "/--autosave." + TrackingState.BINARY_SUFFIX );
+			if ( autosaveJournal == null || !autosaveJournal.getBaseFile().equals( autosaveFile ) ) {
+				autosaveJournal = new TrackingStateJournal( autosaveFile );
+			}
+			try {
+				autosaveJournal.record( TrackingState.capture( this ) );
+				System.out.println( "Autosave to: " + autosaveFile.getAbsolutePath() );
+			} catch ( final IOException e ) {
+				System.out.println( "Autosave to " + autosaveFile.getAbsolutePath() + " failed!" );
+				e.printStackTrace();
+			}
 		}
 	}
 
@@ -1199,84 +1344,212 @@ public class GrowthLineTrackingILP {
 	 * and starts the convex optimization procedure. This is actually the step
 	 * that will find the MAP in the given model and hence the solution to our
 	 * segmentation and tracking problem.
+	 * If a previous solution exists it is used as warm start.
 	 */
 	public void run() {
+		final DialogGurobiProgress dialog = openProgressDialog();
 		try {
-			// Set maximum time Gurobi may use!
-//			model.getEnv().set( GRB.DoubleParam.TimeLimit, MotherMachine.GUROBI_TIME_LIMIT ); // now handled by callback!
-			model.getEnv().set( GRB.IntParam.OutputFlag, 0 );
-
-			final DialogGurobiProgress dialog = new DialogGurobiProgress( MoMA.getGuiFrame() );
-			final GurobiCallback gcb = new GurobiCallback( dialog );
-			model.setCallback( gcb );
-			if ( !MoMA.HEADLESS ) {
-				dialog.setVisible( true );
-			}
+			// Set maximum time the solver may use!
+			model.setTimeLimit( config.GUROBI_TIME_LIMIT, config.GUROBI_MAX_OPTIMALITY_GAP );
+			final SolutionSnapshot previous = solution;
+			model.setStart( ( previous == null ) ? null : previous.toStartValues( model.getNumVars() ) );
 
 			// RUN + return true if solution is feasible
 			// - - - - - - - - - - - - - - - - - - - - -
-			model.optimize();
-			dialog.notifyGurobiTermination();
-			if ( MoMA.getGui() != null ) {
-				MoMA.getGui().dataToDisplayChanged();
-			}
+			final int solverStatus = model.optimize( dialog );
+			solution = ( model.hasSolution() ) ? new SolutionSnapshot( this, model ) : null;
+			finishRun( solverStatus, dialog );
+		} catch ( final IlpException e ) {
+			System.out.println( "Could not run the generated ILP!" );
+			e.printStackTrace();
+		}
+	}
 
-			// Relaxation run-test for Paul and Bogdan
-			// - - - - - - - - - - - - - - - - - - - -
-//			System.out.println( ">> Relaxing problem..." );
-//			final GRBModel r = model.relax();
-//			System.out.println( ">> Solving relaxed problem..." );
-//			r.optimize();
-//			System.out.println( ">> Counting integral variables..." );
-//			int integral = 0;
-//			int matching = 0;
-//			int numvars = 0;
-//			for ( int idx = 0; idx < r.getVars().length; idx++ ) {
-//				final GRBVar var = model.getVars()[ idx ];
-//				final GRBVar varRelaxed = r.getVars()[ idx ];
-//				final double x = var.get( GRB.DoubleAttr.X );
-//				final double xRelaxed = varRelaxed.get( GRB.DoubleAttr.X );
-//				if ( xRelaxed == 0.0 || xRelaxed == 1.0 ) integral++;
-//				if ( x == xRelaxed ) matching++;
-//				numvars++;
-//			}
-//			System.out.println( String.format( ">> %d, %d, %d", numvars, integral, matching ) );
-
-			// Read solution and extract interpretation
-			// - - - - - - - - - - - - - - - - - - - - -
-			if ( model.get( GRB.IntAttr.Status ) == GRB.Status.OPTIMAL ) {
-				status = OPTIMAL;
-				if ( !MoMA.HEADLESS ) {
-					dialog.pushStatus( "Optimum was found!" );
-					if ( MoMA.getGui() != null ) {
-						MoMA.getGui().focusOnSliderTime();
+	/**
+	 * Re-optimizes the ILP after the user edited something at time-point
+	 * <code>tEdit</code> (e.g. added a segment or assignment constraint).
+	 *
+	 * Instead of solving the entire growth line again, only the time window
+	 * <code>[tEdit-r, tEdit+r]</code> (with
+	 * <code>r = MoMAConfig.REOPTIMIZATION_WINDOW_RADIUS</code>) is re-solved. All
+	 * assignments leaving time-points outside of this window are temporarily
+	 * fixed to their values in the previous solution, which is also used as
+	 * warm start. If the window turns out to be infeasible given its fixed
+	 * boundary, or if the new solution differs from the previous one at the
+	 * border of the window (the fixed boundary might then be what stops the
+	 * changes from propagating further), the radius is doubled and the window
+	 * solved again, until it spans the entire growth line.
+	 *
+	 * Falls back to <code>run()</code> if there is no previous solution or
+	 * incremental re-optimization is switched off (radius <= 0).
+	 *
+	 * @param tEdit
+	 *            the time-point the user edit happened at.
+	 */
+	public void runIncremental( final int tEdit ) {
+		final SolutionSnapshot previous = solution;
+		final int lastT = nodes.getNumberOfTimeSteps() - 1;
+		if ( previous == null || config.REOPTIMIZATION_WINDOW_RADIUS <= 0 ) {
+			run();
+			return;
+		}
+
+		final DialogGurobiProgress dialog = openProgressDialog();
+		try {
+			model.setTimeLimit( config.GUROBI_TIME_LIMIT, config.GUROBI_MAX_OPTIMALITY_GAP );
+			final double[] start = previous.toStartValues( model.getNumVars() );
+
+			int radius = config.REOPTIMIZATION_WINDOW_RADIUS;
+			while ( true ) {
+				final int from = Math.max( 0, tEdit - radius );
+				final int to = Math.min( lastT, tEdit + radius );
+				final boolean entireGrowthLine = ( from == 0 && to == lastT );
+
+				final List< IlpConstr > windowConstraints = new ArrayList< IlpConstr >();
+				if ( !entireGrowthLine ) {
+					for ( int t = 0; t < from; t++ ) {
+						fixRightAssignmentsAt( t, previous, windowConstraints );
+					}
+					for ( int t = to + 1; t <= lastT; t++ ) {
+						fixRightAssignmentsAt( t, previous, windowConstraints );
 					}
-					dialog.setVisible( false );
-					dialog.dispose();
 				}
-			} else if ( model.get( GRB.IntAttr.Status ) == GRB.Status.INFEASIBLE ) {
-				status = INFEASIBLE;
-				if ( !MoMA.HEADLESS ) {
-					dialog.pushStatus( "ILP now infeasible. Please reoptimize!" );
+				if ( dialog != null ) {
+					dialog.pushStatus( String.format( "Re-optimizing time-points %d to %d...", from, to ) );
 				}
-			} else if ( model.get( GRB.IntAttr.Status ) == GRB.Status.UNBOUNDED ) {
-				status = UNBOUNDED;
-			} else if ( model.get( GRB.IntAttr.Status ) == GRB.Status.SUBOPTIMAL ) {
-				status = SUBOPTIMAL;
-			} else if ( model.get( GRB.IntAttr.Status ) == GRB.Status.NUMERIC ) {
-				status = NUMERIC;
-			} else {
-				status = LIMIT_REACHED;
-				if ( !MoMA.HEADLESS ) {
-					dialog.pushStatus( String.format( "Timelimit reached, rel. optimality gap: %.2f%%", gcb.getLatestGap() * 100.0 ) );
+
+				model.setStart( start );
+				final int solverStatus;
+				try {
+					solverStatus = model.optimize( dialog );
+				} finally {
+					model.remove( windowConstraints );
 				}
+				final SolutionSnapshot current = ( model.hasSolution() ) ? new SolutionSnapshot( this, model ) : null;
+
+				if ( entireGrowthLine || ( current != null && !changedAtWindowBorder( previous, current, from, to, lastT ) ) ) {
+					System.out.println( String.format( "Re-optimized time-points %d to %d (of %d).", from, to, lastT + 1 ) );
+					solution = current;
+					finishRun( solverStatus, dialog );
+					return;
+				}
+				radius *= 2;
 			}
-		} catch ( final GRBException e ) {
+		} catch ( final IlpException e ) {
 			System.out.println( "Could not run the generated ILP!" );
 			e.printStackTrace();
 		}
 	}
 
+	/**
+	 * Adds one constraint per hypothesis at time-point <code>t</code> that
+	 * fixes all assignments towards the right to their values in the given
+	 * solution. (Same encoding as in <code>freezeAssignmentsAsAre</code>.)
+	 *
+	 * @param added
+	 *            all added constraints are appended to this list.
+	 * @throws IlpException
+	 */
+	private void fixRightAssignmentsAt( final int t, final SolutionSnapshot snapshot, final List< IlpConstr > added ) throws IlpException {
+		final List< Hypothesis< Component< FloatType, ? >>> hyps = nodes.getHypothesesAt( t );
+		if ( hyps == null ) return;
+		for ( final Hypothesis< Component< FloatType, ? >> hyp : hyps ) {
+			final Set< AbstractAssignment< Hypothesis< Component< FloatType, ? >>> > rightNeighbors =
+					edgeSets.getRightNeighborhood( hyp );
+			if ( rightNeighbors == null || rightNeighbors.isEmpty() ) continue;
+
+			final IlpLinExpr expr = new IlpLinExpr();
+			double rhs = 0.0;
+			for ( final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> assmnt : rightNeighbors ) {
+				if ( snapshot.isChosen( assmnt ) ) {
+					expr.addTerm( 1.0, assmnt.getIlpVar() );
+					rhs = 1.0;
+				} else {
+					expr.addTerm( 2.0, assmnt.getIlpVar() );
+				}
+			}
+			added.add( model.addConstr( expr, IlpModel.EQUAL, rhs, "window_" + hyp.hashCode() ) );
+		}
+	}
+
+	/**
+	 * @return true, if any assignment leaving one of the two border
+	 *         time-points of the window <code>[from,to]</code> changed between
+	 *         the two given solutions. Borders that coincide with the start or
+	 *         end of the growth line are not checked.
+	 */
+	private boolean changedAtWindowBorder( final SolutionSnapshot before, final SolutionSnapshot after, final int from, final int to, final int lastT ) {
+		return ( from > 0 && changedAt( before, after, from ) ) || ( to < lastT && changedAt( before, after, to ) );
+	}
+
+	private boolean changedAt( final SolutionSnapshot before, final SolutionSnapshot after, final int t ) {
+		final List< Hypothesis< Component< FloatType, ? >>> hyps = nodes.getHypothesesAt( t );
+		if ( hyps == null ) return false;
+		for ( final Hypothesis< Component< FloatType, ? >> hyp : hyps ) {
+			final Set< AbstractAssignment< Hypothesis< Component< FloatType, ? >>> > rightNeighbors =
+					edgeSets.getRightNeighborhood( hyp );
+			if ( rightNeighbors == null ) continue;
+			for ( final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> assmnt : rightNeighbors ) {
+				if ( before.isChosen( assmnt ) != after.isChosen( assmnt ) ) { return true; }
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return a visible progress dialog, or <code>null</code> in headless mode
+	 *         (ILPs might then be solved concurrently on worker threads).
+	 */
+	private DialogGurobiProgress openProgressDialog() {
+		if ( MoMA.HEADLESS ) { return null; }
+		final DialogGurobiProgress dialog = new DialogGurobiProgress( MoMA.getGuiFrame() );
+		dialog.setVisible( true );
+		return dialog;
+	}
+
+	/**
+	 * Notifies dialog and GUI about the termination of the solver and
+	 * translates the given solver status into the status of this ILP.
+	 */
+	private void finishRun( final int solverStatus, final DialogGurobiProgress dialog ) {
+		if ( dialog != null ) {
+			dialog.notifyGurobiTermination();
+		}
+		if ( MoMA.getGui() != null ) {
+			MoMA.getGui().dataToDisplayChanged();
+		}
+
+		// Read solution and extract interpretation
+		// - - - - - - - - - - - - - - - - - - - - -
+		if ( solverStatus == IlpModel.OPTIMAL ) {
+			status = OPTIMAL;
+			if ( !MoMA.HEADLESS ) {
+				dialog.pushStatus( "Optimum was found!" );
+				if ( MoMA.getGui() != null ) {
+					MoMA.getGui().focusOnSliderTime();
+				}
+				dialog.setVisible( false );
+				dialog.dispose();
+			}
+		} else if ( solverStatus == IlpModel.INFEASIBLE ) {
+			status = INFEASIBLE;
+			if ( !MoMA.HEADLESS ) {
+				dialog.pushStatus( "ILP now infeasible. Please reoptimize!" );
+			}
+		} else if ( solverStatus == IlpModel.UNBOUNDED ) {
+			status = UNBOUNDED;
+		} else if ( solverStatus == IlpModel.SUBOPTIMAL ) {
+			status = SUBOPTIMAL;
+		} else if ( solverStatus == IlpModel.NUMERIC ) {
+			status = NUMERIC;
+		} else {
+			status = LIMIT_REACHED;
+			if ( !MoMA.HEADLESS ) {
+				dialog.pushStatus( String.format( "Timelimit reached, rel. optimality gap: %.2f%%", model.getMipGap() * 100.0 ) );
+			}
+		}
+	}
+
 	/**
 	 * Returns the optimal segmentation at time t, given by a list of non
 	 * conflicting component-tree-nodes.
@@ -1394,51 +1667,15 @@ public class GrowthLineTrackingILP {
 	 *         the optimization procedure).
 	 */
 	public List< Hypothesis< Component< FloatType, ? > > > getOptimalHypotheses( final int t ) {
-		final ArrayList< Hypothesis< Component< FloatType, ? > > > ret = new ArrayList< Hypothesis< Component< FloatType, ? > > >();
-
-		final List< Hypothesis< Component< FloatType, ? >>> hyps = nodes.getHypothesesAt( t );
-
-		if ( hyps == null ) return ret;
-
-		for ( final Hypothesis< Component< FloatType, ? >> hyp : hyps ) {
-			Set< AbstractAssignment< Hypothesis< Component< FloatType, ? >>> > nh;
-			if ( t > 0 ) {
-				nh = edgeSets.getLeftNeighborhood( hyp );
-			} else {
-				nh = edgeSets.getRightNeighborhood( hyp );
-			}
-
-			try {
-				final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> aa = findActiveAssignment( nh );
-				if ( aa != null ) {
-					ret.add( hyp );
-				}
-			} catch ( final GRBException e ) {
-//				System.err.println( "It could not be determined of a certain assignment was choosen during the convex optimization!" );
-//				e.printStackTrace();
-			}
-		}
+		final SolutionSnapshot snapshot = solution;
+		if ( snapshot == null ) return new ArrayList< Hypothesis< Component< FloatType, ? > > >();
 
-		return ret;
+		return new ArrayList< Hypothesis< Component< FloatType, ? > > >( snapshot.getActiveHypotheses( t ) );
 	}
 
 	public boolean isSelected( final Hypothesis< Component< FloatType, ? > > hyp ) {
-		Set< AbstractAssignment< Hypothesis< Component< FloatType, ? >>> > nh;
-		if ( hyp.getTime() > 0 ) {
-			nh = edgeSets.getLeftNeighborhood( hyp );
-		} else {
-			nh = edgeSets.getRightNeighborhood( hyp );
-		}
-
-		try {
-			final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> aa =
-					findActiveAssignment( nh );
-			if ( aa != null ) { return true; }
-		} catch ( final GRBException e ) {
-//			System.err.println( "It could not be determined of a certain assignment was choosen during the convex optimization!" );
-//			e.printStackTrace();
-		}
-		return false;
+		final SolutionSnapshot snapshot = solution;
+		return snapshot != null && snapshot.isActive( hyp );
 	}
 
 	/**
@@ -1464,6 +1701,8 @@ public class GrowthLineTrackingILP {
 
 		final HashMap< Hypothesis< Component< FloatType, ? > >, Set< AbstractAssignment< Hypothesis< Component< FloatType, ? > > > > > ret = new HashMap< Hypothesis< Component< FloatType, ? > >, Set< AbstractAssignment< Hypothesis< Component< FloatType, ? > > > > >();
 
+		if ( solution == null ) return ret;
+
 		final List< Hypothesis< Component< FloatType, ? >>> hyps = nodes.getHypothesesAt( t );
 
 		for ( final Hypothesis< Component< FloatType, ? >> hyp : hyps ) {
@@ -1474,7 +1713,7 @@ public class GrowthLineTrackingILP {
 					oneElemSet.add( ola );
 					ret.put( hyp, oneElemSet );
 				}
-			} catch ( final GRBException e ) {
+			} catch ( final IlpException e ) {
 				System.err.println( "An optimal left assignment could not be determined!" );
 				e.printStackTrace();
 			}
@@ -1495,10 +1734,10 @@ public class GrowthLineTrackingILP {
 	 * @return the optimal (choosen by the convex optimizer) assignment
 	 *         describing the most likely data interpretation (MAP) towards the
 	 *         previous time-point.
-	 * @throws GRBException
+	 * @throws IlpException
 	 */
-	private AbstractAssignment< Hypothesis< Component< FloatType, ? > > > getOptimalLeftAssignment( final Hypothesis< Component< FloatType, ? > > hypothesis ) throws GRBException {
-		return findActiveAssignment( edgeSets.getLeftNeighborhood( hypothesis ) );
+	private AbstractAssignment< Hypothesis< Component< FloatType, ? > > > getOptimalLeftAssignment( final Hypothesis< Component< FloatType, ? > > hypothesis ) throws IlpException {
+		return getSolutionOrFail().getActiveLeftAssignment( hypothesis );
 	}
 
 	/**
@@ -1524,6 +1763,8 @@ public class GrowthLineTrackingILP {
 
 		final HashMap< Hypothesis< Component< FloatType, ? > >, Set< AbstractAssignment< Hypothesis< Component< FloatType, ? > > > > > ret = new HashMap< Hypothesis< Component< FloatType, ? > >, Set< AbstractAssignment< Hypothesis< Component< FloatType, ? > > > > >();
 
+		if ( solution == null ) return ret;
+
 		final List< Hypothesis< Component< FloatType, ? >>> hyps = nodes.getHypothesesAt( t );
 
 		if ( hyps == null ) return ret;
@@ -1536,7 +1777,7 @@ public class GrowthLineTrackingILP {
 					oneElemSet.add( ora );
 					ret.put( hyp, oneElemSet );
 				}
-			} catch ( final GRBException e ) {
+			} catch ( final IlpException e ) {
 				System.err.println( "An optimal right assignment could not be determined!" );
 				e.printStackTrace();
 			}
@@ -1557,31 +1798,21 @@ public class GrowthLineTrackingILP {
 	 * @return the optimal (choosen by the convex optimizer) assignment
 	 *         describing the most likely data interpretation (MAP) towards the
 	 *         next time-point.
-	 * @throws GRBException
+	 * @throws IlpException
 	 */
-	public AbstractAssignment< Hypothesis< Component< FloatType, ? > > > getOptimalRightAssignment( final Hypothesis< Component< FloatType, ? > > hypothesis ) throws GRBException {
-		return findActiveAssignment( edgeSets.getRightNeighborhood( hypothesis ) );
+	public AbstractAssignment< Hypothesis< Component< FloatType, ? > > > getOptimalRightAssignment( final Hypothesis< Component< FloatType, ? > > hypothesis ) throws IlpException {
+		return getSolutionOrFail().getActiveRightAssignment( hypothesis );
 	}
 
 	/**
-	 * Finds the active assignment in a set of assignments.
-	 * This method is thought to be called given a set that can only contain at
-	 * max 1 active assignment. (It will always and exclusively return the first
-	 * active assignment in the iteration order of the given set!)
-	 *
-	 * @return the one (first) active assignment in the given set of
-	 *         assignments. (An assignment is active iff the binary ILP variable
-	 *         associated with the assignment was set to 1 by the convex
-	 *         optimizer!)
-	 * @throws GRBException
+	 * @return the snapshot of the last solution.
+	 * @throws IlpException
+	 *             if no solution is available.
 	 */
-	private AbstractAssignment< Hypothesis< Component< FloatType, ? > > > findActiveAssignment( final Set< AbstractAssignment< Hypothesis< Component< FloatType, ? >>> > set ) throws GRBException {
-		if ( set == null ) return null;
-
-		for ( final AbstractAssignment< Hypothesis< Component< FloatType, ? > > > a : set ) {
-			if ( a.isChoosen() ) { return a; }
-		}
-		return null;
+	private SolutionSnapshot getSolutionOrFail() throws IlpException {
+		final SolutionSnapshot snapshot = solution;
+		if ( snapshot == null ) { throw new IlpException( "No solution available." ); }
+		return snapshot;
 	}
 
 	/**
@@ -1625,7 +1856,7 @@ public class GrowthLineTrackingILP {
 						}
 					}
 				}
-			} catch ( final GRBException e ) {
+			} catch ( final IlpException e ) {
 				System.err.println( "Gurobi problem at getInactiveLeftAssignments(t)!" );
 				e.printStackTrace();
 			}
@@ -1682,7 +1913,7 @@ public class GrowthLineTrackingILP {
 						}
 					}
 				}
-			} catch ( final GRBException e ) {
+			} catch ( final IlpException e ) {
 				System.err.println( "Gurobi problem at getInactiveRightAssignments(t)!" );
 				e.printStackTrace();
 			}
@@ -1781,20 +2012,20 @@ public class GrowthLineTrackingILP {
 	 *            The time-index. Must be in [0,nodes.getNumberOfTimeSteps()-2]
 	 * @param numCells
 	 *            the right hand side of the constraint.
-	 * @throws GRBException
+	 * @throws IlpException
 	 */
-	public void addSegmentsInFrameCountConstraint( final int t, final int numCells ) throws GRBException {
-		final GRBLinExpr expr = new GRBLinExpr();
+	public void addSegmentsInFrameCountConstraint( final int t, final int numCells ) throws IlpException {
+		final IlpLinExpr expr = new IlpLinExpr();
 
 		final List< Hypothesis< Component< FloatType, ? >>> hyps = nodes.getHypothesesAt( t );
 		for ( final Hypothesis< Component< FloatType, ? >> hyp : hyps ) {
 			final Set< AbstractAssignment< Hypothesis< Component< FloatType, ? >>> > rightNeighbors = edgeSets.getRightNeighborhood( hyp );
 			for ( final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> assmnt : rightNeighbors ) {
-				expr.addTerm( 1.0, assmnt.getGRBVar() );
+				expr.addTerm( 1.0, assmnt.getIlpVar() );
 			}
 		}
 
-		segmentInFrameCountConstraint[ t ] = model.addConstr( expr, GRB.EQUAL, numCells, "sifcc_" + t );
+		segmentInFrameCountConstraint[ t ] = model.addConstr( expr, IlpModel.EQUAL, numCells, "sifcc_" + t );
 	}
 
 	/**
@@ -1808,7 +2039,7 @@ public class GrowthLineTrackingILP {
 			try {
 				model.remove( segmentInFrameCountConstraint[ t ] );
 				segmentInFrameCountConstraint[ t ] = null;
-			} catch ( final GRBException e ) {
+			} catch ( final IlpException e ) {
 				e.printStackTrace();
 			}
 		}
@@ -1825,11 +2056,7 @@ public class GrowthLineTrackingILP {
 	 */
 	public int getSegmentsInFrameCountConstraintRHS( final int t ) {
 		if ( segmentInFrameCountConstraint[ t ] != null ) {
-			try {
-				return ( int ) segmentInFrameCountConstraint[ t ].get( GRB.DoubleAttr.RHS );
-			} catch ( final GRBException e ) {
-				e.printStackTrace();
-			}
+			return ( int ) segmentInFrameCountConstraint[ t ].getRhs();
 		}
 		return -1;
 	}
@@ -1887,20 +2114,20 @@ public class GrowthLineTrackingILP {
 	 * @param hyp2remove
 	 *            the hypothesis at conflicting location for which this type of
 	 *            constraint needs to be removed. (Can be 'null'!)
-	 * @throws GRBException
+	 * @throws IlpException
 	 */
-	public void addSegmentInSolutionConstraint( final Hypothesis< Component< FloatType, ? >> hyp2add, final List< Hypothesis< Component< FloatType, ? >>> hyps2remove ) throws GRBException {
-		final GRBLinExpr expr = new GRBLinExpr();
+	public void addSegmentInSolutionConstraint( final Hypothesis< Component< FloatType, ? >> hyp2add, final List< Hypothesis< Component< FloatType, ? >>> hyps2remove ) throws IlpException {
+		final IlpLinExpr expr = new IlpLinExpr();
 
 		// Remove constraints form all given hypotheses
 		if ( hyps2remove != null ) {
 			for ( final Hypothesis< Component< FloatType, ? >> hyp2remove : hyps2remove ) {
-				final GRBConstr oldConstr = hyp2remove.getSegmentSpecificConstraint();
+				final IlpConstr oldConstr = hyp2remove.getSegmentSpecificConstraint();
 				if ( oldConstr != null ) {
 					try {
 						model.remove( oldConstr );
 						hyp2remove.setSegmentSpecificConstraint( null );
-					} catch ( final GRBException e ) {
+					} catch ( final IlpException e ) {
 						e.printStackTrace();
 					}
 				}
@@ -1909,11 +2136,11 @@ public class GrowthLineTrackingILP {
 
 		final Set< AbstractAssignment< Hypothesis< Component< FloatType, ? >>> > rightNeighbors = edgeSets.getRightNeighborhood( hyp2add );
 		for ( final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> assmnt : rightNeighbors ) {
-			expr.addTerm( 1.0, assmnt.getGRBVar() );
+			expr.addTerm( 1.0, assmnt.getIlpVar() );
 		}
 
 		// Store the newly created constraint in hyp2add
-		hyp2add.setSegmentSpecificConstraint( model.addConstr( expr, GRB.EQUAL, 1.0, "sisc_" + hyp2add.hashCode() ) );
+		hyp2add.setSegmentSpecificConstraint( model.addConstr( expr, IlpModel.EQUAL, 1.0, "sisc_" + hyp2add.hashCode() ) );
 	}
 
 	/**
@@ -1921,17 +2148,17 @@ public class GrowthLineTrackingILP {
 	 * segment hypothesis.
 	 *
 	 * @param hyp2avoid
-	 * @throws GRBException
+	 * @throws IlpException
 	 */
-	public void addSegmentNotInSolutionConstraint( final Hypothesis< Component< FloatType, ? >> hyp2avoid ) throws GRBException {
-		final GRBLinExpr expr = new GRBLinExpr();
+	public void addSegmentNotInSolutionConstraint( final Hypothesis< Component< FloatType, ? >> hyp2avoid ) throws IlpException {
+		final IlpLinExpr expr = new IlpLinExpr();
 
 		final Set< AbstractAssignment< Hypothesis< Component< FloatType, ? >>> > rightNeighbors = edgeSets.getRightNeighborhood( hyp2avoid );
 		for ( final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> assmnt : rightNeighbors ) {
-			expr.addTerm( 1.0, assmnt.getGRBVar() );
+			expr.addTerm( 1.0, assmnt.getIlpVar() );
 		}
 
-		hyp2avoid.setSegmentSpecificConstraint( model.addConstr( expr, GRB.EQUAL, 0.0, "snisc_" + hyp2avoid.hashCode() ) );
+		hyp2avoid.setSegmentSpecificConstraint( model.addConstr( expr, IlpModel.EQUAL, 0.0, "snisc_" + hyp2avoid.hashCode() ) );
 	}
 
 	public void addProgressListener( final ProgressListener pl ) {
@@ -1947,252 +2174,52 @@ public class GrowthLineTrackingILP {
 	}
 
 	/**
+	 * Saves all user interactions with this ILP. The binary format is used if
+	 * <code>file</code> ends with <code>.timb</code>, the text format
+	 * otherwise (see <code>TrackingState</code>).
+	 *
 	 * @param file
 	 */
 	public void saveState( final File file ) {
-		BufferedWriter out;
 		try {
-			out = new BufferedWriter( new FileWriter( file ) );
-			out.write( "# " + MoMA.VERSION_STRING );
-			out.newLine();
-			out.newLine();
-
-			// Write characteristics of dataset
-			// - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
-			final int numT = gl.size() - 1;
-			int numH = 0;
-			for ( final List< Hypothesis< Component< FloatType, ? >>> innerList : nodes.getAllHypotheses() ) {
-				for ( @SuppressWarnings( "unused" )
-				final Hypothesis< Component< FloatType, ? >> hypothesis : innerList ) {
-					numH++;
-				}
-			}
-			int numA = 0;
-			for ( final List< AbstractAssignment< Hypothesis< Component< FloatType, ? >>> > innerList : nodes.getAllAssignments() ) {
-				for ( final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> assignment : innerList ) {
-					numA++;
-				}
-			}
-			out.write( String.format( "TIME, %d, %d, %d\n", numT,
-					MoMA.getMinTime(), MoMA.getMaxTime() ) );
-			out.write( String.format( "SIZE, %d, %d\n", numH, numA ) );
-			out.write( String.format( "BOTTOM_OFFSET, %d\n", MoMA.GL_OFFSET_BOTTOM ) );
-			out.newLine();
-
-			final int timeOffset = MoMA.getMinTime();
-
-			// SegmentsInFrameCountConstraints
-			// - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
-			out.write( "# SegmentsInFrameCountConstraints\n" );
-			for ( int t = 0; t < gl.size(); t++ ) {
-				final int value = getSegmentsInFrameCountConstraintRHS( t );
-				if ( value >= 0 ) {
-					out.write( String.format( "\tSIFCC, %d, %d\n", t + timeOffset, value ) );
-				}
-			}
-
-			// Include/Exclude Segment Constraints
-			// - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
-			out.write( "# SegmentSelectionConstraints (SSC)\n" );
-			for ( int t = 0; t < gl.size(); t++ ) {
-				final List< Hypothesis< Component< FloatType, ? >>> hyps =
-						nodes.getHypothesesAt( t );
-				for ( final Hypothesis< Component< FloatType, ? >> hyp : hyps ) {
-					if ( hyp.getSegmentSpecificConstraint() != null ) {
-						double rhs;
-						try {
-							rhs = hyp.getSegmentSpecificConstraint().get( GRB.DoubleAttr.RHS );
-							out.write( String.format(
-									"\tSSC, %d, %d, %s\n",
-									t + timeOffset,
-									hyp.getId(),
-									rhs ) );
-						} catch ( final GRBException e ) {
-//							out.write( String.format( "\tSSC, %d, %d, GUROBI_ERROR\n", t + timeOffset, hyp.getId() ) );
-						}
-					}
-				}
-			}
-
-			// Include/Exclude Assignment Constraints
-			// - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
-			out.write( "# AssignmentSelectionConstraints (ASC)\n" );
-			for ( int t = 0; t < gl.size(); t++ ) {
-				final List< AbstractAssignment< Hypothesis< Component< FloatType, ? >>> > assmnts =
-						nodes.getAssignmentsAt( t );
-				for ( final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> assmnt : assmnts ) {
-					if ( assmnt.getGroundTroothConstraint() != null ) {
-						double rhs;
-						try {
-							rhs = assmnt.getGroundTroothConstraint().get( GRB.DoubleAttr.RHS );
-							out.write( String.format(
-									"\tASC, %d, %d, %s\n",
-									t + timeOffset,
-									assmnt.getId(),
-									rhs ) );
-						} catch ( final GRBException e ) {
-//							out.write( String.format("\tASC, %d, %d, GUROBI_ERROR\n", t + timeOffset, assmnt.getId() ) );
-						}
-					}
-				}
-			}
-
-			// Pruning Roots
-			// - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
-			out.write( "# PruningRoots (PR)\n" );
-			for ( int t = 0; t < gl.size(); t++ ) {
-				final List< Hypothesis< Component< FloatType, ? >>> hyps =
-						nodes.getHypothesesAt( t );
-				for ( final Hypothesis< Component< FloatType, ? >> hyp : hyps ) {
-					if ( hyp.isPruneRoot() ) {
-						out.write( String.format( "\tPR, %d, %d\n", t + timeOffset, hyp.getId() ) );
-					}
-				}
-			}
-
-			out.close();
+			TrackingState.capture( this ).write( file );
 		} catch ( final IOException e ) {
 			e.printStackTrace();
 		}
 	}
 
 	/**
+	 * Loads user interactions saved by <code>saveState</code> (either format)
+	 * or by <code>autosave</code> (including its journal) and re-optimizes.
+	 *
 	 * @param file
 	 * @throws IOException
 	 */
 	public void loadState( final File file ) throws IOException {
-		final BufferedReader reader = new BufferedReader( new FileReader( file ) );
-
-		final List< Hypothesis< ? >> pruneRoots = new ArrayList< Hypothesis< ? >>();
-
-		final int timeOffset = MoMA.getMinTime();
-
-		String line;
-		while ( ( line = reader.readLine() ) != null ) {
-			// ignore comments and empty lines
-			if ( line.trim().startsWith( "#" ) || line.trim().length() == 0 ) continue;
-
-			final String[] columns = line.split( "," );
-			if ( columns.length > 1 ) {
-				final String constraintType = columns[ 0 ].trim();
-
-				// DataProperties (to see if this load makes any sense)
-				// - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
-				if ( constraintType.equals( "TIME" ) ) {
-					final int readNumT = Integer.parseInt( columns[ 1 ].trim() );
-					final int readTmin = Integer.parseInt( columns[ 2 ].trim() );
-					final int readTmax = Integer.parseInt( columns[ 3 ].trim() );
-
-					if ( MoMA.getMinTime() != readTmin || MoMA.getMaxTime() != readTmax ) {
-						if ( !MoMA.HEADLESS ) {
-							JOptionPane.showMessageDialog(
-									MoMA.getGui(),
-									"Tracking to be loaded is at best a partial fit.\nMatching data will be loaded whereever possible...",
-									"Warning",
-									JOptionPane.WARNING_MESSAGE );
-						} else {
-							System.out.println( "Tracking to be loaded is at most a partial fit. Continue to load matching data..." );
-							System.exit( 946 );
-						}
-					}
-				}
-				if ( constraintType.equals( "SIZE" ) ) {
-					final int readNumH = Integer.parseInt( columns[ 1 ].trim() );
-					final int readNumA = Integer.parseInt( columns[ 2 ].trim() );
-				}
+		final TrackingState state = TrackingStateJournal.restore( file );
 
-				// SegmentsInFrameCountConstraints
-				// - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
-				if ( constraintType.equals( "SIFCC" ) ) {
-					try {
-						final int t = Integer.parseInt( columns[ 1 ].trim() ) - timeOffset;
-						final int numCells = Integer.parseInt( columns[ 2 ].trim() );
-						try {
-							System.out.println( String.format( "SIFCC %d %d", t, numCells ) );
-							this.addSegmentsInFrameCountConstraint( t, numCells );
-						} catch ( final GRBException e ) {
-							e.printStackTrace();
-						}
-					} catch ( final NumberFormatException e ) {
-						e.printStackTrace();
-					}
-				}
-				// SegmentationConstraints
-				// - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
-				if ( constraintType.equals( "SSC" ) ) {
-					try {
-						final int t = Integer.parseInt( columns[ 1 ].trim() ) - timeOffset;
-						final int id = Integer.parseInt( columns[ 2 ].trim() );
-						final double rhs = Double.parseDouble( columns[ 3 ].trim() );
-						try {
-							System.out.println( String.format( "SSC %d %d %f", t, id, rhs ) );
-							final List< Hypothesis< Component< FloatType, ? >>> hyps =
-									nodes.getHypothesesAt( t );
-							for ( final Hypothesis< Component< FloatType, ? >> hyp : hyps ) {
-								if ( hyp.getId() == id ) {
-									if ( 1 == ( int ) rhs ) {
-										addSegmentInSolutionConstraint( hyp, null );
-									} else {
-										addSegmentNotInSolutionConstraint( hyp );
-									}
-								}
-							}
-						} catch ( final GRBException e ) {
-							e.printStackTrace();
-						}
-					} catch ( final NumberFormatException e ) {
-						e.printStackTrace();
-					}
-				}
-				// AssignmentConstraints
-				// - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
-				if ( constraintType.equals( "ASC" ) ) {
-					try {
-						final int t = Integer.parseInt( columns[ 1 ].trim() ) - timeOffset;
-						final int id = Integer.parseInt( columns[ 2 ].trim() );
-						final double rhs = Double.parseDouble( columns[ 3 ].trim() );
-						System.out.println( String.format( "ASC %d %d %f", t, id, rhs ) );
-						final List< AbstractAssignment< Hypothesis< Component< FloatType, ? >>> > assmnts =
-								nodes.getAssignmentsAt( t );
-						for ( final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> assmnt : assmnts ) {
-							if ( assmnt.getId() == id ) {
-								if ( 1 == ( int ) rhs ) {
-									assmnt.setGroundTruth( true );
-								} else {
-									assmnt.setGroundUntruth( true );
-								}
-							}
-						}
-					} catch ( final NumberFormatException e ) {
-						e.printStackTrace();
-					}
-				}
-				// Pruning Roots
-				// - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
-				if ( constraintType.equals( "PR" ) ) {
-					try {
-						final int t = Integer.parseInt( columns[ 1 ].trim() ) - timeOffset;
-						final int id = Integer.parseInt( columns[ 2 ].trim() );
-						System.out.println( String.format( "PR %d %d", t, id ) );
-						final List< Hypothesis< Component< FloatType, ? >>> hyps =
-								nodes.getHypothesesAt( t );
-						for ( final Hypothesis< Component< FloatType, ? >> hyp : hyps ) {
-							if ( hyp.getId() == id ) {
-								pruneRoots.add( hyp );
-							}
-						}
-					} catch ( final NumberFormatException e ) {
-						e.printStackTrace();
-					}
-				}
+		// DataProperties (to see if this load makes any sense)
+		// - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+		if ( state.isPartialFit( gl.getContext() ) ) {
+			if ( !MoMA.HEADLESS ) {
+				JOptionPane.showMessageDialog(
+						MoMA.getGui(),
+						"Tracking to be loaded is at best a partial fit.\nMatching data will be loaded whereever possible...",
+						"Warning",
+						JOptionPane.WARNING_MESSAGE );
+			} else {
+				throw new IOException( "Tracking to be loaded from " + file.getAbsolutePath() + " is at most a partial fit." );
 			}
 		}
-		reader.close();
+
+		final List< Hypothesis< ? >> pruneRoots = new ArrayList< Hypothesis< ? >>();
+		state.applyTo( this, pruneRoots );
+		System.out.println( String.format( "Loaded %d user interactions from %s", state.size(), file.getAbsolutePath() ) );
 
 		try {
 			model.update();
 			run();
-		} catch ( final GRBException e ) {
+		} catch ( final IlpException e ) {
 			e.printStackTrace();
 		}
 
@@ -2212,12 +2239,9 @@ public class GrowthLineTrackingILP {
 		for ( final Hypothesis< Component< FloatType, ? >> hyp : hyps ) {
 			// only if hypothesis is not already clamped
 			if ( hyp.getSegmentSpecificConstraint() == null ) {
-				Set< AbstractAssignment< Hypothesis< Component< FloatType, ? >>> > nh;
-				nh = edgeSets.getRightNeighborhood( hyp );
-
 				try {
 					final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> aa =
-							findActiveAssignment( nh );
+							getOptimalRightAssignment( hyp );
 					if ( aa != null ) {
 						// fix this segment
 						addSegmentInSolutionConstraint( hyp, null );
@@ -2225,7 +2249,7 @@ public class GrowthLineTrackingILP {
 						// avoid this segment
 						addSegmentNotInSolutionConstraint( hyp );
 					}
-				} catch ( final GRBException e ) {
+				} catch ( final IlpException e ) {
 					//				e.printStackTrace();
 				}
 			}
@@ -2251,7 +2275,7 @@ public class GrowthLineTrackingILP {
 						} else {
 							assmnt.setGroundUntruth( true );
 						}
-					} catch ( final GRBException e ) {
+					} catch ( final IlpException e ) {
 						e.printStackTrace();
 					}
 				}
@@ -2266,13 +2290,13 @@ public class GrowthLineTrackingILP {
 		final List< Hypothesis< Component< FloatType, ? >>> hyps =
 				nodes.getHypothesesAt( t );
 		for ( final Hypothesis< Component< FloatType, ? >> hyp : hyps ) {
-			final GRBConstr oldConstr = hyp.getSegmentSpecificConstraint();
+			final IlpConstr oldConstr = hyp.getSegmentSpecificConstraint();
 			// remove all existing
 			if ( oldConstr != null ) {
 				try {
 					model.remove( oldConstr );
 					hyp.setSegmentSpecificConstraint( null );
-				} catch ( final GRBException e ) {
+				} catch ( final IlpException e ) {
 					e.printStackTrace();
 				}
 			}
@@ -2325,12 +2349,12 @@ public class GrowthLineTrackingILP {
 		final List< Hypothesis< Component< FloatType, ? >>> hyps =
 				nodes.getHypothesesAt( t );
 		for ( final Hypothesis< Component< FloatType, ? >> hyp : hyps ) {
-			final GRBConstr constr = ignoreSegmentConstraints.get( hyp );
+			final IlpConstr constr = ignoreSegmentConstraints.get( hyp );
 			if ( constr != null ) {
 				try {
 					model.remove( constr );
 					ignoreSegmentConstraints.remove( hyp );
-				} catch ( final GRBException e ) {
+				} catch ( final IlpException e ) {
 //					e.printStackTrace();
 				}
 			}
@@ -2348,16 +2372,16 @@ public class GrowthLineTrackingILP {
 				try {
 					final Set< AbstractAssignment< Hypothesis< Component< FloatType, ? >>> > rightNeighbors =
 							edgeSets.getRightNeighborhood( hyp );
-					final GRBLinExpr expr = new GRBLinExpr();
+					final IlpLinExpr expr = new IlpLinExpr();
 					if ( rightNeighbors != null ) {
 						for ( final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> assmnt : rightNeighbors ) {
-							expr.addTerm( 1.0, assmnt.getGRBVar() );
+							expr.addTerm( 1.0, assmnt.getIlpVar() );
 						}
-						final GRBConstr constr =
-								model.addConstr( expr, GRB.EQUAL, 0.0, "ignore_" + hyp.hashCode() );
+						final IlpConstr constr =
+								model.addConstr( expr, IlpModel.EQUAL, 0.0, "ignore_" + hyp.hashCode() );
 						ignoreSegmentConstraints.put( hyp, constr );
 					}
-				} catch ( final GRBException e ) {
+				} catch ( final IlpException e ) {
 //					e.printStackTrace();
 				}
 			}
@@ -2387,22 +2411,22 @@ public class GrowthLineTrackingILP {
 				try {
 					final Set< AbstractAssignment< Hypothesis< Component< FloatType, ? >>> > rightNeighbors =
 							edgeSets.getRightNeighborhood( hyp );
-					final GRBLinExpr expr = new GRBLinExpr();
+					final IlpLinExpr expr = new IlpLinExpr();
 					if ( rightNeighbors != null ) {
 						double rhs = 0.0;
 						for ( final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> assmnt : rightNeighbors ) {
 							if ( assmnt.isChoosen() ) {
-								expr.addTerm( 1.0, assmnt.getGRBVar() );
+								expr.addTerm( 1.0, assmnt.getIlpVar() );
 								rhs = 1.0;
 							} else {
-								expr.addTerm( 2.0, assmnt.getGRBVar() );
+								expr.addTerm( 2.0, assmnt.getIlpVar() );
 							}
 						}
-						final GRBConstr constr =
-								model.addConstr( expr, GRB.EQUAL, rhs, "freeze_" + hyp.hashCode() );
+						final IlpConstr constr =
+								model.addConstr( expr, IlpModel.EQUAL, rhs, "freeze_" + hyp.hashCode() );
 						freezeSegmentConstraints.put( hyp, constr );
 					}
-				} catch ( final GRBException e ) {
+				} catch ( final IlpException e ) {
 //					e.printStackTrace();
 				}
 			}
@@ -2416,12 +2440,12 @@ public class GrowthLineTrackingILP {
 		final List< Hypothesis< Component< FloatType, ? >>> hyps =
 				nodes.getHypothesesAt( t );
 		for ( final Hypothesis< Component< FloatType, ? >> hyp : hyps ) {
-			final GRBConstr constr = freezeSegmentConstraints.get( hyp );
+			final IlpConstr constr = freezeSegmentConstraints.get( hyp );
 			if ( constr != null ) {
 				try {
 					model.remove( constr );
 					freezeSegmentConstraints.remove( hyp );
-				} catch ( final GRBException e ) {
+				} catch ( final IlpException e ) {
 //					e.printStackTrace();
 				}
 			}
@@ -2446,10 +2470,10 @@ public class GrowthLineTrackingILP {
 
 		FactorGraphFileBuilder_PAUL fgFile;
 		try {
-			fgFile = new FactorGraphFileBuilder_PAUL( model.get( GRB.DoubleAttr.ObjVal ) );
+			fgFile = new FactorGraphFileBuilder_PAUL( model.getObjVal() );
 			System.out.println( "Exporting also LP file (since model is optimized)." );
 			model.write( file.getPath() + ".lp" );
-		} catch ( final GRBException e ) {
+		} catch ( final IlpException e ) {
 			fgFile = new FactorGraphFileBuilder_PAUL();
 		}
 
@@ -4,7 +4,6 @@ import gurobi.GRB;
 import gurobi.GRBCallback;
 import gurobi.GRBException;
 
-import com.jug.MoMA;
 import com.jug.gui.progress.DialogGurobiProgress;
 
 public class GurobiCallback extends GRBCallback {
@@ -16,12 +15,25 @@ public class GurobiCallback extends GRBCallback {
 	private final DialogGurobiProgress dialog;
 	private double latestGap;
 
-	public GurobiCallback( final DialogGurobiProgress dialog ) { // final GRBVar[] xvars, 
+	private final double timeLimit;
+	private final double maxOptimalityGap;
+
+	/**
+	 * @param dialog
+	 *            progress dialog (can be <code>null</code>).
+	 * @param timeLimit
+	 *            seconds after which the optimization is aborted...
+	 * @param maxOptimalityGap
+	 *            ...given the relative optimality gap is below this value.
+	 */
+	public GurobiCallback( final DialogGurobiProgress dialog, final double timeLimit, final double maxOptimalityGap ) {
 //		lastiter = -GRB.INFINITY;
 		lastnode = -GRB.INFINITY;
 //		vars = xvars;
 		this.dialog = dialog;
 		this.latestGap = Double.POSITIVE_INFINITY;
+		this.timeLimit = timeLimit;
+		this.maxOptimalityGap = maxOptimalityGap;
 	}
 
 	@Override
@@ -73,8 +85,8 @@ public class GurobiCallback extends GRBCallback {
 					final int cutcnt = getIntInfo( GRB.CB_MIP_CUTCNT );
 					System.out.println( nodecnt + " " + actnodes + " " + itcnt + " " + objbst + " " + objbnd + " " + solcnt + " " + cutcnt );
 				}
-				if ( runtime > MoMA.GUROBI_TIME_LIMIT ) {
-					if ( Math.abs( objbst - objbnd ) < MoMA.GUROBI_MAX_OPTIMALITY_GAP * ( 1.0 + Math.abs( objbst ) ) ) {
+				if ( runtime > timeLimit ) {
+					if ( Math.abs( objbst - objbnd ) < maxOptimalityGap * ( 1.0 + Math.abs( objbst ) ) ) {
 						abort();
 					}
 				}
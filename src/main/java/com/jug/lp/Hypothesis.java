@@ -3,8 +3,8 @@
  */
 package com.jug.lp;
 
-import gurobi.GRBConstr;
-import gurobi.GRBException;
+import com.jug.lp.solver.IlpConstr;
+import com.jug.lp.solver.IlpException;
 
 import java.util.LinkedList;
 
@@ -13,7 +13,7 @@ import net.imglib2.type.numeric.real.FloatType;
 import net.imglib2.util.ValuePair;
 
 import com.jug.util.ComponentTreeUtils;
-import com.jug.util.filteredcomponents.FilteredComponent;
+import com.jug.util.filteredcomponents.ExtendableComponent;
 
 /**
  * This class is used to wrap away whatever object that represents one of the
@@ -33,9 +33,9 @@ public class Hypothesis< T extends Component< FloatType, ? > > {
 
 		public HypLoc( final int t, final T segment ) {
 			this.t = t;
-			if ( segment instanceof FilteredComponent ) {
+			if ( segment instanceof ExtendableComponent ) {
 				this.limits =
-						ComponentTreeUtils.getExtendedTreeNodeInterval( ( FilteredComponent< ? > ) segment );
+						ComponentTreeUtils.getExtendedTreeNodeInterval( ( ExtendableComponent< ? > ) segment );
 			} else {
 				this.limits = ComponentTreeUtils.getTreeNodeInterval( segment );
 			}
@@ -51,7 +51,7 @@ public class Hypothesis< T extends Component< FloatType, ? > > {
 	 * the ILP. If such a constraint does not exist for this hypothesis, this
 	 * value is null.
 	 */
-	private GRBConstr segmentSpecificConstraint = null;
+	private IlpConstr segmentSpecificConstraint = null;
 
 	/**
 	 * Used to store track-branch pruning sources. This is a way to easily
@@ -60,6 +60,12 @@ public class Hypothesis< T extends Component< FloatType, ? > > {
 	private boolean isPruneRoot = false;
 	private boolean isPruned = false;
 
+	/**
+	 * Id of this hypothesis in the <code>HypothesisAssignmentStore</code> it
+	 * was added to (-1 if none).
+	 */
+	private int storeId = -1;
+
 	public Hypothesis( final int t, final T elementToWrap, final float costs ) {
 		// setSegmentHypothesis( elementToWrap );
 		this.wrappedHypothesis = elementToWrap;
@@ -71,6 +77,14 @@ public class Hypothesis< T extends Component< FloatType, ? > > {
 		return location.limits.getA() * 1000 + location.limits.getB();
 	}
 
+	int getStoreId() {
+		return storeId;
+	}
+
+	void setStoreId( final int storeId ) {
+		this.storeId = storeId;
+	}
+
 	/**
 	 * @return the wrapped segmentHypothesis
 	 */
@@ -100,7 +114,7 @@ public class Hypothesis< T extends Component< FloatType, ? > > {
 	 *         to be NOT included. Note: this function returns 'null' if such a
 	 *         constraint was never created.
 	 */
-	public GRBConstr getSegmentSpecificConstraint() {
+	public IlpConstr getSegmentSpecificConstraint() {
 		return this.segmentSpecificConstraint;
 	}
 
@@ -111,7 +125,7 @@ public class Hypothesis< T extends Component< FloatType, ? > > {
 	 * @param constr
 	 *            the installed constraint.
 	 */
-	public void setSegmentSpecificConstraint( final GRBConstr constr ) {
+	public void setSegmentSpecificConstraint( final IlpConstr constr ) {
 		this.segmentSpecificConstraint = constr;
 	}
 
@@ -165,7 +179,7 @@ public class Hypothesis< T extends Component< FloatType, ? > > {
 						break;
 					}
 				}
-			} catch ( final GRBException e ) {
+			} catch ( final IlpException e ) {
 //				e.printStackTrace();
 			}
 		}
@@ -0,0 +1,332 @@
+/**
+ *
+ */
+package com.jug.lp;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Columnar storage of the hypotheses and assignments of one tracking ILP.
+ * Hypotheses and assignments get consecutive int ids (in order of
+ * insertion). Their time-points are kept in int arrays and the left and
+ * right neighborhoods of all hypotheses are stored as primitive edge lists.
+ * No per-hypothesis collection objects are created.
+ *
+ * While edges are added, each neighborhood is a linked list threaded
+ * through the edge arrays (O(1) append, insertion order). A call to
+ * <code>compact()</code> (done once the ILP is built) converts them to CSR
+ * arrays, such that all later queries iterate over contiguous memory.
+ * Adding further edges after compaction is allowed; queries then fall back
+ * to the linked lists until <code>compact()</code> is called again.
+ *
+ * <code>AssignmentsAndHypotheses</code> and
+ * <code>HypothesisNeighborhoods</code> are views onto an instance of this
+ * class.
+ *
+ * @author jug
+ */
+public class HypothesisAssignmentStore< H extends Hypothesis< ? >, A extends AbstractAssignment< H > > {
+
+	public static final int LEFT = 0;
+	public static final int RIGHT = 1;
+
+	private final ArrayList< H > hyps = new ArrayList< H >();
+	private int[] hypTimes = new int[ 256 ];
+
+	private final ArrayList< A > assignments = new ArrayList< A >();
+	private int[] assignmentTimes = new int[ 256 ];
+
+	// edges: neighborhoods as linked lists (per side and hypothesis)
+	private int numEdges = 0;
+	private int[] edgeAssignment = new int[ 1024 ];
+	private int[] edgeNext = new int[ 1024 ];
+	private final int[][] first = new int[][] { new int[ 256 ], new int[ 256 ] };
+	private final int[][] last = new int[][] { new int[ 256 ], new int[ 256 ] };
+	private final int[][] degree = new int[][] { new int[ 256 ], new int[ 256 ] };
+
+	// CSR representation of the above (valid iff csrValid)
+	private boolean csrValid = false;
+	private final int[][] csrStart = new int[ 2 ][];
+	private final int[][] csrAssignment = new int[ 2 ][];
+
+	// -------------------------------------------------------------------------------------
+	// hypotheses
+	// -------------------------------------------------------------------------------------
+	/**
+	 * Registers the given hypothesis (if not yet registered).
+	 *
+	 * @return the id of the hypothesis.
+	 */
+	public int addHypothesis( final int t, final H h ) {
+		final int known = getHypothesisId( h );
+		if ( known >= 0 ) {
+			hypTimes[ known ] = t;
+			return known;
+		}
+
+		final int id = hyps.size();
+		hyps.add( h );
+		h.setStoreId( id );
+		if ( id == hypTimes.length ) {
+			final int n = 2 * id;
+			hypTimes = Arrays.copyOf( hypTimes, n );
+			for ( int side = 0; side < 2; side++ ) {
+				first[ side ] = Arrays.copyOf( first[ side ], n );
+				last[ side ] = Arrays.copyOf( last[ side ], n );
+				degree[ side ] = Arrays.copyOf( degree[ side ], n );
+			}
+		}
+		hypTimes[ id ] = t;
+		for ( int side = 0; side < 2; side++ ) {
+			first[ side ][ id ] = -1;
+			last[ side ][ id ] = -1;
+			degree[ side ][ id ] = 0;
+		}
+		csrValid = false;
+		return id;
+	}
+
+	/**
+	 * @return the id of the given hypothesis, or -1 if it is not stored
+	 *         here.
+	 */
+	public int getHypothesisId( final H h ) {
+		final int id = h.getStoreId();
+		if ( id >= 0 && id < hyps.size() && hyps.get( id ) == h ) { return id; }
+		return -1;
+	}
+
+	public H getHypothesis( final int id ) {
+		return hyps.get( id );
+	}
+
+	public int getHypothesisTime( final int id ) {
+		return hypTimes[ id ];
+	}
+
+	public int getNumHypotheses() {
+		return hyps.size();
+	}
+
+	// -------------------------------------------------------------------------------------
+	// assignments
+	// -------------------------------------------------------------------------------------
+	/**
+	 * Registers the given assignment (if not yet registered).
+	 *
+	 * @return the id of the assignment.
+	 */
+	public int addAssignment( final int t, final A a ) {
+		final int known = getAssignmentId( a );
+		if ( known >= 0 ) {
+			assignmentTimes[ known ] = t;
+			return known;
+		}
+
+		final int id = assignments.size();
+		assignments.add( a );
+		a.setStoreId( id );
+		if ( id == assignmentTimes.length ) {
+			assignmentTimes = Arrays.copyOf( assignmentTimes, 2 * id );
+		}
+		assignmentTimes[ id ] = t;
+		return id;
+	}
+
+	/**
+	 * @return the id of the given assignment, or -1 if it is not stored
+	 *         here.
+	 */
+	public int getAssignmentId( final A a ) {
+		final int id = a.getStoreId();
+		if ( id >= 0 && id < assignments.size() && assignments.get( id ) == a ) { return id; }
+		return -1;
+	}
+
+	public A getAssignment( final int id ) {
+		return assignments.get( id );
+	}
+
+	public int getAssignmentTime( final int id ) {
+		return assignmentTimes[ id ];
+	}
+
+	public int getNumAssignments() {
+		return assignments.size();
+	}
+
+	// -------------------------------------------------------------------------------------
+	// neighborhoods
+	// -------------------------------------------------------------------------------------
+	/**
+	 * Adds assignment <code>a</code> to the left or right neighborhood of
+	 * hypothesis <code>h</code>. Both are registered if they were not added
+	 * before (with time-point -1).
+	 *
+	 * @param side
+	 *            <code>LEFT</code> or <code>RIGHT</code>.
+	 * @return false, if <code>a</code> was the last assignment added to this
+	 *         neighborhood already (nothing is added then), true otherwise.
+	 */
+	public boolean addToNeighborhood( final int side, final H h, final A a ) {
+		int hId = getHypothesisId( h );
+		if ( hId < 0 ) hId = addHypothesis( -1, h );
+		int aId = getAssignmentId( a );
+		if ( aId < 0 ) aId = addAssignment( -1, a );
+
+		final int tail = last[ side ][ hId ];
+		if ( tail >= 0 && edgeAssignment[ tail ] == aId ) { return false; }
+
+		if ( numEdges == edgeAssignment.length ) {
+			edgeAssignment = Arrays.copyOf( edgeAssignment, 2 * numEdges );
+			edgeNext = Arrays.copyOf( edgeNext, 2 * numEdges );
+		}
+		final int e = numEdges++;
+		edgeAssignment[ e ] = aId;
+		edgeNext[ e ] = -1;
+		if ( tail >= 0 ) {
+			edgeNext[ tail ] = e;
+		} else {
+			first[ side ][ hId ] = e;
+		}
+		last[ side ][ hId ] = e;
+		degree[ side ][ hId ]++;
+		csrValid = false;
+		return true;
+	}
+
+	/**
+	 * @return the number of assignments in the given neighborhood of the
+	 *         hypothesis with id <code>hId</code>.
+	 */
+	public int getDegree( final int side, final int hId ) {
+		return degree[ side ][ hId ];
+	}
+
+	/**
+	 * Converts all neighborhoods into CSR arrays.
+	 */
+	public void compact() {
+		if ( csrValid ) return;
+		final int n = hyps.size();
+		for ( int side = 0; side < 2; side++ ) {
+			final int[] start = new int[ n + 1 ];
+			for ( int h = 0; h < n; h++ ) {
+				start[ h + 1 ] = start[ h ] + degree[ side ][ h ];
+			}
+			final int[] adj = new int[ start[ n ] ];
+			for ( int h = 0; h < n; h++ ) {
+				int k = start[ h ];
+				for ( int e = first[ side ][ h ]; e >= 0; e = edgeNext[ e ] ) {
+					adj[ k++ ] = edgeAssignment[ e ];
+				}
+			}
+			csrStart[ side ] = start;
+			csrAssignment[ side ] = adj;
+		}
+		csrValid = true;
+	}
+
+	/**
+	 * @return a read-only view onto the given neighborhood of <code>h</code>
+	 *         , or <code>null</code> if it is empty (or <code>h</code> is not
+	 *         stored here).
+	 */
+	public NeighborhoodView getNeighborhood( final int side, final H h ) {
+		final int hId = getHypothesisId( h );
+		if ( hId < 0 || degree[ side ][ hId ] == 0 ) return null;
+		return new NeighborhoodView( side, hId );
+	}
+
+	/**
+	 * Read-only <code>Set</code> view onto one neighborhood. Iteration order
+	 * is the order in which assignments were added.
+	 */
+	public class NeighborhoodView extends AbstractSet< A > {
+
+		private final int side;
+		private final int hId;
+
+		private NeighborhoodView( final int side, final int hId ) {
+			this.side = side;
+			this.hId = hId;
+		}
+
+		@Override
+		public int size() {
+			return degree[ side ][ hId ];
+		}
+
+		@Override
+		public boolean contains( final Object o ) {
+			if ( !( o instanceof AbstractAssignment ) ) return false;
+			final int aId = ( ( AbstractAssignment< ? > ) o ).getStoreId();
+			if ( aId < 0 || aId >= assignments.size() || assignments.get( aId ) != o ) return false;
+			if ( csrValid ) {
+				for ( int k = csrStart[ side ][ hId ]; k < csrStart[ side ][ hId + 1 ]; k++ ) {
+					if ( csrAssignment[ side ][ k ] == aId ) return true;
+				}
+			} else {
+				for ( int e = first[ side ][ hId ]; e >= 0; e = edgeNext[ e ] ) {
+					if ( edgeAssignment[ e ] == aId ) return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public Iterator< A > iterator() {
+			if ( csrValid ) {
+				final int[] adj = csrAssignment[ side ];
+				final int end = csrStart[ side ][ hId + 1 ];
+				return new Iterator< A >() {
+
+					private int k = csrStart[ side ][ hId ];
+
+					@Override
+					public boolean hasNext() {
+						return k < end;
+					}
+
+					@Override
+					public A next() {
+						if ( k >= end ) throw new NoSuchElementException();
+						return assignments.get( adj[ k++ ] );
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException( "Neighborhoods are read-only views." );
+					}
+				};
+			} else {
+				return new Iterator< A >() {
+
+					private int e = first[ side ][ hId ];
+
+					@Override
+					public boolean hasNext() {
+						return e >= 0;
+					}
+
+					@Override
+					public A next() {
+						if ( e < 0 ) throw new NoSuchElementException();
+						final A a = assignments.get( edgeAssignment[ e ] );
+						e = edgeNext[ e ];
+						return a;
+					}
+
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException( "Neighborhoods are read-only views." );
+					}
+				};
+			}
+		}
+	}
+}
@@ -0,0 +1,108 @@
+/**
+ *
+ */
+package com.jug.lp;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Index over the locations of all segmentation hypotheses of one time-point.
+ * Hypotheses are sorted by the upper bound of their interval (their
+ * smallest position along the growth line), such that all hypotheses whose
+ * upper bound lies in some window can be found by a binary search followed
+ * by a linear walk. Lower bounds and segmentation costs are kept in the same
+ * order (primitive arrays), since they are needed by the cost lower bounds
+ * used to prune candidates in <code>GrowthLineTrackingILP</code>.
+ *
+ * Entries refer to hypotheses by their index in the list the index was
+ * built from.
+ *
+ * @author jug
+ */
+public class HypothesisIntervalIndex {
+
+	private final int size;
+
+	/**
+	 * Sorted position -> index in the original list.
+	 */
+	private final int[] listIndex;
+	private final int[] upper;
+	private final int[] lower;
+	private final float[] costs;
+
+	private float minCost = Float.POSITIVE_INFINITY;
+
+	public HypothesisIntervalIndex( final List< ? extends Hypothesis< ? > > hyps ) {
+		size = ( hyps == null ) ? 0 : hyps.size();
+
+		final long[] keys = new long[ size ];
+		for ( int i = 0; i < size; i++ ) {
+			// upper bound in the high bits, list index in the low bits -> stable order
+			keys[ i ] = ( ( long ) hyps.get( i ).getLocation().getA().intValue() << 32 ) | i;
+		}
+		Arrays.sort( keys );
+
+		listIndex = new int[ size ];
+		upper = new int[ size ];
+		lower = new int[ size ];
+		costs = new float[ size ];
+		for ( int k = 0; k < size; k++ ) {
+			final int i = ( int ) ( keys[ k ] & 0xffffffffL );
+			final Hypothesis< ? > h = hyps.get( i );
+			listIndex[ k ] = i;
+			upper[ k ] = h.getLocation().getA().intValue();
+			lower[ k ] = h.getLocation().getB().intValue();
+			costs[ k ] = h.getCosts();
+			minCost = Math.min( minCost, costs[ k ] );
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the smallest segmentation cost of all indexed hypotheses
+	 *         (<code>+Inf</code> if the index is empty).
+	 */
+	public float getMinCost() {
+		return minCost;
+	}
+
+	/**
+	 * @return the first sorted position <code>k</code> with
+	 *         <code>getUpper(k) >= pos</code> (<code>size()</code> if there
+	 *         is none).
+	 */
+	public int firstWithUpperAtLeast( final int pos ) {
+		int lo = 0;
+		int hi = size;
+		while ( lo < hi ) {
+			final int mid = ( lo + hi ) >>> 1;
+			if ( upper[ mid ] < pos ) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	public int getListIndex( final int k ) {
+		return listIndex[ k ];
+	}
+
+	public int getUpper( final int k ) {
+		return upper[ k ];
+	}
+
+	public int getLower( final int k ) {
+		return lower[ k ];
+	}
+
+	public float getCost( final int k ) {
+		return costs[ k ];
+	}
+}
@@ -4,13 +4,16 @@
 package com.jug.lp;
 
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 
 /**
  * The main purpose of this class is to manage and update the assignment
  * neighborhoods $A_{>>b_i^t}$ and $A_{b_i^t>>}$.
+ * Neighborhoods are stored as primitive edge lists in a
+ * <code>HypothesisAssignmentStore</code>; the sets handed out here are
+ * read-only views onto it.
  *
  * @author jug
  */
@@ -19,69 +22,68 @@ public class HypothesisNeighborhoods< H extends Hypothesis< ? >, A extends Abstr
 	// -------------------------------------------------------------------------------------
 	// fields
 	// -------------------------------------------------------------------------------------
-	/**
-	 * This structure corresponds to $A_{b_i->}$ for some time-point.
-	 */
-	private final HashMap< H, Set< A > > rightNeighborhoods;
-
-	/**
-	 * This structure corresponds to $A_{->b_i}$ for some time-point.
-	 */
-	private final HashMap< H, Set< A > > leftNeighborhoods;
+	private final HypothesisAssignmentStore< H, A > store;
 
 	// -------------------------------------------------------------------------------------
 	// construction
 	// -------------------------------------------------------------------------------------
 	public HypothesisNeighborhoods() {
-		rightNeighborhoods = new HashMap< H, Set< A > >();
-		leftNeighborhoods = new HashMap< H, Set< A > >();
+		this( new HypothesisAssignmentStore< H, A >() );
+	}
+
+	public HypothesisNeighborhoods( final HypothesisAssignmentStore< H, A > store ) {
+		this.store = store;
 	}
 
 	// -------------------------------------------------------------------------------------
 	// getters and setters
 	// -------------------------------------------------------------------------------------
 	/**
-	 * @return the rightNeighborhoods
+	 * @return a newly built map holding the (non-empty) right neighborhoods
+	 *         of all hypotheses. Prefer <code>getRightNeighborhood</code>.
 	 */
-	public HashMap< H, Set< A > > getRightNeighborhoods() {
-		return rightNeighborhoods;
+	public Map< H, Set< A > > getRightNeighborhoods() {
+		return collectNeighborhoods( HypothesisAssignmentStore.RIGHT );
 	}
 
-	// /**
-	// * @param rightNeighborhoods
-	// * the rightNeighborhoods to set
-	// */
-	// public void setRightNeighborhoods( final HashMap< H, Set< A > >
-	// rightNeighborhoods ) {
-	// this.rightNeighborhoods = rightNeighborhoods;
-	// }
-
 	/**
-	 * @return the leftNeighborhoods
+	 * @return a newly built map holding the (non-empty) left neighborhoods of
+	 *         all hypotheses. Prefer <code>getLeftNeighborhood</code>.
 	 */
-	public HashMap< H, Set< A > > getLeftNeighborhoods() {
-		return leftNeighborhoods;
+	public Map< H, Set< A > > getLeftNeighborhoods() {
+		return collectNeighborhoods( HypothesisAssignmentStore.LEFT );
 	}
 
-	// /**
-	// * @param leftNeighborhoods
-	// * the leftNeighborhoods to set
-	// */
-	// public void setLeftNeighborhoods( final HashMap< H, Set< A > >
-	// leftNeighborhoods ) {
-	// this.leftNeighborhoods = leftNeighborhoods;
-	// }
+	private Map< H, Set< A > > collectNeighborhoods( final int side ) {
+		final Map< H, Set< A > > ret = new HashMap< H, Set< A > >();
+		for ( int id = 0; id < store.getNumHypotheses(); id++ ) {
+			final H h = store.getHypothesis( id );
+			final Set< A > nh = store.getNeighborhood( side, h );
+			if ( nh != null ) {
+				ret.put( h, nh );
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Converts all neighborhoods into their compact (CSR) form. Should be
+	 * called once all assignments are added.
+	 */
+	public void compact() {
+		store.compact();
+	}
 
 	/**
 	 * Gets the leftNeighborhood of a hypothesis <code>h</code>.
 	 *
 	 * @param h
 	 *            a hypothesis of type <code>H</code>.
-	 * @return a set of assignments of type <code>A</code>, or <code>null</code>
-	 *         if such a neighborhood does not exist here.
+	 * @return a read-only set of assignments of type <code>A</code>, or
+	 *         <code>null</code> if such a neighborhood does not exist here.
 	 */
 	public Set< A > getLeftNeighborhood( final H h ) {
-		return leftNeighborhoods.get( h );
+		return store.getNeighborhood( HypothesisAssignmentStore.LEFT, h );
 	}
 
 	/**
@@ -89,11 +91,11 @@ public class HypothesisNeighborhoods< H extends Hypothesis< ? >, A extends Abstr
 	 *
 	 * @param h
 	 *            a hypothesis of type <code>H</code>.
-	 * @return a set of assignments of type <code>A</code>, or <code>null</code>
-	 *         if such a neighborhood does not exist here.
+	 * @return a read-only set of assignments of type <code>A</code>, or
+	 *         <code>null</code> if such a neighborhood does not exist here.
 	 */
 	public Set< A > getRightNeighborhood( final H h ) {
-		return rightNeighborhoods.get( h );
+		return store.getNeighborhood( HypothesisAssignmentStore.RIGHT, h );
 	}
 
 	// -------------------------------------------------------------------------------------
@@ -145,13 +147,11 @@ public class HypothesisNeighborhoods< H extends Hypothesis< ? >, A extends Abstr
 	 *            a hypothesis of type <code>H</code>.
 	 * @param a
 	 *            an assignment of type <code>A</code>.
-	 * @return true, if the assignment could be stored.
+	 * @return true, if the assignment could be stored (false if it was just
+	 *         added to this neighborhood already).
 	 */
 	public boolean addToLeftNeighborhood ( final H h, final A a ) {
-		if ( ! hasLeftNeighborhoods( h ) ) {
-			leftNeighborhoods.put( h, new HashSet< A >() );
-		}
-		return getLeftNeighborhood( h ).add( a );
+		return store.addToNeighborhood( HypothesisAssignmentStore.LEFT, h, a );
 	}
 
 	/**
@@ -162,13 +162,11 @@ public class HypothesisNeighborhoods< H extends Hypothesis< ? >, A extends Abstr
 	 *            a hypothesis of type <code>H</code>.
 	 * @param a
 	 *            an assignment of type <code>A</code>.
-	 * @return true, if the assignment could be stored.
+	 * @return true, if the assignment could be stored (false if it was just
+	 *         added to this neighborhood already).
 	 */
 	public boolean addToRightNeighborhood( final H h, final A a ) {
-		if ( !hasRightNeighborhoods( h ) ) {
-			rightNeighborhoods.put( h, new HashSet< A >() );
-		}
-		return getRightNeighborhood( h ).add( a );
+		return store.addToNeighborhood( HypothesisAssignmentStore.RIGHT, h, a );
 	}
 
 }
@@ -8,8 +8,8 @@ import java.util.List;
 
 import com.jug.export.FactorGraphFileBuilder_SCALAR;
 
-import gurobi.GRBException;
-import gurobi.GRBVar;
+import com.jug.lp.solver.IlpException;
+import com.jug.lp.solver.IlpVar;
 import net.imglib2.algorithm.componenttree.Component;
 import net.imglib2.type.numeric.real.FloatType;
 
@@ -32,9 +32,9 @@ public class MappingAssignment extends AbstractAssignment< Hypothesis< Component
 	 * @param edges
 	 * @param from
 	 * @param to
-	 * @throws GRBException
+	 * @throws IlpException
 	 */
-	public MappingAssignment( final int t, final GRBVar ilpVariable, final GrowthLineTrackingILP ilp, final AssignmentsAndHypotheses< AbstractAssignment< Hypothesis< Component< FloatType, ? > > >, Hypothesis< Component< FloatType, ? > > > nodes, final HypothesisNeighborhoods< Hypothesis< Component< FloatType, ? > >, AbstractAssignment< Hypothesis< Component< FloatType, ? > > > > edges, final Hypothesis< Component< FloatType, ? >> from, final Hypothesis< Component< FloatType, ? >> to ) throws GRBException {
+	public MappingAssignment( final int t, final IlpVar ilpVariable, final GrowthLineTrackingILP ilp, final AssignmentsAndHypotheses< AbstractAssignment< Hypothesis< Component< FloatType, ? > > >, Hypothesis< Component< FloatType, ? > > > nodes, final HypothesisNeighborhoods< Hypothesis< Component< FloatType, ? > >, AbstractAssignment< Hypothesis< Component< FloatType, ? > > > > edges, final Hypothesis< Component< FloatType, ? >> from, final Hypothesis< Component< FloatType, ? >> to ) throws IlpException {
 		super( GrowthLineTrackingILP.ASSIGNMENT_MAPPING, ilpVariable, ilp );
 		this.from = from;
 		this.to = to;
@@ -46,13 +46,13 @@ public class MappingAssignment extends AbstractAssignment< Hypothesis< Component
 	 * This method is void. MAPPING assignments do not come with assignment
 	 * specific constrains...
 	 *
-	 * @throws GRBException
-	 * @see com.jug.lp.AbstractAssignment#addConstraintsToLP(gurobi.GRBModel,
+	 * @throws IlpException
+	 * @see com.jug.lp.AbstractAssignment#addConstraintsToLP(com.jug.lp.solver.IlpModel,
 	 *      com.jug.lp.AssignmentsAndHypotheses,
 	 *      com.jug.lp.HypothesisNeighborhoods)
 	 */
 	@Override
-	public void addConstraintsToLP() throws GRBException {}
+	public void addConstraintsToLP() throws IlpException {}
 
 	/**
 	 * Mapping assignments do not come with constraints.
@@ -0,0 +1,136 @@
+package com.jug.lp;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+import com.jug.lp.solver.IlpException;
+import com.jug.lp.solver.IlpModel;
+
+import net.imglib2.algorithm.componenttree.Component;
+import net.imglib2.type.numeric.real.FloatType;
+
+/**
+ * Immutable copy of the solution of a <code>GrowthLineTrackingILP</code>.
+ * All variable values are read out of the solver in one batch right after
+ * optimization. Active hypotheses and active left/right assignments are
+ * precomputed, such that GUI navigation and exports can query the solution
+ * without ever touching the solver again.
+ *
+ * @author jug
+ */
+public class SolutionSnapshot {
+
+	/**
+	 * Indexed by assignment id (the index of the assignment's ILP variable).
+	 */
+	private final boolean[] chosen;
+
+	private final List< List< Hypothesis< Component< FloatType, ? > > > > activeHypotheses;
+	private final HashMap< Hypothesis< Component< FloatType, ? > >, AbstractAssignment< Hypothesis< Component< FloatType, ? > > > > activeLeft;
+	private final HashMap< Hypothesis< Component< FloatType, ? > >, AbstractAssignment< Hypothesis< Component< FloatType, ? > > > > activeRight;
+
+	/**
+	 * Reads the last solution of the model of the given ILP.
+	 *
+	 * @throws IlpException
+	 *             if the model does not hold a solution.
+	 */
+	public SolutionSnapshot( final GrowthLineTrackingILP ilp, final IlpModel model ) throws IlpException {
+		final double[] values = model.getValues();
+		chosen = new boolean[ values.length ];
+		for ( int i = 0; i < values.length; i++ ) {
+			chosen[ i ] = ( values[ i ] > 0.5 );
+		}
+
+		activeLeft = new HashMap< Hypothesis< Component< FloatType, ? > >, AbstractAssignment< Hypothesis< Component< FloatType, ? > > > >();
+		activeRight = new HashMap< Hypothesis< Component< FloatType, ? > >, AbstractAssignment< Hypothesis< Component< FloatType, ? > > > >();
+		activeHypotheses = new ArrayList< List< Hypothesis< Component< FloatType, ? > > > >();
+
+		final int numTimeSteps = ilp.nodes.getNumberOfTimeSteps();
+		for ( int t = 0; t < numTimeSteps; t++ ) {
+			final List< Hypothesis< Component< FloatType, ? > > > active = new ArrayList< Hypothesis< Component< FloatType, ? > > >();
+			final List< Hypothesis< Component< FloatType, ? > > > hyps = ilp.nodes.getHypothesesAt( t );
+			if ( hyps != null ) {
+				for ( final Hypothesis< Component< FloatType, ? > > hyp : hyps ) {
+					final AbstractAssignment< Hypothesis< Component< FloatType, ? > > > left = findChosen( ilp.edgeSets.getLeftNeighborhood( hyp ) );
+					final AbstractAssignment< Hypothesis< Component< FloatType, ? > > > right = findChosen( ilp.edgeSets.getRightNeighborhood( hyp ) );
+					if ( left != null ) {
+						activeLeft.put( hyp, left );
+					}
+					if ( right != null ) {
+						activeRight.put( hyp, right );
+					}
+					if ( ( t > 0 ) ? left != null : right != null ) {
+						active.add( hyp );
+					}
+				}
+			}
+			activeHypotheses.add( active );
+		}
+	}
+
+	private AbstractAssignment< Hypothesis< Component< FloatType, ? > > > findChosen( final Set< AbstractAssignment< Hypothesis< Component< FloatType, ? > > > > set ) {
+		if ( set == null ) return null;
+
+		for ( final AbstractAssignment< Hypothesis< Component< FloatType, ? > > > a : set ) {
+			if ( isChosen( a ) ) { return a; }
+		}
+		return null;
+	}
+
+	/**
+	 * @return true, if the ILP variable of the given assignment was 1 in the
+	 *         solution. Assignments added after the snapshot was taken are
+	 *         reported as not chosen.
+	 */
+	public boolean isChosen( final AbstractAssignment< ? > assignment ) {
+		final int id = assignment.getIlpVar().getIndex();
+		return id < chosen.length && chosen[ id ];
+	}
+
+	/**
+	 * @return the solution as 0/1 values indexed by variable index, e.g. to be
+	 *         used as warm start via <code>IlpModel.setStart</code>. Variables
+	 *         added after the snapshot was taken are set to 0.
+	 */
+	public double[] toStartValues( final int numVars ) {
+		final double[] ret = new double[ numVars ];
+		for ( int i = 0; i < numVars && i < chosen.length; i++ ) {
+			ret[ i ] = ( chosen[ i ] ) ? 1.0 : 0.0;
+		}
+		return ret;
+	}
+
+	/**
+	 * @return the active hypotheses at time-point t. (Do not modify!)
+	 */
+	public List< Hypothesis< Component< FloatType, ? > > > getActiveHypotheses( final int t ) {
+		if ( t < 0 || t >= activeHypotheses.size() ) { return new ArrayList< Hypothesis< Component< FloatType, ? > > >(); }
+		return activeHypotheses.get( t );
+	}
+
+	/**
+	 * @return true, if the given hypothesis is part of the solution.
+	 */
+	public boolean isActive( final Hypothesis< Component< FloatType, ? > > hyp ) {
+		return ( hyp.getTime() > 0 ) ? activeLeft.containsKey( hyp ) : activeRight.containsKey( hyp );
+	}
+
+	/**
+	 * @return the active assignment coming in from the left (t-1), or
+	 *         <code>null</code>.
+	 */
+	public AbstractAssignment< Hypothesis< Component< FloatType, ? > > > getActiveLeftAssignment( final Hypothesis< Component< FloatType, ? > > hyp ) {
+		return activeLeft.get( hyp );
+	}
+
+	/**
+	 * @return the active assignment going towards the right (t+1), or
+	 *         <code>null</code>.
+	 */
+	public AbstractAssignment< Hypothesis< Component< FloatType, ? > > > getActiveRightAssignment( final Hypothesis< Component< FloatType, ? > > hyp ) {
+		return activeRight.get( hyp );
+	}
+}
@@ -0,0 +1,576 @@
+/**
+ *
+ */
+package com.jug.lp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.jug.MoMA;
+import com.jug.MoMAContext;
+import com.jug.lp.solver.IlpException;
+
+import net.imglib2.algorithm.componenttree.Component;
+import net.imglib2.type.numeric.real.FloatType;
+
+/**
+ * All user interactions with the tracking of one growth line (segment count
+ * constraints, segment and assignment selection constraints and pruning
+ * roots) in an int-coded form.
+ *
+ * A state can be stored in two formats:
+ * <ul>
+ * <li>the (legacy) text format (<code>.timm</code>): one CSV line per
+ * constraint;</li>
+ * <li>a compact binary format (<code>.timb</code>): a header, a table of
+ * sections (type, number of records, byte offset) and one section per
+ * constraint type holding fixed size int records. Unknown section types
+ * written by later versions are skipped using the offsets.</li>
+ * </ul>
+ * <code>read</code> recognizes the format by the magic number at the start
+ * of the file.
+ *
+ * Constraints are kept in one sorted map per section (key encodes time-point
+ * and hypothesis or assignment id). This makes it cheap to compute the
+ * difference of two states, which is what the append-only autosave journal
+ * (<code>TrackingStateJournal</code>) writes, and allows
+ * <code>applyTo</code> to resolve all constraints in a single pass over the
+ * hypotheses and assignments of the ILP.
+ *
+ * @author jug
+ */
+public class TrackingState {
+
+	public static final String TEXT_SUFFIX = "timm";
+	public static final String BINARY_SUFFIX = "timb";
+
+	static final int MAGIC = 0x54494D42; // "TIMB"
+	static final int FORMAT_VERSION = 1;
+
+	/**
+	 * Section types. Values of the records are: the number of segments for
+	 * SIFCC, the RHS (0 or 1) for SSC and ASC and always 1 for PR.
+	 */
+	public static final int SIFCC = 0;
+	public static final int SSC = 1;
+	public static final int ASC = 2;
+	public static final int PR = 3;
+	public static final int NUM_SECTIONS = 4;
+
+	/**
+	 * Assignment type used for ASC records read from the text format, which
+	 * does not store the type of the constrained assignment.
+	 */
+	private static final int ANY_ASSIGNMENT_TYPE = 3;
+
+	private String momaVersion = MoMA.VERSION_STRING;
+	private int numT;
+	private int tmin = -1;
+	private int tmax = -1;
+	private int numH;
+	private int numA;
+	private int bottomOffset = -1;
+
+	/**
+	 * Time (in ms) the state was captured, used to match autosave journals
+	 * to the snapshot they were started from.
+	 */
+	private long timestamp;
+
+	private final List< TreeMap< Long, Integer > > sections;
+
+	public TrackingState() {
+		sections = new ArrayList< TreeMap< Long, Integer > >( NUM_SECTIONS );
+		for ( int i = 0; i < NUM_SECTIONS; i++ ) {
+			sections.add( new TreeMap< Long, Integer >() );
+		}
+	}
+
+	// -------------------------------------------------------------------------------------
+	// keys
+	// -------------------------------------------------------------------------------------
+	static long hypothesisKey( final int t, final int id ) {
+		return ( ( long ) t << 32 ) | ( id & 0xffffffffL );
+	}
+
+	static long assignmentKey( final int t, final int type, final int id ) {
+		return ( ( long ) t << 34 ) | ( ( long ) ( type & 3 ) << 32 ) | ( id & 0xffffffffL );
+	}
+
+	private static int keyTime( final int section, final long key ) {
+		if ( section == SIFCC ) return ( int ) key;
+		if ( section == ASC ) return ( int ) ( key >> 34 );
+		return ( int ) ( key >> 32 );
+	}
+
+	private static int keyId( final long key ) {
+		return ( int ) key;
+	}
+
+	private static int keyAssignmentType( final long key ) {
+		return ( int ) ( ( key >> 32 ) & 3 );
+	}
+
+	// -------------------------------------------------------------------------------------
+	// getters & setters
+	// -------------------------------------------------------------------------------------
+	/**
+	 * @return the value of <code>GL_OFFSET_BOTTOM</code> the state was saved
+	 *         with, -1 if unknown.
+	 */
+	public int getBottomOffset() {
+		return bottomOffset;
+	}
+
+	public int getMinTime() {
+		return tmin;
+	}
+
+	public int getMaxTime() {
+		return tmax;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	void setTimestamp( final long timestamp ) {
+		this.timestamp = timestamp;
+	}
+
+	/**
+	 * @return the records of the given section, sorted by key. (Do not
+	 *         modify!)
+	 */
+	Map< Long, Integer > getSection( final int section ) {
+		return sections.get( section );
+	}
+
+	void put( final int section, final long key, final int value ) {
+		sections.get( section ).put( key, value );
+	}
+
+	void remove( final int section, final long key ) {
+		sections.get( section ).remove( key );
+	}
+
+	/**
+	 * @return the total number of records in all sections.
+	 */
+	public int size() {
+		int ret = 0;
+		for ( final TreeMap< Long, Integer > section : sections ) {
+			ret += section.size();
+		}
+		return ret;
+	}
+
+	// -------------------------------------------------------------------------------------
+	// from and to the ILP
+	// -------------------------------------------------------------------------------------
+	/**
+	 * Collects all user interactions currently set in the given ILP.
+	 */
+	public static TrackingState capture( final GrowthLineTrackingILP ilp ) {
+		final TrackingState state = new TrackingState();
+		final MoMAContext context = ilp.getGrowthLine().getContext();
+		final int timeOffset = context.getMinTime();
+		final int numTimeSteps = ilp.nodes.getNumberOfTimeSteps();
+
+		state.numT = numTimeSteps - 1;
+		state.tmin = context.getMinTime();
+		state.tmax = context.getMaxTime();
+		state.numH = ilp.nodes.getStore().getNumHypotheses();
+		state.numA = ilp.nodes.getStore().getNumAssignments();
+		state.bottomOffset = context.getConfig().GL_OFFSET_BOTTOM;
+		state.timestamp = System.currentTimeMillis();
+
+		for ( int t = 0; t < numTimeSteps; t++ ) {
+			final int value = ilp.getSegmentsInFrameCountConstraintRHS( t );
+			if ( value >= 0 ) {
+				state.put( SIFCC, t + timeOffset, value );
+			}
+
+			for ( final Hypothesis< Component< FloatType, ? >> hyp : ilp.nodes.getHypothesesAt( t ) ) {
+				if ( hyp.getSegmentSpecificConstraint() != null ) {
+					state.put( SSC, hypothesisKey( t + timeOffset, hyp.getId() ), ( int ) hyp.getSegmentSpecificConstraint().getRhs() );
+				}
+				if ( hyp.isPruneRoot() ) {
+					state.put( PR, hypothesisKey( t + timeOffset, hyp.getId() ), 1 );
+				}
+			}
+
+			for ( final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> assmnt : ilp.nodes.getAssignmentsAt( t ) ) {
+				if ( assmnt.getGroundTroothConstraint() != null ) {
+					state.put( ASC, assignmentKey( t + timeOffset, assmnt.getType(), assmnt.getId() ), ( int ) assmnt.getGroundTroothConstraint().getRhs() );
+				}
+			}
+		}
+		return state;
+	}
+
+	/**
+	 * @return true, if this state was stored for a different time range than
+	 *         the one loaded in the given run (false if the time range is
+	 *         unknown).
+	 */
+	public boolean isPartialFit( final MoMAContext context ) {
+		if ( tmin < 0 && tmax < 0 ) return false;
+		return context.getMinTime() != tmin || context.getMaxTime() != tmax;
+	}
+
+	/**
+	 * Adds all constraints of this state to the given ILP. Hypotheses and
+	 * assignments are visited once each and their constraints looked up by
+	 * key. Prune roots are not activated (this must happen after the ILP was
+	 * solved), but collected in <code>pruneRoots</code>.
+	 */
+	public void applyTo( final GrowthLineTrackingILP ilp, final List< Hypothesis< ? > > pruneRoots ) {
+		final int timeOffset = ilp.getGrowthLine().getContext().getMinTime();
+		final int numTimeSteps = ilp.nodes.getNumberOfTimeSteps();
+
+		for ( final Map.Entry< Long, Integer > entry : sections.get( SIFCC ).entrySet() ) {
+			final int t = keyTime( SIFCC, entry.getKey() ) - timeOffset;
+			if ( t < 0 || t >= numTimeSteps ) continue;
+			try {
+				ilp.addSegmentsInFrameCountConstraint( t, entry.getValue() );
+			} catch ( final IlpException e ) {
+				e.printStackTrace();
+			}
+		}
+
+		final Map< Long, Integer > ssc = sections.get( SSC );
+		final Map< Long, Integer > pr = sections.get( PR );
+		final Map< Long, Integer > asc = sections.get( ASC );
+		for ( int t = 0; t < numTimeSteps; t++ ) {
+			if ( !ssc.isEmpty() || !pr.isEmpty() ) {
+				for ( final Hypothesis< Component< FloatType, ? >> hyp : ilp.nodes.getHypothesesAt( t ) ) {
+					final long key = hypothesisKey( t + timeOffset, hyp.getId() );
+					final Integer rhs = ssc.get( key );
+					if ( rhs != null ) {
+						try {
+							if ( rhs == 1 ) {
+								ilp.addSegmentInSolutionConstraint( hyp, null );
+							} else {
+								ilp.addSegmentNotInSolutionConstraint( hyp );
+							}
+						} catch ( final IlpException e ) {
+							e.printStackTrace();
+						}
+					}
+					if ( pr.containsKey( key ) ) {
+						pruneRoots.add( hyp );
+					}
+				}
+			}
+			if ( !asc.isEmpty() ) {
+				for ( final AbstractAssignment< Hypothesis< Component< FloatType, ? >>> assmnt : ilp.nodes.getAssignmentsAt( t ) ) {
+					Integer rhs = asc.get( assignmentKey( t + timeOffset, assmnt.getType(), assmnt.getId() ) );
+					if ( rhs == null ) {
+						rhs = asc.get( assignmentKey( t + timeOffset, ANY_ASSIGNMENT_TYPE, assmnt.getId() ) );
+					}
+					if ( rhs != null ) {
+						if ( rhs == 1 ) {
+							assmnt.setGroundTruth( true );
+						} else {
+							assmnt.setGroundUntruth( true );
+						}
+					}
+				}
+			}
+		}
+	}
+
+	// -------------------------------------------------------------------------------------
+	// IO
+	// -------------------------------------------------------------------------------------
+	/**
+	 * @return true, if the given file starts with the magic number of the
+	 *         binary format.
+	 */
+	public static boolean isBinary( final File file ) throws IOException {
+		final DataInputStream in = new DataInputStream( new FileInputStream( file ) );
+		try {
+			return file.length() >= 4 && in.readInt() == MAGIC;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Reads a state in either the binary or the text format.
+	 */
+	public static TrackingState read( final File file ) throws IOException {
+		return ( isBinary( file ) ) ? readBinary( file ) : readText( file );
+	}
+
+	/**
+	 * Writes this state in the binary format if the given file has the suffix
+	 * <code>BINARY_SUFFIX</code>, in the text format otherwise.
+	 */
+	public void write( final File file ) throws IOException {
+		if ( file.getName().toLowerCase().endsWith( "." + BINARY_SUFFIX ) ) {
+			writeBinary( file );
+		} else {
+			writeText( file );
+		}
+	}
+
+	private static int recordSize( final int section ) {
+		if ( section == SIFCC || section == PR ) return 2;
+		if ( section == SSC ) return 3;
+		return 4;
+	}
+
+	public void writeBinary( final File file ) throws IOException {
+		// sections first, such that the offsets in the header are known
+		final byte[][] sectionBytes = new byte[ NUM_SECTIONS ][];
+		for ( int s = 0; s < NUM_SECTIONS; s++ ) {
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream( 4 * recordSize( s ) * sections.get( s ).size() );
+			final DataOutputStream out = new DataOutputStream( bytes );
+			for ( final Map.Entry< Long, Integer > entry : sections.get( s ).entrySet() ) {
+				writeRecord( out, s, entry.getKey(), entry.getValue() );
+			}
+			out.close();
+			sectionBytes[ s ] = bytes.toByteArray();
+		}
+
+		final ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+		final DataOutputStream header = new DataOutputStream( headerBytes );
+		header.writeInt( MAGIC );
+		header.writeInt( FORMAT_VERSION );
+		header.writeUTF( momaVersion );
+		header.writeLong( timestamp );
+		header.writeInt( numT );
+		header.writeInt( tmin );
+		header.writeInt( tmax );
+		header.writeInt( numH );
+		header.writeInt( numA );
+		header.writeInt( bottomOffset );
+		header.writeInt( NUM_SECTIONS );
+		header.close();
+
+		final int tableSize = NUM_SECTIONS * ( 4 + 4 + 8 );
+		long offset = headerBytes.size() + tableSize;
+
+		final DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( file ) ) );
+		try {
+			headerBytes.writeTo( out );
+			for ( int s = 0; s < NUM_SECTIONS; s++ ) {
+				out.writeInt( s );
+				out.writeInt( sections.get( s ).size() );
+				out.writeLong( offset );
+				offset += sectionBytes[ s ].length;
+			}
+			for ( int s = 0; s < NUM_SECTIONS; s++ ) {
+				out.write( sectionBytes[ s ] );
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	public static TrackingState readBinary( final File file ) throws IOException {
+		final DataInputStream in = new DataInputStream( new BufferedInputStream( new FileInputStream( file ) ) );
+		try {
+			if ( in.readInt() != MAGIC ) { throw new IOException( "Not a binary tracking state: " + file ); }
+			final int version = in.readInt();
+			if ( version > FORMAT_VERSION ) { throw new IOException( "Tracking state was written by a newer version of MoMA (format " + version + "): " + file ); }
+
+			final TrackingState state = new TrackingState();
+			state.momaVersion = in.readUTF();
+			state.timestamp = in.readLong();
+			state.numT = in.readInt();
+			state.tmin = in.readInt();
+			state.tmax = in.readInt();
+			state.numH = in.readInt();
+			state.numA = in.readInt();
+			state.bottomOffset = in.readInt();
+
+			final int numSections = in.readInt();
+			final int[] types = new int[ numSections ];
+			final int[] counts = new int[ numSections ];
+			final long[] offsets = new long[ numSections ];
+			for ( int i = 0; i < numSections; i++ ) {
+				types[ i ] = in.readInt();
+				counts[ i ] = in.readInt();
+				offsets[ i ] = in.readLong();
+			}
+			long position = 4 + 4 + 2 + utfLength( state.momaVersion ) + 8 + 6 * 4 + 4 + numSections * ( 4 + 4 + 8 );
+
+			// sections are stored in the order of the table -- read them in one pass
+			for ( int i = 0; i < numSections; i++ ) {
+				if ( offsets[ i ] < position ) { throw new IOException( "Corrupt section table in " + file ); }
+				skipFully( in, offsets[ i ] - position );
+				position = offsets[ i ];
+				if ( types[ i ] < 0 || types[ i ] >= NUM_SECTIONS ) continue;
+
+				for ( int r = 0; r < counts[ i ]; r++ ) {
+					readRecord( in, state, types[ i ] );
+				}
+				position += 4L * recordSize( types[ i ] ) * counts[ i ];
+			}
+			return state;
+		} finally {
+			in.close();
+		}
+	}
+
+	static void writeRecord( final DataOutputStream out, final int section, final long key, final int value ) throws IOException {
+		out.writeInt( keyTime( section, key ) );
+		switch ( section ) {
+		case SIFCC:
+			out.writeInt( value );
+			break;
+		case SSC:
+			out.writeInt( keyId( key ) );
+			out.writeInt( value );
+			break;
+		case ASC:
+			out.writeInt( keyAssignmentType( key ) );
+			out.writeInt( keyId( key ) );
+			out.writeInt( value );
+			break;
+		case PR:
+			out.writeInt( keyId( key ) );
+			break;
+		}
+	}
+
+	static void readRecord( final DataInputStream in, final TrackingState state, final int section ) throws IOException {
+		final int t = in.readInt();
+		switch ( section ) {
+		case SIFCC:
+			state.put( SIFCC, t, in.readInt() );
+			break;
+		case SSC:
+			state.put( SSC, hypothesisKey( t, in.readInt() ), in.readInt() );
+			break;
+		case ASC:
+			final int type = in.readInt();
+			state.put( ASC, assignmentKey( t, type, in.readInt() ), in.readInt() );
+			break;
+		case PR:
+			state.put( PR, hypothesisKey( t, in.readInt() ), 1 );
+			break;
+		}
+	}
+
+	private static int utfLength( final String str ) {
+		int len = 0;
+		for ( int i = 0; i < str.length(); i++ ) {
+			final char c = str.charAt( i );
+			len += ( c >= 0x0001 && c <= 0x007F ) ? 1 : ( ( c > 0x07FF ) ? 3 : 2 );
+		}
+		return len;
+	}
+
+	private static void skipFully( final DataInputStream in, long n ) throws IOException {
+		while ( n > 0 ) {
+			final long skipped = in.skip( n );
+			if ( skipped <= 0 ) {
+				in.readByte(); // throws EOFException at the end of the file
+				n--;
+			} else {
+				n -= skipped;
+			}
+		}
+	}
+
+	public void writeText( final File file ) throws IOException {
+		final BufferedWriter out = new BufferedWriter( new FileWriter( file ) );
+		try {
+			out.write( "# " + MoMA.VERSION_STRING );
+			out.newLine();
+			out.newLine();
+
+			// Write characteristics of dataset
+			// - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+			out.write( String.format( "TIME, %d, %d, %d\n", numT, tmin, tmax ) );
+			out.write( String.format( "SIZE, %d, %d\n", numH, numA ) );
+			out.write( String.format( "BOTTOM_OFFSET, %d\n", bottomOffset ) );
+			out.newLine();
+
+			out.write( "# SegmentsInFrameCountConstraints\n" );
+			for ( final Map.Entry< Long, Integer > entry : sections.get( SIFCC ).entrySet() ) {
+				out.write( String.format( "\tSIFCC, %d, %d\n", keyTime( SIFCC, entry.getKey() ), entry.getValue() ) );
+			}
+			out.write( "# SegmentSelectionConstraints (SSC)\n" );
+			for ( final Map.Entry< Long, Integer > entry : sections.get( SSC ).entrySet() ) {
+				out.write( String.format( "\tSSC, %d, %d, %s\n", keyTime( SSC, entry.getKey() ), keyId( entry.getKey() ), ( double ) entry.getValue() ) );
+			}
+			out.write( "# AssignmentSelectionConstraints (ASC)\n" );
+			for ( final Map.Entry< Long, Integer > entry : sections.get( ASC ).entrySet() ) {
+				out.write( String.format( "\tASC, %d, %d, %s\n", keyTime( ASC, entry.getKey() ), keyId( entry.getKey() ), ( double ) entry.getValue() ) );
+			}
+			out.write( "# PruningRoots (PR)\n" );
+			for ( final Long key : sections.get( PR ).keySet() ) {
+				out.write( String.format( "\tPR, %d, %d\n", keyTime( PR, key ), keyId( key ) ) );
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	public static TrackingState readText( final File file ) throws IOException {
+		final TrackingState state = new TrackingState();
+		state.timestamp = file.lastModified();
+
+		final BufferedReader reader = new BufferedReader( new FileReader( file ) );
+		try {
+			String line;
+			while ( ( line = reader.readLine() ) != null ) {
+				// ignore comments and empty lines
+				if ( line.trim().startsWith( "#" ) || line.trim().length() == 0 ) continue;
+
+				final String[] columns = line.split( "," );
+				if ( columns.length < 2 ) continue;
+				final String keyword = columns[ 0 ].trim();
+				try {
+					if ( keyword.equals( "TIME" ) ) {
+						state.numT = Integer.parseInt( columns[ 1 ].trim() );
+						state.tmin = Integer.parseInt( columns[ 2 ].trim() );
+						state.tmax = Integer.parseInt( columns[ 3 ].trim() );
+					} else if ( keyword.equals( "SIZE" ) ) {
+						state.numH = Integer.parseInt( columns[ 1 ].trim() );
+						state.numA = Integer.parseInt( columns[ 2 ].trim() );
+					} else if ( keyword.equals( "BOTTOM_OFFSET" ) ) {
+						state.bottomOffset = Integer.parseInt( columns[ 1 ].trim() );
+					} else if ( keyword.equals( "SIFCC" ) ) {
+						state.put( SIFCC, Integer.parseInt( columns[ 1 ].trim() ), Integer.parseInt( columns[ 2 ].trim() ) );
+					} else if ( keyword.equals( "SSC" ) ) {
+						final int t = Integer.parseInt( columns[ 1 ].trim() );
+						final int id = Integer.parseInt( columns[ 2 ].trim() );
+						state.put( SSC, hypothesisKey( t, id ), ( int ) Double.parseDouble( columns[ 3 ].trim() ) );
+					} else if ( keyword.equals( "ASC" ) ) {
+						final int t = Integer.parseInt( columns[ 1 ].trim() );
+						final int id = Integer.parseInt( columns[ 2 ].trim() );
+						state.put( ASC, assignmentKey( t, ANY_ASSIGNMENT_TYPE, id ), ( int ) Double.parseDouble( columns[ 3 ].trim() ) );
+					} else if ( keyword.equals( "PR" ) ) {
+						state.put( PR, hypothesisKey( Integer.parseInt( columns[ 1 ].trim() ), Integer.parseInt( columns[ 2 ].trim() ) ), 1 );
+					}
+				} catch ( final NumberFormatException e ) {
+					e.printStackTrace();
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		return state;
+	}
+}
@@ -0,0 +1,184 @@
+/**
+ *
+ */
+package com.jug.lp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+
+/**
+ * Append-only autosave of a <code>TrackingState</code>.
+ *
+ * The autosave consists of a binary snapshot (<code>baseFile</code>) and a
+ * journal next to it (<code>baseFile + ".journal"</code>). Each call to
+ * <code>record</code> only appends the records that changed since the last
+ * call to the journal. After <code>compactionInterval</code> journal entries
+ * (or if no snapshot exists yet) the current state is written as new
+ * snapshot (atomically replacing the old one) and the journal is deleted
+ * afterwards.
+ *
+ * The journal header stores the timestamp of the snapshot it belongs to, a
+ * journal left over from an older snapshot (e.g. after a crash during
+ * compaction) is ignored by <code>restore</code>. An entry that was only
+ * partially written is ignored as well.
+ *
+ * @author jug
+ */
+public class TrackingStateJournal {
+
+	public static final int DEFAULT_COMPACTION_INTERVAL = 100;
+
+	private static final int JOURNAL_MAGIC = 0x544A524E; // "TJRN"
+	private static final String JOURNAL_SUFFIX = ".journal";
+
+	private static final byte OP_PUT = 1;
+	private static final byte OP_REMOVE = 2;
+
+	private final File baseFile;
+	private final File journalFile;
+	private final int compactionInterval;
+
+	private TrackingState lastState = null;
+	private int numEntries = 0;
+
+	public TrackingStateJournal( final File baseFile ) {
+		this( baseFile, DEFAULT_COMPACTION_INTERVAL );
+	}
+
+	public TrackingStateJournal( final File baseFile, final int compactionInterval ) {
+		this.baseFile = baseFile;
+		this.journalFile = getJournalFile( baseFile );
+		this.compactionInterval = compactionInterval;
+	}
+
+	public static File getJournalFile( final File baseFile ) {
+		return new File( baseFile.getParentFile(), baseFile.getName() + JOURNAL_SUFFIX );
+	}
+
+	public File getBaseFile() {
+		return baseFile;
+	}
+
+	/**
+	 * Appends all differences between the given state and the state recorded
+	 * last to the journal, or compacts if it is time to do so.
+	 */
+	public synchronized void record( final TrackingState state ) throws IOException {
+		if ( lastState == null || numEntries >= compactionInterval || !baseFile.exists() ) {
+			compact( state );
+			return;
+		}
+
+		boolean changed = false;
+		for ( int s = 0; s < TrackingState.NUM_SECTIONS && !changed; s++ ) {
+			changed = !state.getSection( s ).equals( lastState.getSection( s ) );
+		}
+		if ( !changed ) return;
+
+		final boolean newJournal = !journalFile.exists();
+		final DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( journalFile, true ) ) );
+		try {
+			if ( newJournal ) {
+				out.writeInt( JOURNAL_MAGIC );
+				out.writeInt( TrackingState.FORMAT_VERSION );
+				out.writeLong( lastState.getTimestamp() );
+			}
+			for ( int s = 0; s < TrackingState.NUM_SECTIONS; s++ ) {
+				final Map< Long, Integer > before = lastState.getSection( s );
+				final Map< Long, Integer > after = state.getSection( s );
+				for ( final Map.Entry< Long, Integer > entry : after.entrySet() ) {
+					if ( !entry.getValue().equals( before.get( entry.getKey() ) ) ) {
+						writeEntry( out, OP_PUT, s, entry.getKey(), entry.getValue() );
+					}
+				}
+				for ( final Map.Entry< Long, Integer > entry : before.entrySet() ) {
+					if ( !after.containsKey( entry.getKey() ) ) {
+						writeEntry( out, OP_REMOVE, s, entry.getKey(), entry.getValue() );
+					}
+				}
+			}
+		} finally {
+			out.close();
+		}
+		state.setTimestamp( lastState.getTimestamp() );
+		lastState = state;
+	}
+
+	private void writeEntry( final DataOutputStream out, final byte op, final int section, final long key, final int value ) throws IOException {
+		out.writeByte( op );
+		out.writeByte( section );
+		TrackingState.writeRecord( out, section, key, value );
+		numEntries++;
+	}
+
+	/**
+	 * Writes the given state as new snapshot and deletes the journal. At any
+	 * time, either the old snapshot (with its journal) or the new one is in
+	 * place.
+	 */
+	public synchronized void compact( final TrackingState state ) throws IOException {
+		final File tmpFile = new File( baseFile.getParentFile(), baseFile.getName() + ".tmp" );
+		state.writeBinary( tmpFile );
+		Files.move( tmpFile.toPath(), baseFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+		// a journal left over from here on belongs to the old snapshot and
+		// would be ignored by restore
+		journalFile.delete();
+		lastState = state;
+		numEntries = 0;
+	}
+
+	/**
+	 * Reads the snapshot in <code>baseFile</code> (binary or text format) and
+	 * replays the journal belonging to it, if there is one.
+	 */
+	public static TrackingState restore( final File baseFile ) throws IOException {
+		final TrackingState state = TrackingState.read( baseFile );
+
+		final File journalFile = getJournalFile( baseFile );
+		if ( !journalFile.exists() ) return state;
+
+		final DataInputStream in = new DataInputStream( new BufferedInputStream( new FileInputStream( journalFile ) ) );
+		int numReplayed = 0;
+		try {
+			if ( in.readInt() != JOURNAL_MAGIC || in.readInt() > TrackingState.FORMAT_VERSION || in.readLong() != state.getTimestamp() ) {
+				System.out.println( "Ignoring journal not belonging to " + baseFile );
+				return state;
+			}
+			final TrackingState entry = new TrackingState();
+			while ( true ) {
+				final byte op = in.readByte();
+				final int section = in.readByte();
+				if ( section < 0 || section >= TrackingState.NUM_SECTIONS ) {
+					System.out.println( "Corrupt journal entry, ignoring the rest of " + journalFile );
+					break;
+				}
+				TrackingState.readRecord( in, entry, section );
+				for ( final Map.Entry< Long, Integer > record : entry.getSection( section ).entrySet() ) {
+					if ( op == OP_PUT ) {
+						state.put( section, record.getKey(), record.getValue() );
+					} else {
+						state.remove( section, record.getKey() );
+					}
+				}
+				entry.getSection( section ).clear();
+				numReplayed++;
+			}
+		} catch ( final EOFException e ) {
+			// end of journal (or partially written last entry)
+		} finally {
+			in.close();
+		}
+		System.out.println( String.format( "Replayed %d journal entries from %s", numReplayed, journalFile ) );
+		return state;
+	}
+}
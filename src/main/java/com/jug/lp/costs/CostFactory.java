@@ -5,7 +5,7 @@ package com.jug.lp.costs;
 
 import java.util.List;
 
-import com.jug.MoMA;
+import com.jug.MoMAConfig;
 import com.jug.lp.Hypothesis;
 import com.jug.util.ComponentTreeUtils;
 import com.jug.util.SimpleFunctionAnalysis;
@@ -86,9 +86,11 @@ public class CostFactory {
 	/**
 	 * @param ctNode
 	 * @param gapSepFkt
+	 * @param config
+	 *            parameters of the run (MIN_GAP_CONTRAST, MIN_CELL_LENGTH).
 	 * @return
 	 */
-	public static float getIntensitySegmentationCost( final Component< ?, ? > ctNode, final float[] gapSepFkt ) {
+	public static float getIntensitySegmentationCost( final Component< ?, ? > ctNode, final float[] gapSepFkt, final MoMAConfig config ) {
 		final ValuePair< Integer, Integer > segInterval =
 				ComponentTreeUtils.getTreeNodeInterval( ctNode );
 		final int a = segInterval.getA().intValue();
@@ -137,7 +139,7 @@ public class CostFactory {
 		final float reducedMaxHeight = maxReduced - min;
 		final float averageSegmentValue = SimpleFunctionAnalysis.getAvg( gapSepFkt, a, b );
 
-		float cost = -( maxRimHeight - reducedMaxHeight ) + MoMA.MIN_GAP_CONTRAST;
+		float cost = -( maxRimHeight - reducedMaxHeight ) + config.MIN_GAP_CONTRAST;
 		if ( cost < 0 ) {
 			cost /= avgBorderGradientDivisor;
 		}
@@ -155,7 +157,7 @@ public class CostFactory {
 		}
 
 		// cell is too small
-		if ( a > 0 && b + 1 < gapSepFkt.length && b - a < MoMA.MIN_CELL_LENGTH ) { // if a==0 or b==gapSepFkt.len, only a part of the cell is seen!
+		if ( a > 0 && b + 1 < gapSepFkt.length && b - a < config.MIN_CELL_LENGTH ) { // if a==0 or b==gapSepFkt.len, only a part of the cell is seen!
 			cost = 100;
 		}
 		return cost * 2f;
@@ -164,9 +166,11 @@ public class CostFactory {
 	/**
 	 * @param ctNode
 	 * @param gapSepFkt
+	 * @param config
+	 *            parameters of the run (MIN_CELL_LENGTH).
 	 * @return
 	 */
-	public static float getParamaxflowSegmentationCost( final Component< ?, ? > ctNode, final float[] gapSepFkt ) {
+	public static float getParamaxflowSegmentationCost( final Component< ?, ? > ctNode, final float[] gapSepFkt, final MoMAConfig config ) {
 		final ValuePair< Integer, Integer > segInterval =
 				ComponentTreeUtils.getTreeNodeInterval( ctNode );
 		final int a = segInterval.getA().intValue();
@@ -194,7 +198,7 @@ public class CostFactory {
 		float cost = ( penaltyHeight * segmentLengthInPercentGL ) - ( incentiveHeight * segmentLengthInPercentGL );
 
 		// cell is too small
-		if ( a > 0 && b + 1 < gapSepFkt.length && b - a < MoMA.MIN_CELL_LENGTH ) { // if a==0 or b==gapSepFkt.len, only a part of the cell is seen!
+		if ( a > 0 && b + 1 < gapSepFkt.length && b - a < config.MIN_CELL_LENGTH ) { // if a==0 or b==gapSepFkt.len, only a part of the cell is seen!
 			cost = 100;
 		}
 		return cost;
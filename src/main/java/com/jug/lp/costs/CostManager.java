@@ -3,14 +3,20 @@
  */
 package com.jug.lp.costs;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.Map;
 
-import gurobi.GRBVar;
+import com.jug.lp.solver.IlpModel;
+import com.jug.lp.solver.IlpVar;
 
 /**
+ * Feature matrix of all mapping and division variables (of all ILPs) and
+ * the weights used to turn features into costs.
+ * The matrix is stored as one flat, row-major float array. Rows are found
+ * via the variable index within its model (one int array per model), so no
+ * boxed objects are created per variable.
+ *
  * @author jug
  */
 public class CostManager {
@@ -20,9 +26,14 @@ public class CostManager {
 	private final int numDivisionFeatures;
 
 	private final double[] weights;
-	private final List< float[] > matrix;
 
-	private final Map< GRBVar, Integer > var2row;
+	private float[] matrix;
+	private int numRows;
+
+	/**
+	 * Per model: variable index -> row + 1 (0 means 'no row').
+	 */
+	private final Map< IlpModel, int[] > var2row;
 
 	public CostManager( final int numMappingFeatures, final int numDivisionFeatures ) {
 		this.numFeatures = numMappingFeatures + numDivisionFeatures;
@@ -30,60 +41,120 @@ public class CostManager {
 		this.numDivisionFeatures = numDivisionFeatures;
 
 		this.weights = new double[ numFeatures ];
-		this.matrix = new ArrayList< float[] >();
-		this.var2row = new HashMap< GRBVar, Integer >();
+		this.matrix = new float[ 1024 * numFeatures ];
+		this.numRows = 0;
+		this.var2row = new IdentityHashMap< IlpModel, int[] >();
 	}
 
 	public int getDimensions() {
 		return numFeatures;
 	}
 
-	public double[] getWeights() {
+	public synchronized double[] getWeights() {
 		return weights;
 	}
 
-	public void setWeights( final double[] weights ) {
+	public synchronized void setWeights( final double[] weights ) {
 		if ( weights.length != numFeatures ) { throw new IllegalArgumentException( "Dimension mismatch of given weight vector." ); }
 		System.arraycopy( weights, 0, this.weights, 0, numFeatures );
 	}
 
-	public void addRow( final GRBVar var, final float[] values ) {
+	public synchronized void addRow( final IlpVar var, final float[] values ) {
 		if ( values.length != numFeatures ) { throw new IllegalArgumentException( "Given feature values do not match feature matrix dimensions" ); }
-		var2row.put( var, matrix.size() );
-		matrix.add( values );
+		final int row = newRow( var );
+		System.arraycopy( values, 0, matrix, row * numFeatures, numFeatures );
+	}
+
+	/**
+	 * Appends a zero row and links it to the given variable.
+	 */
+	private int newRow( final IlpVar var ) {
+		if ( ( numRows + 1 ) * numFeatures > matrix.length ) {
+			matrix = Arrays.copyOf( matrix, 2 * matrix.length );
+		}
+		final int row = numRows++;
+
+		int[] rows = var2row.get( var.getModel() );
+		if ( rows == null ) {
+			rows = new int[ Math.max( 1024, var.getIndex() + 1 ) ];
+			var2row.put( var.getModel(), rows );
+		} else if ( var.getIndex() >= rows.length ) {
+			rows = Arrays.copyOf( rows, Math.max( 2 * rows.length, var.getIndex() + 1 ) );
+			var2row.put( var.getModel(), rows );
+		}
+		rows[ var.getIndex() ] = row + 1;
+		return row;
+	}
+
+	/**
+	 * @return the row index of the given variable, or -1 if it has none.
+	 */
+	private int rowOf( final IlpVar var ) {
+		final int[] rows = var2row.get( var.getModel() );
+		if ( rows == null || var.getIndex() >= rows.length ) return -1;
+		return rows[ var.getIndex() ] - 1;
 	}
 
-	public float[] getRow( final GRBVar var ) {
-		final Integer muh = var2row.get( var );
-		if ( muh != null ) {
-			return matrix.get( muh );
-		} else {
-			return new float[ numFeatures ];
+	/**
+	 * @return a copy of the feature row of the given variable (all zero if
+	 *         there is none).
+	 */
+	public synchronized float[] getRow( final IlpVar var ) {
+		final float[] ret = new float[ numFeatures ];
+		final int row = rowOf( var );
+		if ( row >= 0 ) {
+			System.arraycopy( matrix, row * numFeatures, ret, 0, numFeatures );
 		}
+		return ret;
+	}
+
+	/**
+	 * @return feature <code>i</code> of the given variable (0 if the variable
+	 *         has no feature row).
+	 */
+	public synchronized float getFeature( final IlpVar var, final int i ) {
+		final int row = rowOf( var );
+		return ( row >= 0 ) ? matrix[ row * numFeatures + i ] : 0f;
+	}
+
+	/**
+	 * Copies the feature rows of the first <code>numVars</code> variables of
+	 * the given model into one flat, row-major array (row <code>i</code>
+	 * belongs to the variable with index <code>i</code>, rows of variables
+	 * without features are all zero).
+	 */
+	public synchronized float[] getFeatureMatrix( final IlpModel model, final int numVars ) {
+		final float[] ret = new float[ numVars * numFeatures ];
+		final int[] rows = var2row.get( model );
+		if ( rows == null ) return ret;
+		for ( int i = 0; i < numVars && i < rows.length; i++ ) {
+			final int row = rows[ i ] - 1;
+			if ( row >= 0 ) {
+				System.arraycopy( matrix, row * numFeatures, ret, i * numFeatures, numFeatures );
+			}
+		}
+		return ret;
 	}
 
-	public void addMappingVariable( final GRBVar var, final float[] values ) {
-		final float[] features = new float[ numFeatures ];
+	public synchronized void addMappingVariable( final IlpVar var, final float[] values ) {
 		if ( values.length != numMappingFeatures ) { throw new IllegalArgumentException( "Given feature values for a mapping do not match feature matrix dimensions" ); }
-		System.arraycopy( values, 0, features, 0, values.length );
-		addRow( var, features );
+		final int row = newRow( var );
+		System.arraycopy( values, 0, matrix, row * numFeatures, values.length );
 	}
 
-	public void addDivisionVariable( final GRBVar var, final float[] values ) {
-		final float[] features = new float[ numFeatures ];
+	public synchronized void addDivisionVariable( final IlpVar var, final float[] values ) {
 		if ( values.length != numDivisionFeatures ) { throw new IllegalArgumentException( "Given feature values for a division do not match feature matrix dimensions" ); }
-		System.arraycopy( values, 0, features, numMappingFeatures, values.length );
-		addRow( var, features );
+		final int row = newRow( var );
+		System.arraycopy( values, 0, matrix, row * numFeatures + numMappingFeatures, values.length );
 	}
 
-	public double getCurrentCost( final GRBVar var ) {
+	public synchronized double getCurrentCost( final IlpVar var ) {
+		final int row = rowOf( var );
+		if ( row < 0 ) return 0;
 		double ret = 0;
-		final Integer muh = var2row.get( var );
-		if ( muh == null )
-			return 0;
-		final float[] row = matrix.get( muh );
-		for ( int i = 0; i < row.length; i++ ) {
-			ret += row[ i ] * weights[ i ];
+		final int offset = row * numFeatures;
+		for ( int i = 0; i < numFeatures; i++ ) {
+			ret += matrix[ offset + i ] * weights[ i ];
 		}
 		return ret;
 	}
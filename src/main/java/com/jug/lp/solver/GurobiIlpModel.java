@@ -0,0 +1,190 @@
+package com.jug.lp.solver;
+
+import gurobi.GRB;
+import gurobi.GRBConstr;
+import gurobi.GRBEnv;
+import gurobi.GRBException;
+import gurobi.GRBLinExpr;
+import gurobi.GRBModel;
+import gurobi.GRBVar;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import com.jug.gui.progress.DialogGurobiProgress;
+import com.jug.lp.GurobiCallback;
+
+/**
+ * {@link IlpModel} binding to Gurobi. All modifications are directly
+ * forwarded to a <code>GRBModel</code>.
+ *
+ * @author jug
+ */
+public class GurobiIlpModel extends IlpModel {
+
+	private final GRBEnv env;
+	private final GRBModel model;
+	private final List< GRBVar > grbVars = new ArrayList< GRBVar >();
+	private final HashMap< IlpConstr, GRBConstr > grbConstrs = new HashMap< IlpConstr, GRBConstr >();
+
+	/**
+	 * @param env
+	 *            the Gurobi environment to create the model in. Note that
+	 *            Gurobi environments must not be used concurrently by more
+	 *            than one thread.
+	 * @throws IlpException
+	 */
+	public GurobiIlpModel( final GRBEnv env ) throws IlpException {
+		this.env = env;
+		try {
+			model = new GRBModel( env );
+		} catch ( final GRBException e ) {
+			throw new IlpException( "Gurobi model could not be initialized!", e );
+		}
+	}
+
+	/**
+	 * @return the wrapped Gurobi model.
+	 */
+	public GRBModel getGRBModel() {
+		return model;
+	}
+
+	/**
+	 * @return the Gurobi environment of this model.
+	 */
+	@Override
+	public Object getSharedEnvironment() {
+		return env;
+	}
+
+	@Override
+	protected void varAdded( final IlpVar var ) throws IlpException {
+		try {
+			grbVars.add( model.addVar( var.getLowerBound(), var.getUpperBound(), var.getObj(), var.getType(), var.getName() ) );
+		} catch ( final GRBException e ) {
+			throw new IlpException( e );
+		}
+	}
+
+	@Override
+	protected void constrAdded( final IlpConstr constr ) throws IlpException {
+		final IlpLinExpr expr = constr.getExpr();
+		final GRBLinExpr grbExpr = new GRBLinExpr();
+		for ( int i = 0; i < expr.size(); i++ ) {
+			grbExpr.addTerm( expr.getCoeff( i ), grbVars.get( expr.getVar( i ).getIndex() ) );
+		}
+		try {
+			grbConstrs.put( constr, model.addConstr( grbExpr, constr.getSense(), constr.getRhs(), constr.getName() ) );
+		} catch ( final GRBException e ) {
+			throw new IlpException( e );
+		}
+	}
+
+	@Override
+	protected void constrRemoved( final IlpConstr constr ) throws IlpException {
+		final GRBConstr grbConstr = grbConstrs.remove( constr );
+		if ( grbConstr != null ) {
+			try {
+				model.remove( grbConstr );
+			} catch ( final GRBException e ) {
+				throw new IlpException( e );
+			}
+		}
+	}
+
+	@Override
+	protected void objectiveChanged( final IlpVar var ) throws IlpException {
+		try {
+			grbVars.get( var.getIndex() ).set( GRB.DoubleAttr.Obj, var.getObj() );
+		} catch ( final GRBException e ) {
+			throw new IlpException( e );
+		}
+	}
+
+	@Override
+	protected void objectivesChanged() throws IlpException {
+		final GRBVar[] grbVarArray = grbVars.toArray( new GRBVar[ grbVars.size() ] );
+		final double[] objs = new double[ grbVarArray.length ];
+		for ( int i = 0; i < objs.length; i++ ) {
+			objs[ i ] = vars.get( i ).getObj();
+		}
+		try {
+			model.set( GRB.DoubleAttr.Obj, grbVarArray, objs );
+		} catch ( final GRBException e ) {
+			throw new IlpException( e );
+		}
+	}
+
+	@Override
+	public void update() throws IlpException {
+		try {
+			model.update();
+		} catch ( final GRBException e ) {
+			throw new IlpException( e );
+		}
+	}
+
+	@Override
+	protected void solve( final DialogGurobiProgress dialog ) throws IlpException {
+		try {
+			model.getEnv().set( GRB.IntParam.OutputFlag, 0 );
+			if ( threads > 0 ) {
+				model.getEnv().set( GRB.IntParam.Threads, threads );
+			}
+
+			final GRBVar[] vars = grbVars.toArray( new GRBVar[ grbVars.size() ] );
+			if ( start != null ) {
+				model.set( GRB.DoubleAttr.Start, vars, start );
+			}
+
+			final GurobiCallback gcb = new GurobiCallback( dialog, timeLimit, maxOptimalityGap );
+			model.setCallback( gcb );
+			model.optimize();
+			mipGap = gcb.getLatestGap();
+
+			final int grbStatus = model.get( GRB.IntAttr.Status );
+			if ( grbStatus == GRB.Status.OPTIMAL ) {
+				status = OPTIMAL;
+			} else if ( grbStatus == GRB.Status.INFEASIBLE ) {
+				status = INFEASIBLE;
+			} else if ( grbStatus == GRB.Status.UNBOUNDED || grbStatus == GRB.Status.INF_OR_UNBD ) {
+				status = UNBOUNDED;
+			} else if ( grbStatus == GRB.Status.SUBOPTIMAL ) {
+				status = SUBOPTIMAL;
+			} else if ( grbStatus == GRB.Status.NUMERIC ) {
+				status = NUMERIC;
+			} else {
+				status = INTERRUPTED;
+			}
+
+			if ( model.get( GRB.IntAttr.SolCount ) > 0 ) {
+				objVal = model.get( GRB.DoubleAttr.ObjVal );
+				// one batched call instead of one JNI call per variable
+				solution = model.get( GRB.DoubleAttr.X, vars );
+			}
+		} catch ( final GRBException e ) {
+			throw new IlpException( e );
+		}
+	}
+
+	@Override
+	public void terminate() {
+		model.terminate();
+	}
+
+	@Override
+	public void dispose() {
+		model.dispose();
+	}
+
+	@Override
+	public void write( final String filename ) throws IlpException {
+		try {
+			model.write( filename );
+		} catch ( final GRBException e ) {
+			throw new IlpException( e );
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package com.jug.lp.solver;
+
+/**
+ * A linear constraint <code>expr sense rhs</code> of an {@link IlpModel}.
+ *
+ * @author jug
+ */
+public class IlpConstr {
+
+	private final IlpLinExpr expr;
+	private final char sense;
+	private final double rhs;
+	private final String name;
+
+	IlpConstr( final IlpLinExpr expr, final char sense, final double rhs, final String name ) {
+		this.expr = expr;
+		this.sense = sense;
+		this.rhs = rhs;
+		this.name = name;
+	}
+
+	public IlpLinExpr getExpr() {
+		return expr;
+	}
+
+	/**
+	 * @return one of <code>IlpModel.LESS_EQUAL</code>,
+	 *         <code>IlpModel.GREATER_EQUAL</code> or
+	 *         <code>IlpModel.EQUAL</code>.
+	 */
+	public char getSense() {
+		return sense;
+	}
+
+	public double getRhs() {
+		return rhs;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
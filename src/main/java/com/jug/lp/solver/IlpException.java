@@ -0,0 +1,25 @@
+package com.jug.lp.solver;
+
+/**
+ * Exception thrown by the {@link IlpModel} implementations. Exceptions thrown
+ * by a native solver binding are wrapped into this type, so that code
+ * building and querying ILPs does not depend on a specific solver.
+ *
+ * @author jug
+ */
+public class IlpException extends Exception {
+
+	private static final long serialVersionUID = 1L;
+
+	public IlpException( final String message ) {
+		super( message );
+	}
+
+	public IlpException( final String message, final Throwable cause ) {
+		super( message, cause );
+	}
+
+	public IlpException( final Throwable cause ) {
+		super( cause );
+	}
+}
@@ -0,0 +1,53 @@
+package com.jug.lp.solver;
+
+import java.util.Arrays;
+
+/**
+ * A linear expression over {@link IlpVar}s, i.e. a list of
+ * (coefficient, variable) terms.
+ *
+ * @author jug
+ */
+public class IlpLinExpr {
+
+	private IlpVar[] vars;
+	private double[] coeffs;
+	private int size;
+
+	public IlpLinExpr() {
+		vars = new IlpVar[ 4 ];
+		coeffs = new double[ 4 ];
+		size = 0;
+	}
+
+	/**
+	 * Adds the term <code>coeff * var</code> to this expression.
+	 *
+	 * @param coeff
+	 * @param var
+	 */
+	public void addTerm( final double coeff, final IlpVar var ) {
+		if ( size == vars.length ) {
+			vars = Arrays.copyOf( vars, 2 * size );
+			coeffs = Arrays.copyOf( coeffs, 2 * size );
+		}
+		vars[ size ] = var;
+		coeffs[ size ] = coeff;
+		size++;
+	}
+
+	/**
+	 * @return the number of terms in this expression.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public IlpVar getVar( final int i ) {
+		return vars[ i ];
+	}
+
+	public double getCoeff( final int i ) {
+		return coeffs[ i ];
+	}
+}
@@ -0,0 +1,378 @@
+package com.jug.lp.solver;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.jug.gui.progress.DialogGurobiProgress;
+
+/**
+ * Solver independent representation of an (integer) linear program that is
+ * to be minimized.
+ * The model keeps track of all variables and constraints itself. Concrete
+ * solver bindings get notified about every modification and are only asked
+ * to solve the model and to report the solution found.
+ *
+ * @author jug
+ */
+public abstract class IlpModel {
+
+	// variable types
+	public static final char CONTINUOUS = 'C';
+	public static final char BINARY = 'B';
+	public static final char INTEGER = 'I';
+
+	// constraint senses
+	public static final char LESS_EQUAL = '<';
+	public static final char GREATER_EQUAL = '>';
+	public static final char EQUAL = '=';
+
+	// optimization status
+	public static final int NOT_SOLVED = 0;
+	public static final int OPTIMAL = 1;
+	public static final int INFEASIBLE = 2;
+	public static final int UNBOUNDED = 3;
+	public static final int SUBOPTIMAL = 4;
+	public static final int NUMERIC = 5;
+	public static final int INTERRUPTED = 6;
+
+	protected final List< IlpVar > vars = new ArrayList< IlpVar >();
+	protected final List< IlpConstr > constrs = new ArrayList< IlpConstr >();
+
+	protected int status = NOT_SOLVED;
+	protected double objVal = Double.NaN;
+	protected double mipGap = Double.POSITIVE_INFINITY;
+
+	/**
+	 * Values of all variables in the last solution found (indexed by
+	 * <code>IlpVar.getIndex()</code>), <code>null</code> if there is none.
+	 */
+	protected double[] solution = null;
+
+	/**
+	 * Warm start values (indexed by <code>IlpVar.getIndex()</code>),
+	 * <code>null</code> if none were given.
+	 */
+	protected double[] start = null;
+
+	protected double timeLimit = Double.POSITIVE_INFINITY;
+	protected double maxOptimalityGap = 0.0;
+	protected int threads = 0;
+
+	// -------------------------------------------------------------------------------------
+	// hooks for the concrete solver bindings
+	// -------------------------------------------------------------------------------------
+	protected abstract void varAdded( IlpVar var ) throws IlpException;
+
+	protected abstract void constrAdded( IlpConstr constr ) throws IlpException;
+
+	protected abstract void constrRemoved( IlpConstr constr ) throws IlpException;
+
+	protected abstract void objectiveChanged( IlpVar var ) throws IlpException;
+
+	/**
+	 * Called after <code>setObjs</code> changed the objective coefficients of
+	 * all variables at once. Solver bindings that support bulk updates should
+	 * override this, the default notifies about each variable separately.
+	 *
+	 * @throws IlpException
+	 */
+	protected void objectivesChanged() throws IlpException {
+		for ( final IlpVar var : vars ) {
+			objectiveChanged( var );
+		}
+	}
+
+	/**
+	 * Solves the model. Implementations must set <code>status</code> and, if
+	 * a solution was found, <code>solution</code> and <code>objVal</code>.
+	 *
+	 * @param dialog
+	 *            progress dialog to push status messages to (can be
+	 *            <code>null</code>).
+	 * @throws IlpException
+	 */
+	protected abstract void solve( DialogGurobiProgress dialog ) throws IlpException;
+
+	/**
+	 * Asynchronously asks a running optimization to stop as soon as possible.
+	 */
+	public abstract void terminate();
+
+	/**
+	 * Frees all resources held by the solver binding.
+	 */
+	public abstract void dispose();
+
+	/**
+	 * @return the solver environment this model was created in if other
+	 *         models might share it (such models must not be optimized
+	 *         concurrently), or <code>null</code> if the model is
+	 *         independent of all others.
+	 */
+	public Object getSharedEnvironment() {
+		return null;
+	}
+
+	// -------------------------------------------------------------------------------------
+	// building
+	// -------------------------------------------------------------------------------------
+	public IlpVar addVar( final double lb, final double ub, final double obj, final char type, final String name ) throws IlpException {
+		return addVar( lb, ub, obj, type, name, -1 );
+	}
+
+	/**
+	 * Adds a new variable to this model.
+	 *
+	 * @param lb
+	 *            lower bound
+	 * @param ub
+	 *            upper bound
+	 * @param obj
+	 *            objective coefficient
+	 * @param type
+	 *            one of BINARY, INTEGER or CONTINUOUS
+	 * @param name
+	 * @param layer
+	 *            the layer (time-point) this variable belongs to, -1 if none.
+	 * @return the new variable.
+	 * @throws IlpException
+	 */
+	public IlpVar addVar( final double lb, final double ub, final double obj, final char type, final String name, final int layer ) throws IlpException {
+		final IlpVar var = new IlpVar( this, vars.size(), lb, ub, obj, type, name, layer );
+		vars.add( var );
+		varAdded( var );
+		return var;
+	}
+
+	/**
+	 * Adds the linear constraint <code>expr sense rhs</code> to this model.
+	 *
+	 * @return the new constraint.
+	 * @throws IlpException
+	 */
+	public IlpConstr addConstr( final IlpLinExpr expr, final char sense, final double rhs, final String name ) throws IlpException {
+		for ( int i = 0; i < expr.size(); i++ ) {
+			if ( expr.getVar( i ).getModel() != this ) { throw new IlpException( "Constraint '" + name + "' uses a variable of another model." ); }
+		}
+		final IlpConstr constr = new IlpConstr( expr, sense, rhs, name );
+		constrs.add( constr );
+		constrAdded( constr );
+		return constr;
+	}
+
+	/**
+	 * Removes the given constraint from this model.
+	 *
+	 * @throws IlpException
+	 */
+	public void remove( final IlpConstr constr ) throws IlpException {
+		if ( constrs.remove( constr ) ) {
+			constrRemoved( constr );
+		}
+	}
+
+	/**
+	 * Removes all given constraints from this model. Much faster than
+	 * removing them one by one when many constraints are removed at once.
+	 *
+	 * @throws IlpException
+	 */
+	public void remove( final Collection< IlpConstr > toRemove ) throws IlpException {
+		final Set< IlpConstr > removeSet = new HashSet< IlpConstr >( toRemove );
+		final List< IlpConstr > kept = new ArrayList< IlpConstr >( constrs.size() );
+		final List< IlpConstr > removed = new ArrayList< IlpConstr >( removeSet.size() );
+		for ( final IlpConstr constr : constrs ) {
+			if ( removeSet.contains( constr ) ) {
+				removed.add( constr );
+			} else {
+				kept.add( constr );
+			}
+		}
+		constrs.clear();
+		constrs.addAll( kept );
+		for ( final IlpConstr constr : removed ) {
+			constrRemoved( constr );
+		}
+	}
+
+	/**
+	 * Sets the objective coefficients of all variables at once.
+	 *
+	 * @param objs
+	 *            one coefficient per variable (indexed by
+	 *            <code>IlpVar.getIndex()</code>).
+	 * @throws IlpException
+	 */
+	public void setObjs( final double[] objs ) throws IlpException {
+		if ( objs.length != vars.size() ) { throw new IlpException( "Expected " + vars.size() + " objective coefficients, got " + objs.length + "." ); }
+		for ( int i = 0; i < objs.length; i++ ) {
+			vars.get( i ).assignObj( objs[ i ] );
+		}
+		objectivesChanged();
+	}
+
+	/**
+	 * Makes all pending modifications visible to the solver. Solvers that do
+	 * not batch modifications can simply ignore this call.
+	 *
+	 * @throws IlpException
+	 */
+	public void update() throws IlpException {}
+
+	// -------------------------------------------------------------------------------------
+	// solving
+	// -------------------------------------------------------------------------------------
+	/**
+	 * Sets the time (in seconds) after which the optimization should stop,
+	 * given the relative optimality gap dropped below
+	 * <code>maxOptimalityGap</code>.
+	 */
+	public void setTimeLimit( final double seconds, final double maxOptimalityGap ) {
+		this.timeLimit = seconds;
+		this.maxOptimalityGap = maxOptimalityGap;
+	}
+
+	/**
+	 * Sets the number of threads the solver may use (0 lets the solver
+	 * decide).
+	 */
+	public void setThreads( final int threads ) {
+		this.threads = threads;
+	}
+
+	/**
+	 * Sets a warm start for the next optimization.
+	 *
+	 * @param values
+	 *            one value per variable (indexed by
+	 *            <code>IlpVar.getIndex()</code>), or <code>null</code> to
+	 *            clear the warm start.
+	 */
+	public void setStart( final double[] values ) {
+		this.start = ( values == null ) ? null : Arrays.copyOf( values, vars.size() );
+	}
+
+	/**
+	 * Solves this model.
+	 *
+	 * @param dialog
+	 *            progress dialog (can be <code>null</code>).
+	 * @return the optimization status.
+	 * @throws IlpException
+	 */
+	public int optimize( final DialogGurobiProgress dialog ) throws IlpException {
+		status = NOT_SOLVED;
+		solution = null;
+		objVal = Double.NaN;
+		mipGap = Double.POSITIVE_INFINITY;
+		solve( dialog );
+		return status;
+	}
+
+	// -------------------------------------------------------------------------------------
+	// solution readout
+	// -------------------------------------------------------------------------------------
+	public int getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return true, if the last optimization produced a (not necessarily
+	 *         optimal) solution.
+	 */
+	public boolean hasSolution() {
+		return solution != null;
+	}
+
+	public double getObjVal() throws IlpException {
+		if ( solution == null ) { throw new IlpException( "No solution available." ); }
+		return objVal;
+	}
+
+	/**
+	 * @return the relative optimality gap reached by the last optimization.
+	 */
+	public double getMipGap() {
+		return mipGap;
+	}
+
+	public double getValue( final IlpVar var ) throws IlpException {
+		if ( solution == null ) { throw new IlpException( "No solution available." ); }
+		return solution[ var.getIndex() ];
+	}
+
+	/**
+	 * @return a copy of the values of all variables in the last solution,
+	 *         indexed by <code>IlpVar.getIndex()</code>.
+	 * @throws IlpException
+	 */
+	public double[] getValues() throws IlpException {
+		if ( solution == null ) { throw new IlpException( "No solution available." ); }
+		return Arrays.copyOf( solution, solution.length );
+	}
+
+	// -------------------------------------------------------------------------------------
+	// misc
+	// -------------------------------------------------------------------------------------
+	public IlpVar[] getVars() {
+		return vars.toArray( new IlpVar[ vars.size() ] );
+	}
+
+	public int getNumVars() {
+		return vars.size();
+	}
+
+	public IlpConstr[] getConstrs() {
+		return constrs.toArray( new IlpConstr[ constrs.size() ] );
+	}
+
+	/**
+	 * Writes this model to the given file in LP format.
+	 *
+	 * @throws IlpException
+	 */
+	public void write( final String filename ) throws IlpException {
+		try {
+			final BufferedWriter out = new BufferedWriter( new FileWriter( new File( filename ) ) );
+			try {
+				out.write( "Minimize\n obj:" );
+				for ( final IlpVar var : vars ) {
+					out.write( String.format( " %+f %s", var.getObj(), var.getName() ) );
+				}
+				out.write( "\nSubject To\n" );
+				for ( final IlpConstr constr : constrs ) {
+					out.write( " " + constr.getName() + ":" );
+					final IlpLinExpr expr = constr.getExpr();
+					for ( int i = 0; i < expr.size(); i++ ) {
+						out.write( String.format( " %+f %s", expr.getCoeff( i ), expr.getVar( i ).getName() ) );
+					}
+					final String sense = ( constr.getSense() == LESS_EQUAL ) ? "<=" : ( constr.getSense() == GREATER_EQUAL ) ? ">=" : "=";
+					out.write( String.format( " %s %f\n", sense, constr.getRhs() ) );
+				}
+				out.write( "Bounds\n" );
+				for ( final IlpVar var : vars ) {
+					out.write( String.format( " %f <= %s <= %f\n", var.getLowerBound(), var.getName(), var.getUpperBound() ) );
+				}
+				out.write( "Binaries\n" );
+				for ( final IlpVar var : vars ) {
+					if ( var.getType() == BINARY ) {
+						out.write( " " + var.getName() + "\n" );
+					}
+				}
+				out.write( "End\n" );
+			} finally {
+				out.close();
+			}
+		} catch ( final IOException e ) {
+			throw new IlpException( "Could not write model to " + filename, e );
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package com.jug.lp.solver;
+
+/**
+ * A variable of an {@link IlpModel}.
+ * Variables are numbered consecutively in the order they were added to their
+ * model. Each variable can carry a layer (the time-point it belongs to),
+ * which solvers can use to exploit the time-layered structure of tracking
+ * problems.
+ *
+ * @author jug
+ */
+public class IlpVar {
+
+	private final IlpModel model;
+	private final int index;
+	private final String name;
+	private final double lb;
+	private final double ub;
+	private final char type;
+	private final int layer;
+	private double obj;
+
+	IlpVar( final IlpModel model, final int index, final double lb, final double ub, final double obj, final char type, final String name, final int layer ) {
+		this.model = model;
+		this.index = index;
+		this.lb = lb;
+		this.ub = ub;
+		this.obj = obj;
+		this.type = type;
+		this.name = name;
+		this.layer = layer;
+	}
+
+	/**
+	 * @return the model this variable belongs to.
+	 */
+	public IlpModel getModel() {
+		return model;
+	}
+
+	/**
+	 * @return the index of this variable in its model.
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public double getLowerBound() {
+		return lb;
+	}
+
+	public double getUpperBound() {
+		return ub;
+	}
+
+	/**
+	 * @return one of <code>IlpModel.BINARY</code>,
+	 *         <code>IlpModel.INTEGER</code> or
+	 *         <code>IlpModel.CONTINUOUS</code>.
+	 */
+	public char getType() {
+		return type;
+	}
+
+	/**
+	 * @return the layer (time-point) this variable was added for, or -1 if
+	 *         none was given.
+	 */
+	public int getLayer() {
+		return layer;
+	}
+
+	/**
+	 * @return the objective coefficient of this variable.
+	 */
+	public double getObj() {
+		return obj;
+	}
+
+	/**
+	 * Sets the objective coefficient of this variable.
+	 *
+	 * @param obj
+	 * @throws IlpException
+	 */
+	public void setObj( final double obj ) throws IlpException {
+		this.obj = obj;
+		model.objectiveChanged( this );
+	}
+
+	/**
+	 * Sets the objective coefficient without notifying the model (used by
+	 * <code>IlpModel.setObjs</code>, which notifies the solver once for all
+	 * variables).
+	 */
+	void assignObj( final double obj ) {
+		this.obj = obj;
+	}
+
+	/**
+	 * @return the value of this variable in the last solution found.
+	 * @throws IlpException
+	 *             if no solution is available.
+	 */
+	public double getValue() throws IlpException {
+		return model.getValue( this );
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -0,0 +1,714 @@
+package com.jug.lp.solver;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import com.jug.gui.progress.DialogGurobiProgress;
+
+/**
+ * Pure-Java {@link IlpModel} for binary programs, which does not need a
+ * solver license or native library.
+ * <p>
+ * The model is solved by a depth-first branch and bound with constraint
+ * propagation. Variables are branched on in the order of their layer
+ * (time-point), i.e. the search walks along the chain of time-points of the
+ * tracking problem. Since the constraints of the tracking ILP only couple
+ * neighboring time-points, each decision fixes most of the constraints it
+ * appears in, and propagation carries its consequences forward to the next
+ * time-point before any further branching happens.
+ * <p>
+ * Nodes are pruned using a per-layer bound: the tracking ILP blocks each
+ * path in the component tree of a time-point by a constraint
+ * <code>sum x <= 1</code> over the assignments of that time-point. Every
+ * variable is assigned to the largest such packing row it appears in, and
+ * the bound is the objective of all fixed variables plus, per packing row,
+ * the best assignment of its free variables given the remaining capacity
+ * (plus all negative objective coefficients of free variables not covered
+ * by any packing row). The cheaper bound of all negative objective
+ * coefficients of free variables is checked first.
+ * <p>
+ * The per-layer bound alone ignores that the layers are chained by the
+ * continuity (equality) constraints. Before branching, these are therefore
+ * relaxed in a Lagrangian fashion and the multipliers found by subgradient
+ * ascent are folded into the objective (see <code>lagrangianAscent</code>),
+ * which leaves the objective of all feasible solutions unchanged but makes
+ * the per-layer bound account for the neighboring layers.
+ * <p>
+ * Like GUROBI's MIP gap, nodes that cannot improve the incumbent by more
+ * than <code>mipGapTolerance * (1 + |incumbent|)</code> are pruned (1e-4 by
+ * default, as in GUROBI). If the search completes, the status is
+ * <code>OPTIMAL</code> (within this gap).
+ * Once the time limit is passed, the search stops if no solution was found
+ * yet (status <code>INTERRUPTED</code>, no solution). Otherwise, like the
+ * <code>GurobiCallback</code>, the solution is accepted if it is within
+ * <code>maxOptimalityGap</code>: from then on, nodes are pruned with this
+ * gap and the status is <code>INTERRUPTED</code> (with the solution) once
+ * the search completes.
+ *
+ * @author jug
+ */
+public class LayeredBranchAndBoundModel extends IlpModel {
+
+	private static final double EPS = 1e-6;
+
+	/**
+	 * Number of subgradient steps used to find the multipliers of the
+	 * equality constraints at the root.
+	 */
+	private static final int LAGRANGIAN_ITERATIONS = 200;
+
+	/**
+	 * Default relative gap within which the search is considered to be
+	 * complete (GUROBI's default <code>MIPGap</code>).
+	 */
+	public static final double DEFAULT_MIP_GAP = 1e-4;
+
+	private double mipGapTolerance = DEFAULT_MIP_GAP;
+
+	private volatile boolean terminationRequested = false;
+
+	// problem in compressed sparse row (and column) form
+	private int n;
+	private int m;
+	private double[] obj;
+	private int[] rowStart;
+	private int[] rowVar;
+	private double[] rowCoeff;
+	private char[] rowSense;
+	private double[] rowRhs;
+	private int[] colStart;
+	private int[] colRow;
+	private double[] colCoeff;
+
+	// packing rows used by the layered bound
+	private int[] varGroup;
+	private int[] groupRow;
+	private int[] groupStart;
+	private int[] groupVar;
+
+	// search state
+	private byte[] val;
+	private double[] minAct;
+	private double[] maxAct;
+	private double fixedObj;
+	private double freeNegObj;
+	private double freeNegObjUngrouped;
+	/**
+	 * Constant to add to the (Lagrangian) objective used by the search to get
+	 * the objective of the model.
+	 */
+	private double objOffset;
+	private int[] trail;
+	private int trailSize;
+	private int[] queue;
+	private boolean[] inQueue;
+
+	@Override
+	protected void varAdded( final IlpVar var ) throws IlpException {
+		if ( var.getType() == CONTINUOUS || var.getLowerBound() < 0 || var.getUpperBound() > 1 ) { throw new IlpException( "LayeredBranchAndBoundModel only supports binary variables (" + var.getName() + ")." ); }
+	}
+
+	@Override
+	protected void constrAdded( final IlpConstr constr ) {}
+
+	@Override
+	protected void constrRemoved( final IlpConstr constr ) {}
+
+	@Override
+	protected void objectiveChanged( final IlpVar var ) {}
+
+	@Override
+	public void terminate() {
+		terminationRequested = true;
+	}
+
+	@Override
+	public void dispose() {
+		obj = null;
+		rowStart = rowVar = colStart = colRow = null;
+		rowCoeff = rowRhs = colCoeff = minAct = maxAct = null;
+		rowSense = null;
+		varGroup = groupRow = groupStart = groupVar = null;
+	}
+
+	/**
+	 * Sets the relative gap within which a completed search is still
+	 * considered optimal (see <code>DEFAULT_MIP_GAP</code>).
+	 */
+	public void setMipGapTolerance( final double mipGapTolerance ) {
+		this.mipGapTolerance = mipGapTolerance;
+	}
+
+	@Override
+	protected void solve( final DialogGurobiProgress dialog ) throws IlpException {
+		terminationRequested = false;
+		final long startTime = System.currentTimeMillis();
+
+		setup();
+		final int[] order = branchingOrder();
+
+		double incumbentObj = Double.POSITIVE_INFINITY;
+		double[] incumbent = null;
+
+		// fix variables by their bounds and propagate
+		boolean conflict = false;
+		for ( int v = 0; v < n && !conflict; v++ ) {
+			final IlpVar var = vars.get( v );
+			if ( var.getLowerBound() > 0.5 ) {
+				assign( v, 1 );
+			} else if ( var.getUpperBound() < 0.5 ) {
+				assign( v, 0 );
+			}
+		}
+		for ( int r = 0; r < m; r++ ) {
+			enqueue( r );
+		}
+		conflict = !propagate();
+		if ( !conflict ) {
+			lagrangianAscent();
+		}
+		final double rootBound = ( conflict ) ? Double.POSITIVE_INFINITY : layeredBound() + objOffset;
+
+		final int[] decVar = new int[ n ];
+		final int[] decOrderIdx = new int[ n ];
+		final int[] decTrailPos = new int[ n ];
+		final boolean[] decFlipped = new boolean[ n ];
+		int depth = 0;
+		int nextOrderIdx = 0;
+		long nodes = 0;
+		boolean completed = true;
+		boolean timeLimitPassed = false;
+		boolean prunedWithinMipGap = false;
+		boolean prunedWithinOptimalityGap = false;
+
+		if ( !conflict ) {
+			while ( true ) {
+				nodes++;
+				if ( ( nodes & 0x3ff ) == 0 ) {
+					final double runtime = ( System.currentTimeMillis() - startTime ) / 1000.0;
+					if ( terminationRequested || ( runtime > timeLimit && incumbent == null ) ) {
+						completed = false;
+						break;
+					}
+					timeLimitPassed = runtime > timeLimit;
+					if ( dialog != null && ( nodes & 0xffff ) == 0 ) {
+						dialog.pushStatus( String.format( "Runtime: %.1f sec.; Nodes: %d; Best objective: %.4f", runtime, nodes, incumbentObj + objOffset ) );
+					}
+				}
+
+				boolean branch = false;
+				if ( !conflict ) {
+					final double gap = ( timeLimitPassed ) ? Math.max( mipGapTolerance, maxOptimalityGap ) : mipGapTolerance;
+					final double tolerance = ( incumbent == null ) ? EPS : Math.max( EPS, gap * ( 1.0 + Math.abs( incumbentObj + objOffset ) ) );
+					double bound = fixedObj + freeNegObj;
+					if ( incumbent != null && bound < incumbentObj - tolerance ) {
+						bound = layeredBound();
+					}
+					branch = bound < incumbentObj - tolerance;
+					if ( !branch && bound < incumbentObj - EPS ) {
+						if ( timeLimitPassed ) {
+							prunedWithinOptimalityGap = true;
+						} else {
+							prunedWithinMipGap = true;
+						}
+					}
+				}
+				if ( branch ) {
+					int oi = nextOrderIdx;
+					while ( oi < n && val[ order[ oi ] ] >= 0 ) {
+						oi++;
+					}
+					if ( oi < n ) {
+						// branch on next free variable (in layer order)
+						final int v = order[ oi ];
+						decVar[ depth ] = v;
+						decOrderIdx[ depth ] = oi;
+						decTrailPos[ depth ] = trailSize;
+						decFlipped[ depth ] = false;
+						depth++;
+						assign( v, preferredValue( v, incumbent ) );
+						conflict = !propagate();
+						nextOrderIdx = oi + 1;
+						continue;
+					}
+					// all variables fixed -> new incumbent
+					incumbentObj = fixedObj;
+					incumbent = new double[ n ];
+					for ( int v = 0; v < n; v++ ) {
+						incumbent[ v ] = val[ v ];
+					}
+				}
+
+				// backtrack
+				while ( depth > 0 && decFlipped[ depth - 1 ] ) {
+					depth--;
+					undoTo( decTrailPos[ depth ] );
+				}
+				if ( depth == 0 ) {
+					break;
+				}
+				final int d = depth - 1;
+				final int v = decVar[ d ];
+				final int flipped = 1 - val[ v ];
+				undoTo( decTrailPos[ d ] );
+				decFlipped[ d ] = true;
+				assign( v, flipped );
+				conflict = !propagate();
+				nextOrderIdx = decOrderIdx[ d ] + 1;
+			}
+		}
+
+		if ( incumbent != null ) {
+			solution = incumbent;
+			objVal = 0;
+			for ( int v = 0; v < n; v++ ) {
+				objVal += vars.get( v ).getObj() * incumbent[ v ];
+			}
+			final double rootGap = Math.abs( objVal - rootBound ) / ( 1.0 + Math.abs( objVal ) );
+			if ( !completed ) {
+				mipGap = rootGap;
+			} else if ( prunedWithinOptimalityGap ) {
+				mipGap = Math.min( rootGap, Math.max( mipGapTolerance, maxOptimalityGap ) );
+			} else {
+				mipGap = ( prunedWithinMipGap ) ? Math.min( rootGap, mipGapTolerance ) : 0.0;
+			}
+			status = ( completed && !prunedWithinOptimalityGap ) ? OPTIMAL : INTERRUPTED;
+		} else {
+			status = ( completed ) ? INFEASIBLE : INTERRUPTED;
+		}
+		if ( dialog != null ) {
+			dialog.pushStatus( String.format( "Branch and bound done: %d vars, %d constraints, %d nodes, %.2f sec.", n, m, nodes, ( System.currentTimeMillis() - startTime ) / 1000.0 ) );
+		}
+	}
+
+	/**
+	 * Builds the sparse row and column representation of the current model
+	 * and resets the search state.
+	 */
+	private void setup() {
+		n = vars.size();
+		m = constrs.size();
+
+		obj = new double[ n ];
+		for ( int v = 0; v < n; v++ ) {
+			obj[ v ] = vars.get( v ).getObj();
+		}
+
+		rowStart = new int[ m + 1 ];
+		rowSense = new char[ m ];
+		rowRhs = new double[ m ];
+		for ( int r = 0; r < m; r++ ) {
+			rowStart[ r + 1 ] = rowStart[ r ] + constrs.get( r ).getExpr().size();
+		}
+		rowVar = new int[ rowStart[ m ] ];
+		rowCoeff = new double[ rowStart[ m ] ];
+		final int[] colCount = new int[ n + 1 ];
+		for ( int r = 0; r < m; r++ ) {
+			final IlpConstr constr = constrs.get( r );
+			final IlpLinExpr expr = constr.getExpr();
+			rowSense[ r ] = constr.getSense();
+			rowRhs[ r ] = constr.getRhs();
+			for ( int i = 0; i < expr.size(); i++ ) {
+				final int v = expr.getVar( i ).getIndex();
+				rowVar[ rowStart[ r ] + i ] = v;
+				rowCoeff[ rowStart[ r ] + i ] = expr.getCoeff( i );
+				colCount[ v + 1 ]++;
+			}
+		}
+
+		colStart = new int[ n + 1 ];
+		for ( int v = 0; v < n; v++ ) {
+			colStart[ v + 1 ] = colStart[ v ] + colCount[ v + 1 ];
+		}
+		colRow = new int[ colStart[ n ] ];
+		colCoeff = new double[ colStart[ n ] ];
+		final int[] fill = Arrays.copyOf( colStart, n );
+		for ( int r = 0; r < m; r++ ) {
+			for ( int k = rowStart[ r ]; k < rowStart[ r + 1 ]; k++ ) {
+				final int v = rowVar[ k ];
+				colRow[ fill[ v ] ] = r;
+				colCoeff[ fill[ v ] ] = rowCoeff[ k ];
+				fill[ v ]++;
+			}
+		}
+
+		val = new byte[ n ];
+		Arrays.fill( val, ( byte ) -1 );
+		minAct = new double[ m ];
+		maxAct = new double[ m ];
+		for ( int r = 0; r < m; r++ ) {
+			// all variables are free and in [0,1]
+			for ( int k = rowStart[ r ]; k < rowStart[ r + 1 ]; k++ ) {
+				minAct[ r ] += Math.min( 0, rowCoeff[ k ] );
+				maxAct[ r ] += Math.max( 0, rowCoeff[ k ] );
+			}
+		}
+		setupPackingGroups();
+		objOffset = 0;
+		resetObjectiveSums();
+		trail = new int[ n ];
+		trailSize = 0;
+		queue = new int[ m ];
+		inQueue = new boolean[ m ];
+		queueHead = 0;
+		queueSize = 0;
+	}
+
+	/**
+	 * Assigns every variable to the largest packing row (<code>sum x <=
+	 * rhs</code>, all coefficients 1) it appears in. Variables in no packing
+	 * row get group -1.
+	 */
+	private void setupPackingGroups() {
+		final Integer[] packingRows = new Integer[ m ];
+		int numPackingRows = 0;
+		for ( int r = 0; r < m; r++ ) {
+			if ( rowSense[ r ] != LESS_EQUAL || rowRhs[ r ] < 0 ) continue;
+			boolean packing = true;
+			for ( int k = rowStart[ r ]; k < rowStart[ r + 1 ] && packing; k++ ) {
+				packing = Math.abs( rowCoeff[ k ] - 1 ) < EPS;
+			}
+			if ( packing ) {
+				packingRows[ numPackingRows++ ] = r;
+			}
+		}
+		Arrays.sort( packingRows, 0, numPackingRows, new Comparator< Integer >() {
+
+			@Override
+			public int compare( final Integer a, final Integer b ) {
+				final int sa = rowStart[ a + 1 ] - rowStart[ a ];
+				final int sb = rowStart[ b + 1 ] - rowStart[ b ];
+				if ( sa != sb ) { return ( sa > sb ) ? -1 : 1; }
+				return a.compareTo( b );
+			}
+		} );
+
+		varGroup = new int[ n ];
+		Arrays.fill( varGroup, -1 );
+		final int[] rowOfGroup = new int[ numPackingRows ];
+		final int[] groupSize = new int[ numPackingRows ];
+		int numGroups = 0;
+		for ( int i = 0; i < numPackingRows; i++ ) {
+			final int r = packingRows[ i ];
+			for ( int k = rowStart[ r ]; k < rowStart[ r + 1 ]; k++ ) {
+				final int v = rowVar[ k ];
+				if ( varGroup[ v ] < 0 ) {
+					varGroup[ v ] = numGroups;
+					groupSize[ numGroups ]++;
+				}
+			}
+			if ( groupSize[ numGroups ] > 0 ) {
+				rowOfGroup[ numGroups++ ] = r;
+			}
+		}
+
+		groupRow = Arrays.copyOf( rowOfGroup, numGroups );
+		groupStart = new int[ numGroups + 1 ];
+		for ( int g = 0; g < numGroups; g++ ) {
+			groupStart[ g + 1 ] = groupStart[ g ] + groupSize[ g ];
+		}
+		groupVar = new int[ groupStart[ numGroups ] ];
+		final int[] fill = Arrays.copyOf( groupStart, numGroups );
+		for ( int v = 0; v < n; v++ ) {
+			if ( varGroup[ v ] >= 0 ) {
+				groupVar[ fill[ varGroup[ v ] ]++ ] = v;
+			}
+		}
+	}
+
+	/**
+	 * Recomputes the objective of the fixed variables and the sums of negative
+	 * objective coefficients of the free ones from scratch.
+	 */
+	private void resetObjectiveSums() {
+		fixedObj = 0;
+		freeNegObj = 0;
+		freeNegObjUngrouped = 0;
+		for ( int v = 0; v < n; v++ ) {
+			if ( val[ v ] >= 0 ) {
+				fixedObj += obj[ v ] * val[ v ];
+			} else {
+				freeNegObj += Math.min( 0, obj[ v ] );
+				if ( varGroup[ v ] < 0 ) {
+					freeNegObjUngrouped += Math.min( 0, obj[ v ] );
+				}
+			}
+		}
+	}
+
+	/**
+	 * Lagrangian relaxation of all equality constraints (in the tracking ILP
+	 * these are the continuity constraints linking consecutive time-points).
+	 * Multipliers are found by subgradient ascent on the layered bound and
+	 * then folded into the objective used by the search: for every solution
+	 * satisfying the equalities, <code>obj + lambda * ( Ax - b )</code> equals
+	 * the original objective, so the search is unchanged while all bounds get
+	 * tighter. <code>objOffset</code> holds <code>-lambda * b</code>.
+	 */
+	private void lagrangianAscent() {
+		int numEq = 0;
+		for ( int r = 0; r < m; r++ ) {
+			if ( rowSense[ r ] == EQUAL ) numEq++;
+		}
+		if ( numEq == 0 ) return;
+		final int[] eqRows = new int[ numEq ];
+		numEq = 0;
+		for ( int r = 0; r < m; r++ ) {
+			if ( rowSense[ r ] == EQUAL ) eqRows[ numEq++ ] = r;
+		}
+
+		double maxAbsObj = 0;
+		for ( int v = 0; v < n; v++ ) {
+			maxAbsObj = Math.max( maxAbsObj, Math.abs( obj[ v ] ) );
+		}
+		if ( maxAbsObj == 0 ) return;
+
+		final double[] lambda = new double[ numEq ];
+		final double[] cost = Arrays.copyOf( obj, n );
+		final byte[] x = new byte[ n ];
+		final double[] subgradient = new double[ numEq ];
+		double[] bestLambda = null;
+		double bestBound = layeredBound();
+
+		for ( int k = 0; k < LAGRANGIAN_ITERATIONS; k++ ) {
+			double offset = 0;
+			for ( int i = 0; i < numEq; i++ ) {
+				offset -= lambda[ i ] * rowRhs[ eqRows[ i ] ];
+			}
+			final double bound = relaxedMinimum( cost, x ) + offset;
+			if ( bound > bestBound + EPS ) {
+				bestBound = bound;
+				bestLambda = Arrays.copyOf( lambda, numEq );
+			}
+
+			double norm2 = 0;
+			for ( int i = 0; i < numEq; i++ ) {
+				final int r = eqRows[ i ];
+				double act = -rowRhs[ r ];
+				for ( int j = rowStart[ r ]; j < rowStart[ r + 1 ]; j++ ) {
+					act += rowCoeff[ j ] * x[ rowVar[ j ] ];
+				}
+				subgradient[ i ] = act;
+				norm2 += act * act;
+			}
+			if ( norm2 < EPS ) break; // relaxed minimum satisfies all equalities
+
+			final double step = maxAbsObj / ( ( k + 1 ) * Math.sqrt( norm2 ) );
+			for ( int i = 0; i < numEq; i++ ) {
+				if ( subgradient[ i ] == 0 ) continue;
+				final double d = step * subgradient[ i ];
+				lambda[ i ] += d;
+				final int r = eqRows[ i ];
+				for ( int j = rowStart[ r ]; j < rowStart[ r + 1 ]; j++ ) {
+					cost[ rowVar[ j ] ] += d * rowCoeff[ j ];
+				}
+			}
+		}
+		if ( bestLambda == null ) return;
+
+		for ( int i = 0; i < numEq; i++ ) {
+			final int r = eqRows[ i ];
+			objOffset -= bestLambda[ i ] * rowRhs[ r ];
+			for ( int j = rowStart[ r ]; j < rowStart[ r + 1 ]; j++ ) {
+				obj[ rowVar[ j ] ] += bestLambda[ i ] * rowCoeff[ j ];
+			}
+		}
+		resetObjectiveSums();
+	}
+
+	/**
+	 * Minimizes <code>cost</code> over the current partial assignment subject
+	 * to the packing rows only (the relaxation behind
+	 * <code>layeredBound</code>).
+	 *
+	 * @param x
+	 *            receives the minimizer.
+	 * @return the minimum.
+	 */
+	private double relaxedMinimum( final double[] cost, final byte[] x ) {
+		double sum = 0;
+		for ( int v = 0; v < n; v++ ) {
+			if ( val[ v ] >= 0 ) {
+				x[ v ] = val[ v ];
+				sum += cost[ v ] * val[ v ];
+			} else if ( varGroup[ v ] < 0 && cost[ v ] < 0 ) {
+				x[ v ] = 1;
+				sum += cost[ v ];
+			} else {
+				x[ v ] = 0;
+			}
+		}
+		for ( int g = 0; g < groupRow.length; g++ ) {
+			final double capacity = rowRhs[ groupRow[ g ] ] - minAct[ groupRow[ g ] ];
+			if ( capacity < 1 - EPS ) continue;
+			int best = -1;
+			for ( int k = groupStart[ g ]; k < groupStart[ g + 1 ]; k++ ) {
+				final int v = groupVar[ k ];
+				if ( val[ v ] < 0 && cost[ v ] < 0 ) {
+					if ( capacity >= 2 - EPS ) {
+						x[ v ] = 1;
+						sum += cost[ v ];
+					} else if ( best < 0 || cost[ v ] < cost[ best ] ) {
+						best = v;
+					}
+				}
+			}
+			if ( best >= 0 ) {
+				x[ best ] = 1;
+				sum += cost[ best ];
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * @return a lower bound on the objective of all completions of the
+	 *         current partial assignment (see class doc).
+	 */
+	private double layeredBound() {
+		double bound = fixedObj + freeNegObjUngrouped;
+		for ( int g = 0; g < groupRow.length; g++ ) {
+			// all coefficients are 1, hence minAct counts the variables fixed to 1
+			final double capacity = rowRhs[ groupRow[ g ] ] - minAct[ groupRow[ g ] ];
+			if ( capacity < 1 - EPS ) continue;
+			double best = 0;
+			double sumNeg = 0;
+			for ( int k = groupStart[ g ]; k < groupStart[ g + 1 ]; k++ ) {
+				final int v = groupVar[ k ];
+				if ( val[ v ] < 0 && obj[ v ] < 0 ) {
+					best = Math.min( best, obj[ v ] );
+					sumNeg += obj[ v ];
+				}
+			}
+			bound += ( capacity < 2 - EPS ) ? best : sumNeg;
+		}
+		return bound;
+	}
+
+	/**
+	 * @return all variable indices sorted by layer. Variables without layer
+	 *         are branched on last.
+	 */
+	private int[] branchingOrder() {
+		final Integer[] boxed = new Integer[ n ];
+		for ( int v = 0; v < n; v++ ) {
+			boxed[ v ] = v;
+		}
+		Arrays.sort( boxed, new Comparator< Integer >() {
+
+			@Override
+			public int compare( final Integer a, final Integer b ) {
+				final int la = vars.get( a ).getLayer();
+				final int lb = vars.get( b ).getLayer();
+				final int ka = ( la < 0 ) ? Integer.MAX_VALUE : la;
+				final int kb = ( lb < 0 ) ? Integer.MAX_VALUE : lb;
+				if ( ka != kb ) { return ( ka < kb ) ? -1 : 1; }
+				return a.compareTo( b );
+			}
+		} );
+		final int[] order = new int[ n ];
+		for ( int v = 0; v < n; v++ ) {
+			order[ v ] = boxed[ v ];
+		}
+		return order;
+	}
+
+	/**
+	 * The value tried first: the one of the incumbent (if any), else the one
+	 * of the warm start (if any), else the one that does not increase the
+	 * objective.
+	 */
+	private int preferredValue( final int v, final double[] incumbent ) {
+		if ( incumbent != null ) { return ( incumbent[ v ] > 0.5 ) ? 1 : 0; }
+		if ( start != null && !Double.isNaN( start[ v ] ) ) { return ( start[ v ] > 0.5 ) ? 1 : 0; }
+		return ( obj[ v ] < 0 ) ? 1 : 0;
+	}
+
+	private void assign( final int v, final int x ) {
+		val[ v ] = ( byte ) x;
+		trail[ trailSize++ ] = v;
+		fixedObj += obj[ v ] * x;
+		freeNegObj -= Math.min( 0, obj[ v ] );
+		if ( varGroup[ v ] < 0 ) {
+			freeNegObjUngrouped -= Math.min( 0, obj[ v ] );
+		}
+		for ( int k = colStart[ v ]; k < colStart[ v + 1 ]; k++ ) {
+			final int r = colRow[ k ];
+			final double c = colCoeff[ k ];
+			minAct[ r ] += c * x - Math.min( 0, c );
+			maxAct[ r ] += c * x - Math.max( 0, c );
+			enqueue( r );
+		}
+	}
+
+	private void undoTo( final int trailPos ) {
+		while ( trailSize > trailPos ) {
+			final int v = trail[ --trailSize ];
+			final int x = val[ v ];
+			val[ v ] = -1;
+			fixedObj -= obj[ v ] * x;
+			freeNegObj += Math.min( 0, obj[ v ] );
+			if ( varGroup[ v ] < 0 ) {
+				freeNegObjUngrouped += Math.min( 0, obj[ v ] );
+			}
+			for ( int k = colStart[ v ]; k < colStart[ v + 1 ]; k++ ) {
+				final int r = colRow[ k ];
+				final double c = colCoeff[ k ];
+				minAct[ r ] -= c * x - Math.min( 0, c );
+				maxAct[ r ] -= c * x - Math.max( 0, c );
+			}
+		}
+	}
+
+	private int queueHead = 0;
+	private int queueSize = 0;
+
+	private void enqueue( final int r ) {
+		if ( !inQueue[ r ] ) {
+			inQueue[ r ] = true;
+			queue[ ( queueHead + queueSize ) % m ] = r;
+			queueSize++;
+		}
+	}
+
+	/**
+	 * Propagates all queued rows.
+	 *
+	 * @return false, if a constraint can no longer be satisfied.
+	 */
+	private boolean propagate() {
+		while ( queueSize > 0 ) {
+			final int r = queue[ queueHead ];
+			queueHead = ( queueHead + 1 ) % m;
+			queueSize--;
+			inQueue[ r ] = false;
+
+			final boolean upper = rowSense[ r ] != GREATER_EQUAL;
+			final boolean lower = rowSense[ r ] != LESS_EQUAL;
+			if ( ( upper && minAct[ r ] > rowRhs[ r ] + EPS ) || ( lower && maxAct[ r ] < rowRhs[ r ] - EPS ) ) {
+				clearQueue();
+				return false;
+			}
+			for ( int k = rowStart[ r ]; k < rowStart[ r + 1 ]; k++ ) {
+				final int v = rowVar[ k ];
+				if ( val[ v ] >= 0 ) continue;
+				final double c = rowCoeff[ k ];
+				final double absC = Math.abs( c );
+				if ( upper && minAct[ r ] + absC > rowRhs[ r ] + EPS ) {
+					assign( v, ( c > 0 ) ? 0 : 1 );
+				} else if ( lower && maxAct[ r ] - absC < rowRhs[ r ] - EPS ) {
+					assign( v, ( c > 0 ) ? 1 : 0 );
+				}
+			}
+		}
+		return true;
+	}
+
+	private void clearQueue() {
+		while ( queueSize > 0 ) {
+			inQueue[ queue[ queueHead ] ] = false;
+			queueHead = ( queueHead + 1 ) % m;
+			queueSize--;
+		}
+	}
+}
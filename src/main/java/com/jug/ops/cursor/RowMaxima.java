@@ -0,0 +1,99 @@
+/**
+ *
+ */
+package com.jug.ops.cursor;
+
+import java.util.Arrays;
+
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.type.numeric.real.FloatType;
+
+/**
+ * Allocation free counterpart of running {@link FindLocalMaxima} on every
+ * image row of a 2D <code>FloatType</code> image. A pixel is a maximum if it
+ * is strictly larger than its left and right neighbor; the first and last
+ * pixel of a row are never reported (same as <code>FindLocalMaxima</code>).
+ *
+ * Peak x-coordinates are written into reusable int buffers (CSR layout: the
+ * peaks of row y are stored at <code>[rowStart(y), rowStart(y+1))</code>).
+ * Buffers grow as needed and are kept between calls to
+ * <code>compute</code>. Instances are not thread-safe; use one per thread.
+ *
+ * @author jug
+ */
+public class RowMaxima {
+
+	private float[] row = new float[ 0 ];
+	private int[] peaks = new int[ 64 ];
+	private int[] rowStarts = new int[ 1 ];
+	private int numRows = 0;
+
+	/**
+	 * Finds the maxima in all rows (dimension 1) of the given 2D image.
+	 * Results are valid until the next call of <code>compute</code>.
+	 *
+	 * @param frame
+	 *            2D image (x,y).
+	 */
+	public void compute( final RandomAccessibleInterval< FloatType > frame ) {
+		final int width = ( int ) frame.dimension( 0 );
+		final long minX = frame.min( 0 );
+		final long minY = frame.min( 1 );
+		numRows = ( int ) frame.dimension( 1 );
+
+		if ( row.length < width ) {
+			row = new float[ width ];
+		}
+		if ( rowStarts.length < numRows + 1 ) {
+			rowStarts = new int[ numRows + 1 ];
+		}
+
+		final RandomAccess< FloatType > ra = frame.randomAccess();
+		int numPeaks = 0;
+		for ( int y = 0; y < numRows; y++ ) {
+			rowStarts[ y ] = numPeaks;
+
+			ra.setPosition( minX, 0 );
+			ra.setPosition( minY + y, 1 );
+			for ( int x = 0; x < width; x++ ) {
+				row[ x ] = ra.get().get();
+				ra.fwd( 0 );
+			}
+
+			for ( int x = 1; x < width - 1; x++ ) {
+				final float v = row[ x ];
+				if ( v > row[ x - 1 ] && v > row[ x + 1 ] ) {
+					if ( numPeaks == peaks.length ) {
+						peaks = Arrays.copyOf( peaks, 2 * peaks.length );
+					}
+					peaks[ numPeaks++ ] = ( int ) minX + x;
+				}
+			}
+		}
+		rowStarts[ numRows ] = numPeaks;
+	}
+
+	/**
+	 * @return number of rows processed by the last call to
+	 *         <code>compute</code>.
+	 */
+	public int getNumRows() {
+		return numRows;
+	}
+
+	/**
+	 * @return number of maxima found in row y (relative to the min of the
+	 *         frame).
+	 */
+	public int getNumPeaks( final int y ) {
+		return rowStarts[ y + 1 ] - rowStarts[ y ];
+	}
+
+	/**
+	 * @return the x-coordinate of the i-th maximum found in row y.
+	 */
+	public int getPeak( final int y, final int i ) {
+		return peaks[ rowStarts[ y ] + i ];
+	}
+}
@@ -5,33 +5,168 @@ package com.jug.sbmrm;
 
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.swing.JTextArea;
 
+import com.jug.GrowthLine;
 import com.jug.MoMA;
+import com.jug.MoMAConfig;
+import com.jug.lp.GrowthLineIlpScheduler;
 import com.jug.lp.GrowthLineTrackingILP;
+import com.jug.lp.TrackingState;
 import com.jug.lp.costs.CostManager;
+import com.jug.lp.solver.IlpException;
+import com.jug.lp.solver.IlpModel;
 import com.jug.sbmrm.zeromq.SbmrmClient;
-
-import gurobi.GRB;
-import gurobi.GRBException;
-import gurobi.GRBModel;
-import gurobi.GRBVar;
+import com.jug.util.FrameExecutor;
 
 /**
+ * Structured max-margin learning of the cost function weights. Each
+ * parameter update of the SBMRM server is evaluated on all growth lines
+ * carrying user annotations (the current solution of each of them is taken
+ * as ground truth). The loss augmented problems of all these growth lines are
+ * independent and solved in parallel (except for models sharing a solver
+ * environment, see <code>IlpModel.getSharedEnvironment</code>, which are
+ * solved one after the other), the returned value and gradient are the sums
+ * over all of them. If one of them cannot be solved, training is aborted.
+ *
  * @author jug
  */
 public class MMTrainer implements Runnable {
 
+	/**
+	 * Everything needed to solve the loss augmented problem of one growth
+	 * line. Assignments are kept as sorted arrays of the indices of all
+	 * variables set to 1.
+	 */
+	private static class TrainingSample {
+
+		private final int glIdx;
+		private final GrowthLineTrackingILP ilp;
+		private final IlpModel model;
+		private final int numVars;
+		private final int numFeatures;
+
+		/**
+		 * Row-major, one row per variable.
+		 */
+		private final float[] features;
+		private final int[] assmntGT;
+		private int[] assmnt;
+
+		private final double[] costs;
+		private final double[] objs;
+		private double[] start;
+
+		private double value;
+		private final double[] gradient;
+
+		private TrainingSample( final int glIdx, final GrowthLineTrackingILP ilp, final CostManager cm ) {
+			this.glIdx = glIdx;
+			this.ilp = ilp;
+			this.model = ilp.model;
+			this.numVars = model.getNumVars();
+			this.numFeatures = cm.getDimensions();
+			this.features = cm.getFeatureMatrix( model, numVars );
+			this.start = ilp.getSolution().toStartValues( numVars );
+			this.assmntGT = activeIndices( start );
+			this.assmnt = assmntGT;
+			this.costs = new double[ numVars ];
+			this.objs = new double[ numVars ];
+			this.gradient = new double[ numFeatures ];
+		}
+
+		private void computeCosts( final double[] weights ) {
+			for ( int i = 0; i < numVars; i++ ) {
+				final int offset = i * numFeatures;
+				double cost = 0;
+				for ( int j = 0; j < numFeatures; j++ ) {
+					cost += features[ offset + j ] * weights[ j ];
+				}
+				costs[ i ] = cost;
+			}
+		}
+
+		/**
+		 * Solves the loss augmented problem for the given weights and
+		 * computes this growth line's share of value and gradient.
+		 */
+		private void solveLossAugmentedProblem( final double[] weights ) throws IlpException {
+			computeCosts( weights );
+			for ( int i = 0; i < numVars; i++ ) {
+				objs[ i ] = costs[ i ] - 1;
+			}
+			for ( final int i : assmntGT ) {
+				objs[ i ] += 2;
+			}
+			model.setObjs( objs );
+			model.setStart( start );
+			model.optimize( null );
+			if ( !model.hasSolution() ) { throw new IlpException( "No solution found for the loss augmented problem of GL# " + glIdx + " (status " + model.getStatus() + ")." ); }
+			start = model.getValues();
+			assmnt = activeIndices( start );
+
+			// LAP energy: -E_LAP(y*) + E(y') - |y'|
+			value = -model.getObjVal();
+			for ( final int i : assmntGT ) {
+				value += costs[ i ] - 1;
+			}
+
+			// gradient: features of y' minus features of y* (shared
+			// variables cancel out)
+			Arrays.fill( gradient, 0 );
+			for ( final int i : assmntGT ) {
+				addRow( i, 1 );
+			}
+			for ( final int i : assmnt ) {
+				addRow( i, -1 );
+			}
+		}
+
+		private void addRow( final int var, final double factor ) {
+			final int offset = var * numFeatures;
+			for ( int j = 0; j < numFeatures; j++ ) {
+				gradient[ j ] += factor * features[ offset + j ];
+			}
+		}
+
+		/**
+		 * Sets the objective back to the plain costs for the given weights.
+		 */
+		private void restoreObjective( final double[] weights ) throws IlpException {
+			computeCosts( weights );
+			model.setObjs( costs );
+		}
+
+		private static int[] activeIndices( final double[] values ) {
+			int n = 0;
+			for ( final double v : values ) {
+				if ( v > .5 ) n++;
+			}
+			final int[] ret = new int[ n ];
+			n = 0;
+			for ( int i = 0; i < values.length; i++ ) {
+				if ( values[ i ] > .5 ) ret[ n++ ] = i;
+			}
+			return ret;
+		}
+	}
+
 	private final MoMA mm;
-	private final GRBModel model;
-	private final GrowthLineTrackingILP ilp;
+	private final CostManager cm;
 
-	private Map< GRBVar, Boolean > assmntGT;
-	private Map< GRBVar, Boolean > assmnt;
+	private final List< TrainingSample > samples = new ArrayList< TrainingSample >();
+	/**
+	 * The samples grouped by solver environment; lanes are solved
+	 * concurrently, the samples within a lane sequentially.
+	 */
+	private final List< List< TrainingSample > > lanes = new ArrayList< List< TrainingSample > >();
+	private FrameExecutor executor;
 
 	private SbmrmClient sbmrm;
 
@@ -41,9 +176,8 @@ public class MMTrainer implements Runnable {
 
 	public MMTrainer( final MoMA mm, final JTextArea console ) {
 		this.mm = mm;
-		this.ilp = MoMA.getGui().model.getCurrentGL().getIlp();
-		this.model = ilp.model;
-		params = ilp.getCostManager().getWeights();
+		this.cm = mm.getContext().getCostManager();
+		params = Arrays.copyOf( cm.getWeights(), cm.getDimensions() );
 		sbmrm = null;
 		this.console = console;
 	}
@@ -53,69 +187,112 @@ public class MMTrainer implements Runnable {
 	 */
 	@Override
 	public void run() {
-		this.assmnt = new HashMap< GRBVar, Boolean >();
-		this.assmntGT = new HashMap< GRBVar, Boolean >();
+		final MoMAConfig config = mm.getContext().getConfig();
+		final GrowthLineIlpScheduler scheduler = new GrowthLineIlpScheduler( config.ILP_THREAD_BUDGET, config.GUROBI_THREADS_PER_MODEL );
+
+		log( "Reading and storing GT assignments..." );
+		samples.clear();
+		final List< GrowthLine > gls = mm.getGrowthLines();
+		for ( int i = 0; i < gls.size(); i++ ) {
+			final GrowthLineTrackingILP ilp = gls.get( i ).getIlp();
+			if ( ilp != null && ilp.getSolution() != null && TrackingState.capture( ilp ).size() > 0 ) {
+				samples.add( new TrainingSample( i, ilp, cm ) );
+			}
+		}
+		if ( samples.isEmpty() ) {
+			// no annotations anywhere... train on what is shown.
+			final GrowthLine gl = MoMA.getGui().model.getCurrentGL();
+			if ( gl.getIlp() == null || gl.getIlp().getSolution() == null ) {
+				log( "No solved growth line to train on!" );
+				return;
+			}
+			samples.add( new TrainingSample( gls.indexOf( gl ), gl.getIlp(), cm ) );
+		}
 
-		log( "Reading and storing GT assignment..." );
-		buildAssmnt( assmntGT );
+		lanes.clear();
+		final Map< Object, List< TrainingSample > > lanesByEnv = new IdentityHashMap< Object, List< TrainingSample > >();
+		for ( final TrainingSample sample : samples ) {
+			final Object env = sample.model.getSharedEnvironment();
+			List< TrainingSample > lane = ( env == null ) ? null : lanesByEnv.get( env );
+			if ( lane == null ) {
+				lane = new ArrayList< TrainingSample >();
+				lanes.add( lane );
+				if ( env != null ) {
+					lanesByEnv.put( env, lane );
+				}
+			}
+			lane.add( sample );
+		}
+		final int concurrentModels = Math.min( scheduler.getConcurrentModels(), lanes.size() );
+		log( String.format( "Training on %d growth line(s), solving %d at a time.", samples.size(), concurrentModels ) );
 
 		log( "Removing leveraged editing constraints..." );
-		for ( int t = 0; t < MoMA.getMaxTime(); t++ ) {
-			ilp.removeAllAssignmentConstraints( t );
-			ilp.removeAllSegmentConstraints( t );
-			ilp.removeSegmentsInFrameCountConstraint( t );
+		for ( final TrainingSample sample : samples ) {
+			for ( int t = 0; t < gls.get( sample.glIdx ).size(); t++ ) {
+				sample.ilp.removeAllAssignmentConstraints( t );
+				sample.ilp.removeAllSegmentConstraints( t );
+				sample.ilp.removeSegmentsInFrameCountConstraint( t );
+			}
+			sample.model.setTimeLimit( config.GUROBI_TIME_LIMIT, config.GUROBI_MAX_OPTIMALITY_GAP );
+			sample.model.setThreads( scheduler.getSolverThreads() );
 		}
 
 		log( "Starting training..." );
-		sbmrm = new SbmrmClient(this);
-		sbmrm.run();
-	}
-
-	/**
-	 * @param assmntGT2
-	 */
-	private void buildAssmnt( final Map< GRBVar, Boolean > assmnt ) {
-		assmnt.clear();
-		final GRBVar[] vars = model.getVars();
-		for ( final GRBVar var : vars ) {
-			try {
-				assmnt.put( var, ( var.get( GRB.DoubleAttr.X ) > .5 ) ? true : false );
-			} catch ( final GRBException e ) {
-				e.printStackTrace();
-			}
+		executor = new FrameExecutor( concurrentModels );
+		try {
+			sbmrm = new SbmrmClient( this );
+			sbmrm.run();
+		} finally {
+			executor.shutdown();
 		}
 	}
 
 	/**
 	 * Receives new parameters to try.
-	 * Starts complete inference run with the updated parameters.
+	 * Solves the loss augmented problems of all training growth lines with
+	 * the updated parameters.
+	 * If one of them fails, the objectives of all growth lines are set back
+	 * to the costs of the parameters training started with and training is
+	 * aborted (value and gradient of the remaining ones would be stale).
 	 *
 	 * @param params
 	 */
 	public void updateParametrization( final double[] params ) {
 		log( "Updating parameters..." );
-
-		// update cost manager
-		final CostManager cm = ilp.getCostManager();
 		cm.setWeights( params );
-
-		// set new LAP costs as objective coefficients
-		final GRBVar[] vars = model.getVars();
-		for ( final GRBVar var : vars ) {
-			final double newCost = cm.getCurrentCost( var ) + ( assmntGT.get( var ) ? 1 : -1 );
-			try {
-				var.set( GRB.DoubleAttr.Obj, newCost );
-			} catch ( final GRBException e ) {
-				e.printStackTrace();
+		final double[] weights = Arrays.copyOf( params, params.length );
+
+		log( "\tResolving Loss Augmented Problems..." );
+		// failures are returned instead of thrown, such that all lanes are
+		// done before the objectives are touched again
+		final List< Exception > failures = executor.run( "sbmrm_lap", lanes.size(), new FrameExecutor.FrameTask< Exception >() {
+
+			@Override
+			public Exception process( final int idx ) {
+				try {
+					for ( final TrainingSample sample : lanes.get( idx ) ) {
+						sample.solveLossAugmentedProblem( weights );
+					}
+				} catch ( final Exception e ) {
+					return e;
+				}
+				return null;
+			}
+		} );
+		for ( final Exception failure : failures ) {
+			if ( failure == null ) continue;
+			log( "\tLoss Augmented Problem could not be solved: " + failure );
+			log( "\tAborting training, restoring initial parameters..." );
+			cm.setWeights( this.params );
+			for ( final TrainingSample sample : samples ) {
+				try {
+					sample.restoreObjective( this.params );
+				} catch ( final IlpException e ) {
+					e.printStackTrace();
+				}
 			}
+			throw new RuntimeException( "Training aborted, a loss augmented problem could not be solved.", failure );
 		}
-
-		// solve
-		log( "\tResolving Loss Augmented Problem..." );
-		ilp.run();
-
-		log( "\tReading and storing current assignment..." );
-		buildAssmnt( assmnt );
 	}
 
 	/**
@@ -128,56 +305,34 @@ public class MMTrainer implements Runnable {
 
 	/**
 	 * Returns the the maximized LAP-energy (Loss Augmented Problem Energy)
-	 * the MMTrainer computed after the latest parameter update.
+	 * the MMTrainer computed after the latest parameter update, summed over
+	 * all training growth lines.
 	 *
 	 * @return
 	 */
 	public double getValue() {
 		log( "Computing LAP energy value..." );
-
-		final CostManager cm = ilp.getCostManager();
 		double energy = 0;
-		try {
-			energy = -model.get( GRB.DoubleAttr.ObjVal );
-		} catch ( final GRBException e ) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
-
-		// compute GT energy (to be added)
-		final GRBVar[] vars = model.getVars();
-		for ( final GRBVar var : vars ) {
-			if ( assmntGT.get( var ) ) {
-				energy += cm.getCurrentCost( var ); // E(y')
-				energy -= 1; 						// |y'|
-			}
+		for ( final TrainingSample sample : samples ) {
+			energy += sample.value;
 		}
 		return energy;
 	}
 
 	/**
 	 * Returns the LAP-gradient the MMTrainer computed after the latest
-	 * parameter update.
+	 * parameter update, summed over all training growth lines.
 	 *
 	 * @return
 	 */
 	public double[] getGradient() {
 		log( "Computing gradient..." );
-
-		final CostManager cm = ilp.getCostManager();
 		final double[] gradient = new double[ cm.getDimensions() ];
-
-		final GRBVar[] vars = model.getVars();
-		for ( final GRBVar var : vars ) {
-			final boolean valGT = assmntGT.get( var );
-			final boolean val = assmnt.get( var );
-			if ( val != valGT ) {
-				for ( int i = 0; i < cm.getDimensions(); ++i ) {
-					gradient[ i ] += cm.getRow( var )[ i ] * ( ( valGT ? 1 : 0 ) - ( val ? 1 : 0 ) );
-				}
+		for ( final TrainingSample sample : samples ) {
+			for ( int i = 0; i < gradient.length; i++ ) {
+				gradient[ i ] += sample.gradient[ i ];
 			}
 		}
-
 		return gradient;
 	}
 
@@ -251,24 +406,19 @@ public class MMTrainer implements Runnable {
 		this.params = finalParams;
 
 		// update cost manager
-		final CostManager cm = ilp.getCostManager();
 		cm.setWeights( params );
 
-		// remove LAP costs from objective coefficients
-		final GRBVar[] vars = model.getVars();
-		for ( final GRBVar var : vars ) {
-			final double newCost = cm.getCurrentCost( var );
+		// remove LAP costs from objective coefficients and solve
+		log( "\tComputing MAP solutions using new parameters..." );
+		for ( final TrainingSample sample : samples ) {
 			try {
-				var.set( GRB.DoubleAttr.Obj, newCost );
-			} catch ( final GRBException e ) {
+				sample.restoreObjective( params );
+			} catch ( final IlpException e ) {
 				e.printStackTrace();
 			}
+			sample.ilp.run();
 		}
 
-		// solve
-		log( "\tComputing MAP solution using new parameters..." );
-		ilp.run();
-
 		log( "\tEND" );
 	}
 
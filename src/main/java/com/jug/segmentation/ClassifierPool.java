@@ -0,0 +1,133 @@
+/**
+ *
+ */
+package com.jug.segmentation;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import net.imglib2.type.numeric.real.FloatType;
+
+/**
+ * A pool of <code>SilentWekaSegmenter</code> instances that all hold the
+ * same classifier (loaded from the same model file).
+ * A <code>WekaSegmentation</code> must not be used by more than one thread
+ * at a time, so each thread classifying concurrently borrows its own
+ * instance via <code>acquire()</code> and hands it back with
+ * <code>release(...)</code>. Instances are loaded lazily, i.e. at most as
+ * many as were ever used at the same time (and never more than
+ * <code>getSize()</code>).
+ *
+ * @author jug
+ */
+public class ClassifierPool {
+
+	private static final Map< String, ClassifierPool > sharedPools = new HashMap< String, ClassifierPool >();
+
+	private final String modelFile;
+	private final int size;
+	private int numLoaded = 0;
+	private int contextMargin = -1;
+	private final LinkedBlockingQueue< SilentWekaSegmenter< FloatType > > idle =
+			new LinkedBlockingQueue< SilentWekaSegmenter< FloatType > >();
+
+	/**
+	 * @param modelFile
+	 *            the Weka model file to load the classifiers from.
+	 * @param size
+	 *            the maximum number of classifier instances.
+	 */
+	public ClassifierPool( final String modelFile, final int size ) {
+		this.modelFile = modelFile;
+		this.size = Math.max( 1, size );
+	}
+
+	/**
+	 * @return the pool shared by everybody using the given model file. It is
+	 *         recreated if a different size is requested.
+	 */
+	public static synchronized ClassifierPool getShared( final String modelFile, final int size ) {
+		ClassifierPool pool = sharedPools.get( modelFile );
+		if ( pool == null || pool.getSize() != Math.max( 1, size ) ) {
+			pool = new ClassifierPool( modelFile, size );
+			sharedPools.put( modelFile, pool );
+		}
+		return pool;
+	}
+
+	public String getModelFile() {
+		return modelFile;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Borrows a classifier, waiting for one to be released if all
+	 * <code>getSize()</code> instances are in use.
+	 * If loading a new instance fails, its slot is freed again (so that
+	 * waiting callers do not block forever) and the exception is passed on.
+	 */
+	public SilentWekaSegmenter< FloatType > acquire() throws InterruptedException {
+		synchronized ( this ) {
+			while ( true ) {
+				final SilentWekaSegmenter< FloatType > classifier = idle.poll();
+				if ( classifier != null ) return classifier;
+				if ( numLoaded < size ) {
+					numLoaded++;
+					break;
+				}
+				wait();
+			}
+		}
+
+		// loading happens outside the lock -- models can be large
+		boolean loaded = false;
+		try {
+			final SilentWekaSegmenter< FloatType > classifier = new SilentWekaSegmenter< FloatType >( modelFile, "" );
+			loaded = true;
+			return classifier;
+		} finally {
+			if ( !loaded ) {
+				synchronized ( this ) {
+					numLoaded--;
+					notifyAll();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Hands a classifier obtained by <code>acquire()</code> back to the
+	 * pool.
+	 */
+	public synchronized void release( final SilentWekaSegmenter< FloatType > classifier ) {
+		idle.offer( classifier );
+		notifyAll();
+	}
+
+	/**
+	 * @return the number of pixels of context needed around a region such
+	 *         that the filters of this pool's classifier see (almost) the
+	 *         same neighborhood as in the full image (at least
+	 *         <code>minMargin</code>).
+	 */
+	public int getContextMargin( final int minMargin ) throws InterruptedException {
+		synchronized ( this ) {
+			if ( contextMargin >= 0 ) return Math.max( minMargin, contextMargin );
+		}
+		final SilentWekaSegmenter< FloatType > classifier = acquire();
+		try {
+			// Gaussian based filters are (practically) zero beyond 4 sigma
+			final int margin = ( int ) Math.ceil( 4 * classifier.getMaximumSigma() );
+			synchronized ( this ) {
+				contextMargin = margin;
+			}
+			return Math.max( minMargin, margin );
+		} finally {
+			release( classifier );
+		}
+	}
+}
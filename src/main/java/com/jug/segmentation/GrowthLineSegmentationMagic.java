@@ -9,26 +9,29 @@ import net.imglib2.view.SubsampleIntervalView;
 import net.imglib2.view.Views;
 
 /**
+ * Holds the classifier used during segmentation. One instance per run (see
+ * <code>MoMAContext.getSegmentationMagic()</code>).
+ *
  * @author jug
  */
 public class GrowthLineSegmentationMagic {
 
-	static SilentWekaSegmenter< FloatType > classifier;
-	private static long numSolutions;
+	private SilentWekaSegmenter< FloatType > classifier;
+	private long numSolutions;
 
-	public static void setClassifier( final String folder, final String file ) {
+	public void setClassifier( final String folder, final String file ) {
 		classifier = new SilentWekaSegmenter< FloatType >( folder, file );
 	}
 
-	public static void setClassifier( final SilentWekaSegmenter< FloatType > newClassifier ) {
+	public void setClassifier( final SilentWekaSegmenter< FloatType > newClassifier ) {
 		classifier = newClassifier;
 	}
 
-	public static SilentWekaSegmenter< FloatType > getClassifier() {
+	public SilentWekaSegmenter< FloatType > getClassifier() {
 		return classifier;
 	}
 
-	public static RandomAccessibleInterval< FloatType > returnClassification( final RandomAccessibleInterval< FloatType > rai ) {
+	public RandomAccessibleInterval< FloatType > returnClassification( final RandomAccessibleInterval< FloatType > rai ) {
 		final RandomAccessibleInterval< FloatType > classified = classifier.classifyPixels( rai, true );
 
 //		ImageJFunctions.show( classified );
@@ -74,7 +77,7 @@ public class GrowthLineSegmentationMagic {
 //		return returnParamaxflowBaby( rai, true );
 //	}
 
-	public static long getNumSolutions() {
+	public long getNumSolutions() {
 		return numSolutions;
 	}
 
@@ -0,0 +1,159 @@
+/**
+ *
+ */
+package com.jug.segmentation;
+
+import com.jug.util.FrameExecutor;
+
+import ij.ImagePlus;
+import ij.ImageStack;
+import ij.Prefs;
+import ij.process.FloatProcessor;
+import net.imglib2.Cursor;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.view.Views;
+
+/**
+ * Random forest pixel classification of a region of interest in all frames
+ * of a (x,y,t) stack.
+ * Frames are cropped to the ROI plus some context (derived from the largest
+ * filter scale of the classifier, see
+ * <code>ClassifierPool.getContextMargin</code>), such that filter responses
+ * at the ROI border are close to those in the full frame, and
+ * <code>batchSize</code> consecutive crops are classified together as one
+ * ImageJ stack, i.e. by a single feature stack computation. Batches run in
+ * parallel, each on its own classifier borrowed from a
+ * <code>ClassifierPool</code>, and each batch splits its slices over
+ * <code>Prefs.getThreads() / poolSize</code> threads, so that all cores
+ * are busy.
+ *
+ * @author jug
+ */
+public class PixelClassificationService {
+
+	public static final int DEFAULT_BATCH_SIZE = 16;
+
+	/**
+	 * Minimum number of pixels of context classified around the ROI (and
+	 * then discarded).
+	 */
+	public static final int CONTEXT_MARGIN = 16;
+
+	private final ClassifierPool pool;
+	private final int batchSize;
+	private final FrameExecutor executor;
+
+	public PixelClassificationService( final ClassifierPool pool ) {
+		this( pool, DEFAULT_BATCH_SIZE );
+	}
+
+	public PixelClassificationService( final ClassifierPool pool, final int batchSize ) {
+		this.pool = pool;
+		this.batchSize = Math.max( 1, batchSize );
+		this.executor = new FrameExecutor( pool.getSize() );
+	}
+
+	public ClassifierPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * @return the number of batches <code>classify</code> will process for
+	 *         a stack with the given number of frames.
+	 */
+	public int getNumBatches( final long numFrames ) {
+		return ( int ) ( ( numFrames + batchSize - 1 ) / batchSize );
+	}
+
+	/**
+	 * Classifies <code>roi</code> in all frames of <code>stack</code> and
+	 * writes the probability of the first class into the same region of
+	 * <code>target</code>. Pixels of <code>target</code> outside the ROI are
+	 * not touched.
+	 *
+	 * @param stack
+	 *            the (x,y,t) image to classify.
+	 * @param roi
+	 *            the (x,y) region to classify.
+	 * @param target
+	 *            (x,y,t) image, same interval as <code>stack</code>.
+	 * @param listener
+	 *            informed after each batch (may be <code>null</code>).
+	 */
+	public synchronized void classify(
+			final RandomAccessibleInterval< FloatType > stack,
+			final Interval roi,
+			final RandomAccessibleInterval< FloatType > target,
+			final FrameExecutor.StageListener listener ) {
+		int margin;
+		try {
+			margin = pool.getContextMargin( CONTEXT_MARGIN );
+		} catch ( final InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException( "Classification was interrupted.", e );
+		}
+		final long[] cropMin = new long[ 2 ];
+		final long[] cropMax = new long[ 2 ];
+		for ( int d = 0; d < 2; d++ ) {
+			cropMin[ d ] = Math.max( stack.min( d ), roi.min( d ) - margin );
+			cropMax[ d ] = Math.min( stack.max( d ), roi.max( d ) + margin );
+		}
+		final int width = ( int ) ( cropMax[ 0 ] - cropMin[ 0 ] + 1 );
+		final int height = ( int ) ( cropMax[ 1 ] - cropMin[ 1 ] + 1 );
+
+		final long firstFrame = stack.min( 2 );
+		final long lastFrame = stack.max( 2 );
+		final int threadsPerBatch = Math.max( 1, Prefs.getThreads() / pool.getSize() );
+
+		executor.setStageListener( listener );
+		executor.run( "classification", getNumBatches( stack.dimension( 2 ) ), new FrameExecutor.FrameTask< Void >() {
+
+			@Override
+			public Void process( final int batch ) throws Exception {
+				final long t0 = firstFrame + ( long ) batch * batchSize;
+				final long t1 = Math.min( lastFrame, t0 + batchSize - 1 );
+
+				// crop all frames of this batch into one stack
+				final ImageStack crops = new ImageStack( width, height );
+				for ( long t = t0; t <= t1; t++ ) {
+					final float[] pixels = new float[ width * height ];
+					final Cursor< FloatType > cursor = Views.flatIterable( Views.interval( Views.hyperSlice( stack, 2, t ), cropMin, cropMax ) ).cursor();
+					int i = 0;
+					while ( cursor.hasNext() ) {
+						pixels[ i++ ] = cursor.next().get();
+					}
+					crops.addSlice( "t" + t, new FloatProcessor( width, height, pixels ) );
+				}
+
+				final SilentWekaSegmenter< FloatType > classifier = pool.acquire();
+				final ImagePlus probabilities;
+				try {
+					probabilities = classifier.applyClassifier( new ImagePlus( "batch " + batch, crops ), threadsPerBatch, true );
+				} finally {
+					pool.release( classifier );
+				}
+				if ( probabilities == null ) { throw new IllegalStateException( "Frames " + t0 + " to " + t1 + " could not be classified." ); }
+
+				// the result holds numClasses probability maps per slice, we want the first one
+				final int numSlices = ( int ) ( t1 - t0 + 1 );
+				final int numClasses = probabilities.getStackSize() / numSlices;
+				for ( int s = 0; s < numSlices; s++ ) {
+					final float[] probs = ( float[] ) probabilities.getStack().getProcessor( s * numClasses + 1 ).convertToFloat().getPixels();
+					final RandomAccess< FloatType > ra = Views.hyperSlice( target, 2, t0 + s ).randomAccess();
+					for ( long y = roi.min( 1 ); y <= roi.max( 1 ); y++ ) {
+						ra.setPosition( y, 1 );
+						for ( long x = roi.min( 0 ); x <= roi.max( 0 ); x++ ) {
+							ra.setPosition( x, 0 );
+							ra.get().set( probs[ ( int ) ( ( y - cropMin[ 1 ] ) * width + ( x - cropMin[ 0 ] ) ) ] );
+						}
+					}
+				}
+				probabilities.close();
+				return null;
+			}
+		} );
+	}
+}
@@ -5,6 +5,7 @@ package com.jug.segmentation;
 
 import ij.IJ;
 import ij.ImagePlus;
+import ij.Prefs;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -47,6 +48,28 @@ public class SilentWekaSegmenter< T extends NumericType > {
 		return true;
 	}
 
+	/**
+	 * @return the largest filter scale (sigma) used by the loaded
+	 *         classifier's feature stack.
+	 */
+	public float getMaximumSigma() {
+		return wekaSegmentation.getMaximumSigma();
+	}
+
+	/**
+	 * Classifies all slices of the given image with one call into the
+	 * segmentation backend (one feature stack computation, slices are
+	 * distributed over <code>numThreads</code> threads).
+	 *
+	 * @return the classification result as returned by
+	 *         <code>WekaSegmentation</code>; if <code>probabilityMaps</code>
+	 *         is true it holds one probability map per class for each input
+	 *         slice (classes vary fastest).
+	 */
+	public ImagePlus applyClassifier( final ImagePlus imp, final int numThreads, final boolean probabilityMaps ) {
+		return wekaSegmentation.applyClassifier( imp, numThreads, probabilityMaps );
+	}
+
 	public RandomAccessibleInterval< T > classifyPixels( final RandomAccessibleInterval< T > img, final boolean probabilityMaps ) {
 		final List< RandomAccessibleInterval< T >> rais = new ArrayList< RandomAccessibleInterval< T >>();
 		rais.add( img );
@@ -57,7 +80,7 @@ public class SilentWekaSegmenter< T extends NumericType > {
 
 		final List< RandomAccessibleInterval< T >> results = new ArrayList< RandomAccessibleInterval< T >>( raiList );
 
-		final int numProcessors = 1; // Prefs.getThreads();
+		final int numProcessors = Prefs.getThreads();
 		final int numThreads = Math.min( raiList.size(), numProcessors );
 		final int numFurtherThreads = ( int ) Math.ceil( ( double ) ( numProcessors - numThreads ) / raiList.size() ) + 1;
 
@@ -12,8 +12,7 @@ import net.imglib2.algorithm.componenttree.Component;
 import net.imglib2.type.numeric.ARGBType;
 import net.imglib2.type.numeric.real.FloatType;
 
-import com.jug.MoMA;
-import com.jug.util.filteredcomponents.FilteredComponent;
+import com.jug.util.filteredcomponents.ExtendableComponent;
 
 /**
  * @author jug
@@ -25,13 +24,14 @@ public class ArgbDrawingUtils {
 	 * @param raAnnotationImg
 	 * @param offsetX
 	 * @param offsetY
+	 * @param glWidthInPixels
 	 */
-	public static void taintComponentTreeNode( final Component< FloatType, ? > ctn, final RandomAccess< ARGBType > raArgbImg, final long offsetX, final long offsetY ) {
+	public static void taintComponentTreeNode( final Component< FloatType, ? > ctn, final RandomAccess< ARGBType > raArgbImg, final long offsetX, final long offsetY, final int glWidthInPixels ) {
 		assert ( ctn.iterator().hasNext() );
 
 		switch ( ctn.iterator().next().numDimensions() ) {
 		case 1:
-			taint1dComponentTreeNodeFaintGreen( ctn, raArgbImg, offsetX, offsetY );
+			taint1dComponentTreeNodeFaintGreen( ctn, raArgbImg, offsetX, offsetY, glWidthInPixels );
 			break;
 		default:
 			new Exception( "Given dimensionality is not supported by this function!" ).printStackTrace();
@@ -43,13 +43,14 @@ public class ArgbDrawingUtils {
 	 * @param raAnnotationImg
 	 * @param offsetX
 	 * @param offsetY
+	 * @param glWidthInPixels
 	 */
-	public static void taintForcedComponentTreeNode( final Component< FloatType, ? > ctn, final RandomAccess< ARGBType > raArgbImg, final long offsetX, final long offsetY ) {
+	public static void taintForcedComponentTreeNode( final Component< FloatType, ? > ctn, final RandomAccess< ARGBType > raArgbImg, final long offsetX, final long offsetY, final int glWidthInPixels ) {
 		assert ( ctn.iterator().hasNext() );
 
 		switch ( ctn.iterator().next().numDimensions() ) {
 		case 1:
-			taint1dComponentTreeNodeYellow( ctn, raArgbImg, offsetX, offsetY );
+			taint1dComponentTreeNodeYellow( ctn, raArgbImg, offsetX, offsetY, glWidthInPixels );
 			break;
 		default:
 			new Exception( "Given dimensionality is not supported by this function!" ).printStackTrace();
@@ -62,18 +63,20 @@ public class ArgbDrawingUtils {
 	 * @param raAnnotationImg
 	 * @param offsetX
 	 * @param offsetY
+	 * @param glWidthInPixels
 	 */
 	public static void taintPrunedComponentTreeNode(
 			final boolean isPruneRoot,
 			final Component< FloatType, ? > ctn,
 			final RandomAccess< ARGBType > raArgbImg,
 			final long offsetX,
-			final long offsetY ) {
+			final long offsetY,
+			final int glWidthInPixels ) {
 		assert ( ctn.iterator().hasNext() );
 
 		switch ( ctn.iterator().next().numDimensions() ) {
 		case 1:
-			taint1dComponentTreeNodeGrey( isPruneRoot, ctn, raArgbImg, offsetX, offsetY );
+			taint1dComponentTreeNodeGrey( isPruneRoot, ctn, raArgbImg, offsetX, offsetY, glWidthInPixels );
 			break;
 		default:
 			new Exception( "Given dimensionality is not supported by this function!" ).printStackTrace();
@@ -103,11 +106,12 @@ public class ArgbDrawingUtils {
 	 * @param raArgbImg
 	 * @param offsetX
 	 * @param offsetY
+	 * @param glWidthInPixels
 	 */
 	@SuppressWarnings( "unchecked" )
-	private static void taint1dComponentTreeNodeFaintGreen( final Component< FloatType, ? > ctn, final RandomAccess< ARGBType > raArgbImg, final long offsetX, final long offsetY ) {
+	private static void taint1dComponentTreeNodeFaintGreen( final Component< FloatType, ? > ctn, final RandomAccess< ARGBType > raArgbImg, final long offsetX, final long offsetY, final int glWidthInPixels ) {
 
-		final int delta = MoMA.GL_WIDTH_IN_PIXELS / 2;
+		final int delta = glWidthInPixels / 2;
 		Iterator< Localizable > componentIterator = ctn.iterator();
 
 		int minCoreYpos = Integer.MAX_VALUE;
@@ -132,8 +136,8 @@ public class ArgbDrawingUtils {
 
 		int minYpos = Integer.MAX_VALUE;
 		int maxYpos = Integer.MIN_VALUE;
-		if ( ctn instanceof FilteredComponent ) {
-			componentIterator = ( ( FilteredComponent< FloatType > ) ctn ).iteratorExtended();
+		if ( ctn instanceof ExtendableComponent ) {
+			componentIterator = ( ( ExtendableComponent< FloatType > ) ctn ).iteratorExtended();
 			while ( componentIterator.hasNext() ) {
 				final int ypos = componentIterator.next().getIntPosition( 0 );
 				minYpos = Math.min( minYpos, ypos );
@@ -154,7 +158,7 @@ public class ArgbDrawingUtils {
 				}
 			}
 
-			componentIterator = ( ( FilteredComponent< FloatType > ) ctn ).iteratorExtended();
+			componentIterator = ( ( ExtendableComponent< FloatType > ) ctn ).iteratorExtended();
 			while ( componentIterator.hasNext() ) {
 				final int ypos = componentIterator.next().getIntPosition( 0 );
 				if ( ypos != minYpos && ypos != maxYpos && ypos % 2 == 0 ) {
@@ -190,8 +194,8 @@ public class ArgbDrawingUtils {
 	private static void taint1dComponentTreeNodeRed( final Component< FloatType, ? > ctn, final RandomAccess< ARGBType > raArgbImg, final long offsetX, final long offsetY ) {
 
 		Iterator< Localizable > componentIterator = ctn.iterator();
-		if ( ctn instanceof FilteredComponent ) {
-			componentIterator = ( ( FilteredComponent< FloatType > ) ctn ).iteratorExtended();
+		if ( ctn instanceof ExtendableComponent ) {
+			componentIterator = ( ( ExtendableComponent< FloatType > ) ctn ).iteratorExtended();
 		}
 		while ( componentIterator.hasNext() ) {
 			final int ypos = componentIterator.next().getIntPosition( 0 );
@@ -216,10 +220,11 @@ public class ArgbDrawingUtils {
 	 * @param raArgbImg
 	 * @param offsetX
 	 * @param offsetY
+	 * @param glWidthInPixels
 	 */
-	private static void taint1dComponentTreeNodeYellow( final Component< FloatType, ? > ctn, final RandomAccess< ARGBType > raArgbImg, final long offsetX, final long offsetY ) {
+	private static void taint1dComponentTreeNodeYellow( final Component< FloatType, ? > ctn, final RandomAccess< ARGBType > raArgbImg, final long offsetX, final long offsetY, final int glWidthInPixels ) {
 
-		final int delta = MoMA.GL_WIDTH_IN_PIXELS / 2;
+		final int delta = glWidthInPixels / 2;
 		Iterator< Localizable > componentIterator = ctn.iterator();
 
 		int minCoreYpos = Integer.MAX_VALUE;
@@ -244,8 +249,8 @@ public class ArgbDrawingUtils {
 
 		int minYpos = Integer.MAX_VALUE;
 		int maxYpos = Integer.MIN_VALUE;
-		if ( ctn instanceof FilteredComponent ) {
-			componentIterator = ( ( FilteredComponent< FloatType > ) ctn ).iteratorExtended();
+		if ( ctn instanceof ExtendableComponent ) {
+			componentIterator = ( ( ExtendableComponent< FloatType > ) ctn ).iteratorExtended();
 			while ( componentIterator.hasNext() ) {
 				final int ypos = componentIterator.next().getIntPosition( 0 );
 				minYpos = Math.min( minYpos, ypos );
@@ -266,7 +271,7 @@ public class ArgbDrawingUtils {
 				}
 			}
 
-			componentIterator = ( ( FilteredComponent< FloatType > ) ctn ).iteratorExtended();
+			componentIterator = ( ( ExtendableComponent< FloatType > ) ctn ).iteratorExtended();
 			while ( componentIterator.hasNext() ) {
 				final int ypos = componentIterator.next().getIntPosition( 0 );
 				if ( ypos != minYpos && ypos != maxYpos && ypos % 2 == 0 ) {
@@ -299,15 +304,17 @@ public class ArgbDrawingUtils {
 	 * @param raArgbImg
 	 * @param offsetX
 	 * @param offsetY
+	 * @param glWidthInPixels
 	 */
 	private static void taint1dComponentTreeNodeGrey(
 			final boolean isPruneRoot,
 			final Component< FloatType, ? > ctn,
 			final RandomAccess< ARGBType > raArgbImg,
 			final long offsetX,
-			final long offsetY ) {
+			final long offsetY,
+			final int glWidthInPixels ) {
 
-		final int delta = MoMA.GL_WIDTH_IN_PIXELS / 2;
+		final int delta = glWidthInPixels / 2;
 		Iterator< Localizable > componentIterator = ctn.iterator();
 
 		int minCoreYpos = Integer.MAX_VALUE;
@@ -346,8 +353,8 @@ public class ArgbDrawingUtils {
 
 		int minYpos = Integer.MAX_VALUE;
 		int maxYpos = Integer.MIN_VALUE;
-		if ( ctn instanceof FilteredComponent ) {
-			componentIterator = ( ( FilteredComponent< FloatType > ) ctn ).iteratorExtended();
+		if ( ctn instanceof ExtendableComponent ) {
+			componentIterator = ( ( ExtendableComponent< FloatType > ) ctn ).iteratorExtended();
 			while ( componentIterator.hasNext() ) {
 				final int ypos = componentIterator.next().getIntPosition( 0 );
 				minYpos = Math.min( minYpos, ypos );
@@ -378,7 +385,7 @@ public class ArgbDrawingUtils {
 				}
 			}
 
-			componentIterator = ( ( FilteredComponent< FloatType > ) ctn ).iteratorExtended();
+			componentIterator = ( ( ExtendableComponent< FloatType > ) ctn ).iteratorExtended();
 			while ( componentIterator.hasNext() ) {
 				final int ypos = componentIterator.next().getIntPosition( 0 );
 				if ( ypos != minYpos && ypos != maxYpos && ypos % 2 == 0 ) {
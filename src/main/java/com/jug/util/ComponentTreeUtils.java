@@ -15,7 +15,8 @@ import net.imglib2.type.numeric.real.FloatType;
 import net.imglib2.util.ValuePair;
 
 import com.jug.lp.Hypothesis;
-import com.jug.util.filteredcomponents.FilteredComponent;
+import com.jug.util.filteredcomponents.ExtendableComponent;
+import com.jug.util.filteredcomponents.IntervalComponent;
 
 /**
  * @author jug
@@ -92,6 +93,10 @@ public class ComponentTreeUtils {
 	 *         this component-tree-node respectively.
 	 */
 	public static ValuePair< Integer, Integer > getTreeNodeInterval( final Component< ?, ? > node ) {
+		if ( node instanceof IntervalComponent ) {
+			final IntervalComponent ic = ( IntervalComponent ) node;
+			return new ValuePair< Integer, Integer >( new Integer( ic.getStart() ), new Integer( ic.getEnd() ) );
+		}
 		int min = Integer.MAX_VALUE;
 		int max = Integer.MIN_VALUE;
 		final Iterator< Localizable > componentIterator = node.iterator();
@@ -118,7 +123,11 @@ public class ComponentTreeUtils {
 	 */
 	@SuppressWarnings( "unchecked" )
 	public static ValuePair< Integer, Integer > getExtendedTreeNodeInterval(
-			final FilteredComponent< ? > node ) {
+			final ExtendableComponent< ? > node ) {
+		if ( node instanceof IntervalComponent ) {
+			final IntervalComponent ic = ( IntervalComponent ) node;
+			return new ValuePair< Integer, Integer >( new Integer( ic.getStartExtended() ), new Integer( ic.getEndExtended() ) );
+		}
 		int min = Integer.MAX_VALUE;
 		int max = Integer.MIN_VALUE;
 		final Iterator< Localizable > componentIterator = node.iteratorExtended();
@@ -4,10 +4,7 @@
 package com.jug.util;
 
 import ij.IJ;
-import ij.ImagePlus;
 import ij.Prefs;
-import ij.plugin.ChannelSplitter;
-import ij.plugin.Duplicator;
 import io.scif.img.ImgIOException;
 
 import java.io.File;
@@ -24,7 +21,6 @@ import net.imglib2.exception.IncompatibleTypeException;
 import net.imglib2.img.ImagePlusAdapter;
 import net.imglib2.img.Img;
 import net.imglib2.img.array.ArrayImgFactory;
-import net.imglib2.img.display.imagej.ImageJFunctions;
 import net.imglib2.type.NativeType;
 import net.imglib2.type.numeric.RealType;
 import net.imglib2.type.numeric.real.FloatType;
@@ -57,65 +53,21 @@ public class FloatTypeImgLoader {
 		}
 	}
 
+	/**
+	 * Loads the requested frames and channels of a single TIFF file, decoding
+	 * one plane at a time (see <code>PlanarTiffLoader</code>). The first
+	 * channel is normalized per frame and the last frame is (virtually)
+	 * duplicated.
+	 */
 	private static ArrayList<Img<FloatType>> loadTiffsFromFile(String filename, int minTime, int maxTime, int minChannel, int maxChannel) {
 
 		ArrayList<Img<FloatType>> rawChannelImgs = new ArrayList< Img< FloatType >>();
+		rawChannelImgs.addAll( PlanarTiffLoader.load( filename, minTime, maxTime, minChannel, maxChannel, true ) );
 
-		ImagePlus imp = IJ.openImage(filename);
-
-		int channelCount = imp.getNChannels();
-		int frameCount = imp.getNFrames();
-		if (channelCount == maxChannel - minChannel + 1 && (frameCount == maxTime - minTime + 1 || (minTime == -1 && maxTime == -1 )))
-		{
-			ImagePlus[] channelImps = ChannelSplitter.split(imp);
-			for (ImagePlus channelImp : channelImps)
-			{
-				Img<FloatType> img = ImageJFunctions.convertFloat(channelImp);
-				System.out.println("size before dupl "  + img.max(2));
-
-				// dirty workaround, see FloatTypeImgLoader.loadMMTiffSequence
-				img = duplicateLastSlice(img);
-
-				System.out.println("size after dupl "  + img.max(2));
-				rawChannelImgs.add(img);
-			}
-		} else { // this way is not very memory efficient, but I see no other easy alternative
-			int sliceCount = imp.getNSlices();
-
-			for (int c = minChannel; c <= maxChannel; c++) {
-				ImagePlus dupl = new Duplicator().run(imp, minChannel, maxChannel, 1, sliceCount, minTime, maxTime);
-				Img<FloatType> img = ImageJFunctions.convertFloat(dupl);
-
-				// dirty workaround, see FloatTypeImgLoader.loadMMTiffSequence
-				img = duplicateLastSlice(img);
-				rawChannelImgs.add(img);
-			}
-		}
-
-		System.out.println("size before norm  "  + rawChannelImgs.get(0).max(2));
-		// Normalise first channel
-		ArrayList<IntervalView<FloatType>> firstChannelSlices = Util.slice(rawChannelImgs.get( 0 ));
-		for (IntervalView<FloatType> slice : firstChannelSlices)
-		{
-			Normalize.normalize(slice, new FloatType( 0.0f ), new FloatType( 1.0f ) );
-		}
-		rawChannelImgs.set(0, Util.stack(firstChannelSlices));
-
-		System.out.println("size after norm  "  + rawChannelImgs.get(0).max(2));
+		System.out.println("size after dupl "  + rawChannelImgs.get(0).max(2));
 		return rawChannelImgs;
 	}
 
-	private static Img<FloatType> duplicateLastSlice(Img<FloatType> inImg) {
-		ArrayList<IntervalView<FloatType>> slices = Util.slice(inImg);
-
-		// duplicate last slice
-		slices.add(slices.get(slices.size() - 1));
-
-
-
-		return Util.stack(slices);
-	}
-
 	private static ArrayList<Img<FloatType>> loadTiffsFromFolder(String path, int minTime, int maxTime, int minChannel, int maxChannel) {
 
 		ArrayList<Img<FloatType>> rawChannelImgs = new ArrayList< Img< FloatType >>();
@@ -131,8 +83,7 @@ public class FloatTypeImgLoader {
 					rawChannelImgs.add( FloatTypeImgLoader.loadMMPathAsStack( path, minTime, maxTime, false, filter ) );
 				}
 			} catch ( final Exception e ) {
-				e.printStackTrace();
-				System.exit( 10 );
+				throw new RuntimeException( String.format( "Could not load tiff sequence for channel '%s' from '%s'.", filter, path ), e );
 			}
 			System.out.println( "Done loading tiffs!" );
 		}
@@ -0,0 +1,156 @@
+/**
+ *
+ */
+package com.jug.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs independent per-frame tasks of the preprocessing stages (growth line
+ * detection, background subtraction, normalization, hypothesis generation)
+ * on a work-stealing pool (one per run, see
+ * <code>MoMAContext.getFrameExecutor()</code>). Results are always returned
+ * in task order, such that the output does not depend on the scheduling.
+ * With a parallelism of 1 all tasks run sequentially in the calling thread.
+ *
+ * @author jug
+ */
+public class FrameExecutor {
+
+	/**
+	 * One unit of work, typically all that needs to be done for one frame.
+	 */
+	public interface FrameTask< T > {
+
+		public T process( int idx ) throws Exception;
+	}
+
+	/**
+	 * Gets informed about the progress of a stage. Note that
+	 * <code>taskDone</code> is called from the worker threads.
+	 */
+	public interface StageListener {
+
+		public void taskDone( String stage, int numDone, int numTasks );
+
+		public void stageDone( String stage, int numTasks, long millis );
+	}
+
+	private final int parallelism;
+	private ExecutorService pool;
+	private volatile StageListener listener;
+
+	/**
+	 * @param parallelism
+	 *            number of worker threads; 1 (or less) means sequential
+	 *            execution in the calling thread.
+	 */
+	public FrameExecutor( final int parallelism ) {
+		this.parallelism = Math.max( 1, parallelism );
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public void setStageListener( final StageListener listener ) {
+		this.listener = listener;
+	}
+
+	public StageListener getStageListener() {
+		return listener;
+	}
+
+	private synchronized ExecutorService getPool() {
+		if ( pool == null ) {
+			pool = Executors.newWorkStealingPool( parallelism );
+		}
+		return pool;
+	}
+
+	/**
+	 * Stops the worker threads. Later calls to <code>run</code> will start
+	 * new ones.
+	 */
+	public synchronized void shutdown() {
+		if ( pool != null ) {
+			pool.shutdown();
+			pool = null;
+		}
+	}
+
+	/**
+	 * Runs <code>task</code> for all indices in <code>[0,numTasks)</code>.
+	 *
+	 * @param stage
+	 *            name of the stage (used for progress reporting).
+	 * @return the results of all tasks, ordered by index.
+	 * @throws RuntimeException
+	 *             if one of the tasks failed (the cause is the original
+	 *             exception).
+	 */
+	public < T > List< T > run( final String stage, final int numTasks, final FrameTask< T > task ) {
+		final long start = System.currentTimeMillis();
+		final List< T > results = new ArrayList< T >( numTasks );
+		final AtomicInteger numDone = new AtomicInteger( 0 );
+
+		if ( parallelism == 1 || numTasks < 2 ) {
+			for ( int i = 0; i < numTasks; i++ ) {
+				try {
+					results.add( task.process( i ) );
+				} catch ( final Exception e ) {
+					throw new RuntimeException( stage + " failed at index " + i + ".", e );
+				}
+				reportTaskDone( stage, numDone.incrementAndGet(), numTasks );
+			}
+		} else {
+			final ExecutorService executor = getPool();
+			final List< Future< T > > futures = new ArrayList< Future< T > >( numTasks );
+			for ( int i = 0; i < numTasks; i++ ) {
+				final int idx = i;
+				futures.add( executor.submit( new Callable< T >() {
+
+					@Override
+					public T call() throws Exception {
+						final T result = task.process( idx );
+						reportTaskDone( stage, numDone.incrementAndGet(), numTasks );
+						return result;
+					}
+				} ) );
+			}
+			for ( int i = 0; i < numTasks; i++ ) {
+				try {
+					results.add( futures.get( i ).get() );
+				} catch ( final InterruptedException e ) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException( stage + " was interrupted.", e );
+				} catch ( final ExecutionException e ) {
+					for ( final Future< T > future : futures ) {
+						future.cancel( true );
+					}
+					throw new RuntimeException( stage + " failed at index " + i + ".", e.getCause() );
+				}
+			}
+		}
+
+		final StageListener l = listener;
+		if ( l != null ) {
+			l.stageDone( stage, numTasks, System.currentTimeMillis() - start );
+		}
+		return results;
+	}
+
+	private void reportTaskDone( final String stage, final int numDone, final int numTasks ) {
+		final StageListener l = listener;
+		if ( l != null ) {
+			l.taskDone( stage, numDone, numTasks );
+		}
+	}
+}
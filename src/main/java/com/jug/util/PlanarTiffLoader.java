@@ -0,0 +1,130 @@
+/**
+ *
+ */
+package com.jug.util;
+
+import ij.IJ;
+import ij.ImagePlus;
+import ij.ImageStack;
+import ij.process.ImageProcessor;
+
+import java.util.ArrayList;
+
+import net.imglib2.algorithm.stats.Normalize;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.FloatArray;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.img.planar.PlanarImgs;
+import net.imglib2.type.numeric.real.FloatType;
+
+/**
+ * Loads the requested time/channel planes of a (hyper)stack TIFF file into
+ * one <code>PlanarImg</code> per channel. The file is opened as virtual
+ * stack, such that only one plane at a time is decoded and converted to
+ * float. The whole file is never held in memory, and neither are
+ * intermediate duplicates of it.
+ *
+ * The last frame is duplicated (see
+ * <code>FloatTypeImgLoader.loadMMTiffSequence</code>) by letting the last two
+ * planes share the same float array, i.e. without copying any pixels. Note
+ * that writing into one of these two frames therefore also changes the
+ * other. The raw images are only read in MoMA (<code>imgTemp</code> is a
+ * copy), so this is fine.
+ *
+ * @author jug
+ */
+public class PlanarTiffLoader {
+
+	/**
+	 * @param filename
+	 *            the TIFF file to load.
+	 * @param minTime
+	 *            first frame to load (1-based), -1 for the first frame in
+	 *            the file.
+	 * @param maxTime
+	 *            last frame to load (1-based, inclusive), -1 for the last
+	 *            frame in the file.
+	 * @param minChannel
+	 *            first channel to load (1-based).
+	 * @param maxChannel
+	 *            last channel to load (1-based, inclusive).
+	 * @param normalizeFirstChannel
+	 *            if true, each plane of the first loaded channel is
+	 *            normalized to [0,1].
+	 * @return one image (x,y,t) per loaded channel; t has one more frame
+	 *         than loaded (the duplicated last frame).
+	 */
+	public static ArrayList< PlanarImg< FloatType, FloatArray > > load( final String filename, final int minTime, final int maxTime, final int minChannel, final int maxChannel, final boolean normalizeFirstChannel ) {
+		ImagePlus imp = IJ.openVirtual( filename );
+		if ( imp == null ) {
+			// not a format ImageJ can open virtually -- fall back to a full load
+			imp = IJ.openImage( filename );
+		}
+		if ( imp == null ) { throw new IllegalArgumentException( "Could not open image file: " + filename ); }
+
+		final ImageStack stack = imp.getStack();
+		final int width = imp.getWidth();
+		final int height = imp.getHeight();
+		final int channelCount = imp.getNChannels();
+
+		// stacks without hyperstack information often store time in slices
+		final boolean timeInSlices = ( imp.getNFrames() == 1 && imp.getNSlices() > 1 );
+		final int frameCount = ( timeInSlices ) ? imp.getNSlices() : imp.getNFrames();
+
+		final int tStart = ( minTime == -1 ) ? 1 : Math.max( 1, minTime );
+		final int tEnd = ( maxTime == -1 ) ? frameCount : Math.min( frameCount, maxTime );
+		final int cStart = Math.max( 1, minChannel );
+		final int cEnd = Math.min( channelCount, maxChannel );
+		if ( tEnd < tStart || cEnd < cStart ) { throw new IllegalArgumentException( String.format( "Requested frames [%d,%d] and channels [%d,%d] are not contained in %s (%d frames, %d channels).", minTime, maxTime, minChannel, maxChannel, filename, frameCount, channelCount ) ); }
+
+		final int numFrames = tEnd - tStart + 1;
+		System.out.println( String.format( "Streaming %d frame(s) of %d channel(s) from '%s'...", numFrames, cEnd - cStart + 1, filename ) );
+
+		final ArrayList< PlanarImg< FloatType, FloatArray > > channelImgs = new ArrayList< PlanarImg< FloatType, FloatArray > >();
+		for ( int c = cStart; c <= cEnd; c++ ) {
+			final PlanarImg< FloatType, FloatArray > img = PlanarImgs.floats( width, height, numFrames + 1 );
+			for ( int t = tStart; t <= tEnd; t++ ) {
+				final int stackIdx = ( timeInSlices ) ? imp.getStackIndex( c, t, 1 ) : imp.getStackIndex( c, 1, t );
+				final float[] plane = img.getPlane( t - tStart ).getCurrentStorageArray();
+				readPlane( stack.getProcessor( stackIdx ), plane );
+				if ( normalizeFirstChannel && c == cStart ) {
+					Normalize.normalize( ArrayImgs.floats( plane, width, height ), new FloatType( 0.0f ), new FloatType( 1.0f ) );
+				}
+			}
+
+			// dirty workaround, see FloatTypeImgLoader.loadMMTiffSequence
+			// (virtual duplicate: both planes share the same array)
+			img.setPlane( numFrames, img.getPlane( numFrames - 1 ) );
+
+			channelImgs.add( img );
+		}
+
+		imp.close();
+		return channelImgs;
+	}
+
+	/**
+	 * Converts the given plane to float and copies it into
+	 * <code>target</code>.
+	 */
+	private static void readPlane( final ImageProcessor ip, final float[] target ) {
+		final Object pixels = ip.getPixels();
+		if ( pixels instanceof float[] ) {
+			System.arraycopy( pixels, 0, target, 0, target.length );
+		} else if ( pixels instanceof short[] ) {
+			final short[] px = ( short[] ) pixels;
+			for ( int i = 0; i < target.length; i++ ) {
+				target[ i ] = px[ i ] & 0xffff;
+			}
+		} else if ( pixels instanceof byte[] ) {
+			final byte[] px = ( byte[] ) pixels;
+			for ( int i = 0; i < target.length; i++ ) {
+				target[ i ] = px[ i ] & 0xff;
+			}
+		} else {
+			// RGB and others: let ImageJ do the conversion
+			final float[] px = ( float[] ) ip.convertToFloatProcessor().getPixels();
+			System.arraycopy( px, 0, target, 0, target.length );
+		}
+	}
+}
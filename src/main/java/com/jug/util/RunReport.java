@@ -0,0 +1,353 @@
+/**
+ *
+ */
+package com.jug.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Records wall clock time, CPU time and allocated bytes of the stages of one
+ * run (loading, growth line detection, normalization, hypothesis generation,
+ * ILP build and solve, classification, export), for the entire run and per
+ * growth line, together with counts like the number of hypotheses or the
+ * solver gap. At the end of a run the report can be written as JSON (see
+ * <code>writeJson</code>). Optionally every finished stage is also committed
+ * as a JFR event (<code>com.jug.Stage</code>), such that it shows up in
+ * flight recordings (e.g. <code>-XX:StartFlightRecording</code>) next to GC
+ * and allocation events.
+ *
+ * Usage:
+ *
+ * <pre>
+ * final RunReport.Span span = report.start( "normalization" );
+ * try {
+ * 	...
+ * } finally {
+ * 	span.stop();
+ * }
+ * </pre>
+ *
+ * Spans started with <code>start</code> measure CPU time and allocations of
+ * the whole JVM, since most stages run on the <code>FrameExecutor</code> pool
+ * (when several runs share the JVM, e.g. batch workers, these numbers include
+ * the other runs). Spans started with <code>startInThread</code> only measure
+ * the calling thread; they are used for the ILPs of concurrently processed
+ * growth lines (CPU time of native solver threads is not contained).
+ *
+ * @author jug
+ */
+public class RunReport {
+
+	/**
+	 * Growth line index of spans that are not specific to a growth line.
+	 */
+	public static final int RUN = -1;
+
+	/**
+	 * One measured stage. Counts can be added until (and after) it is
+	 * stopped.
+	 */
+	public static class Span {
+
+		private final String stage;
+		private final Integer growthLine;
+		private Double wallSeconds;
+		private Double cpuSeconds;
+		private Long allocatedBytes;
+		private final Map< String, Number > counts = new LinkedHashMap< String, Number >();
+
+		private transient final RunReport report;
+		private transient final boolean inThread;
+		private transient final long startWall;
+		private transient final long startCpu;
+		private transient final long startAllocated;
+		private transient final Object jfrEvent;
+
+		private Span( final RunReport report, final String stage, final int glIdx, final boolean inThread ) {
+			this.report = report;
+			this.stage = stage;
+			this.growthLine = ( glIdx == RUN ) ? null : Integer.valueOf( glIdx );
+			this.inThread = inThread;
+			this.jfrEvent = ( report.jfrEvents ) ? Jfr.begin() : null;
+			this.startCpu = cpuNanos( inThread );
+			this.startAllocated = allocatedBytes( inThread );
+			this.startWall = System.nanoTime();
+		}
+
+		/**
+		 * Adds a count (e.g. number of hypotheses) to this stage. Non finite
+		 * values are left out of the report.
+		 *
+		 * @return this span.
+		 */
+		public Span count( final String key, final Number value ) {
+			synchronized ( counts ) {
+				if ( value != null && !Double.isNaN( value.doubleValue() ) && !Double.isInfinite( value.doubleValue() ) ) {
+					counts.put( key, value );
+				}
+			}
+			return this;
+		}
+
+		public void stop() {
+			final long wall = System.nanoTime() - startWall;
+			final long cpu = cpuNanos( inThread );
+			final long allocated = allocatedBytes( inThread );
+			wallSeconds = wall / 1e9;
+			cpuSeconds = ( cpu >= 0 && startCpu >= 0 ) ? Double.valueOf( ( cpu - startCpu ) / 1e9 ) : null;
+			allocatedBytes = ( allocated >= 0 && startAllocated >= 0 ) ? Long.valueOf( Math.max( 0, allocated - startAllocated ) ) : null;
+			if ( jfrEvent != null ) {
+				Jfr.commit( jfrEvent, stage, ( growthLine == null ) ? RUN : growthLine.intValue(), ( cpuSeconds == null ) ? -1 : cpu - startCpu, ( allocatedBytes == null ) ? -1 : allocatedBytes.longValue() );
+			}
+			report.add( this );
+		}
+
+		public String getStage() {
+			return stage;
+		}
+
+		public double getWallSeconds() {
+			return ( wallSeconds == null ) ? 0 : wallSeconds.doubleValue();
+		}
+	}
+
+	/**
+	 * Sums of all spans of one stage (JSON only).
+	 */
+	private static class Total {
+
+		private int spans;
+		private double wallSeconds;
+		private double cpuSeconds;
+		private long allocatedBytes;
+	}
+
+	// -------------------------------------------------------------------------------------
+	// fields
+	// -------------------------------------------------------------------------------------
+	private final String started = new SimpleDateFormat( "yyyy-MM-dd'T'HH:mm:ssZ" ).format( new Date() );
+	private String dataset;
+	private Double wallSeconds;
+	private Long maxHeapBytes;
+	private Long peakHeapBytes;
+	private final Map< String, Total > totals = new LinkedHashMap< String, Total >();
+	private final List< Span > stages = new ArrayList< Span >();
+
+	private transient final long startWall = System.nanoTime();
+	private transient volatile boolean jfrEvents = false;
+
+	// -------------------------------------------------------------------------------------
+	// methods
+	// -------------------------------------------------------------------------------------
+	public void setDataset( final String dataset ) {
+		this.dataset = dataset;
+	}
+
+	/**
+	 * @param jfrEvents
+	 *            if true, spans started from now on are also committed as JFR
+	 *            events (if JFR is available in this JVM).
+	 */
+	public void setJfrEvents( final boolean jfrEvents ) {
+		this.jfrEvents = jfrEvents && Jfr.isAvailable();
+	}
+
+	/**
+	 * Starts a run level stage (measuring the entire JVM).
+	 */
+	public Span start( final String stage ) {
+		return start( stage, RUN );
+	}
+
+	/**
+	 * Starts a stage of the given growth line (measuring the entire JVM).
+	 */
+	public Span start( final String stage, final int glIdx ) {
+		return new Span( this, stage, glIdx, false );
+	}
+
+	/**
+	 * Starts a stage of the given growth line that is entirely processed by
+	 * the calling thread (measuring this thread only).
+	 */
+	public Span startInThread( final String stage, final int glIdx ) {
+		return new Span( this, stage, glIdx, true );
+	}
+
+	private synchronized void add( final Span span ) {
+		stages.add( span );
+		Total total = totals.get( span.stage );
+		if ( total == null ) {
+			total = new Total();
+			totals.put( span.stage, total );
+		}
+		total.spans++;
+		total.wallSeconds += span.getWallSeconds();
+		total.cpuSeconds += ( span.cpuSeconds == null ) ? 0 : span.cpuSeconds.doubleValue();
+		total.allocatedBytes += ( span.allocatedBytes == null ) ? 0 : span.allocatedBytes.longValue();
+	}
+
+	/**
+	 * @return all stages finished so far, in the order they finished.
+	 */
+	public synchronized List< Span > getStages() {
+		return new ArrayList< Span >( stages );
+	}
+
+	/**
+	 * Writes the report (all stages finished so far, totals per stage, run
+	 * time and heap usage) as JSON.
+	 */
+	public synchronized void writeJson( final File file ) throws IOException {
+		wallSeconds = ( System.nanoTime() - startWall ) / 1e9;
+		maxHeapBytes = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getMax();
+		long peak = 0;
+		for ( final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans() ) {
+			if ( pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null ) {
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+		peakHeapBytes = peak;
+
+		final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+		final Writer writer = new OutputStreamWriter( new FileOutputStream( file ), "UTF-8" );
+		try {
+			gson.toJson( this, writer );
+		} finally {
+			writer.close();
+		}
+	}
+
+	// -------------------------------------------------------------------------------------
+	// measurement
+	// -------------------------------------------------------------------------------------
+	/**
+	 * @return CPU time of the calling thread or the entire JVM, or -1 if not
+	 *         supported.
+	 */
+	private static long cpuNanos( final boolean inThread ) {
+		if ( inThread ) {
+			final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+			return ( threads.isCurrentThreadCpuTimeSupported() ) ? threads.getCurrentThreadCpuTime() : -1;
+		}
+		final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+		if ( os instanceof com.sun.management.OperatingSystemMXBean ) { return ( ( com.sun.management.OperatingSystemMXBean ) os ).getProcessCpuTime(); }
+		return -1;
+	}
+
+	/**
+	 * @return bytes allocated so far by the calling thread or by all live
+	 *         threads (allocations of threads that terminated in the
+	 *         meantime are lost), or -1 if not supported.
+	 */
+	private static long allocatedBytes( final boolean inThread ) {
+		final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if ( !( threads instanceof com.sun.management.ThreadMXBean ) ) { return -1; }
+		final com.sun.management.ThreadMXBean sunThreads = ( com.sun.management.ThreadMXBean ) threads;
+		if ( !sunThreads.isThreadAllocatedMemorySupported() || !sunThreads.isThreadAllocatedMemoryEnabled() ) { return -1; }
+		if ( inThread ) { return sunThreads.getThreadAllocatedBytes( Thread.currentThread().getId() ); }
+		long sum = 0;
+		for ( final long bytes : sunThreads.getThreadAllocatedBytes( sunThreads.getAllThreadIds() ) ) {
+			if ( bytes > 0 ) {
+				sum += bytes;
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * JFR events created via <code>jdk.jfr.EventFactory</code> by reflection,
+	 * such that MoMA still compiles and runs on JVMs without JFR.
+	 */
+	private static class Jfr {
+
+		private static boolean initialized = false;
+		private static Object factory;
+		private static Method newEvent;
+		private static Method begin;
+		private static Method end;
+		private static Method set;
+		private static Method commit;
+
+		static synchronized boolean isAvailable() {
+			if ( !initialized ) {
+				initialized = true;
+				try {
+					final Class< ? > annotationElement = Class.forName( "jdk.jfr.AnnotationElement" );
+					final Class< ? > valueDescriptor = Class.forName( "jdk.jfr.ValueDescriptor" );
+					final Class< ? > eventFactory = Class.forName( "jdk.jfr.EventFactory" );
+					final Class< ? > event = Class.forName( "jdk.jfr.Event" );
+
+					final Constructor< ? > annotation = annotationElement.getConstructor( Class.class, Object.class );
+					final List< Object > annotations = Arrays.asList(
+							annotation.newInstance( Class.forName( "jdk.jfr.Name" ).asSubclass( Annotation.class ), "com.jug.Stage" ),
+							annotation.newInstance( Class.forName( "jdk.jfr.Label" ).asSubclass( Annotation.class ), "MoMA Stage" ),
+							annotation.newInstance( Class.forName( "jdk.jfr.Category" ).asSubclass( Annotation.class ), new String[] { "MoMA" } ) );
+					final Constructor< ? > value = valueDescriptor.getConstructor( Class.class, String.class );
+					final List< Object > fields = Arrays.asList(
+							value.newInstance( String.class, "stage" ),
+							value.newInstance( int.class, "growthLine" ),
+							value.newInstance( long.class, "cpuNanos" ),
+							value.newInstance( long.class, "allocatedBytes" ) );
+
+					factory = eventFactory.getMethod( "create", List.class, List.class ).invoke( null, annotations, fields );
+					newEvent = eventFactory.getMethod( "newEvent" );
+					begin = event.getMethod( "begin" );
+					end = event.getMethod( "end" );
+					set = event.getMethod( "set", int.class, Object.class );
+					commit = event.getMethod( "commit" );
+				} catch ( final Exception e ) {
+					System.out.println( "JFR events not available in this JVM: " + e );
+					factory = null;
+				}
+			}
+			return factory != null;
+		}
+
+		static Object begin() {
+			try {
+				final Object event = newEvent.invoke( factory );
+				begin.invoke( event );
+				return event;
+			} catch ( final Exception e ) {
+				e.printStackTrace();
+				return null;
+			}
+		}
+
+		static void commit( final Object event, final String stage, final int glIdx, final long cpuNanos, final long allocatedBytes ) {
+			try {
+				end.invoke( event );
+				set.invoke( event, 0, stage );
+				set.invoke( event, 1, glIdx );
+				set.invoke( event, 2, cpuNanos );
+				set.invoke( event, 3, allocatedBytes );
+				commit.invoke( event );
+			} catch ( final Exception e ) {
+				e.printStackTrace();
+			}
+		}
+	}
+}
@@ -0,0 +1,129 @@
+/**
+ *
+ */
+package com.jug.util;
+
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.view.Views;
+
+/**
+ * Computes, for every point of a vertical center line, the maximum over the
+ * averages of <code>2*maxOffsetY+1</code> tilted lines through that point
+ * (each <code>2*maxOffsetX+1</code> pixels wide, from slope
+ * <code>-maxOffsetY/maxOffsetX</code> to <code>+maxOffsetY/maxOffsetX</code>).
+ * Samples between two pixel rows are linearly interpolated, pixels outside
+ * the image count as 0.
+ *
+ * The sampling pattern only depends on the offsets, hence row offsets and
+ * interpolation weights of all samples are computed once in the constructor.
+ * The image region covered by the center line is copied into one float
+ * buffer, from which all samples are read directly.
+ *
+ * Instances are immutable and can be shared between threads.
+ *
+ * @author jug
+ */
+public final class TiltedLineAverages {
+
+	private final int maxOffsetX;
+	private final int maxOffsetY;
+
+	/**
+	 * Per sample (tilt major, x-offset minor): offset of the upper of the two
+	 * interpolated rows relative to the center row...
+	 */
+	private final int[] rowOffsets;
+	/**
+	 * ...and the weight of the lower one.
+	 */
+	private final float[] weights;
+
+	private final int minRowOffset;
+	private final int maxRowOffset;
+
+	public TiltedLineAverages( final int maxOffsetX, final int maxOffsetY ) {
+		this.maxOffsetX = maxOffsetX;
+		this.maxOffsetY = maxOffsetY;
+
+		final int numSamples = ( 2 * maxOffsetY + 1 ) * ( 2 * maxOffsetX + 1 );
+		rowOffsets = new int[ numSamples ];
+		weights = new float[ numSamples ];
+		int minRow = 0;
+		int maxRow = 0;
+		int k = 0;
+		for ( int currentOffsetY = -maxOffsetY; currentOffsetY <= maxOffsetY; currentOffsetY++ ) {
+			for ( int currentOffsetX = -maxOffsetX; currentOffsetX <= maxOffsetX; currentOffsetX++ ) {
+				final float dy = ( ( float ) currentOffsetY / maxOffsetX ) * currentOffsetX;
+				rowOffsets[ k ] = ( int ) Math.floor( dy );
+				weights[ k ] = dy - rowOffsets[ k ];
+				minRow = Math.min( minRow, rowOffsets[ k ] );
+				maxRow = Math.max( maxRow, rowOffsets[ k ] + 1 );
+				k++;
+			}
+		}
+		minRowOffset = minRow;
+		maxRowOffset = maxRow;
+	}
+
+	public int getMaxOffsetX() {
+		return maxOffsetX;
+	}
+
+	public int getMaxOffsetY() {
+		return maxOffsetY;
+	}
+
+	/**
+	 * @param img
+	 *            a 2d image.
+	 * @param centerX
+	 *            x-position of the center line.
+	 * @param centerYs
+	 *            y-positions of the center line points.
+	 * @return the maximal tilted line average per center line point.
+	 */
+	public float[] compute( final RandomAccessibleInterval< FloatType > img, final int centerX, final int[] centerYs ) {
+		final float[] ret = new float[ centerYs.length ];
+		if ( centerYs.length == 0 ) return ret;
+
+		int minY = Integer.MAX_VALUE;
+		int maxY = Integer.MIN_VALUE;
+		for ( final int y : centerYs ) {
+			minY = Math.min( minY, y );
+			maxY = Math.max( maxY, y );
+		}
+
+		// copy the region covered by all tilted lines (zero outside the image)
+		final int width = 2 * maxOffsetX + 1;
+		final long[] min = new long[] { centerX - maxOffsetX, minY + minRowOffset };
+		final long[] max = new long[] { centerX + maxOffsetX, maxY + maxRowOffset };
+		final float[] crop = new float[ ( int ) ( max[ 1 ] - min[ 1 ] + 1 ) * width ];
+		final Cursor< FloatType > cursor = Views.flatIterable( Views.interval( Views.extendZero( img ), min, max ) ).cursor();
+		for ( int j = 0; cursor.hasNext(); j++ ) {
+			crop[ j ] = cursor.next().get();
+		}
+
+		final int numLines = 2 * maxOffsetY + 1;
+		for ( int i = 0; i < centerYs.length; i++ ) {
+			final int centerRow = centerYs[ i ] - ( int ) min[ 1 ];
+			float maxAverage = 0;
+			int k = 0;
+			for ( int line = 0; line < numLines; line++ ) {
+				float summedIntensities = 0;
+				for ( int col = 0; col < width; col++, k++ ) {
+					final int idx = ( centerRow + rowOffsets[ k ] ) * width + col;
+					final float w = weights[ k ];
+					summedIntensities += ( 1 - w ) * crop[ idx ] + w * crop[ idx + width ];
+				}
+				final float average = summedIntensities / width;
+				if ( line == 0 || maxAverage < average ) {
+					maxAverage = average;
+				}
+			}
+			ret[ i ] = maxAverage;
+		}
+		return ret;
+	}
+}
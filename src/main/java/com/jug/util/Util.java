@@ -25,7 +25,7 @@ import net.imglib2.util.ValuePair;
 import net.imglib2.view.IntervalView;
 import net.imglib2.view.Views;
 
-import com.jug.MoMA;
+import com.jug.MoMAConfig;
 import com.jug.lp.Hypothesis;
 
 /**
@@ -170,11 +170,11 @@ public class Util {
 	 * @param avgXpos
 	 * @return
 	 */
-	public static IntervalView< FloatType > getColumnBoxInImg( final IntervalView< FloatType > channelFrame, final Hypothesis< net.imglib2.algorithm.componenttree.Component< FloatType, ? >> hyp, final long glMiddleInImg ) {
-		final long[] lt = Util.getTopLeftInSourceImg( hyp, glMiddleInImg );
-		lt[ 0 ] = glMiddleInImg - MoMA.GL_FLUORESCENCE_COLLECTION_WIDTH_IN_PIXELS / 2;
-		final long[] rb = Util.getRightBottomInSourceImg( hyp, glMiddleInImg );
-		rb[ 0 ] = glMiddleInImg + MoMA.GL_FLUORESCENCE_COLLECTION_WIDTH_IN_PIXELS / 2 + MoMA.GL_FLUORESCENCE_COLLECTION_WIDTH_IN_PIXELS % 2 - 1;
+	public static IntervalView< FloatType > getColumnBoxInImg( final IntervalView< FloatType > channelFrame, final Hypothesis< net.imglib2.algorithm.componenttree.Component< FloatType, ? >> hyp, final long glMiddleInImg, final MoMAConfig config ) {
+		final long[] lt = Util.getTopLeftInSourceImg( hyp, glMiddleInImg, config );
+		lt[ 0 ] = glMiddleInImg - config.GL_FLUORESCENCE_COLLECTION_WIDTH_IN_PIXELS / 2;
+		final long[] rb = Util.getRightBottomInSourceImg( hyp, glMiddleInImg, config );
+		rb[ 0 ] = glMiddleInImg + config.GL_FLUORESCENCE_COLLECTION_WIDTH_IN_PIXELS / 2 + config.GL_FLUORESCENCE_COLLECTION_WIDTH_IN_PIXELS % 2 - 1;
 		return Views.interval( Views.zeroMin( channelFrame ), lt, rb );
 	}
 
@@ -184,11 +184,11 @@ public class Util {
 	 * @param avgXpos
 	 * @return
 	 */
-	public static IntervalView< FloatType > getIntensityBoxInImg( final IntervalView< FloatType > channelFrame, final Hypothesis< net.imglib2.algorithm.componenttree.Component< FloatType, ? >> hyp, final long glMiddleInImg ) {
-		final long[] lt = Util.getTopLeftInSourceImg( hyp, glMiddleInImg );
-		lt[ 0 ] = glMiddleInImg - MoMA.GL_WIDTH_IN_PIXELS / 2;
-		final long[] rb = Util.getRightBottomInSourceImg( hyp, glMiddleInImg );
-		rb[ 0 ] = glMiddleInImg + MoMA.GL_WIDTH_IN_PIXELS / 2 + MoMA.GL_WIDTH_IN_PIXELS % 2 - 1;
+	public static IntervalView< FloatType > getIntensityBoxInImg( final IntervalView< FloatType > channelFrame, final Hypothesis< net.imglib2.algorithm.componenttree.Component< FloatType, ? >> hyp, final long glMiddleInImg, final MoMAConfig config ) {
+		final long[] lt = Util.getTopLeftInSourceImg( hyp, glMiddleInImg, config );
+		lt[ 0 ] = glMiddleInImg - config.GL_WIDTH_IN_PIXELS / 2;
+		final long[] rb = Util.getRightBottomInSourceImg( hyp, glMiddleInImg, config );
+		rb[ 0 ] = glMiddleInImg + config.GL_WIDTH_IN_PIXELS / 2 + config.GL_WIDTH_IN_PIXELS % 2 - 1;
 		return Views.interval( channelFrame, lt, rb );
 	}
 
@@ -198,11 +198,11 @@ public class Util {
 	 * @param avgXpos
 	 * @return
 	 */
-	public static IntervalView< ShortType > getClassificationBoxInImg( final IntervalView< ShortType > segmentedFrame, final Hypothesis< net.imglib2.algorithm.componenttree.Component< FloatType, ? >> hyp, final long glMiddleInImg ) {
-		final long[] lt = Util.getTopLeftInSourceImg( hyp, glMiddleInImg );
-		lt[ 0 ] = glMiddleInImg - MoMA.GL_WIDTH_IN_PIXELS; // to lazy for an additional param... twice GL_WIDTH should be ok...
-		final long[] rb = Util.getRightBottomInSourceImg( hyp, glMiddleInImg );
-		rb[ 0 ] = glMiddleInImg + MoMA.GL_WIDTH_IN_PIXELS; // to lazy for an additional param... twice GL_WIDTH should be ok...
+	public static IntervalView< ShortType > getClassificationBoxInImg( final IntervalView< ShortType > segmentedFrame, final Hypothesis< net.imglib2.algorithm.componenttree.Component< FloatType, ? >> hyp, final long glMiddleInImg, final MoMAConfig config ) {
+		final long[] lt = Util.getTopLeftInSourceImg( hyp, glMiddleInImg, config );
+		lt[ 0 ] = glMiddleInImg - config.GL_WIDTH_IN_PIXELS; // to lazy for an additional param... twice GL_WIDTH should be ok...
+		final long[] rb = Util.getRightBottomInSourceImg( hyp, glMiddleInImg, config );
+		rb[ 0 ] = glMiddleInImg + config.GL_WIDTH_IN_PIXELS; // to lazy for an additional param... twice GL_WIDTH should be ok...
 //		if ( false ) {
 //			new ImageJ();
 //			ImageJFunctions.showUnsignedShort( Views.interval( segmentedFrame, lt, rb ) );
@@ -215,9 +215,9 @@ public class Util {
 	 * @param hyp
 	 * @return
 	 */
-	public static IterableInterval< FloatType > getSegmentBoxInImg( final IntervalView< FloatType > channelFrame, final Hypothesis< net.imglib2.algorithm.componenttree.Component< FloatType, ? >> hyp, final long glMiddleInImg ) {
-		final long[] lt = Util.getTopLeftInSourceImg( hyp, glMiddleInImg );
-		final long[] rb = Util.getRightBottomInSourceImg( hyp, glMiddleInImg );
+	public static IterableInterval< FloatType > getSegmentBoxInImg( final IntervalView< FloatType > channelFrame, final Hypothesis< net.imglib2.algorithm.componenttree.Component< FloatType, ? >> hyp, final long glMiddleInImg, final MoMAConfig config ) {
+		final long[] lt = Util.getTopLeftInSourceImg( hyp, glMiddleInImg, config );
+		final long[] rb = Util.getRightBottomInSourceImg( hyp, glMiddleInImg, config );
 		return Views.iterable( Views.interval( channelFrame, lt, rb ) );
 	}
 
@@ -226,9 +226,9 @@ public class Util {
 	 * @param hyp
 	 * @return
 	 */
-	public static long getSegmentBoxPixelCount( final Hypothesis< net.imglib2.algorithm.componenttree.Component< FloatType, ? >> hyp, final long glMiddleInImg ) {
-		final long[] lt = Util.getTopLeftInSourceImg( hyp, glMiddleInImg );
-		final long[] rb = Util.getRightBottomInSourceImg( hyp, glMiddleInImg );
+	public static long getSegmentBoxPixelCount( final Hypothesis< net.imglib2.algorithm.componenttree.Component< FloatType, ? >> hyp, final long glMiddleInImg, final MoMAConfig config ) {
+		final long[] lt = Util.getTopLeftInSourceImg( hyp, glMiddleInImg, config );
+		final long[] rb = Util.getRightBottomInSourceImg( hyp, glMiddleInImg, config );
 		return ( rb[ 0 ] - lt[ 0 ] + 1 ) * ( rb[ 1 ] - lt[ 1 ] + 1 );
 	}
 
@@ -236,10 +236,10 @@ public class Util {
 	 * @param hyp
 	 * @return
 	 */
-	private static long[] getTopLeftInSourceImg( final Hypothesis< net.imglib2.algorithm.componenttree.Component< FloatType, ? >> hyp, final long middle ) {
+	private static long[] getTopLeftInSourceImg( final Hypothesis< net.imglib2.algorithm.componenttree.Component< FloatType, ? >> hyp, final long middle, final MoMAConfig config ) {
 		final ValuePair< Integer, Integer > limits = hyp.getLocation();
-		final long left = middle - MoMA.GL_WIDTH_IN_PIXELS / 2;
-		final long top = limits.getA() + MoMA.GL_OFFSET_TOP;;
+		final long left = middle - config.GL_WIDTH_IN_PIXELS / 2;
+		final long top = limits.getA() + config.GL_OFFSET_TOP;;
 		return new long[] { left, top };
 	}
 
@@ -247,10 +247,10 @@ public class Util {
 	 * @param hyp
 	 * @return
 	 */
-	private static long[] getRightBottomInSourceImg( final Hypothesis< net.imglib2.algorithm.componenttree.Component< FloatType, ? >> hyp, final long middle ) {
+	private static long[] getRightBottomInSourceImg( final Hypothesis< net.imglib2.algorithm.componenttree.Component< FloatType, ? >> hyp, final long middle, final MoMAConfig config ) {
 		final ValuePair< Integer, Integer > limits = hyp.getLocation();
-		final long right = middle + MoMA.GL_WIDTH_IN_PIXELS / 2 + MoMA.GL_WIDTH_IN_PIXELS % 2 - 1;
-		final long bottom = limits.getB() + MoMA.GL_OFFSET_TOP;
+		final long right = middle + config.GL_WIDTH_IN_PIXELS / 2 + config.GL_WIDTH_IN_PIXELS % 2 - 1;
+		final long bottom = limits.getB() + config.GL_OFFSET_TOP;
 		return new long[] { right, bottom };
 	}
 
@@ -0,0 +1,41 @@
+package com.jug.util.filteredcomponents;
+
+import java.util.Iterator;
+
+import net.imglib2.Localizable;
+
+/**
+ * A node of a filtered component tree that can be extended into the part of
+ * its parent that is not claimed by any of its siblings. Implemented by
+ * {@link FilteredComponent} and {@link IntervalComponent}, such that drawing,
+ * export and the tracking ILP do not need to know which tree they operate on.
+ *
+ * @param <T>
+ *            value type of the input image.
+ *
+ * @author jug
+ */
+public interface ExtendableComponent< T > {
+
+	/**
+	 * @return the image threshold that created the minimum extremal region
+	 *         associated to this component.
+	 */
+	public T minValue();
+
+	/**
+	 * @return the image threshold that created the maximum extremal region
+	 *         associated to this component.
+	 */
+	public T maxValue();
+
+	/**
+	 * @return the number of pixels in the extended component.
+	 */
+	public long sizeExtended();
+
+	/**
+	 * @return iterator over the pixel locations of the extended component.
+	 */
+	public Iterator< Localizable > iteratorExtended();
+}
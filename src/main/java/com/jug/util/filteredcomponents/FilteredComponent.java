@@ -1,6 +1,7 @@
 package com.jug.util.filteredcomponents;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 
 import net.imglib2.Localizable;
@@ -26,7 +27,8 @@ import net.imglib2.type.Type;
 public final class FilteredComponent< T extends Type< T > >
 		implements
 		Component< T, FilteredComponent< T > >,
-		TreeNode< FilteredComponent< T > >
+		TreeNode< FilteredComponent< T > >,
+		ExtendableComponent< T >
 {
 	/**
 	 * child nodes in the {@link FilteredComponentTree}.
@@ -59,12 +61,13 @@ public final class FilteredComponent< T extends Type< T > >
 	private PixelList pixelList;
 
 	/**
-	 * Pixels in the extended component.
+	 * Pixels in the extended component (<code>numDimensions</code>
+	 * coordinates per pixel), or <code>null</code> if not yet evaluated.
 	 * The extended component contains all regular pixels + takes on regions
 	 * from the parent note that are not inside siblings of the current
 	 * component.
 	 */
-	private ArrayList< Localizable > pixelListExtended;
+	private volatile int[] pixelListExtended;
 
 	void update( final FilteredPartialComponent< T > intermediate ) {
 		maxValue.set( intermediate.getValue() );
@@ -104,6 +107,7 @@ public final class FilteredComponent< T extends Type< T > >
 	 *
 	 * @return the image threshold that created the extremal region.
 	 */
+	@Override
 	public T maxValue()
 	{
 		return maxValue;
@@ -115,6 +119,7 @@ public final class FilteredComponent< T extends Type< T > >
 	 *
 	 * @return the image threshold that created the extremal region.
 	 */
+	@Override
 	public T minValue()
 	{
 		return minValue;
@@ -191,70 +196,179 @@ public final class FilteredComponent< T extends Type< T > >
 	// Trials for extended size etc.
 	// =============================
 	public long maxSizeExtended() {
-		evaluatePixelListExtendedIfNeeded();
-		return pixelListExtended.size();
+		return getPixelListExtended().length / numDimensions( pixelList );
 	}
 
+	@Override
 	public long sizeExtended() {
 		return maxSizeExtended();
 	}
 
+	/**
+	 * Note: the returned iterator hands out the same {@link Localizable} in
+	 * every step (moved to the next pixel), as the one of {@link PixelList}.
+	 */
+	@Override
 	public Iterator< Localizable > iteratorExtended() {
-		evaluatePixelListExtendedIfNeeded();
-		return pixelListExtended.iterator();
+		return new CoordinateIterator( getPixelListExtended(), numDimensions( pixelList ) );
 	}
 
-	private void evaluatePixelListExtendedIfNeeded() {
-		if ( pixelListExtended == null ) {
-			evaluatePixelListExtended();
+	private int[] getPixelListExtended() {
+		int[] ret = pixelListExtended;
+		if ( ret == null ) {
+			if ( parent == null || parent.children.size() < 2 ) { // do not extend single children!
+				ret = toCoordinates( pixelList );
+				pixelListExtended = ret;
+			} else {
+				parent.evaluateChildrenPixelListsExtended();
+				ret = pixelListExtended;
+			}
 		}
+		return ret;
 	}
 
-	private void evaluatePixelListExtended() {
-		this.pixelListExtended = new ArrayList< Localizable >();
+	/**
+	 * Evaluates the extended pixel lists of all children at once: every pixel
+	 * of this component goes to the child closest to it (if there is exactly
+	 * one closest child). The distances to each child are obtained by one
+	 * distance transform over the bounding box of this component, instead of
+	 * comparing all pairs of pixels.
+	 */
+	private synchronized void evaluateChildrenPixelListsExtended() {
+		boolean allDone = true;
+		for ( final FilteredComponent< T > child : children ) {
+			allDone &= ( child.pixelListExtended != null );
+		}
+		if ( allDone ) return;
+
+		final int n = numDimensions( pixelList );
+		final int[] coordinates = toCoordinates( pixelList );
+		final int numPixels = coordinates.length / n;
+
+		// bounding box and position of every pixel in it
+		final int[] min = new int[ n ];
+		final int[] size = new int[ n ];
+		Arrays.fill( min, Integer.MAX_VALUE );
+		final int[] max = new int[ n ];
+		Arrays.fill( max, Integer.MIN_VALUE );
+		for ( int i = 0; i < coordinates.length; i++ ) {
+			min[ i % n ] = Math.min( min[ i % n ], coordinates[ i ] );
+			max[ i % n ] = Math.max( max[ i % n ], coordinates[ i ] );
+		}
+		int boxSize = 1;
+		for ( int d = 0; d < n; d++ ) {
+			size[ d ] = max[ d ] - min[ d ] + 1;
+			boxSize *= size[ d ];
+		}
+		final int[] indexInBox = new int[ numPixels ];
+		for ( int i = 0; i < numPixels; i++ ) {
+			indexInBox[ i ] = boxIndex( coordinates, i * n, min, size );
+		}
 
-		final ArrayList< FilteredComponent< T >> siblings = new ArrayList< FilteredComponent< T > >();
-		if ( parent != null ) {
-			for ( final FilteredComponent< T > comp : parent.children ) {
-				if ( !comp.equals( this ) ) {
-					siblings.add( comp );
+		// closest child per pixel (-1 if two children are equally close)
+		final long[] distances = new long[ boxSize ];
+		final long[] minDistance = new long[ numPixels ];
+		Arrays.fill( minDistance, Long.MAX_VALUE );
+		final int[] closestChild = new int[ numPixels ];
+		final int[] count = new int[ children.size() ];
+		for ( int c = 0; c < children.size(); c++ ) {
+			Arrays.fill( distances, SquaredDistanceTransform.INFINITY );
+			final int[] childCoordinates = toCoordinates( children.get( c ).pixelList );
+			for ( int i = 0; i < childCoordinates.length; i += n ) {
+				distances[ boxIndex( childCoordinates, i, min, size ) ] = 0;
+			}
+			SquaredDistanceTransform.transform( distances, size );
+
+			for ( int i = 0; i < numPixels; i++ ) {
+				final long distance = distances[ indexInBox[ i ] ];
+				if ( distance < minDistance[ i ] ) {
+					minDistance[ i ] = distance;
+					closestChild[ i ] = c;
+				} else if ( distance == minDistance[ i ] ) {
+					closestChild[ i ] = -1;
 				}
 			}
 		}
 
-		if ( parent == null || siblings.size() == 0 ) { // do not extend single children!
-			for ( final Localizable pixel : this.pixelList ) {
-				this.pixelListExtended.add( new Point( pixel ) );
+		// collect (in the order of the pixels of this component)
+		for ( int i = 0; i < numPixels; i++ ) {
+			if ( closestChild[ i ] >= 0 ) count[ closestChild[ i ] ]++;
+		}
+		final int[][] extended = new int[ children.size() ][];
+		for ( int c = 0; c < children.size(); c++ ) {
+			extended[ c ] = new int[ count[ c ] * n ];
+			count[ c ] = 0;
+		}
+		for ( int i = 0; i < numPixels; i++ ) {
+			final int c = closestChild[ i ];
+			if ( c >= 0 ) {
+				System.arraycopy( coordinates, i * n, extended[ c ], count[ c ], n );
+				count[ c ] += n;
 			}
+		}
+		for ( int c = 0; c < children.size(); c++ ) {
+			children.get( c ).pixelListExtended = extended[ c ];
+		}
+	}
 
-		} else {
+	private static int boxIndex( final int[] coordinates, final int offset, final int[] min, final int[] size ) {
+		int index = 0;
+		for ( int d = size.length - 1; d >= 0; d-- ) {
+			index = index * size[ d ] + coordinates[ offset + d ] - min[ d ];
+		}
+		return index;
+	}
 
-			final PixelList potentialPixelsToAdd = parent.pixelList;
+	private static int numDimensions( final PixelList pixels ) {
+		final Iterator< Localizable > it = pixels.iterator();
+		return it.hasNext() ? it.next().numDimensions() : 1;
+	}
 
-			for ( final Localizable pixel : potentialPixelsToAdd ) {
-				long minSquaredDist = Long.MAX_VALUE;
-				for ( final FilteredComponent< T > sibling : siblings ) {
-					minSquaredDist = Math.min( minSquaredDist, sibling.minSquaredDistToPixel( pixel ) );
-				}
-				if ( minSquaredDist > this.minSquaredDistToPixel( pixel ) ) {
-					this.pixelListExtended.add( new Point( pixel ) );
-				}
+	/**
+	 * @return the coordinates of all given pixels, one after the other.
+	 */
+	private static int[] toCoordinates( final PixelList pixels ) {
+		final int n = numDimensions( pixels );
+		final int[] ret = new int[ ( int ) pixels.size() * n ];
+		int i = 0;
+		for ( final Localizable pixel : pixels ) {
+			for ( int d = 0; d < n; d++ ) {
+				ret[ i++ ] = pixel.getIntPosition( d );
 			}
 		}
+		return ret;
 	}
 
-	private final long minSquaredDistToPixel( final Localizable refPixel ) {
-		long minSquaredDist = Long.MAX_VALUE;
-		for ( final Localizable pixel : this.pixelList ) {
-			long squaredDist = 0;
-			for ( int d = 0; d < pixel.numDimensions(); d++ ) {
-				long square = Math.abs( pixel.getIntPosition( d ) - refPixel.getIntPosition( d ) );
-				square *= square;
-				squaredDist += square;
+	/**
+	 * Iterates pixels given as consecutive coordinates.
+	 */
+	private static final class CoordinateIterator implements Iterator< Localizable > {
+
+		private final int[] coordinates;
+		private final Point position;
+		private int next = 0;
+
+		CoordinateIterator( final int[] coordinates, final int numDimensions ) {
+			this.coordinates = coordinates;
+			this.position = new Point( numDimensions );
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next < coordinates.length;
+		}
+
+		@Override
+		public Localizable next() {
+			for ( int d = 0; d < position.numDimensions(); d++ ) {
+				position.setPosition( coordinates[ next++ ], d );
 			}
+			return position;
+		}
 
-			if ( minSquaredDist > squaredDist ) minSquaredDist = squaredDist;
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
 		}
-		return minSquaredDist;
 	}
 }
@@ -186,11 +186,7 @@ public final class FilteredComponentTree< T extends Type< T > >
 
 	private final long maxComponentSize;
 
-	private final boolean filterByGrowthRatio;
-
-	private final long maxGrowthPerStep;
-
-	private final double maxGrowthPerStepRatio;
+	private final Filter filter;
 
 	private final Img< LongType > linkedList;
 
@@ -203,26 +199,7 @@ public final class FilteredComponentTree< T extends Type< T > >
 		nodes = new ArrayList< FilteredComponent< T > >();
 		this.minComponentSize = minComponentSize;
 		this.maxComponentSize = maxComponentSize;
-		if ( filter.type().equals( FilterType.MAX_GROWTH_PER_STEP ) )
-		{
-			this.filterByGrowthRatio = false;
-			this.maxGrowthPerStep = ( ( MaxGrowthPerStep ) filter ).maxGrowthPerStep;
-			this.maxGrowthPerStepRatio = 0;
-		}
-		else if ( filter.type().equals( FilterType.MAX_GROWTH_PER_STEP_RATIO ) )
-		{
-			this.filterByGrowthRatio = true;
-			this.maxGrowthPerStep = 0;
-			this.maxGrowthPerStepRatio = ( ( MaxGrowthPerStepRatio ) filter ).maxGrowthPerStepRatio;
-		}
-		else
-		{
-			this.filterByGrowthRatio = true;
-			this.maxGrowthPerStep =
-					( ( MaxGrowthPerStepRatioWithMinimalAbsoluteIncrease ) filter ).minGrowthPerStep;
-			this.maxGrowthPerStepRatio =
-					( ( MaxGrowthPerStepRatioWithMinimalAbsoluteIncrease ) filter ).maxGrowthPerStepRatio;
-		}
+		this.filter = filter;
 		this.linkedList = linkedList;
 	}
 
@@ -244,22 +221,7 @@ public final class FilteredComponentTree< T extends Type< T > >
 						if ( c.emittedComponent != null )
 							component = c.emittedComponent;
 
-				final boolean postpone;
-				if ( filterByGrowthRatio )
-					if ( maxGrowthPerStep == 0 ) {
-						postpone =
-								( ( double ) intermediate.pixelList.size() - component.minSize() ) / component.minSize() < maxGrowthPerStepRatio;
-					} else {
-						postpone =
-								(
-								( ( double ) intermediate.pixelList.size() - component.minSize() ) / component.minSize() < maxGrowthPerStepRatio ||
-								( intermediate.pixelList.size() - component.minSize() < maxGrowthPerStep )
-								);
-					}
-				else
-					postpone =
-							intermediate.pixelList.size() - component.minSize() < maxGrowthPerStep;
-				if ( postpone ) {
+				if ( postpone( filter, size, component.minSize() ) ) {
 					// update previously emitted node unless that node is a leaf
 					if ( !component.children.isEmpty() ) {
 						component.update( intermediate );
@@ -281,6 +243,33 @@ public final class FilteredComponentTree< T extends Type< T > >
 		}
 	}
 
+	/**
+	 * Decides whether a node of <code>minSize</code> pixels that grew to
+	 * <code>size</code> pixels without merging with another node is updated
+	 * (postponed) rather than getting a new parent node.
+	 *
+	 * @param filter
+	 *            the filter the tree is built with.
+	 * @param size
+	 *            current size of the component.
+	 * @param minSize
+	 *            size of the node when it was created.
+	 * @return true if the growth is small enough to be postponed.
+	 */
+	static boolean postpone( final Filter filter, final long size, final long minSize ) {
+		final double growthRatio = ( ( double ) size - minSize ) / minSize;
+		switch ( filter.type() ) {
+		case MAX_GROWTH_PER_STEP:
+			return size - minSize < ( ( MaxGrowthPerStep ) filter ).maxGrowthPerStep;
+		case MAX_GROWTH_PER_STEP_RATIO:
+			return growthRatio < ( ( MaxGrowthPerStepRatio ) filter ).maxGrowthPerStepRatio;
+		default:
+			final MaxGrowthPerStepRatioWithMinimalAbsoluteIncrease f =
+					( MaxGrowthPerStepRatioWithMinimalAbsoluteIncrease ) filter;
+			return growthRatio < f.maxGrowthPerStepRatio || size - minSize < f.minGrowthPerStep;
+		}
+	}
+
 	/**
 	 * Returns an iterator over all connected components in the tree.
 	 *
@@ -0,0 +1,172 @@
+package com.jug.util.filteredcomponents;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+
+import net.imglib2.Localizable;
+import net.imglib2.Point;
+import net.imglib2.algorithm.componenttree.Component;
+import net.imglib2.algorithm.tree.TreeNode;
+import net.imglib2.type.numeric.real.FloatType;
+
+/**
+ * A node of an {@link IntervalComponentTree}, i.e. the interval
+ * [{@link #getStart()}, {@link #getEnd()}] of a 1d function thresholded at
+ * {@link #maxValue()}. All data lives in the arrays of the tree; this is only
+ * a view onto one index.
+ *
+ * @author jug
+ */
+public final class IntervalComponent
+		implements
+		Component< FloatType, IntervalComponent >,
+		TreeNode< IntervalComponent >,
+		ExtendableComponent< FloatType > {
+
+	private final IntervalComponentTree tree;
+	private final int node;
+
+	private final FloatType minValue;
+	private final FloatType maxValue;
+
+	private final List< IntervalComponent > children = new AbstractList< IntervalComponent >() {
+
+		@Override
+		public IntervalComponent get( final int index ) {
+			if ( index < 0 || index >= size() ) { throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " + size() ); }
+			return tree.getComponent( tree.children[ tree.childStart[ node ] + index ] );
+		}
+
+		@Override
+		public int size() {
+			return tree.childCount[ node ];
+		}
+	};
+
+	IntervalComponent( final IntervalComponentTree tree, final int node ) {
+		this.tree = tree;
+		this.node = node;
+		this.minValue = new FloatType( tree.minValue[ node ] );
+		this.maxValue = new FloatType( tree.maxValue[ node ] );
+	}
+
+	/**
+	 * @return the first position covered by this component.
+	 */
+	public int getStart() {
+		return tree.start[ node ];
+	}
+
+	/**
+	 * @return the last position covered by this component.
+	 */
+	public int getEnd() {
+		return tree.end[ node ];
+	}
+
+	/**
+	 * @return the first position covered by the extended component.
+	 */
+	public int getStartExtended() {
+		return tree.startExtended( node );
+	}
+
+	/**
+	 * @return the last position covered by the extended component.
+	 */
+	public int getEndExtended() {
+		return tree.endExtended( node );
+	}
+
+	@Override
+	public FloatType minValue() {
+		return minValue;
+	}
+
+	@Override
+	public FloatType maxValue() {
+		return maxValue;
+	}
+
+	/**
+	 * Get the number of positions of this component when it was created.
+	 *
+	 * @return number of positions in the minimum extremal region.
+	 */
+	public long minSize() {
+		return tree.minSize[ node ];
+	}
+
+	@Override
+	public long size() {
+		return getEnd() - getStart() + 1;
+	}
+
+	@Override
+	public FloatType value() {
+		return maxValue;
+	}
+
+	@Override
+	public Iterator< Localizable > iterator() {
+		return new IntervalIterator( getStart(), getEnd() );
+	}
+
+	@Override
+	public long sizeExtended() {
+		return getEndExtended() - getStartExtended() + 1;
+	}
+
+	/**
+	 * Note: the returned iterator hands out the same {@link Localizable} in
+	 * every step (moved to the next position), as the one of
+	 * {@link #iterator()}.
+	 */
+	@Override
+	public Iterator< Localizable > iteratorExtended() {
+		return new IntervalIterator( getStartExtended(), getEndExtended() );
+	}
+
+	@Override
+	public IntervalComponent getParent() {
+		final int p = tree.parent[ node ];
+		return p < 0 ? null : tree.getComponent( p );
+	}
+
+	@Override
+	public List< IntervalComponent > getChildren() {
+		return children;
+	}
+
+	/**
+	 * Iterates the positions of a 1d interval.
+	 */
+	private static final class IntervalIterator implements Iterator< Localizable > {
+
+		private final Point position = new Point( 1 );
+		private final int end;
+		private int next;
+
+		IntervalIterator( final int start, final int end ) {
+			this.next = start;
+			this.end = end;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next <= end;
+		}
+
+		@Override
+		public Localizable next() {
+			position.setPosition( next++, 0 );
+			return position;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
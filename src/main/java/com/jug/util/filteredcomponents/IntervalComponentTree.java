@@ -0,0 +1,363 @@
+package com.jug.util.filteredcomponents;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import net.imglib2.algorithm.componenttree.ComponentForest;
+import net.imglib2.algorithm.tree.Forest;
+
+import com.jug.util.filteredcomponents.FilteredComponentTree.Filter;
+
+/**
+ * Component tree of a one-dimensional function (e.g. the gap separation
+ * values of a growth line frame) stored in flat primitive arrays. It contains
+ * the same nodes as a {@link FilteredComponentTree} built on the same values
+ * with the same size range and {@link Filter}, but instead of flooding an
+ * image with pixel lists it sorts the values once and merges intervals by
+ * union-find. Since every connected component of a 1d function is an
+ * interval, a node is fully described by its start, end, minimum and maximum
+ * value and the size it was created with. The children of all nodes are kept
+ * in one array (node <code>i</code> owns the <code>childCount[i]</code>
+ * entries from <code>childStart[i]</code> on), ordered by position.
+ *
+ * The nodes are handed out as {@link IntervalComponent}s, thin views onto
+ * these arrays.
+ *
+ * Note: components larger than <code>maxComponentSize</code> end their
+ * branch, i.e. the nodes below them become roots.
+ *
+ * @author jug
+ */
+public final class IntervalComponentTree
+		implements
+		ComponentForest< IntervalComponent >,
+		Forest< IntervalComponent >,
+		Iterable< IntervalComponent > {
+
+	/**
+	 * Build a component tree from a one-dimensional function.
+	 *
+	 * @param values
+	 *            the function values.
+	 * @param minComponentSize
+	 *            minimum allowed size for an accepted component.
+	 * @param maxComponentSize
+	 *            maximum allowed size for an accepted component.
+	 * @param filter
+	 *            decides which nodes are merged with their single child (see
+	 *            {@link FilteredComponentTree}).
+	 * @param darkToBright
+	 *            whether to apply thresholds from dark to bright (true) or
+	 *            bright to dark (false)
+	 * @return component tree of the function.
+	 */
+	public static IntervalComponentTree buildComponentTree(
+			final float[] values,
+			final long minComponentSize,
+			final long maxComponentSize,
+			final Filter filter,
+			final boolean darkToBright ) {
+		return new IntervalComponentTree( values, minComponentSize, maxComponentSize, filter, darkToBright );
+	}
+
+	// -------------------------------------------------------------------------------------
+	// node storage (one entry per node)
+	// -------------------------------------------------------------------------------------
+	final int[] start;
+	final int[] end;
+	final float[] minValue;
+	final float[] maxValue;
+	final int[] minSize;
+	final int[] parent;
+	final int[] childStart;
+	final int[] childCount;
+	final int[] children;
+	int numNodes = 0;
+
+	private final IntervalComponent[] components;
+	private final Set< IntervalComponent > roots;
+
+	private IntervalComponentTree(
+			final float[] values,
+			final long minComponentSize,
+			final long maxComponentSize,
+			final Filter filter,
+			final boolean darkToBright ) {
+		// the nodes of a 1d function form a laminar family of intervals,
+		// hence there are less than twice as many nodes as values.
+		final int capacity = Math.max( 0, 2 * values.length - 1 );
+		start = new int[ capacity ];
+		end = new int[ capacity ];
+		minValue = new float[ capacity ];
+		maxValue = new float[ capacity ];
+		minSize = new int[ capacity ];
+		parent = new int[ capacity ];
+		childStart = new int[ capacity ];
+		childCount = new int[ capacity ];
+		children = new int[ capacity ];
+
+		build( values, minComponentSize, maxComponentSize, filter, darkToBright );
+
+		components = new IntervalComponent[ numNodes ];
+		for ( int i = 0; i < numNodes; i++ ) {
+			components[ i ] = new IntervalComponent( this, i );
+		}
+		final LinkedHashSet< IntervalComponent > rootSet = new LinkedHashSet< IntervalComponent >();
+		for ( int i = 0; i < numNodes; i++ ) {
+			if ( parent[ i ] < 0 ) {
+				rootSet.add( components[ i ] );
+			}
+		}
+		roots = Collections.unmodifiableSet( rootSet );
+	}
+
+	/**
+	 * Processes the values level by level in sorted order. All values of one
+	 * level are added and merged with their already flooded neighbors. Then
+	 * every interval touched in this level is emitted once: it either gets a
+	 * new node, whose children are the nodes of the intervals it was merged
+	 * from, or, if it only contains one node and grew little enough according
+	 * to the filter, that node is updated.
+	 */
+	private void build(
+			final float[] values,
+			final long minComponentSize,
+			final long maxComponentSize,
+			final Filter filter,
+			final boolean darkToBright ) {
+		final int n = values.length;
+
+		// sort indices by value (sortable int bits of the value in the upper half)
+		final long[] order = new long[ n ];
+		for ( int i = 0; i < n; i++ ) {
+			int bits = Float.floatToIntBits( values[ i ] );
+			bits ^= ( bits >> 31 ) & 0x7fffffff;
+			if ( !darkToBright ) {
+				bits = ~bits;
+			}
+			order[ i ] = ( ( long ) bits << 32 ) | i;
+		}
+		Arrays.sort( order );
+
+		// union-find over the flooded values; the remaining arrays are only
+		// valid for representatives
+		final int[] uf = new int[ n ];
+		Arrays.fill( uf, -1 );
+		final int[] compStart = new int[ n ];
+		final int[] compEnd = new int[ n ];
+		final int[] compNode = new int[ n ];
+		final int[] touchedInLevel = new int[ n ];
+		// nodes of the intervals merged into a touched interval, as linked lists
+		final int[] kidHead = new int[ n ];
+		final int[] kidTail = new int[ n ];
+		final int[] kidNode = new int[ n ];
+		final int[] kidNext = new int[ n ];
+		final long[] kidBuffer = new long[ n ];
+		final int[] touched = new int[ n ];
+
+		int i = 0;
+		int level = 0;
+		while ( i < n ) {
+			final int levelBits = ( int ) ( order[ i ] >> 32 );
+			final float levelValue = values[ ( int ) order[ i ] ];
+			int numTouched = 0;
+			int numKids = 0;
+
+			for ( ; i < n && ( int ) ( order[ i ] >> 32 ) == levelBits; i++ ) {
+				final int x = ( int ) order[ i ];
+				uf[ x ] = x;
+				compStart[ x ] = x;
+				compEnd[ x ] = x;
+				compNode[ x ] = -1;
+				touchedInLevel[ x ] = level;
+				kidHead[ x ] = -1;
+				kidTail[ x ] = -1;
+				touched[ numTouched++ ] = x;
+
+				for ( int nb = x - 1; nb <= x + 1; nb += 2 ) {
+					if ( nb < 0 || nb >= n || uf[ nb ] < 0 ) continue;
+					final int rNb = find( uf, nb );
+					if ( touchedInLevel[ rNb ] != level ) {
+						// an interval of an earlier level joins
+						touchedInLevel[ rNb ] = level;
+						kidHead[ rNb ] = -1;
+						kidTail[ rNb ] = -1;
+						if ( compNode[ rNb ] >= 0 ) {
+							kidNode[ numKids ] = compNode[ rNb ];
+							kidNext[ numKids ] = -1;
+							kidHead[ rNb ] = numKids;
+							kidTail[ rNb ] = numKids;
+							numKids++;
+						}
+						compNode[ rNb ] = -1;
+					}
+					final int rX = find( uf, x );
+					final int small, large;
+					if ( compEnd[ rX ] - compStart[ rX ] < compEnd[ rNb ] - compStart[ rNb ] ) {
+						small = rX;
+						large = rNb;
+					} else {
+						small = rNb;
+						large = rX;
+					}
+					uf[ small ] = large;
+					compStart[ large ] = Math.min( compStart[ large ], compStart[ small ] );
+					compEnd[ large ] = Math.max( compEnd[ large ], compEnd[ small ] );
+					if ( kidHead[ small ] >= 0 ) {
+						if ( kidHead[ large ] < 0 ) {
+							kidHead[ large ] = kidHead[ small ];
+						} else {
+							kidNext[ kidTail[ large ] ] = kidHead[ small ];
+						}
+						kidTail[ large ] = kidTail[ small ];
+					}
+				}
+			}
+
+			// emit every interval touched in this level once
+			for ( int t = 0; t < numTouched; t++ ) {
+				final int r = find( uf, touched[ t ] );
+				if ( touchedInLevel[ r ] != level ) continue; // already emitted
+				touchedInLevel[ r ] = -1;
+				emit( r, compStart[ r ], compEnd[ r ], levelValue, compNode, kidHead, kidNode, kidNext, kidBuffer, minComponentSize, maxComponentSize, filter );
+			}
+			level++;
+		}
+	}
+
+	private void emit(
+			final int r,
+			final int s,
+			final int e,
+			final float value,
+			final int[] compNode,
+			final int[] kidHead,
+			final int[] kidNode,
+			final int[] kidNext,
+			final long[] kidBuffer,
+			final long minComponentSize,
+			final long maxComponentSize,
+			final Filter filter ) {
+		final int size = e - s + 1;
+		if ( size < minComponentSize || size > maxComponentSize ) {
+			compNode[ r ] = -1;
+			return;
+		}
+
+		// nodes contained in this interval, ordered by position
+		int numKids = 0;
+		for ( int k = kidHead[ r ]; k >= 0; k = kidNext[ k ] ) {
+			kidBuffer[ numKids++ ] = ( ( long ) start[ kidNode[ k ] ] << 32 ) | kidNode[ k ];
+		}
+		Arrays.sort( kidBuffer, 0, numKids );
+
+		if ( numKids == 1 ) {
+			final int kid = ( int ) kidBuffer[ 0 ];
+			// update previously emitted node unless that node is a leaf
+			if ( FilteredComponentTree.postpone( filter, size, minSize[ kid ] ) && childCount[ kid ] > 0 ) {
+				start[ kid ] = s;
+				end[ kid ] = e;
+				maxValue[ kid ] = value;
+				compNode[ r ] = kid;
+				return;
+			}
+		}
+
+		// create new node
+		final int node = numNodes++;
+		start[ node ] = s;
+		end[ node ] = e;
+		minValue[ node ] = value;
+		maxValue[ node ] = value;
+		minSize[ node ] = size;
+		parent[ node ] = -1;
+		childStart[ node ] = node == 0 ? 0 : childStart[ node - 1 ] + childCount[ node - 1 ];
+		childCount[ node ] = numKids;
+		for ( int k = 0; k < numKids; k++ ) {
+			final int kid = ( int ) kidBuffer[ k ];
+			children[ childStart[ node ] + k ] = kid;
+			parent[ kid ] = node;
+		}
+		compNode[ r ] = node;
+	}
+
+	private static int find( final int[] uf, int x ) {
+		while ( uf[ x ] != x ) {
+			uf[ x ] = uf[ uf[ x ] ];
+			x = uf[ x ];
+		}
+		return x;
+	}
+
+	// -------------------------------------------------------------------------------------
+	// access
+	// -------------------------------------------------------------------------------------
+	IntervalComponent getComponent( final int node ) {
+		return components[ node ];
+	}
+
+	/**
+	 * @return first position of the extended interval of the given node,
+	 *         i.e. half way to the previous sibling, or the start of the
+	 *         parent for the first child.
+	 */
+	int startExtended( final int node ) {
+		final int p = parent[ node ];
+		if ( p < 0 || childCount[ p ] < 2 ) return start[ node ]; // do not extend single children!
+		final int first = childStart[ p ];
+		if ( children[ first ] == node ) return start[ p ];
+		int prev = first;
+		while ( children[ prev + 1 ] != node ) {
+			prev++;
+		}
+		// positions at equal distance to both siblings belong to neither
+		return ( start[ node ] + end[ children[ prev ] ] ) / 2 + 1;
+	}
+
+	/**
+	 * @return last position of the extended interval of the given node, i.e.
+	 *         half way to the next sibling, or the end of the parent for the
+	 *         last child.
+	 */
+	int endExtended( final int node ) {
+		final int p = parent[ node ];
+		if ( p < 0 || childCount[ p ] < 2 ) return end[ node ];
+		final int last = childStart[ p ] + childCount[ p ] - 1;
+		if ( children[ last ] == node ) return end[ p ];
+		int next = last;
+		while ( children[ next - 1 ] != node ) {
+			next--;
+		}
+		return ( end[ node ] + start[ children[ next ] ] + 1 ) / 2 - 1;
+	}
+
+	/**
+	 * @return the number of nodes in the tree.
+	 */
+	public int size() {
+		return numNodes;
+	}
+
+	/**
+	 * Returns an iterator over all connected components in the tree.
+	 *
+	 * @return iterator over all connected components in the tree.
+	 */
+	@Override
+	public Iterator< IntervalComponent > iterator() {
+		return Arrays.asList( components ).iterator();
+	}
+
+	/**
+	 * Get the set of roots of the tree (respectively forest...).
+	 *
+	 * @return set of roots.
+	 */
+	@Override
+	public Set< IntervalComponent > roots() {
+		return roots;
+	}
+}
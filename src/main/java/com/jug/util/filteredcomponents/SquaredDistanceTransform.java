@@ -0,0 +1,96 @@
+package com.jug.util.filteredcomponents;
+
+/**
+ * Exact squared euclidean distance transform (Felzenszwalb and Huttenlocher)
+ * on a flat <code>long[]</code> holding an n-dimensional box. Sites have
+ * value 0, all other entries {@link #INFINITY}. The transform is separable,
+ * i.e. one pass of the 1d lower envelope of parabolas per dimension, and
+ * hence linear in the size of the box.
+ *
+ * @author jug
+ */
+final class SquaredDistanceTransform {
+
+	/**
+	 * Value of entries without a site (in reach).
+	 */
+	static final long INFINITY = Long.MAX_VALUE / 4;
+
+	private SquaredDistanceTransform() {}
+
+	/**
+	 * Replaces all values in <code>data</code> by the squared distance to
+	 * the closest site (entry of value 0) in the box.
+	 *
+	 * @param data
+	 *            the box, first dimension varying fastest.
+	 * @param size
+	 *            extent of the box per dimension.
+	 */
+	static void transform( final long[] data, final int[] size ) {
+		int maxSize = 0;
+		for ( final int s : size ) {
+			maxSize = Math.max( maxSize, s );
+		}
+		final long[] f = new long[ maxSize ];
+		final int[] v = new int[ maxSize ];
+		final double[] z = new double[ maxSize + 1 ];
+
+		int stride = 1;
+		for ( int d = 0; d < size.length; d++ ) {
+			final int n = size[ d ];
+			final int blockSize = stride * n;
+			for ( int block = 0; block < data.length; block += blockSize ) {
+				for ( int offset = block; offset < block + stride; offset++ ) {
+					transformLine( data, offset, stride, n, f, v, z );
+				}
+			}
+			stride = blockSize;
+		}
+	}
+
+	/**
+	 * 1d transform of the <code>n</code> values starting at
+	 * <code>offset</code>, <code>stride</code> apart.
+	 */
+	private static void transformLine( final long[] data, final int offset, final int stride, final int n, final long[] f, final int[] v, final double[] z ) {
+		int k = -1;
+		for ( int q = 0; q < n; q++ ) {
+			f[ q ] = data[ offset + q * stride ];
+			if ( f[ q ] >= INFINITY ) continue;
+
+			// add parabola of q to the lower envelope
+			while ( k >= 0 ) {
+				final double s = intersection( f, v[ k ], q );
+				if ( s > z[ k ] ) {
+					k++;
+					v[ k ] = q;
+					z[ k ] = s;
+					z[ k + 1 ] = Double.POSITIVE_INFINITY;
+					break;
+				}
+				k--;
+			}
+			if ( k < 0 ) {
+				k = 0;
+				v[ 0 ] = q;
+				z[ 0 ] = Double.NEGATIVE_INFINITY;
+				z[ 1 ] = Double.POSITIVE_INFINITY;
+			}
+		}
+		if ( k < 0 ) return; // no site on this line
+
+		k = 0;
+		for ( int q = 0; q < n; q++ ) {
+			while ( z[ k + 1 ] < q ) {
+				k++;
+			}
+			final long dq = q - v[ k ];
+			data[ offset + q * stride ] = dq * dq + f[ v[ k ] ];
+		}
+	}
+
+	private static double intersection( final long[] f, final int p, final int q ) {
+		return ( ( f[ q ] + ( long ) q * q ) - ( f[ p ] + ( long ) p * p ) ) / ( 2.0 * ( q - p ) );
+	}
+}
@@ -0,0 +1,79 @@
+package com.jug.export;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.jug.gui.AssignmentView;
+import com.jug.gui.Viewer2DCanvas;
+import com.jug.lp.AbstractAssignment;
+import com.jug.lp.Hypothesis;
+import com.jug.util.Util;
+
+import net.imglib2.FinalInterval;
+import net.imglib2.algorithm.componenttree.Component;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.display.imagej.ImageJFunctions;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.view.Views;
+
+/**
+ * Renders and writes the parts of an HTML overview the way a headless run
+ * does, i.e. with views that were never laid out.
+ */
+public class HtmlOverviewExporterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void setHeadless() {
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    @Test
+    public void testExportWithoutLayout() throws IOException {
+        final File imgFolder = folder.newFolder("imgs");
+
+        // frame image in the size the center canvas was created with
+        final Dimension canvasSize = new Viewer2DCanvas(null, 30, 100).getPreferredSize();
+        final BufferedImage frameImg = ImageJFunctions.wrapFloat(Views.interval(ArrayImgs.floats(40, 120), new FinalInterval(canvasSize.width, canvasSize.height)), "export").getBufferedImage();
+        Assert.assertEquals(30, frameImg.getWidth());
+        Assert.assertEquals(100, frameImg.getHeight());
+        Util.saveImage(frameImg, imgFolder.getAbsolutePath() + "/index_gl_00_glf_001.png");
+
+        // assignment image of a view that is not shown anywhere
+        final AssignmentView view = new AssignmentView(100, -100f, 100f);
+        view.display(new HashMap<Hypothesis<Component<FloatType, ?>>, Set<AbstractAssignment<Hypothesis<Component<FloatType, ?>>>>>(), true);
+        Assert.assertEquals(0, view.getSize().width);
+        final BufferedImage assignmentImg = HtmlOverviewExporter.renderOffscreen(view);
+        Assert.assertEquals(view.getPreferredSize().width, assignmentImg.getWidth());
+        Assert.assertEquals(view.getPreferredSize().height, assignmentImg.getHeight());
+        Util.saveImage(assignmentImg, imgFolder.getAbsolutePath() + "/index_gl_00_assmnts_001.png");
+
+        final File htmlFile = new File(folder.getRoot(), "index.html");
+        HtmlOverviewExporter.writeHtml(htmlFile, 1,
+                new String[]{"/index_gl_00_glf_001.png", "/index_gl_00_glf_002.png"},
+                new String[]{"/index_gl_00_assmnts_001.png", null});
+
+        Assert.assertTrue(new File(imgFolder, "index_gl_00_glf_001.png").length() > 0);
+        Assert.assertTrue(new File(imgFolder, "index_gl_00_assmnts_001.png").length() > 0);
+        final String html = new String(Files.readAllBytes(htmlFile.toPath()), StandardCharsets.UTF_8);
+        Assert.assertTrue(html.contains("t=1"));
+        Assert.assertTrue(html.contains("t=2"));
+        Assert.assertTrue(html.contains("<img src='./imgs/index_gl_00_glf_002.png'>"));
+        Assert.assertTrue(html.contains("<img src='./imgs/index_gl_00_assmnts_001.png'>"));
+        Assert.assertTrue(html.trim().endsWith("</html>"));
+    }
+}
@@ -0,0 +1,83 @@
+package com.jug.lp;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TrackingStateTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static TrackingState createState() {
+        final TrackingState state = new TrackingState();
+        state.put(TrackingState.SIFCC, 5, 3);
+        state.put(TrackingState.SSC, TrackingState.hypothesisKey(5, 12034), 1);
+        state.put(TrackingState.SSC, TrackingState.hypothesisKey(7, 40061), 0);
+        state.put(TrackingState.ASC, TrackingState.assignmentKey(6, GrowthLineTrackingILP.ASSIGNMENT_DIVISION, 98765), 1);
+        state.put(TrackingState.PR, TrackingState.hypothesisKey(9, 1002), 1);
+        state.setTimestamp(4711);
+        return state;
+    }
+
+    private static void assertSameRecords(final TrackingState expected, final TrackingState actual) {
+        for (int s = 0; s < TrackingState.NUM_SECTIONS; s++) {
+            Assert.assertEquals(expected.getSection(s), actual.getSection(s));
+        }
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws IOException {
+        final TrackingState state = createState();
+        final File file = folder.newFile("state.timb");
+        state.write(file);
+
+        Assert.assertTrue(TrackingState.isBinary(file));
+        final TrackingState read = TrackingState.read(file);
+        assertSameRecords(state, read);
+        Assert.assertEquals(4711, read.getTimestamp());
+    }
+
+    @Test
+    public void testTextRoundTrip() throws IOException {
+        final TrackingState state = createState();
+        final File file = folder.newFile("state.timm");
+        state.write(file);
+
+        Assert.assertFalse(TrackingState.isBinary(file));
+        final TrackingState read = TrackingState.read(file);
+        Assert.assertEquals(state.getSection(TrackingState.SIFCC), read.getSection(TrackingState.SIFCC));
+        Assert.assertEquals(state.getSection(TrackingState.SSC), read.getSection(TrackingState.SSC));
+        Assert.assertEquals(state.getSection(TrackingState.PR), read.getSection(TrackingState.PR));
+        // the text format does not store the assignment type
+        Assert.assertEquals(1, read.getSection(TrackingState.ASC).size());
+    }
+
+    @Test
+    public void testJournalReplay() throws IOException {
+        final File file = new File(folder.getRoot(), "--autosave.timb");
+        final TrackingStateJournal journal = new TrackingStateJournal(file);
+
+        TrackingState state = createState();
+        journal.record(state);
+        Assert.assertTrue(file.exists());
+
+        state = createState();
+        state.remove(TrackingState.PR, TrackingState.hypothesisKey(9, 1002));
+        state.put(TrackingState.SIFCC, 5, 4);
+        state.put(TrackingState.SIFCC, 8, 2);
+        journal.record(state);
+        Assert.assertTrue(TrackingStateJournal.getJournalFile(file).exists());
+
+        assertSameRecords(state, TrackingStateJournal.restore(file));
+
+        journal.compact(state);
+        Assert.assertFalse(TrackingStateJournal.getJournalFile(file).exists());
+        Assert.assertFalse(new File(folder.getRoot(), file.getName() + ".tmp").exists());
+        assertSameRecords(state, TrackingStateJournal.restore(file));
+    }
+}
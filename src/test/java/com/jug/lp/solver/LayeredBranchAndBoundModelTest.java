@@ -0,0 +1,109 @@
+package com.jug.lp.solver;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LayeredBranchAndBoundModelTest {
+
+    /**
+     * Two time-points with two hypotheses each; the chain a0 -> b1 is
+     * cheapest, but b0 and b1 are mutually exclusive.
+     */
+    @Test
+    public void testFindsOptimumOfSmallChain() throws IlpException {
+        final LayeredBranchAndBoundModel model = new LayeredBranchAndBoundModel();
+        final IlpVar a0 = model.addVar(0, 1, -2, IlpModel.BINARY, "a0", 0);
+        final IlpVar b0 = model.addVar(0, 1, -1, IlpModel.BINARY, "b0", 0);
+        final IlpVar a1 = model.addVar(0, 1, -1, IlpModel.BINARY, "a1", 1);
+        final IlpVar b1 = model.addVar(0, 1, -3, IlpModel.BINARY, "b1", 1);
+
+        final IlpLinExpr exclusive = new IlpLinExpr();
+        exclusive.addTerm(1, b0);
+        exclusive.addTerm(1, b1);
+        model.addConstr(exclusive, IlpModel.LESS_EQUAL, 1, "exclusive");
+
+        final IlpLinExpr oneAtT1 = new IlpLinExpr();
+        oneAtT1.addTerm(1, a1);
+        oneAtT1.addTerm(1, b1);
+        model.addConstr(oneAtT1, IlpModel.EQUAL, 1, "oneAtT1");
+
+        Assert.assertEquals(IlpModel.OPTIMAL, model.optimize(null));
+        Assert.assertEquals(-5, model.getObjVal(), 1e-9);
+        Assert.assertEquals(1, a0.getValue(), 0);
+        Assert.assertEquals(0, b0.getValue(), 0);
+        Assert.assertEquals(0, a1.getValue(), 0);
+        Assert.assertEquals(1, b1.getValue(), 0);
+    }
+
+    /**
+     * The warm start makes the first dive end in a suboptimal solution. A
+     * large optimality gap (as used by the GUI) must not stop the search
+     * before the time limit is reached.
+     */
+    @Test
+    public void testLargeOptimalityGapDoesNotPruneBeforeTimeLimit() throws IlpException {
+        final LayeredBranchAndBoundModel model = new LayeredBranchAndBoundModel();
+        final IlpVar x = model.addVar(0, 1, -5, IlpModel.BINARY, "x", 0);
+        final IlpVar y = model.addVar(0, 1, -6, IlpModel.BINARY, "y", 0);
+
+        final IlpLinExpr exclusive = new IlpLinExpr();
+        exclusive.addTerm(1, x);
+        exclusive.addTerm(1, y);
+        model.addConstr(exclusive, IlpModel.LESS_EQUAL, 1, "exclusive");
+
+        model.setTimeLimit(60, 0.99);
+        model.setStart(new double[] { 1, 0 });
+        Assert.assertEquals(IlpModel.OPTIMAL, model.optimize(null));
+        Assert.assertEquals(-6, model.getObjVal(), 1e-9);
+        Assert.assertEquals(0, x.getValue(), 0);
+        Assert.assertEquals(1, y.getValue(), 0);
+    }
+
+    @Test
+    public void testDetectsInfeasibility() throws IlpException {
+        final LayeredBranchAndBoundModel model = new LayeredBranchAndBoundModel();
+        final IlpVar x = model.addVar(0, 1, 1, IlpModel.BINARY, "x", 0);
+        final IlpVar y = model.addVar(0, 1, 1, IlpModel.BINARY, "y", 0);
+
+        final IlpLinExpr both = new IlpLinExpr();
+        both.addTerm(1, x);
+        both.addTerm(1, y);
+        model.addConstr(both, IlpModel.GREATER_EQUAL, 3, "impossible");
+
+        Assert.assertEquals(IlpModel.INFEASIBLE, model.optimize(null));
+        Assert.assertFalse(model.hasSolution());
+    }
+
+    @Test
+    public void testRemovedConstraintIsIgnored() throws IlpException {
+        final LayeredBranchAndBoundModel model = new LayeredBranchAndBoundModel();
+        final IlpVar x = model.addVar(0, 1, -1, IlpModel.BINARY, "x", 0);
+
+        final IlpLinExpr expr = new IlpLinExpr();
+        expr.addTerm(1, x);
+        final IlpConstr forbid = model.addConstr(expr, IlpModel.EQUAL, 0, "forbid");
+        model.optimize(null);
+        Assert.assertEquals(0, x.getValue(), 0);
+
+        model.remove(forbid);
+        model.optimize(null);
+        Assert.assertEquals(1, x.getValue(), 0);
+    }
+
+    @Test
+    public void testBulkObjectiveUpdateIsUsedByNextSolve() throws IlpException {
+        final LayeredBranchAndBoundModel model = new LayeredBranchAndBoundModel();
+        final IlpVar x = model.addVar(0, 1, -1, IlpModel.BINARY, "x", 0);
+        final IlpVar y = model.addVar(0, 1, 1, IlpModel.BINARY, "y", 0);
+        model.optimize(null);
+        Assert.assertEquals(1, x.getValue(), 0);
+        Assert.assertEquals(0, y.getValue(), 0);
+
+        model.setObjs(new double[] { 1, -2 });
+        Assert.assertEquals(-2, y.getObj(), 0);
+        model.optimize(null);
+        Assert.assertEquals(-2, model.getObjVal(), 1e-9);
+        Assert.assertEquals(0, x.getValue(), 0);
+        Assert.assertEquals(1, y.getValue(), 0);
+    }
+}
@@ -13,6 +13,8 @@ import ij.IJ;
 import ij.ImagePlus;
 import net.imglib2.Cursor;
 import net.imglib2.img.Img;
+import net.imglib2.img.basictypeaccess.array.FloatArray;
+import net.imglib2.img.planar.PlanarImg;
 import net.imglib2.type.numeric.real.FloatType;
 
 /**
@@ -95,6 +97,20 @@ public class FloatTypeImgLoaderTest {
 
     }
 
+    @Test
+    public void testLastFrameIsDuplicatedWithoutCopy() {
+        String filename = new File("").getAbsolutePath() + "/src/test/resources/sequence_as_file_8bit.tif";
+
+        ArrayList<PlanarImg<FloatType, FloatArray>> list = PlanarTiffLoader.load(filename, 1, 5, 1, 2, true);
+
+        Assert.assertEquals(2, list.size());
+        for (PlanarImg<FloatType, FloatArray> img : list) {
+            Assert.assertEquals(6, img.numSlices());
+            // the duplicated frame shares the pixel array of the last loaded frame
+            Assert.assertSame(img.getPlane(4).getCurrentStorageArray(), img.getPlane(5).getCurrentStorageArray());
+        }
+    }
+
     @Test
     public void testIfLoadingFilesAndFoldersResultsInEqualImages()throws FileNotFoundException
     {
@@ -0,0 +1,75 @@
+package com.jug.util.filteredcomponents;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import net.imglib2.algorithm.componenttree.Component;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.ValuePair;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.jug.util.ComponentTreeUtils;
+import com.jug.util.filteredcomponents.FilteredComponentTree.Filter;
+import com.jug.util.filteredcomponents.FilteredComponentTree.MaxGrowthPerStep;
+import com.jug.util.filteredcomponents.FilteredComponentTree.MaxGrowthPerStepRatioWithMinimalAbsoluteIncrease;
+
+public class IntervalComponentTreeTest {
+
+    private static <C extends Component<FloatType, C> & ExtendableComponent<FloatType>> String describe(final C node) {
+        final ValuePair<Integer, Integer> interval = ComponentTreeUtils.getTreeNodeInterval(node);
+        final ValuePair<Integer, Integer> extended = ComponentTreeUtils.getExtendedTreeNodeInterval(node);
+        final C parent = node.getParent();
+        return interval.getA() + "-" + interval.getB()
+                + " values " + node.minValue().get() + "-" + node.maxValue().get()
+                + " extended " + extended.getA() + "-" + extended.getB()
+                + " children " + node.getChildren().size()
+                + " parent " + (parent == null ? "none" : ComponentTreeUtils.getTreeNodeInterval(parent).toString());
+    }
+
+    private static void assertSameTree(final float[] values, final long minSize, final Filter filter) {
+        final List<String> expected = new ArrayList<String>();
+        for (final FilteredComponent<FloatType> node : FilteredComponentTree.buildComponentTree(ArrayImgs.floats(values.clone(), values.length), new FloatType(), minSize, Long.MAX_VALUE, filter, true)) {
+            expected.add(describe(node));
+        }
+        final List<String> actual = new ArrayList<String>();
+        for (final IntervalComponent node : IntervalComponentTree.buildComponentTree(values, minSize, Long.MAX_VALUE, filter, true)) {
+            actual.add(describe(node));
+        }
+        Collections.sort(expected);
+        Collections.sort(actual);
+        Assert.assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testMatchesFilteredComponentTree() {
+        final Random random = new Random(42);
+        final Filter[] filters = new Filter[] {new MaxGrowthPerStep(1000), new MaxGrowthPerStep(3), new MaxGrowthPerStepRatioWithMinimalAbsoluteIncrease(0.05, 6)};
+        for (int trial = 0; trial < 300; trial++) {
+            final float[] values = new float[1 + random.nextInt(80)];
+            final int range = trial % 2 == 0 ? 4 : 1000; // few distinct values give plateaus
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextInt(range);
+            }
+            assertSameTree(values, 1 + random.nextInt(4), filters[trial % filters.length]);
+        }
+    }
+
+    @Test
+    public void testChildrenOrderedByPosition() {
+        final IntervalComponentTree tree = IntervalComponentTree.buildComponentTree(new float[] {0, 0, 5, 1, 1, 5, 2, 2, 9}, 1, Long.MAX_VALUE, new MaxGrowthPerStep(1000), true);
+        Assert.assertEquals(1, tree.roots().size());
+        final IntervalComponent root = tree.roots().iterator().next();
+        Assert.assertEquals(0, root.getStart());
+        Assert.assertEquals(8, root.getEnd());
+        int previousEnd = -1;
+        for (final IntervalComponent child : root.getChildren()) {
+            Assert.assertTrue(child.getStart() > previousEnd);
+            previousEnd = child.getEnd();
+        }
+    }
+}
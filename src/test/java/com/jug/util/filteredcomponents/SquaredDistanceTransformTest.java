@@ -0,0 +1,47 @@
+package com.jug.util.filteredcomponents;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SquaredDistanceTransformTest {
+
+    private static long[] bruteForce(final boolean[] sites, final int[] size) {
+        final long[] ret = new long[sites.length];
+        for (int i = 0; i < sites.length; i++) {
+            long min = SquaredDistanceTransform.INFINITY;
+            for (int j = 0; j < sites.length; j++) {
+                if (!sites[j]) continue;
+                final long dx = i % size[0] - j % size[0];
+                final long dy = i / size[0] - j / size[0];
+                min = Math.min(min, dx * dx + dy * dy);
+            }
+            ret[i] = min;
+        }
+        return ret;
+    }
+
+    @Test
+    public void testMatchesBruteForce2D() {
+        final Random random = new Random(42);
+        final int[] size = new int[] {23, 17};
+        for (int trial = 0; trial < 20; trial++) {
+            final boolean[] sites = new boolean[size[0] * size[1]];
+            final long[] data = new long[sites.length];
+            for (int i = 0; i < sites.length; i++) {
+                sites[i] = random.nextInt(30) == 0;
+                data[i] = sites[i] ? 0 : SquaredDistanceTransform.INFINITY;
+            }
+            SquaredDistanceTransform.transform(data, size);
+            Assert.assertArrayEquals(bruteForce(sites, size), data);
+        }
+    }
+
+    @Test
+    public void testLine() {
+        final long[] data = new long[] {SquaredDistanceTransform.INFINITY, 0, SquaredDistanceTransform.INFINITY, SquaredDistanceTransform.INFINITY, SquaredDistanceTransform.INFINITY, 0};
+        SquaredDistanceTransform.transform(data, new int[] {data.length});
+        Assert.assertArrayEquals(new long[] {1, 0, 1, 4, 1, 0}, data);
+    }
+}